@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package gui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event covering the start of the animations of one step of the execution of the machine.
+ * @see TuringMachineDrawer
+ */
+@Name("turingmachines.gui.FlushTimeline")
+@Label("Flush Timeline")
+@Category({"Turing Machines", "GUI"})
+@Description("Start of the animations of one step of the execution of the machine")
+class FlushTimelineEvent extends jdk.jfr.Event {
+
+    @Label("Animations")
+    @Description("Number of animations played in parallel")
+    int animations;
+
+    @Label("Instant")
+    @Description("True if the changes are displayed without animation")
+    boolean instant;
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package gui;
+
+import jdk.jfr.EventType;
+
+/**
+ * Events of the graphical interface recorded with the flight recorder. This class is loaded by reflection by
+ * {@link GuiEvents}. No event is allocated while its type is disabled.
+ */
+class JfrGuiEvents extends GuiEvents {
+
+    private static final EventType FLUSH_TIMELINE = EventType.getEventType(FlushTimelineEvent.class);
+
+    @Override
+    Object beginFlushTimeline(int animations, boolean instant) {
+        if(!FLUSH_TIMELINE.isEnabled())
+            return null;
+        FlushTimelineEvent event = new FlushTimelineEvent();
+        event.begin();
+        event.animations = animations;
+        event.instant = instant;
+        return event;
+    }
+
+    @Override
+    void endFlushTimeline(Object event) {
+        if(event != null)
+            ((FlushTimelineEvent) event).commit();
+    }
+}
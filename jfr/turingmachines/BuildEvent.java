@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event covering a whole call to {@link TuringMachine#build()}.
+ */
+@Name("turingmachines.Build")
+@Label("Build")
+@Category({"Turing Machines", "Engine"})
+@Description("Exploration of the configurations of a machine")
+class BuildEvent extends jdk.jfr.Event {
+
+    @Label("States")
+    int states;
+
+    @Label("Explored configurations")
+    long exploredConfigurations;
+
+    @Label("Path length")
+    @Description("Number of transitions of the built path, -1 if no final configuration was reached")
+    int pathLength;
+
+    @Label("Cancelled")
+    boolean cancelled;
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering the computation of the children of one configuration during a build. Only one
+ * expansion every {@link TuringMachine#EXPAND_EVENT_SAMPLING} expansions is recorded.
+ * @see TuringMachine#build()
+ */
+@Name("turingmachines.Expand")
+@Label("Expand")
+@Category({"Turing Machines", "Engine"})
+@StackTrace(false)
+@Description("Computation of the configurations reached from a configuration by firing one transition (sampled)")
+class ExpandEvent extends jdk.jfr.Event {
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Children")
+    int children;
+
+    @Label("Tape cells touched")
+    @Description("Number of cells written since the beginning of the execution on all the tapes")
+    int tapeCellsTouched;
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event covering the exploration of all the configurations at the same depth during a build.
+ * @see TuringMachine#build()
+ */
+@Name("turingmachines.ExploreLevel")
+@Label("Explore Level")
+@Category({"Turing Machines", "Engine"})
+@Description("Exploration of the configurations reached by firing the same number of transitions")
+class ExploreLevelEvent extends jdk.jfr.Event {
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Explored configurations")
+    long exploredConfigurations;
+
+    @Label("Frontier size")
+    @Description("Number of configurations waiting to be explored at the end of the level")
+    int frontierSize;
+}
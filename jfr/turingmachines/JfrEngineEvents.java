@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import jdk.jfr.EventType;
+
+import java.util.List;
+
+/**
+ * Events of the engine recorded with the flight recorder. This class is loaded by reflection by
+ * {@link EngineEvents}. No event is allocated while its type is disabled, and the fields of an event are only
+ * computed if the flight recorder commits it.
+ */
+class JfrEngineEvents extends EngineEvents {
+
+    private static final EventType BUILD = EventType.getEventType(BuildEvent.class);
+    private static final EventType EXPLORE_LEVEL = EventType.getEventType(ExploreLevelEvent.class);
+    private static final EventType EXPAND = EventType.getEventType(ExpandEvent.class);
+    private static final EventType LOAD_CONFIGURATION = EventType.getEventType(LoadConfigurationEvent.class);
+
+    @Override
+    Object beginBuild() {
+        if(!BUILD.isEnabled())
+            return null;
+        BuildEvent event = new BuildEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endBuild(Object event, int states, long exploredConfigurations, int pathLength, boolean cancelled) {
+        if(event == null)
+            return;
+        BuildEvent buildEvent = (BuildEvent) event;
+        buildEvent.end();
+        if(buildEvent.shouldCommit()){
+            buildEvent.states = states;
+            buildEvent.exploredConfigurations = exploredConfigurations;
+            buildEvent.pathLength = pathLength;
+            buildEvent.cancelled = cancelled;
+            buildEvent.commit();
+        }
+    }
+
+    @Override
+    Object beginExploreLevel(int depth) {
+        if(!EXPLORE_LEVEL.isEnabled())
+            return null;
+        ExploreLevelEvent event = new ExploreLevelEvent();
+        event.depth = depth;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endExploreLevel(Object event, long exploredConfigurations, int frontierSize) {
+        if(event == null)
+            return;
+        ExploreLevelEvent levelEvent = (ExploreLevelEvent) event;
+        levelEvent.end();
+        if(levelEvent.shouldCommit()){
+            levelEvent.exploredConfigurations = exploredConfigurations;
+            levelEvent.frontierSize = frontierSize;
+            levelEvent.commit();
+        }
+    }
+
+    @Override
+    Object beginExpand() {
+        if(!EXPAND.isEnabled())
+            return null;
+        ExpandEvent event = new ExpandEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endExpand(Object event, int depth, int children, List<Tape> tapes) {
+        if(event == null)
+            return;
+        ExpandEvent expandEvent = (ExpandEvent) event;
+        expandEvent.end();
+        if(expandEvent.shouldCommit()){
+            expandEvent.depth = depth;
+            expandEvent.children = children;
+            for(Tape tape : tapes)
+                expandEvent.tapeCellsTouched += tape.getNbWrittenCells();
+            expandEvent.commit();
+        }
+    }
+
+    @Override
+    Object beginLoadConfiguration() {
+        if(!LOAD_CONFIGURATION.isEnabled())
+            return null;
+        LoadConfigurationEvent event = new LoadConfigurationEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endLoadConfiguration(Object event, int replayedTransitions, boolean logged, int changedCells) {
+        if(event == null)
+            return;
+        LoadConfigurationEvent loadEvent = (LoadConfigurationEvent) event;
+        loadEvent.end();
+        if(loadEvent.shouldCommit()){
+            loadEvent.replayedTransitions = replayedTransitions;
+            loadEvent.logged = logged;
+            loadEvent.changedCells = changedCells;
+            loadEvent.commit();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering the loading of a configuration, either to explore it (the transitions leading to
+ * it from its last stored ancestor are fired again) or to display it (the changed cells are broadcast). As this
+ * event is frequent during a build, its stack trace is not recorded.
+ */
+@Name("turingmachines.LoadConfiguration")
+@Label("Load Configuration")
+@Category({"Turing Machines", "Engine"})
+@StackTrace(false)
+@Description("Loading of a configuration of a machine")
+class LoadConfigurationEvent extends jdk.jfr.Event {
+
+    @Label("Replayed transitions")
+    @Description("Number of transitions fired again from the last stored ancestor of the configuration")
+    int replayedTransitions;
+
+    @Label("Logged")
+    @Description("True if the changes are broadcast to the listeners of the machine")
+    boolean logged;
+
+    @Label("Changed cells")
+    @Description("Number of cells broadcast as changed, 0 if the changes are not broadcast")
+    int changedCells;
+}
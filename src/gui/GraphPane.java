@@ -7,6 +7,9 @@ package gui;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.scene.Group;
 import javafx.scene.Node;
@@ -19,8 +22,6 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.transform.Scale;
 import javafx.util.Duration;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import turingmachines.*;
 import util.*;
 import util.Vector;
@@ -29,6 +30,11 @@ import java.util.*;
 
 /**
  * This widget displays the graph of the edited Turing machine.
+ *
+ * In order to display large machines, the states and the transitions are registered in a spatial index and only the
+ * widgets intersecting the visible part of the pane are attached to the scene graph. The other widgets are detached
+ * and attached again when the graph is translated, scaled or edited. When the graph is zoomed out, the names of the
+ * states and the symbols of the transitions are not displayed.
  */
 class GraphPane extends Pane implements MouseListener {
 
@@ -90,6 +96,28 @@ class GraphPane extends Pane implements MouseListener {
      */
     private Node selected;
 
+    /**
+     * Spatial index of the widgets of the states and the transitions, in the coordinates of {@link #graphGroup}.
+     */
+    private SpatialIndex<Node> spatialIndex;
+
+    /**
+     * Widgets of the states and the transitions currently attached to {@link #graphGroup}.
+     */
+    private Set<Node> displayedNodes;
+
+    /**
+     * For each widget of a state or a transition, the listener updating the spatial index when the widget is moved or
+     * resized.
+     */
+    private Map<Node, ChangeListener<Bounds>> boundsListeners;
+
+    /**
+     * True if the names of the states and the symbols of the transitions are displayed.
+     * @see TuringMachineDrawer#GRAPH_DETAIL_MIN_SCALE
+     */
+    private boolean detailed;
+
     /**
      * Construction initializing the pane.
      */
@@ -140,11 +168,19 @@ class GraphPane extends Pane implements MouseListener {
             graphScale.setPivotY(newValue.getHeight()/2);
             graphClip.setWidth(newValue.getWidth());
             graphClip.setHeight(newValue.getHeight());
+            updateDisplayedNodes();
         });
 
         stateGroups = new ArrayList<>();
         transitionToTransitionGroup = new HashMap<>();
 
+        spatialIndex = new SpatialIndex<>(TuringMachineDrawer.GRAPH_INDEX_BUCKET_WIDTH);
+        displayedNodes = new HashSet<>();
+        boundsListeners = new HashMap<>();
+        detailed = true;
+
+        graphScale.yProperty().addListener((obs, oldVal, newVal) -> updateDisplayedNodes());
+
         // Init some parameters to default values
         clear();
     }
@@ -166,6 +202,8 @@ class GraphPane extends Pane implements MouseListener {
         closeTransitionSettingsRectangle();
         stateSettingsRectangle.clear();
         transitionSettingsRectangle.clear();
+
+        updateDisplayedNodes();
     }
 
     /**
@@ -211,7 +249,7 @@ class GraphPane extends Pane implements MouseListener {
         while(stateGroups.size() < state)
             stateGroups.add(null);
         stateGroups.add(stateGroup);
-        graphGroup.getChildren().add(stateGroup);
+        addNode(stateGroup);
     }
 
     /**
@@ -241,7 +279,7 @@ class GraphPane extends Pane implements MouseListener {
         this.closeTransitionSettingsRectangle();
 
         StateGroup stateGroup = stateGroups.remove(state);
-        graphGroup.getChildren().remove(stateGroup);
+        removeNode(stateGroup);
 
         for(int i = state; i < stateGroups.size(); i++)
             stateGroups.get(i).state -= 1;
@@ -299,8 +337,7 @@ class GraphPane extends Pane implements MouseListener {
             transitionGroup.setControl2(control2X, control2Y);
 
         transitionToTransitionGroup.put(transition, transitionGroup);
-        graphGroup.getChildren().add(transitionGroup);
-        transitionGroup.toBack();
+        addNode(transitionGroup);
 
         // Add all the tapes and the heads to the String displayed next to the transition.
         Iterator<Tape> it = TuringMachineDrawer.getInstance().machine.getTapes();
@@ -330,7 +367,119 @@ class GraphPane extends Pane implements MouseListener {
         TransitionGroup transitionGroup = transitionToTransitionGroup.remove(transition);
         this.closeStateSettingsRectangle();
         this.closeTransitionSettingsRectangle();
-        graphGroup.getChildren().remove(transitionGroup);
+        removeNode(transitionGroup);
+    }
+
+    /**
+     * Register the given widget of a state or a transition in the spatial index and attach it to the graph if it is
+     * visible.
+     * @param node
+     */
+    private void addNode(Node node){
+        ChangeListener<Bounds> listener = (obs, oldVal, newVal) -> indexNode(node);
+        node.boundsInParentProperty().addListener(listener);
+        boundsListeners.put(node, listener);
+        indexNode(node);
+    }
+
+    /**
+     * Unregister the given widget of a state or a transition from the spatial index and detach it from the graph.
+     * @param node
+     */
+    private void removeNode(Node node){
+        ChangeListener<Bounds> listener = boundsListeners.remove(node);
+        if(listener != null)
+            node.boundsInParentProperty().removeListener(listener);
+        spatialIndex.remove(node);
+        detachNode(node);
+    }
+
+    /**
+     * Update the bounds of the given widget in the spatial index and attach or detach it depending on whether it is
+     * visible or not.
+     * @param node
+     */
+    private void indexNode(Node node){
+        Bounds bounds = node.getBoundsInParent();
+        if(bounds.isEmpty())
+            spatialIndex.put(node, node.getLayoutX(), node.getLayoutY(), node.getLayoutX(), node.getLayoutY());
+        else
+            spatialIndex.put(node, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+
+        Bounds viewport = getViewport();
+        if(spatialIndex.intersects(node,
+                viewport.getMinX(), viewport.getMinY(), viewport.getMaxX(), viewport.getMaxY()))
+            attachNode(node);
+        else
+            detachNode(node);
+    }
+
+    /**
+     * @return the visible part of the pane in the coordinates of {@link #graphGroup}.
+     */
+    private Bounds getViewport(){
+        return graphGroup.parentToLocal(new BoundingBox(0, 0, this.getWidth(), this.getHeight()));
+    }
+
+    /**
+     * Attach the visible widgets of the states and the transitions to the graph and detach the other ones. Only the
+     * widgets that were visible or that become visible are visited.
+     */
+    private void updateDisplayedNodes(){
+        boolean detailed = graphScale.getX() >= TuringMachineDrawer.GRAPH_DETAIL_MIN_SCALE;
+        if(detailed != this.detailed){
+            this.detailed = detailed;
+            for(Node node : displayedNodes)
+                setDetailed(node, detailed);
+        }
+
+        Bounds viewport = getViewport();
+        Set<Node> visibleNodes = spatialIndex.query(
+                viewport.getMinX(), viewport.getMinY(), viewport.getMaxX(), viewport.getMaxY());
+
+        for(Node node : new ArrayList<>(displayedNodes))
+            if(!visibleNodes.contains(node))
+                detachNode(node);
+        for(Node node : visibleNodes)
+            attachNode(node);
+    }
+
+    /**
+     * Attach the given widget to the graph if it is not already attached. The transitions are drawn behind the
+     * states.
+     * @param node
+     */
+    private void attachNode(Node node){
+        if(!displayedNodes.add(node))
+            return;
+
+        setDetailed(node, detailed);
+        if(node instanceof TransitionGroup)
+            graphGroup.getChildren().add(0, node);
+        else {
+            graphGroup.getChildren().add(node);
+            // The settings rectangles stay in front of the states.
+            if(stateSettingsRectangle.isVisible())
+                stateSettingsRectangle.toFront();
+            if(transitionSettingsRectangle.isVisible())
+                transitionSettingsRectangle.toFront();
+        }
+    }
+
+    /**
+     * Detach the given widget from the graph if it is attached.
+     * @param node
+     */
+    private void detachNode(Node node){
+        if(displayedNodes.remove(node))
+            graphGroup.getChildren().remove(node);
+    }
+
+    private static void setDetailed(Node node, boolean detailed){
+        if(node instanceof StateGroup)
+            ((StateGroup) node).setDetailed(detailed);
+        else if(node instanceof TransitionGroup)
+            ((TransitionGroup) node).setDetailed(detailed);
     }
 
     /**
@@ -695,6 +844,7 @@ class GraphPane extends Pane implements MouseListener {
     void translate(double dx, double dy) {
         graphGroup.setTranslateX(graphGroup.getTranslateX() + dx);
         graphGroup.setTranslateY(graphGroup.getTranslateY() + dy);
+        updateDisplayedNodes();
     }
 
     /**
@@ -799,6 +949,21 @@ class GraphPane extends Pane implements MouseListener {
         return timeline;
     }
 
+    /**
+     * Change the current state pointed by the state register during the machine execution without animation.
+     * @param state the next current state or null if the machine is not executed anymore.
+     * @see #lastCurrentStateGroup
+     */
+    void setCurrentState(Integer state) {
+        if(lastCurrentStateGroup != null)
+            lastCurrentStateGroup.setCurrentState(false);
+
+        lastCurrentStateGroup = (state == null) ? null : stateGroups.get(state);
+
+        if(lastCurrentStateGroup != null)
+            lastCurrentStateGroup.setCurrentState(true);
+    }
+
     /**
      * @return the timeline animating the fact that the machine is not executed anymore and that the state register
      * is not pointing at any state.
@@ -839,113 +1004,41 @@ class GraphPane extends Pane implements MouseListener {
     }
 
     /**
-     * @return a JSON description of the graph
+     * Draw the number of visits of each state and the number of firings of each transition of the profile of the
+     * machine as a heat map over the graph, or hide the heat map if the machine is not profiled.
+     * @see TuringMachine#getProfile()
      */
-    JSONObject getJSON() {
-        JSONArray jsonStates = new JSONArray();
-        for(int state = 0; state < TuringMachineDrawer.getInstance().machine.getNbStates(); state++)
-            jsonStates.put(stateGroups.get(state).getJSON());
+    void updateHeatMap() {
+        ExecutionProfile profile = TuringMachineDrawer.getInstance().machine.getProfile();
+        if(profile == null){
+            for(StateGroup stateGroup : stateGroups)
+                stateGroup.setHeat(null);
+            for(TransitionGroup transitionGroup : transitionToTransitionGroup.values())
+                transitionGroup.setHeat(null);
+            return;
+        }
 
-        JSONArray jsonTransition = new JSONArray();
-        for(TransitionGroup transitionGroup : transitionToTransitionGroup.values())
-            jsonTransition.put(transitionGroup.getJSON());
+        long maximumVisits = profile.getMaximumVisits();
+        for(int state = 0; state < stateGroups.size(); state++)
+            stateGroups.get(state).setHeat(maximumVisits == 0 ? 0 :
+                    (double) profile.getVisits(state) / maximumVisits);
 
-        return new JSONObject().put("states", jsonStates).put("transitions", jsonTransition);
+        long maximumFires = profile.getMaximumFires();
+        for(Map.Entry<Transition, TransitionGroup> entry : transitionToTransitionGroup.entrySet())
+            entry.getValue().setHeat(maximumFires == 0 ? 0 :
+                    (double) profile.getFires(entry.getKey()) / maximumFires);
     }
 
     /**
-     * Load a JSON description of the graph and apply it to the pane.
-     * @param jsonGraph
+     * Store the positions of the states and the control keys of the transitions in the given layout.
+     * @param layout
      */
-    void loadJSON(JSONObject jsonGraph){
-        JSONArray jsonStates = jsonGraph.getJSONArray("states");
-        for(int i = 0; i < jsonStates.length(); i++){
-            JSONObject jsonState = jsonStates.getJSONObject(i);
-            double x = jsonState.getDouble("x");
-            double y = jsonState.getDouble("y");
-            String name = jsonState.getString("name");
-
-            // Add a state to the machine and the associated state group
-            int state = TuringMachineDrawer.getInstance().addState(x, y, name);
-            StateGroup stateGroup = stateGroups.get(state);
-
-            if(jsonState.getBoolean("isInitial"))
-                this.toggleInitial(stateGroup);
-
-            if(jsonState.getBoolean("isFinal"))
-                this.toggleFinal(stateGroup);
-
-            if(jsonState.getBoolean("isAccepting"))
-                this.toggleAccepting(stateGroup);
-
-        }
-
-        JSONArray jsonTransitions = jsonGraph.getJSONArray("transitions");
-        for(int i = 0; i < jsonTransitions.length(); i++) {
-            JSONObject jsonTransition = jsonTransitions.getJSONObject(i);
-
-            int inputState = jsonTransition.getInt("input");
-            int outputState = jsonTransition.getInt("output");
-
-            double control1X = jsonTransition.getDouble("control1X");
-            double control1Y = jsonTransition.getDouble("control1Y");
-            double control2X = jsonTransition.getDouble("control2X");
-            double control2Y = jsonTransition.getDouble("control2Y");
-
-            // Add a transition to the machine and the associated transition group
-            Transition transition = TuringMachineDrawer.getInstance().addTransition(inputState, outputState,
-                    control1X, control1Y,
-                    control2X, control2Y);
-            TransitionGroup transitionGroup = transitionToTransitionGroup.get(transition);
-
-            JSONObject jsonDisplay = jsonTransition.getJSONObject("display");
-            JSONArray jsonReadSymbols = jsonDisplay.getJSONArray("readSymbols");
-            for(int tapeId = 0; tapeId < jsonReadSymbols.length(); tapeId++){
-                JSONArray jsonReadSymbolsOfTape = jsonReadSymbols.getJSONArray(tapeId);
-                Tape tape = TuringMachineDrawer.getInstance().machine.getTape(tapeId);
-                for(int head = 0; head < jsonReadSymbolsOfTape.length(); head++){
-                    JSONArray jsonReadSymbolsOfHead = jsonReadSymbolsOfTape.getJSONArray(head);
-                    for(Object symbol : jsonReadSymbolsOfHead) {
-                        if(symbol.equals("BLANK_SYMBOL"))
-                            symbol = TuringMachineDrawer.BLANK_SYMBOL;
-                        this.addReadSymbol(transitionGroup, tape, head, (String) symbol);
-                    }
-                }
-            }
-
-            JSONArray jsonActions = jsonDisplay.getJSONArray("actions");
-            for(int j = 0; j < jsonActions.length(); j++){
-                JSONObject jsonAction = jsonActions.getJSONObject(j);
-
-                Color color = Color.valueOf(jsonAction.getString("color"));
-                Pair<Tape, Integer> pair = TuringMachineDrawer.getInstance().getHead(color);
-                Tape tape = pair.first;
-                Integer head = pair.second;
-
-                String actionSymbol = jsonAction.getString("actionSymbol");
-                switch (actionSymbol) {
-                    case "RIGHT_SYMBOL":
-                        actionSymbol = TuringMachineDrawer.RIGHT_SYMBOL;
-                        break;
-                    case "LEFT_SYMBOL":
-                        actionSymbol = TuringMachineDrawer.LEFT_SYMBOL;
-                        break;
-                    case "UP_SYMBOL":
-                        actionSymbol = TuringMachineDrawer.UP_SYMBOL;
-                        break;
-                    case "DOWN_SYMBOL":
-                        actionSymbol = TuringMachineDrawer.DOWN_SYMBOL;
-                        break;
-                    case "BLANK_SYMBOL":
-                        actionSymbol = TuringMachineDrawer.BLANK_SYMBOL;
-                        break;
-                }
-
-                this.addAction(transitionGroup, tape, head, actionSymbol);
-            }
-
-        }
+    void fillLayout(MachineLayout layout) {
+        for(int state = 0; state < TuringMachineDrawer.getInstance().machine.getNbStates(); state++)
+            stateGroups.get(state).fillLayout(layout);
 
+        for(TransitionGroup transitionGroup : transitionToTransitionGroup.values())
+            transitionGroup.fillLayout(layout);
     }
 
     /**
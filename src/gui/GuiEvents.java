@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package gui;
+
+/**
+ * Flight recorder events emitted by the graphical interface.
+ *
+ * As for the events of the engine, the events use the jdk.jfr API, which is not part of Java 8. They are written in
+ * the folder jfr, compiled only with a JDK providing that API, and loaded by reflection through the class
+ * JfrGuiEvents. When that class cannot be loaded, {@link #INSTANCE} is this class, whose methods record nothing.
+ */
+class GuiEvents {
+
+    /**
+     * Name of the class recording the events with the flight recorder.
+     */
+    private static final String RECORDER_CLASS = "gui.JfrGuiEvents";
+
+    /**
+     * Events of the graphical interface, recorded with the flight recorder if it is available.
+     */
+    static final GuiEvents INSTANCE = load();
+
+    private static GuiEvents load(){
+        try {
+            return (GuiEvents) Class.forName(RECORDER_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return new GuiEvents();
+        }
+    }
+
+    /**
+     * Start recording the start of the animations of one step of the execution of the machine.
+     * @param animations number of animations played in parallel.
+     * @param instant true if the changes are displayed without animation.
+     * @return the event, which must be given to {@link #endFlushTimeline(Object)}, or null if nothing is recorded.
+     */
+    Object beginFlushTimeline(int animations, boolean instant){
+        return null;
+    }
+
+    /**
+     * End recording the given start of the animations.
+     * @param event
+     */
+    void endFlushTimeline(Object event){
+    }
+}
@@ -44,7 +44,7 @@ class Settings {
 
         HBox hbox = new HBox();
 
-        Label durationLabel = new Label("Animation duration (ms) : ");
+        Label durationLabel = new Label("Animation duration (ms, 0 for no animation) : ");
         durationLabel.setAlignment(Pos.CENTER_LEFT);
         TextField durationTextField = new TextField(String.valueOf(duration));
 
@@ -19,8 +19,7 @@ import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.util.Duration;
-import org.json.JSONObject;
-import turingmachines.TuringMachine;
+import turingmachines.MachineLayout;
 import util.MouseListener;
 import util.Ressources;
 
@@ -47,6 +46,11 @@ class StateGroup extends Group implements MouseListener {
      */
     private Circle innerCircle;
 
+    /**
+     * Circle drawn over the state when the machine is profiled, more opaque as the state is more visited.
+     */
+    private Circle heatCircle;
+
     /**
      * Small icon drawn when the state is accepting.
      */
@@ -115,6 +119,11 @@ class StateGroup extends Group implements MouseListener {
         innerCircle.setStroke(TuringMachineDrawer.STATE_OUTER_COLOR);
         innerCircle.setFill(getUnselectedFillColor());
         innerCircle.setVisible(false);
+
+        heatCircle = new Circle(TuringMachineDrawer.STATE_RADIUS);
+        heatCircle.setFill(TuringMachineDrawer.HEAT_MAP_COLOR);
+        heatCircle.setMouseTransparent(true);
+        heatCircle.setVisible(false);
         
         acceptIcon = new ImageView(Ressources.getRessource("Accept-icon.png"));
         acceptIcon.setLayoutX(
@@ -149,7 +158,7 @@ class StateGroup extends Group implements MouseListener {
         label.setMaxHeight(TuringMachineDrawer.STATE_RADIUS * 2);
         label.setAlignment(Pos.CENTER);
 
-        this.getChildren().addAll(outerCircle, innerCircle, acceptIcon, initLine1, initLine2, label);
+        this.getChildren().addAll(outerCircle, innerCircle, heatCircle, acceptIcon, initLine1, initLine2, label);
         label.setLayoutX(- label.getMinWidth() / 2);
         label.setLayoutY(- label.getMinHeight() / 2);
 
@@ -274,6 +283,36 @@ class StateGroup extends Group implements MouseListener {
         this.animating = false;
     }
 
+    /**
+     * Display or hide the name of the state. The name is hidden when the graph is zoomed out.
+     * @param detailed
+     */
+    void setDetailed(boolean detailed) {
+        label.setVisible(detailed);
+    }
+
+    /**
+     * Draw the heat map over the state.
+     * @param heat ratio between the number of visits of the state and the number of visits of the most visited
+     *             state, or null if the heat map should be hidden.
+     */
+    void setHeat(Double heat) {
+        heatCircle.setVisible(heat != null && heat > 0);
+        if(heat != null)
+            heatCircle.setOpacity(heat * TuringMachineDrawer.STATE_HEAT_MAP_MAX_OPACITY);
+    }
+
+    /**
+     * Color the node without animation, depending on whether it is the current node (pointed by the state register
+     * when the machine is executed) or not.
+     * @param current
+     * @see #getCurrentStateKeyValue()
+     * @see #getNotCurrentStateKeyValue()
+     */
+    void setCurrentState(boolean current) {
+        outerCircle.setFill(current ? TuringMachineDrawer.STATE_CURRENT_COLOR : this.getUnselectedFillColor());
+    }
+
     /**n
      * @return an animation key used to animate the coloring of the node when it is declared as the current node
      * (pointed by the state register when the machine is executed).
@@ -295,17 +334,11 @@ class StateGroup extends Group implements MouseListener {
     }
 
     /**
-     * @return a JSON representation of the widget.
+     * Store the position of the widget in the given layout.
+     * @param layout
      */
-    JSONObject getJSON() {
-        TuringMachine turingMachine = TuringMachineDrawer.getInstance().machine;
-        return new JSONObject()
-                .put("x", this.getLayoutX())
-                .put("y", this.getLayoutY())
-                .put("name", turingMachine.getStateName(this.state))
-                .put("isFinal", turingMachine.isFinal(this.state))
-                .put("isAccepting", turingMachine.isAccepting(this.state))
-                .put("isInitial", turingMachine.isInitial(this.state));
+    void fillLayout(MachineLayout layout) {
+        layout.setStatePosition(this.state, this.getLayoutX(), this.getLayoutY());
     }
 
     @Override
@@ -18,7 +18,6 @@ import javafx.scene.layout.HBox;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.util.Duration;
-import org.json.JSONArray;
 import util.MouseListener;
 import util.Ressources;
 import util.widget.VirtualKeyboard;
@@ -120,16 +119,6 @@ class SymbolsMenu extends HBox implements MouseListener {
 
     void closeAllSettingsRectangle() { closeSymbolSettingsRectangle(false); }
 
-    JSONArray getJSON() {
-        JSONArray jsonArray = new JSONArray();
-        for(Node child : this.getChildren()){
-            if(!(child instanceof  SymbolLabel))
-                continue;
-            jsonArray.put(((SymbolLabel)child).getText());
-        }
-        return jsonArray;
-    }
-
     void clear() {
         closeSymbolSettingsRectangle();
         symbolSettingsRectangle.clear();
@@ -8,11 +8,17 @@ import javafx.animation.Interpolator;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
 import javafx.collections.ObservableList;
 import javafx.geometry.Pos;
 import javafx.scene.Group;
 import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Label;
+import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
@@ -20,10 +26,10 @@ import javafx.scene.shape.Line;
 import javafx.scene.shape.Polygon;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
+import javafx.scene.text.Text;
 import javafx.util.Duration;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import turingmachines.Tape;
+import turingmachines.TapeProfile;
 import util.MouseListener;
 import util.Pair;
 
@@ -236,14 +242,17 @@ class TapeBorderPanesHBox extends HBox{
         return tapes.get(tape).getWriteSymbolTimeline(line, column, symbol);
     }
 
-    JSONArray getJSON() {
-        JSONArray jsonArray = new JSONArray();
-        for(Node child: this.getChildren()) {
-            if(!(child instanceof TapeBorderPane))
-                continue;
-            jsonArray.put(((TapeBorderPane)child).getJSON());
-        }
-        return jsonArray;
+    void placeHead(Tape tape, Integer head, Integer line, Integer column) {
+        tapes.get(tape).tapePane.placeHead(head, line, column);
+    }
+
+    void writeSymbol(Tape tape, Integer line, Integer column, String symbol) {
+        tapes.get(tape).tapePane.drawSymbol(line, column, symbol);
+    }
+
+    void updateHeatMap() {
+        for(TapeBorderPane tapeBorderPane : tapes.values())
+            tapeBorderPane.tapePane.repaint();
     }
 
     void clear() {
@@ -379,25 +388,25 @@ class TapeBorderPane extends BorderPane implements MouseListener {
 
     void setTapeLeftBound(Integer left) {
         this.left = left;
-        tapePane.checkLinesAndColumns(maxWidth, maxHeight, true);
+        tapePane.repaint();
         tapePane.tapeSettingsRectangle.reset();
     }
 
     void setTapeRightBound(Integer right) {
         this.right = right;
-        tapePane.checkLinesAndColumns(maxWidth, maxHeight, true);
+        tapePane.repaint();
         tapePane.tapeSettingsRectangle.reset();
     }
 
     void setTapeBottomBound(Integer bottom) {
         this.bottom = bottom;
-        tapePane.checkLinesAndColumns(maxWidth, maxHeight, true);
+        tapePane.repaint();
         tapePane.tapeSettingsRectangle.reset();
     }
 
     void setTapeTopBound(Integer top) {
         this.top = top;
-        tapePane.checkLinesAndColumns(maxWidth, maxHeight, true);
+        tapePane.repaint();
         tapePane.tapeSettingsRectangle.reset();
     }
 
@@ -424,7 +433,7 @@ class TapeBorderPane extends BorderPane implements MouseListener {
     }
 
     void checkLinesAndColumns(double width, double height, boolean forceChange){
-        tapePane.checkLinesAndColumns(width, height, forceChange);
+        tapePane.repaint();
         horizontalCoordinates.checkColumn(width);
         verticalCoordinates.checkLines(height);
         maxWidth = Math.max(maxWidth, width);
@@ -455,14 +464,6 @@ class TapeBorderPane extends BorderPane implements MouseListener {
         return tapePane.getWriteSymbolTimeline(line, column, symbol);
     }
 
-    JSONObject getJSON() {
-        return tapePane.getJSON()
-                .put("leftBound", (left == null)?"inf":left)
-                .put("rightBound", (right == null)?"inf":right)
-                .put("bottomBound", (bottom == null)?"inf":bottom)
-                .put("topBound", (top == null)?"inf":top);
-    }
-
     void clear() {
         tapePane.clear();
     }
@@ -775,19 +776,38 @@ class VerticalCoordinates extends Pane {
     }
 }
 
+/**
+ * Pane displaying the cells and the heads of a tape.
+ *
+ * The grid and the symbols of the tape are drawn on a canvas covering only the visible part of the tape, so that the
+ * number of nodes does not depend on the number of written cells or on the size of the window. Each symbol is drawn
+ * from an image rendered once (see {@link #getGlyph(String)}). When a cell is written, only that cell is repainted;
+ * the whole canvas is repainted when the tape is translated or resized.
+ */
 class TapePane extends Pane implements MouseListener{
 
+    /**
+     * For each symbol, an image of that symbol, drawn in the cells of the tapes.
+     */
+    private static final Map<String, Image> glyphs = new HashMap<>();
+
     private Group tapeLinesGroup;
 
-    private List<Line> lines;
-    private List<Line> columns;
+    /**
+     * Canvas covering the visible part of the tape, on which the grid and the symbols are drawn.
+     */
+    private Canvas canvas;
 
     CellSettingsRectangle cellSettingsRectangle;
     TapeSettingsRectangle tapeSettingsRectangle;
 
     TapeBorderPane tapeBorderPane;
 
-    private Map<Integer, Map<Integer, Label>> cellLabels;
+    /**
+     * For each line and each column, the symbol displayed in the cell at that line and that column. If the BLANK
+     * symbol is displayed, no symbol is stored.
+     */
+    private Map<Integer, Map<Integer, String>> cellSymbols;
     private List<Rectangle> heads;
     private Map<Rectangle, Integer> headsColumns;
     private Map<Rectangle, Integer> headsLines;
@@ -798,7 +818,7 @@ class TapePane extends Pane implements MouseListener{
 
     TapePane(TapeBorderPane tapeBorderPane) {
         this.tapeBorderPane = tapeBorderPane;
-        this.cellLabels = new HashMap<>();
+        this.cellSymbols = new HashMap<>();
         this.heads = new ArrayList<>();
         this.headsColumns = new HashMap<>();
         this.headsLines = new HashMap<>();
@@ -807,8 +827,6 @@ class TapePane extends Pane implements MouseListener{
         timeline.setOnFinished(actionEvent -> animating = false);
         animating = false;
 
-        lines = new ArrayList<>();
-        columns = new ArrayList<>();
         this.setOnMousePressed(TuringMachineDrawer.getInstance().mouseHandler);
         this.setOnMouseDragged(TuringMachineDrawer.getInstance().mouseHandler);
         this.setOnMouseClicked(TuringMachineDrawer.getInstance().mouseHandler);
@@ -829,7 +847,11 @@ class TapePane extends Pane implements MouseListener{
         animatedRectangle.setStroke(Color.BLACK);
         animatedRectangle.setVisible(false);
 
-        tapeLinesGroup.getChildren().addAll(cellSettingsRectangle, tapeSettingsRectangle, animatedRectangle);
+        canvas = new Canvas();
+
+        // The canvas is transparent except on the grid and the symbols: the rectangle animated when a cell is
+        // pressed is displayed behind the canvas.
+        tapeLinesGroup.getChildren().addAll(animatedRectangle, canvas, cellSettingsRectangle, tapeSettingsRectangle);
 
         this.getChildren().addAll(tapeLinesGroup);
 
@@ -843,6 +865,9 @@ class TapePane extends Pane implements MouseListener{
             tapeLinesGroup.setLayoutY(height / 2);
             tapesClip.setWidth(width);
             tapesClip.setHeight(height);
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            repaint();
         });
 
     }
@@ -896,86 +921,174 @@ class TapePane extends Pane implements MouseListener{
         closeCellSettingsRectangle(false);
     }
 
-    void checkLinesAndColumns(double width, double height, boolean forceChange) {
-        ObservableList<Node> children = tapeLinesGroup.getChildren();
-
-        int nbLines = 2 * (int) ((height / (TuringMachineDrawer.TAPE_CELL_WIDTH * 2) - 0.5) + 2);
-        int prevNbLines = lines.size();
-
-        int nbColumns = 2 * (int) ((width / (TuringMachineDrawer.TAPE_CELL_WIDTH * 2) - 0.5) + 2);
-        int prevNbColumns = columns.size();
-
-        double h, w;
-        double leftWidth = (tapeBorderPane.left == null) ? -width : (TuringMachineDrawer.TAPE_CELL_WIDTH * (tapeBorderPane.left - 0.5));
-        double rightWidth = (tapeBorderPane.right == null) ? width : (TuringMachineDrawer.TAPE_CELL_WIDTH * (tapeBorderPane.right + 0.5));
-
-        if (forceChange || tapeBorderPane.maxWidth != width) {
-            for (Line line : lines) {
-                line.setStartX(leftWidth);
-                line.setEndX(rightWidth);
+    /**
+     * Move the canvas on the visible part of the tape and draw the grid and the symbols of the visible cells.
+     */
+    void repaint() {
+        canvas.setLayoutX(-tapeLinesGroup.getLayoutX() - tapeLinesGroup.getTranslateX());
+        canvas.setLayoutY(-tapeLinesGroup.getLayoutY() - tapeLinesGroup.getTranslateY());
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+
+        double cellWidth = TuringMachineDrawer.TAPE_CELL_WIDTH;
+        double minX = canvas.getLayoutX();
+        double maxX = minX + canvas.getWidth();
+        double minY = canvas.getLayoutY();
+        double maxY = minY + canvas.getHeight();
+
+        int minColumn = (int) Math.floor(minX / cellWidth - 0.5);
+        int maxColumn = (int) Math.ceil(maxX / cellWidth + 0.5);
+        int minLine = (int) Math.floor(-maxY / cellWidth - 0.5);
+        int maxLine = (int) Math.ceil(-minY / cellWidth + 0.5);
+
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(1);
+
+        // The line (resp. column) of index i is the border between the lines i and i + 1 (resp. the columns i and
+        // i + 1). Only the borders of the cells inside the bounds of the tape are drawn.
+        double left = Math.max(minX, (tapeBorderPane.left == null) ? minX : cellWidth * (tapeBorderPane.left - 0.5));
+        double right = Math.min(maxX, (tapeBorderPane.right == null) ? maxX : cellWidth * (tapeBorderPane.right + 0.5));
+        double bottom = Math.min(maxY, (tapeBorderPane.bottom == null) ? maxY : cellWidth * (-tapeBorderPane.bottom + 0.5));
+        double top = Math.max(minY, (tapeBorderPane.top == null) ? minY : cellWidth * (-tapeBorderPane.top - 0.5));
+
+        if(left < right)
+            for (int index = minLine - 1; index <= maxLine; index++) {
+                if((tapeBorderPane.top != null && index > tapeBorderPane.top)
+                        || (tapeBorderPane.bottom != null && index + 1 < tapeBorderPane.bottom))
+                    continue;
+                double y = -cellWidth * (index + 0.5) - minY;
+                gc.strokeLine(left - minX, y, right - minX, y);
             }
-        }
 
-        for (int i = lines.size() / 2; i < nbLines / 2; i++) {
-            h = TuringMachineDrawer.TAPE_CELL_WIDTH * (0.5 + i);
-            Line linePos = new Line(leftWidth, -h, rightWidth, -h);
-            Line lineNeg = new Line(leftWidth, h, rightWidth, h);
-
-            lines.add(linePos);
-            lines.add(0, lineNeg);
+        if(top < bottom)
+            for (int index = minColumn - 1; index <= maxColumn; index++) {
+                if((tapeBorderPane.right != null && index > tapeBorderPane.right)
+                        || (tapeBorderPane.left != null && index + 1 < tapeBorderPane.left))
+                    continue;
+                double x = cellWidth * (index + 0.5) - minX;
+                gc.strokeLine(x, top - minY, x, bottom - minY);
+            }
 
-            children.add(linePos);
-            children.add(lineNeg);
-        }
+        TapeProfile profile = tapeBorderPane.tape.getProfile();
+        if(profile != null && profile.getMaximumAccesses() > 0)
+            for(int line = minLine; line <= maxLine; line++)
+                for(int column = minColumn; column <= maxColumn; column++)
+                    drawHeat(gc, profile, line, column);
 
-        if (forceChange || prevNbLines < nbLines) {
-            int zeroIndex = lines.size() / 2;
-            for (int i = 0; i < lines.size(); i++) {
-                int index = i - zeroIndex;
-                Line line = lines.get(i);
-                line.setVisible(
-                        (tapeBorderPane.top == null || index <= tapeBorderPane.top)
-                        && (tapeBorderPane.bottom == null || index + 1 >= tapeBorderPane.bottom)
-                );
-                line.toBack();
+        // Only the visible cells are looked for, whatever the number of written cells.
+        for(int line = minLine; line <= maxLine; line++){
+            Map<Integer, String> lineSymbols = cellSymbols.get(line);
+            if(lineSymbols == null)
+                continue;
+            for(int column = minColumn; column <= maxColumn; column++){
+                String symbol = lineSymbols.get(column);
+                if(symbol != null)
+                    drawGlyph(gc, line, column, symbol);
             }
         }
+    }
 
-        double bottomHeight = (tapeBorderPane.bottom == null) ? height : TuringMachineDrawer.TAPE_CELL_WIDTH * (-tapeBorderPane.bottom + 0.5);
-        double topHeight = (tapeBorderPane.top == null) ? -height : TuringMachineDrawer.TAPE_CELL_WIDTH * (- tapeBorderPane.top - 0.5);
+    /**
+     * Repaint the cell at the given line and column with the given opacity, if this cell is visible.
+     * @param line
+     * @param column
+     * @param opacity
+     */
+    private void repaintCell(int line, int column, double opacity) {
+        double cellWidth = TuringMachineDrawer.TAPE_CELL_WIDTH;
+        double x = tapeBorderPane.getXOf(column) - canvas.getLayoutX();
+        double y = tapeBorderPane.getYOf(line) - canvas.getLayoutY();
+        if(x + cellWidth / 2 < 0 || x - cellWidth / 2 > canvas.getWidth()
+                || y + cellWidth / 2 < 0 || y - cellWidth / 2 > canvas.getHeight())
+            return;
 
-        if (forceChange || tapeBorderPane.maxHeight != height) {
-            for (Line column : columns) {
-                column.setStartY(bottomHeight);
-                column.setEndY(topHeight);
-            }
-        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        // The borders of the cell are not cleared.
+        gc.clearRect(x - cellWidth / 2 + 1, y - cellWidth / 2 + 1, cellWidth - 2, cellWidth - 2);
 
-        for (int i = columns.size() / 2; i < nbColumns / 2; i++) {
-            w = TuringMachineDrawer.TAPE_CELL_WIDTH * (0.5 + i);
-            Line columnPos = new Line(w, bottomHeight, w, topHeight);
-            Line columnNeg = new Line(-w, bottomHeight, -w, topHeight);
+        TapeProfile profile = tapeBorderPane.tape.getProfile();
+        if(profile != null && profile.getMaximumAccesses() > 0)
+            drawHeat(gc, profile, line, column);
 
-            columns.add(columnPos);
-            columns.add(0, columnNeg);
+        Map<Integer, String> lineSymbols = cellSymbols.get(line);
+        String symbol = (lineSymbols == null) ? null : lineSymbols.get(column);
+        if(symbol == null)
+            return;
 
-            children.add(columnPos);
-            children.add(columnNeg);
-        }
+        gc.setGlobalAlpha(opacity);
+        drawGlyph(gc, line, column, symbol);
+        gc.setGlobalAlpha(1);
+    }
+
+    /**
+     * Fill the cell at the given line and column with the color of the heat map, more opaque as the cell was more
+     * accessed. Do nothing if the cell was never accessed.
+     * @param gc
+     * @param profile
+     * @param line
+     * @param column
+     */
+    private void drawHeat(GraphicsContext gc, TapeProfile profile, int line, int column) {
+        long accesses = profile.getAccesses(line, column);
+        if(accesses == 0)
+            return;
 
-        if (forceChange || prevNbColumns < nbColumns) {
-            int zeroIndex = columns.size() / 2;
-            for(int i = 0; i < columns.size(); i++){
-                int index = i - zeroIndex;
-                Line column = columns.get(i);
-                column.setVisible(
-                        (tapeBorderPane.right == null || index <= tapeBorderPane.right)
-                                && (tapeBorderPane.left == null || index + 1 >= tapeBorderPane.left)
-                );
-                column.toBack();
-            }
-        }
+        double cellWidth = TuringMachineDrawer.TAPE_CELL_WIDTH;
+        gc.setGlobalAlpha(TuringMachineDrawer.TAPE_HEAT_MAP_MAX_OPACITY * accesses / profile.getMaximumAccesses());
+        gc.setFill(TuringMachineDrawer.HEAT_MAP_COLOR);
+        gc.fillRect(tapeBorderPane.getXOf(column) - canvas.getLayoutX() - cellWidth / 2 + 1,
+                tapeBorderPane.getYOf(line) - canvas.getLayoutY() - cellWidth / 2 + 1,
+                cellWidth - 2, cellWidth - 2);
+        gc.setGlobalAlpha(1);
+    }
+
+    /**
+     * Draw the image of the given symbol at the center of the cell at the given line and column.
+     * @param gc
+     * @param line
+     * @param column
+     * @param symbol
+     */
+    private void drawGlyph(GraphicsContext gc, int line, int column, String symbol) {
+        Image glyph = getGlyph(symbol);
+        gc.drawImage(glyph,
+                tapeBorderPane.getXOf(column) - canvas.getLayoutX() - glyph.getWidth() / 2,
+                tapeBorderPane.getYOf(line) - canvas.getLayoutY() - glyph.getHeight() / 2);
+    }
+
+    /**
+     * @param symbol
+     * @return an image of the given symbol, rendered the first time the symbol is drawn.
+     */
+    private static Image getGlyph(String symbol) {
+        return glyphs.computeIfAbsent(symbol, k -> {
+            Text text = new Text(symbol);
+            text.setFont(Font.font(TuringMachineDrawer.SYMBOL_FONT_NAME,
+                    TuringMachineDrawer.TAPE_CELL_SYMBOL_FONT_SIZE));
+            SnapshotParameters parameters = new SnapshotParameters();
+            parameters.setFill(Color.TRANSPARENT);
+            return text.snapshot(parameters, null);
+        });
+    }
 
+    /**
+     * Store the given symbol (null for the BLANK symbol) as the symbol displayed in the cell at the given line and
+     * column, without repainting that cell.
+     * @param line
+     * @param column
+     * @param symbol
+     */
+    private void setSymbol(int line, int column, String symbol) {
+        if(symbol == null) { // White symbol
+            Map<Integer, String> lineSymbols = cellSymbols.get(line);
+            if (lineSymbols == null) // All the line is white
+                return;
+            if (lineSymbols.remove(column) != null && lineSymbols.isEmpty())
+                cellSymbols.remove(line);
+        }
+        else
+            cellSymbols.computeIfAbsent(line, k -> new HashMap<>()).put(column, symbol);
     }
 
     Integer getColumn(double x) {
@@ -1002,55 +1115,29 @@ class TapePane extends Pane implements MouseListener{
 
 
     void drawSymbol(int line, int column, String symbol) {
-        Map<Integer, Label> h = cellLabels.get(line);
-        if(symbol == null) { // White symbol
-            if (h == null) // All the column is white
-                return;
-            Label cellLabel = h.get(column);
-            if (cellLabel != null) {
-                tapeLinesGroup.getChildren().remove(cellLabel);
-                h.remove(column);
-                if (h.size() == 0)
-                    cellLabels.remove(line);
-            }
-        }
-        else{
-            if (h == null) {
-                h = new HashMap<>();
-                cellLabels.put(line, h);
-            }
-            Label cellLabel = h.get(column);
-
-            if(cellLabel == null) {
-                cellLabel = new Label(symbol);
-                cellLabel.setFont(Font.font(TuringMachineDrawer.SYMBOL_FONT_NAME,
-                        TuringMachineDrawer.TAPE_CELL_SYMBOL_FONT_SIZE));
-
-                cellLabel.setMinWidth(TuringMachineDrawer.TAPE_CELL_WIDTH);
-                cellLabel.setMaxWidth(TuringMachineDrawer.TAPE_CELL_WIDTH);
-                cellLabel.setMinHeight(TuringMachineDrawer.TAPE_CELL_WIDTH);
-                cellLabel.setMaxHeight(TuringMachineDrawer.TAPE_CELL_WIDTH);
-                cellLabel.setAlignment(Pos.CENTER);
-
-                tapeLinesGroup.getChildren().add(cellLabel);
-                cellLabel.setLayoutX(tapeBorderPane.getXOf(column)- cellLabel.getMinWidth() / 2);
-                cellLabel.setLayoutY(tapeBorderPane.getYOf(line)- cellLabel.getMinHeight() / 2);
+        setSymbol(line, column, symbol);
+        repaintCell(line, column, 1);
+    }
 
-                h.put(column, cellLabel);
-            }
-            else
-                cellLabel.setText(symbol);
-        }
+    void moveHead(int line, int column, int head) {
+        placeHead(head, line, column);
 
+        Rectangle headRectangle = heads.get(head);
+        headsLines.put(headRectangle, line);
+        headsColumns.put(headRectangle, column);
     }
 
-    void moveHead(int line, int column, int head) {
+    /**
+     * Draw the given head at the given line and column without changing its initial position. Used to display the
+     * heads during an execution without animation.
+     * @param head
+     * @param line
+     * @param column
+     */
+    void placeHead(Integer head, Integer line, Integer column) {
         Rectangle headRectangle = heads.get(head);
         headRectangle.setLayoutX(tapeBorderPane.getXOf(column) - TuringMachineDrawer.TAPE_CELL_HEAD_SIZE / 2);
         headRectangle.setLayoutY(tapeBorderPane.getYOf(line) - TuringMachineDrawer.TAPE_CELL_HEAD_SIZE / 2);
-
-        headsLines.put(headRectangle, line);
-        headsColumns.put(headRectangle, column);
     }
 
     void addHead(int line, int column, Color color) {
@@ -1094,12 +1181,9 @@ class TapePane extends Pane implements MouseListener{
     void editSymbol(int index, String previousSymbol, String symbol){
         cellSettingsRectangle.editSymbol(index, symbol);
 
-        for(Map<Integer, Label> column : cellLabels.values()){
-            for(Label label : column.values()){
-                if(label.getText().equals(previousSymbol))
-                    label.setText(symbol);
-            }
-        }
+        for(Map<Integer, String> lineSymbols : cellSymbols.values())
+            lineSymbols.replaceAll((column, cellSymbol) -> cellSymbol.equals(previousSymbol) ? symbol : cellSymbol);
+        repaint();
     }
 
     void removeSymbol(int index, String symbol) {
@@ -1192,36 +1276,18 @@ class TapePane extends Pane implements MouseListener{
     }
 
     Timeline getWriteSymbolTimeline(Integer line, Integer column, String symbol) {
-        Map<Integer, Label> h = cellLabels.computeIfAbsent(line, k -> new HashMap<>());
-        Label cellLabel = h.get(column);
-        if(cellLabel == null){
-            cellLabel = new Label(null);
-            cellLabel.setFont(Font.font(TuringMachineDrawer.SYMBOL_FONT_NAME,
-                    TuringMachineDrawer.TAPE_CELL_SYMBOL_FONT_SIZE));
-
-            cellLabel.setMinWidth(TuringMachineDrawer.TAPE_CELL_WIDTH);
-            cellLabel.setMaxWidth(TuringMachineDrawer.TAPE_CELL_WIDTH);
-            cellLabel.setMinHeight(TuringMachineDrawer.TAPE_CELL_WIDTH);
-            cellLabel.setMaxHeight(TuringMachineDrawer.TAPE_CELL_WIDTH);
-            cellLabel.setAlignment(Pos.CENTER);
+        DoubleProperty opacity = new SimpleDoubleProperty(1);
+        opacity.addListener((observableValue, old, value) -> repaintCell(line, column, value.doubleValue()));
 
-            tapeLinesGroup.getChildren().add(cellLabel);
-            cellLabel.setLayoutX(tapeBorderPane.getXOf(column)- cellLabel.getMinWidth() / 2);
-            cellLabel.setLayoutY(tapeBorderPane.getYOf(line)- cellLabel.getMinHeight() / 2);
-
-            h.put(column, cellLabel);
-        }
-
-        final Label cellLabel2 = cellLabel;
         Timeline timeline = new Timeline();
 
-        KeyValue ktransp = new KeyValue(cellLabel2.opacityProperty(),0 );
+        KeyValue ktransp = new KeyValue(opacity, 0);
         KeyFrame kftransp = new KeyFrame(Duration.millis(TuringMachineDrawer.ANIMATION_DURATION / 2),
                 actionEvent -> {
-                    cellLabel2.setText(symbol);
+                    setSymbol(line, column, symbol);
                 }, ktransp);
 
-        KeyValue kopa= new KeyValue(cellLabel2.opacityProperty(),1 );
+        KeyValue kopa= new KeyValue(opacity, 1);
         KeyFrame kfopa = new KeyFrame(Duration.millis(TuringMachineDrawer.ANIMATION_DURATION),
                 kopa);
 
@@ -1230,51 +1296,14 @@ class TapePane extends Pane implements MouseListener{
 
     }
 
-    JSONObject getJSON() {
-        JSONArray jsonHeads = new JSONArray();
-        for(Rectangle headRectangle: heads){
-            jsonHeads.put(
-                    new JSONObject()
-                            .put("line", headsLines.get(headRectangle))
-                            .put("column", headsColumns.get(headRectangle))
-                            .put("color", headRectangle.getStroke())
-            );
-        }
-
-        JSONArray jsonCells = new JSONArray();
-        for(Map.Entry<Integer, Map<Integer, Label>> entry: cellLabels.entrySet()){
-            int line = entry.getKey();
-            for(Map.Entry<Integer, Label> entry2: entry.getValue().entrySet()){
-                if(entry2.getValue().getText() == null)
-                    continue;
-                int column = entry2.getKey();
-                String symbol = entry2.getValue().getText();
-                if(symbol != null && symbol.equals(""))
-                    symbol = null;
-
-                if(symbol == null)
-                    continue;
-
-                jsonCells.put(new JSONObject()
-                .put("line", line)
-                .put("column", column)
-                .put("symbol", symbol)
-                );
-            }
-        }
-
-        return new JSONObject()
-                .put("heads", jsonHeads)
-                .put("cells", jsonCells);
-    }
-
     void clear() {
-        for(Map.Entry<Integer, Map<Integer, Label>> entry : new HashSet<>(cellLabels.entrySet()))
-            for(Map.Entry<Integer, Label> entry2 : new HashSet<>(entry.getValue().entrySet()))
+        for(Map.Entry<Integer, Map<Integer, String>> entry : new HashSet<>(cellSymbols.entrySet()))
+            for(Map.Entry<Integer, String> entry2 : new HashSet<>(entry.getValue().entrySet()))
                 TuringMachineDrawer.getInstance().setInputSymbol(
                         tapeBorderPane.tape, entry.getKey(), entry2.getKey(),null);
 
-        cellLabels.clear();
+        cellSymbols.clear();
+        repaint();
         cellSettingsRectangle.clear();
         tapeSettingsRectangle.clear();
     }
@@ -1331,10 +1360,10 @@ class TapePane extends Pane implements MouseListener{
 
         boolean changed = false;
 
-        for(Map.Entry<Integer, Map<Integer, Label>> entry : cellLabels.entrySet()) {
+        for(Map.Entry<Integer, Map<Integer, String>> entry : cellSymbols.entrySet()) {
             minLine = Math.min(minLine, entry.getKey());
             maxLine = Math.max(maxLine, entry.getKey());
-            for (Map.Entry<Integer, Label> entry2 : entry.getValue().entrySet()) {
+            for (Map.Entry<Integer, String> entry2 : entry.getValue().entrySet()) {
                 changed = true;
                 minColumn = Math.min(minColumn, entry2.getKey());
                 maxColumn = Math.max(maxColumn, entry2.getKey());
@@ -1359,17 +1388,17 @@ class TapePane extends Pane implements MouseListener{
         sb.append('\n');
 
         for(int line = maxLine; line >= minLine; line--){
-            Map<Integer, Label> v1 = cellLabels.get(line);
+            Map<Integer, String> v1 = cellSymbols.get(line);
             for(int column = minColumn; column <= maxColumn; column++){
                 if(v1 == null) {
                     sb.append(' ');
                     continue;
                 }
-                Label label = v1.get(column);
-                if(label == null || label.getText() == null)
+                String symbol = v1.get(column);
+                if(symbol == null)
                     sb.append(' ');
                 else
-                    sb.append(label.getText());
+                    sb.append(symbol);
             }
             sb.append('\n');
         }
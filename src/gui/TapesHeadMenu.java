@@ -22,8 +22,6 @@ import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.util.Duration;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import turingmachines.Tape;
 import util.MouseListener;
 import util.Ressources;
@@ -124,16 +122,6 @@ class TapesHeadMenu extends HBox implements MouseListener {
         return tapeToMenu.get(tape).getHeadWriteKeyFrame(head);
     }
 
-    JSONArray getJSON() {
-        JSONArray jsonArray = new JSONArray();
-        for(Node child: this.getChildren()) {
-            if(!(child instanceof TapeHeadMenu))
-                continue;
-            jsonArray.put(((TapeHeadMenu)child).getJSON());
-        }
-        return jsonArray;
-    }
-
     void clear() {
         for(TapeHeadMenu tapeHeadMenu: tapeToMenu.values())
             tapeHeadMenu.clear();
@@ -225,16 +213,6 @@ class TapeHeadMenu extends HBox implements MouseListener {
         return getHeadMenuSelect(head).getHeadWriteKeyFrame();
     }
 
-    JSONArray getJSON() {
-        JSONArray jsonArray = new JSONArray();
-        for(Node child: this.getChildren()) {
-            if(!(child instanceof HeadMenuSelect))
-                continue;
-            jsonArray.put(((HeadMenuSelect)child).getJSON());
-        }
-        return jsonArray;
-    }
-
     void clear() {
         closeHeadSettingsRectangle();
         headSettingsRectangle.clear();
@@ -321,11 +299,6 @@ class HeadMenuSelect extends Rectangle implements MouseListener{
         return new KeyFrame(Duration.millis(TuringMachineDrawer.ANIMATION_DURATION / 2), kStrokeWidth);
     }
 
-    JSONObject getJSON() {
-        return new JSONObject()
-                .put("color", this.getStroke());
-    }
-
     @Override
     public boolean onMouseClicked(MouseEvent mouseEvent) {
         if(TuringMachineDrawer.getInstance().buildMode || TuringMachineDrawer.getInstance().manualMode){
@@ -12,8 +12,6 @@ import javafx.scene.control.Separator;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import turingmachines.Tape;
 
 import java.util.*;
@@ -259,67 +257,36 @@ class TapesVBox extends VBox {
         return tapesPane.getWriteSymbolTimeline(tape, line, column, symbol);
     }
 
-    JSONObject getJSON() {
-        return new JSONObject()
-//                .put("tapeHeadsMenu", tapesHeadMenu.getJSON())
-                .put("symbolsMenu", symbolsMenu.getJSON())
-                .put("tapes", tapesPane.getJSON());
+    /**
+     * Draw the given head (identified by its tape and its index in the list of heads of the tape) at the given
+     * coordinates of the tape, without animation and without changing the initial position of the head.
+     * @param tape
+     * @param head
+     * @param line
+     * @param column
+     */
+    void placeHead(Tape tape, Integer head, Integer line, Integer column) {
+        tapesPane.placeHead(tape, head, line, column);
     }
 
-    void loadJSON(JSONObject jsonTapes) {
-        JSONArray jsonSymbols = jsonTapes.getJSONArray("symbolsMenu");
-        for(Object object : jsonSymbols)
-            TuringMachineDrawer.getInstance().addSymbol((String)object);
-
-        JSONArray jsonTapesAr = jsonTapes.getJSONArray("tapes");
-        for(int i = 0; i < jsonTapesAr.length(); i++){
-            TuringMachineDrawer.getInstance().addTape();
-            Tape tape = TuringMachineDrawer.getInstance().machine.getTape(i);
-
-            JSONObject jsonTape = jsonTapesAr.getJSONObject(i);
-
-            Object leftBoundObj = jsonTape.get("leftBound");
-            if(leftBoundObj instanceof Integer)
-                tape.setLeftBound((Integer)leftBoundObj);
-            else
-                tape.setLeftBound(null);
-
-            Object rightBoundObj = jsonTape.get("rightBound");
-            if(rightBoundObj instanceof Integer)
-                tape.setRightBound((Integer)rightBoundObj);
-            else
-                tape.setRightBound(null);
-
-            Object bottomBoundObj = jsonTape.get("bottomBound");
-            if(bottomBoundObj instanceof Integer)
-                tape.setBottomBound((Integer)bottomBoundObj);
-            else
-                tape.setBottomBound(null);
-
-            Object topBoundObj = jsonTape.get("topBound");
-            if(topBoundObj instanceof Integer)
-                tape.setTopBound((Integer)topBoundObj);
-            else
-                tape.setTopBound(null);
-
-            JSONArray jsonHeads = jsonTape.getJSONArray("heads");
-            for(int j = 0; j < jsonHeads.length(); j++){
-                JSONObject jsonHead = jsonHeads.getJSONObject(j);
-                Color color = Color.valueOf(jsonHead.getString("color"));
-                int line = jsonHead.getInt("line");
-                int column = jsonHead.getInt("column");
-                TuringMachineDrawer.getInstance().addHead(tape, line, column, color);
-            }
+    /**
+     * Draw the given symbol in the cell of the given tape at the given coordinates, without animation. This does not
+     * change the input symbol of the machine.
+     * @param tape
+     * @param line
+     * @param column
+     * @param symbol
+     */
+    void writeSymbol(Tape tape, Integer line, Integer column, String symbol) {
+        tapesPane.writeSymbol(tape, line, column, symbol);
+    }
 
-            JSONArray jsonCells = jsonTape.getJSONArray("cells");
-            for(int j = 0; j < jsonCells.length(); j++){
-                JSONObject jsonCell = jsonCells.getJSONObject(j);
-                String symbol = jsonCell.getString("symbol");
-                int line = jsonCell.getInt("line");
-                int column = jsonCell.getInt("column");
-                tape.writeInput(line, column, symbol);
-            }
-        }
+    /**
+     * Redraw the heat maps of the tapes.
+     * @see turingmachines.TapeProfile
+     */
+    void updateHeatMap() {
+        tapesPane.updateHeatMap();
     }
 
     void clear() {
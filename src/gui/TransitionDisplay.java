@@ -13,8 +13,6 @@ import javafx.scene.control.Separator;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import turingmachines.Tape;
 import util.Pair;
 
@@ -96,12 +94,6 @@ class TransitionDisplay extends HBox {
     List<Pair<String, Color>> getActionsDisplay() {
         return transitionDisplayActionsHBox.getActionsDisplay();
     }
-
-    JSONObject getJSON() {
-        return new JSONObject()
-                .put("readSymbols", transitionDisplaySymbolsHBox.getJSON())
-                .put("actions", transitionDisplayActionsHBox.getJSON());
-    }
 }
 
 class TransitionDisplaySymbolsHBox extends HBox {
@@ -192,16 +184,6 @@ class TransitionDisplaySymbolsHBox extends HBox {
     ObservableValue<String> getSymbolDisplayTextProperty(Tape tape, int head) {
         return tapes.get(tape).getSymbolDisplayTextProperty(head);
     }
-
-    JSONArray getJSON() {
-        JSONArray jsonArray = new JSONArray();
-        for(Node child : this.getChildren()) {
-            if (!(child instanceof TransitionDisplaySymbolsByTapeHBox))
-                continue;
-            jsonArray.put(((TransitionDisplaySymbolsByTapeHBox)child).getJSON());
-        }
-        return jsonArray;
-    }
 }
 
 class TransitionDisplaySymbolsByTapeHBox extends HBox {
@@ -272,16 +254,6 @@ class TransitionDisplaySymbolsByTapeHBox extends HBox {
     ObservableValue<String> getSymbolDisplayTextProperty(int head) {
         return ((TransitionDisplaySymbolsByHeadLabel)this.getChildren().get(head)).textProperty();
     }
-
-    JSONArray getJSON() {
-        JSONArray jsonArray = new JSONArray();
-        for(Node child: this.getChildren()) {
-            TransitionDisplaySymbolsByHeadLabel transitionDisplaySymbolsByHeadLabel =
-                    (TransitionDisplaySymbolsByHeadLabel) child;
-            jsonArray.put(transitionDisplaySymbolsByHeadLabel.getJSON());
-        }
-        return jsonArray;
-    }
 }
 
 class TransitionDisplaySymbolsByHeadLabel extends Label {
@@ -336,16 +308,6 @@ class TransitionDisplaySymbolsByHeadLabel extends Label {
     private void reinitText(){
         this.setText(String.join("|", symbols));
     }
-
-    JSONArray getJSON() {
-        JSONArray jsonArray = new JSONArray();
-        for(String symbol: symbols) {
-            if(symbol.equals(TuringMachineDrawer.BLANK_SYMBOL))
-                symbol = "BLANK_SYMBOL";
-            jsonArray.put(symbol);
-        }
-        return jsonArray;
-    }
 }
 
 class TransitionDisplayActionsHBox extends HBox{
@@ -423,37 +385,6 @@ class TransitionDisplayActionsHBox extends HBox{
         }
         return pairs;
     }
-
-    JSONArray getJSON() {
-        JSONArray jsonArray = new JSONArray();
-        for(Pair<String, Color> pair : getActionsDisplay()){
-
-            String symbol = pair.first;
-            switch (pair.first) {
-                case TuringMachineDrawer.RIGHT_SYMBOL:
-                    symbol = "RIGHT_SYMBOL";
-                    break;
-                case TuringMachineDrawer.LEFT_SYMBOL:
-                    symbol = "LEFT_SYMBOL";
-                    break;
-                case TuringMachineDrawer.UP_SYMBOL:
-                    symbol = "UP_SYMBOL";
-                    break;
-                case TuringMachineDrawer.DOWN_SYMBOL:
-                    symbol = "DOWN_SYMBOL";
-                    break;
-                case TuringMachineDrawer.BLANK_SYMBOL:
-                    symbol = "BLANK_SYMBOL";
-                    break;
-            }
-
-            jsonArray.put(new JSONObject()
-                    .put("actionSymbol", symbol)
-            .put("color", pair.second)
-            );
-        }
-        return jsonArray;
-    }
 }
 
 class TransitionDisplayActionLabel extends Label {
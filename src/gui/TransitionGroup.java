@@ -17,7 +17,7 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.*;
 import javafx.util.Duration;
-import org.json.JSONObject;
+import turingmachines.MachineLayout;
 import turingmachines.Tape;
 import turingmachines.Transition;
 import util.MouseListener;
@@ -582,6 +582,29 @@ class TransitionGroup extends Group {
         return y1223 + (y2334 - y1223) * t;
     }
 
+    /**
+     * Display or hide the string displayed next to the transition. The string is hidden when the graph is zoomed out.
+     * @param detailed
+     */
+    void setDetailed(boolean detailed) {
+        transitionDisplay.setVisible(detailed);
+    }
+
+    /**
+     * Draw the heat map over the transition by changing the stroke width of its line.
+     * @param heat ratio between the number of firings of the transition and the number of firings of the most fired
+     *             transition, or null if the heat map should be hidden.
+     */
+    void setHeat(Double heat) {
+        double width = TuringMachineDrawer.TRANSITION_HEAT_MAP_MIN_STROKE_WIDTH;
+        if(heat != null)
+            width += heat * (TuringMachineDrawer.TRANSITION_HEAT_MAP_MAX_STROKE_WIDTH
+                    - TuringMachineDrawer.TRANSITION_HEAT_MAP_MIN_STROKE_WIDTH);
+        centerLine.setStrokeWidth(width);
+        arrowLine1.setStrokeWidth(width);
+        arrowLine2.setStrokeWidth(width);
+    }
+
     /**
      * Add the given tape to the string displayed next to the transition
      * @param tape
@@ -770,17 +793,13 @@ class TransitionGroup extends Group {
     }
 
     /**
-     * @return a JSON description of the transition
+     * Store the control keys of the Bezier curve of the transition in the given layout.
+     * @param layout
      */
-    JSONObject getJSON() {
-        return new JSONObject()
-                .put("input", input.state)
-                .put("output", output.state)
-                .put("control1X", centerLine.getControlX1())
-                .put("control1Y", centerLine.getControlY1())
-                .put("control2X", centerLine.getControlX2())
-                .put("control2Y", centerLine.getControlY2())
-                .put("display", transitionDisplay.getJSON());
+    void fillLayout(MachineLayout layout) {
+        layout.setTransitionControls(transition,
+                centerLine.getControlX1(), centerLine.getControlY1(),
+                centerLine.getControlX2(), centerLine.getControlY2());
     }
 }
 
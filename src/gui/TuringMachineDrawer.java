@@ -4,11 +4,16 @@
 
 package gui;
 
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
+import javafx.animation.KeyFrame;
 import javafx.animation.ParallelTransition;
 import javafx.animation.SequentialTransition;
 import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
 import javafx.geometry.Orientation;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
@@ -20,16 +25,20 @@ import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
-import org.json.JSONException;
-import org.json.JSONObject;
+import javafx.util.Duration;
 import turingmachines.*;
 import util.BidirMap;
 import util.Pair;
 import util.Subscriber;
 
 import java.io.*;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main class of the GUI.
@@ -86,6 +95,16 @@ public class TuringMachineDrawer extends Application {
      */
     static final int GRAPH_GRID_WIDTH = 10;
 
+    /**
+     * Width of the buckets of the spatial index of the nodes of the graph (see {@link GraphPane}).
+     */
+    static final double GRAPH_INDEX_BUCKET_WIDTH = 200;
+
+    /**
+     * Scale of the graph under which the names of the states and the symbols of the transitions are not displayed.
+     */
+    static final double GRAPH_DETAIL_MIN_SCALE = 0.5;
+
     /**
      * Initial ratio between the {@link GraphPane} widget containing the graph and the {@link TapePane}
      * widget containing the tapes. This ratio can be modified manually by the user.
@@ -103,6 +122,19 @@ public class TuringMachineDrawer extends Application {
      */
     static long ANIMATION_DURATION = 500;
 
+    /**
+     * Maximum duration (in milliseconds) during which the machine is executed at each frame when the execution is
+     * played without animation (see {@link #isInstant()}). The remaining time of the frame is left to render the
+     * scene.
+     */
+    private static final long INSTANT_PLAYBACK_FRAME_DURATION = 8;
+
+    /**
+     * Number of times per second the configuration of the machine is displayed during a turbo execution.
+     * @see #turbo()
+     */
+    private static final int TURBO_FRAME_RATE = 30;
+
     /**
      * Color used to represent the current state of the machine pointed by the state register while the machine is
      * executed.
@@ -119,6 +151,28 @@ public class TuringMachineDrawer extends Application {
      */
     static final double TRANSITION_FIRED_STROKE_WIDTH = 10;
 
+    /**
+     * Color of the heat map drawn over the states and the transitions when the machine is profiled.
+     */
+    static final Color HEAT_MAP_COLOR = Color.ORANGERED;
+
+    /**
+     * Opacity of the heat map drawn over the most visited state when the machine is profiled.
+     */
+    static final double STATE_HEAT_MAP_MAX_OPACITY = 0.8;
+
+    /**
+     * Opacity of the heat map drawn over the most accessed cell of a tape when the machine is profiled.
+     */
+    static final double TAPE_HEAT_MAP_MAX_OPACITY = 0.6;
+
+    /**
+     * Stroke width of a transition that was never fired, and of the most fired transition, when the machine is
+     * profiled.
+     */
+    static final double TRANSITION_HEAT_MAP_MIN_STROKE_WIDTH = 1;
+    static final double TRANSITION_HEAT_MAP_MAX_STROKE_WIDTH = 8;
+
     /**
      * Stroke width of a head writing on a tape while the machine is executed.
      */
@@ -562,6 +616,71 @@ public class TuringMachineDrawer extends Application {
      */
     private LinkedList<Timeline> toPlay;
 
+    /**
+     * Timer executing the machine at each frame when the execution is played without animation.
+     * @see #isInstant()
+     */
+    private AnimationTimer instantTimer;
+
+    /**
+     * True if the current state changed since the last time the changes were applied to the widgets without
+     * animation.
+     * @see #flushInstant(EventHandler)
+     */
+    private boolean instantStateChanged;
+
+    /**
+     * Current state that should be displayed the next time the changes are applied to the widgets without animation,
+     * null if no state should be displayed as current.
+     * @see #flushInstant(EventHandler)
+     */
+    private Integer instantState;
+
+    /**
+     * For each tape and each head of that tape, the line and the column where the head should be displayed the next
+     * time the changes are applied to the widgets without animation.
+     * @see #flushInstant(EventHandler)
+     */
+    private Map<Tape, Map<Integer, Pair<Integer, Integer>>> instantHeads;
+
+    /**
+     * For each tape, each line and each column, the symbol that should be displayed in that cell (null for the BLANK
+     * symbol) the next time the changes are applied to the widgets without animation.
+     * @see #flushInstant(EventHandler)
+     */
+    private Map<Tape, Map<Integer, Map<Integer, String>>> instantSymbols;
+
+    /**
+     * Runner executing the machine on a background thread during a turbo execution, null if no turbo execution is
+     * running.
+     * @see #turbo()
+     */
+    private DeterministicRunner turboRunner;
+
+    /**
+     * Snapshot of the machine currently displayed during a turbo execution.
+     */
+    private MachineSnapshot turboSnapshot;
+
+    /**
+     * Timeline displaying the snapshots published by the {@link #turboRunner} at a fixed frame rate.
+     */
+    private Timeline turboTimeline;
+
+    /**
+     * Executor reading the file of the machine being loaded on a background thread, null if no machine is being
+     * loaded.
+     * @see #loadMachine(String)
+     */
+    private ExecutorService loadExecutor;
+
+    /**
+     * Timeline notifying the number of transitions read while a machine is loaded, null if no machine is being
+     * loaded.
+     * @see #loadMachine(String)
+     */
+    private Timeline loadTimeline;
+
     /**
      * Name of the last file the user used to save the machine.
      */
@@ -598,6 +717,16 @@ public class TuringMachineDrawer extends Application {
         this.directTimeline = new ParallelTransition();
         toPlay = new LinkedList<>();
 
+        this.instantStateChanged = false;
+        this.instantHeads = new HashMap<>();
+        this.instantSymbols = new HashMap<>();
+        this.instantTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                instantPulse();
+            }
+        };
+
         // Set the subscriber, listening to the machine messages.
         Subscriber s = new Subscriber() {
             @Override
@@ -648,17 +777,28 @@ public class TuringMachineDrawer extends Application {
                     break;
                     case TuringMachine.SUBSCRIBER_MSG_ERROR:{
                         String error_msg = (String) parameters[1];
-                        notifyMsg(error_msg);
+                        // Errors may be sent by a machine built or loaded on a background thread.
+                        if(Platform.isFxApplicationThread())
+                            notifyMsg(error_msg);
+                        else
+                            Platform.runLater(() -> notifyMsg(error_msg));
                     }
                     break;
                     case TuringMachine.SUBSCRIBER_MSG_CURRENT_STATE_CHANGED:{
                         Integer state = (Integer)parameters[1];
-                        toPlay.add(graphPane.getChangeCurrentStateTimeline(state));
+                        if(isInstant()) {
+                            instantState = state;
+                            instantStateChanged = true;
+                        }
+                        else
+                            toPlay.add(graphPane.getChangeCurrentStateTimeline(state));
                     }
                     break;
                     case TuringMachine.SUBSCRIBER_MSG_FIRED_TRANSITION:{
                         Transition transition = (Transition) parameters[1];
-                        toPlay.add(graphPane.getFiredTransitionTimeline(transition));
+                        // The firing is not displayed without animation as the transition is finally unchanged.
+                        if(!isInstant())
+                            toPlay.add(graphPane.getFiredTransitionTimeline(transition));
                     }
                     break;
                     case TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED:{
@@ -666,13 +806,19 @@ public class TuringMachineDrawer extends Application {
                         Integer head = (Integer) parameters[2];
                         Integer line = (Integer) parameters[3];
                         Integer column = (Integer) parameters[4];
-                        toPlay.add(tapesPane.getMoveHeadTimeline(tape, head, line, column));
+                        if(isInstant())
+                            instantHeads.computeIfAbsent(tape, k -> new HashMap<>())
+                                    .put(head, new Pair<>(line, column));
+                        else
+                            toPlay.add(tapesPane.getMoveHeadTimeline(tape, head, line, column));
                     }
                     break;
                     case TuringMachine.SUBSCRIBER_MSG_HEAD_WRITE:{
                         Tape tape = (Tape) parameters[1];
                         Integer head = (Integer) parameters[2];
-                        toPlay.add(tapesPane.getHeadWriteTimeline(tape, head));
+                        // The writing is not displayed without animation as the head is finally unchanged.
+                        if(!isInstant())
+                            toPlay.add(tapesPane.getHeadWriteTimeline(tape, head));
                     }
                     break;
                     case TuringMachine.SUBSCRIBER_MSG_SYMBOL_WRITTEN:{
@@ -680,6 +826,12 @@ public class TuringMachineDrawer extends Application {
                         Integer line = (Integer) parameters[2];
                         Integer column = (Integer) parameters[3];
                         String symbol = (String) parameters[4];
+                        if(isInstant()) {
+                            instantSymbols.computeIfAbsent(tape, k -> new HashMap<>())
+                                    .computeIfAbsent(line, k -> new HashMap<>())
+                                    .put(column, symbol);
+                            break;
+                        }
                         Timeline timeline = tapesPane.getWriteSymbolTimeline(tape, line, column, symbol);
                         if(timeline != null)
                             toPlay.add(timeline);
@@ -782,6 +934,30 @@ public class TuringMachineDrawer extends Application {
                         setDeterministicStateFromMachine(state, false);
                     }
                     break;
+                    case TuringMachine.SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_PROGRESS:{
+                        if(parameters[0] != machine)
+                            break;
+                        ExplorationProgress progress = (ExplorationProgress) parameters[1];
+                        String progressMsg = progress.getExploredConfigurations() + " configurations ("
+                                + progress.getExpansionsPerSecond() + "/s)\ndepth " + progress.getDepth()
+                                + ", frontier " + progress.getFrontierSize()
+                                + ", " + (progress.getUsedHeap() >> 20) + " MB";
+                        // The message is sent by the thread building the machine.
+                        Platform.runLater(() -> {
+                            if(isBuilding())
+                                notifyMsg(progressMsg);
+                        });
+                    }
+                    break;
+                    case TuringMachine.SUBSCRIBER_MSG_BATCH_COMMITTED:{
+                        if(parameters[0] != machine)
+                            break;
+                        @SuppressWarnings("unchecked")
+                        Map<Integer, Boolean> determinism = (Map<Integer, Boolean>) parameters[1];
+                        for(Map.Entry<Integer, Boolean> entry : determinism.entrySet())
+                            setDeterministicStateFromMachine(entry.getKey(), entry.getValue());
+                    }
+                    break;
                     case TuringMachine.SUBSCRIBER_MSG_HEAD_INITIAL_POSITION_CHANGED: {
                         Tape tape = (Tape) parameters[1];
                         Integer head = (Integer) parameters[2];
@@ -858,6 +1034,8 @@ public class TuringMachineDrawer extends Application {
         s.subscribe(TuringMachine.SUBSCRIBER_MSG_UNSET_INITIAL_STATE);
         s.subscribe(TuringMachine.SUBSCRIBER_MSG_SET_DETERMINISTIC_STATE);
         s.subscribe(TuringMachine.SUBSCRIBER_MSG_SET_NONDETERMINISTIC_STATE);
+        s.subscribe(TuringMachine.SUBSCRIBER_MSG_BATCH_COMMITTED);
+        s.subscribe(TuringMachine.SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_PROGRESS);
 
         s.subscribe(TuringMachine.SUBSCRIBER_MSG_HEAD_INITIAL_POSITION_CHANGED);
         s.subscribe(TuringMachine.SUBSCRIBER_MSG_INPUT_CHANGED);
@@ -867,6 +1045,8 @@ public class TuringMachineDrawer extends Application {
         s.subscribe(TuringMachine.SUBSCRIBER_MSG_TAPE_TOP_CHANGED);
 
         this.machine = new TuringMachine();
+        // The machine of the GUI can be watched through JMX.
+        this.machine.getStatistics().register();
 
         // Init the widgets
         initDraw();
@@ -1491,7 +1671,6 @@ public class TuringMachineDrawer extends Application {
         nextX = x;
         nextY = y;
 
-        // Must return the state for the #loadJSON method
         return machine.addState(name);
     }
 
@@ -1627,7 +1806,6 @@ public class TuringMachineDrawer extends Application {
         this.nextControl2X = control2X;
         this.nextControl2Y = control2Y;
 
-        // Must return the state for the #loadJSON method
         return TuringMachineDrawer.getInstance().machine.addTransition(input, output);
     }
 
@@ -2072,9 +2250,7 @@ public class TuringMachineDrawer extends Application {
         this.directTimeline.setOnFinished(actionEvent -> this.playing = false);
 
         this.machine.clearManual();
-        Timeline removeFirst = graphPane.getRemoveCurrentStateTimeline();
-        if(removeFirst != null)
-            toPlay.add(removeFirst);
+        this.removeCurrentState();
         this.flushDirect();
 
     }
@@ -2163,9 +2339,7 @@ public class TuringMachineDrawer extends Application {
 
         this.machine.loadFirstConfiguration();
         this.machine.clearBuild();
-        Timeline removeFirst = graphPane.getRemoveCurrentStateTimeline();
-        if(removeFirst != null)
-            toPlay.add(removeFirst);
+        this.removeCurrentState();
         this.flushDirect();
     }
 
@@ -2223,6 +2397,8 @@ public class TuringMachineDrawer extends Application {
         this.machine.manualExploreDeterministic();
         this.building = false;
         goToLastConfiguration();
+        if(this.machine.getNonHaltingEvidence() != null)
+            notifyMsg(this.machine.getNonHaltingEvidence());
     }
 
     /**
@@ -2254,11 +2430,17 @@ public class TuringMachineDrawer extends Application {
             return;
 
         this.menu.setPlay();
+        this.playing = true;
+
+        if(isInstant()){
+            instantTimer.start();
+            return;
+        }
+
         this.machineTimeLine.setOnFinished(actionEvent -> {
             if(this.playing)
                 this.play();
         });
-        this.playing = true;
 
         if(this.machine.tick())
             flushTimeline();
@@ -2277,25 +2459,242 @@ public class TuringMachineDrawer extends Application {
             return;
         if(!this.playing)
             return;
+
+        // The end of the turbo execution is displayed once the background thread stops.
+        if(turboRunner != null){
+            turboRunner.cancel();
+            return;
+        }
+
         this.menu.setPause();
         this.playing = false;
+        this.instantTimer.stop();
+    }
+
+    /**
+     * Enable or disable the profiling of the machine (see {@link TuringMachine#setProfiling(boolean)}). While the
+     * machine is profiled, the number of visits of each state and the number of firings of each transition are drawn
+     * over the graph as a heat map.
+     */
+    void toggleProfiling(){
+        machine.setProfiling(!machine.isProfiling());
+        notifyMsg(machine.isProfiling() ? "Profiling enabled" : "Profiling disabled");
+        graphPane.updateHeatMap();
+        tapesPane.updateHeatMap();
+    }
+
+    /**
+     * Display the space used on each tape since the profiling of the machine was enabled (see
+     * {@link TapeProfile#toString()}). Do nothing if the machine is not profiled.
+     */
+    void notifyProfile(){
+        if(!machine.isProfiling())
+            return;
+        StringBuilder sb = new StringBuilder();
+        sb.append(machine.getProfile().getTotalFires()).append(" transitions fired");
+        int index = 0;
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext(); index++)
+            sb.append("\nTape ").append(index).append(": ").append(it.next().getProfile());
+        notifyMsg(sb.toString());
+    }
+
+    /**
+     * Redraw the heat maps of the graph and of the tapes if the machine is profiled.
+     */
+    private void updateHeatMaps(){
+        if(!machine.isProfiling())
+            return;
+        graphPane.updateHeatMap();
+        tapesPane.updateHeatMap();
+    }
+
+    /**
+     * Execute the machine deterministically from the current configuration of the manual execution, at full speed on
+     * a background thread (see {@link DeterministicRunner}), until the machine stops or the user pauses the execution.
+     * The steps are not animated: the configuration reached by the machine is sampled and displayed
+     * {@link #TURBO_FRAME_RATE} times per second. Once the execution stops, the manual execution continues from the
+     * reached configuration. If the GUI is not in the "Manual firing mode" or if an animation is currently playing,
+     * do nothing.
+     */
+    void turbo(){
+        if(!manualMode)
+            return;
+        if(this.isOccupied())
+            return;
+        if(this.machine.getCurrentState() == null)
+            return;
+
+        this.playing = true;
+        this.menu.setPlay();
+
+        turboRunner = new DeterministicRunner(this.machine);
+        turboSnapshot = turboRunner.snapshot();
+
+        turboTimeline = new Timeline(new KeyFrame(Duration.millis(1000.0 / TURBO_FRAME_RATE),
+                actionEvent -> turboFrame()));
+        turboTimeline.setCycleCount(Animation.INDEFINITE);
+        turboTimeline.play();
+
+        turboRunner.runAsync(null);
+    }
+
+    /**
+     * Display the last snapshot published by the {@link #turboRunner} and request a new one. If the execution
+     * stopped, end the turbo execution.
+     */
+    private void turboFrame(){
+        // The last snapshot is published before the runner stops.
+        boolean running = turboRunner.isRunning();
+        MachineSnapshot snapshot = turboRunner.getPublishedSnapshot();
+        turboRunner.requestSnapshot();
+
+        if(snapshot != null && snapshot != turboSnapshot) {
+            for (Iterator<Tape> it = machine.getTapes(); it.hasNext(); ) {
+                Tape tape = it.next();
+                snapshot.forEachChangedCell(turboSnapshot, tape, (line, column, symbol) ->
+                        tapesPane.writeSymbol(tape, line, column, symbol));
+                for (int head = 0; head < tape.getNbHeads(); head++)
+                    tapesPane.placeHead(tape, head,
+                            snapshot.getHeadLine(tape, head), snapshot.getHeadColumn(tape, head));
+            }
+            graphPane.setCurrentState(snapshot.getState());
+            updateHeatMaps();
+            turboSnapshot = snapshot;
+        }
+
+        if(running)
+            return;
+
+        turboTimeline.stop();
+        machine.manualSetCurrentState(turboRunner.getCurrentState());
+        notifyMsg(turboRunner.getSteps() + " transitions fired.");
+
+        // As when a state is manually selected, the manual execution restarts from the current configuration.
+        this.menu.setFirstFrame();
+
+        turboRunner = null;
+        turboSnapshot = null;
+        turboTimeline = null;
+        this.playing = false;
+    }
+
+    /**
+     * Execute the machine during at most {@link #INSTANT_PLAYBACK_FRAME_DURATION} milliseconds and apply all the
+     * changes to the widgets at once. Called at each frame while the execution started with the {@link #play()}
+     * method is played without animation.
+     */
+    private void instantPulse(){
+        if(!this.playing){
+            instantTimer.stop();
+            return;
+        }
+
+        // The duration of the animations was changed during the execution.
+        if(!isInstant()){
+            instantTimer.stop();
+            this.play();
+            return;
+        }
+
+        long end = System.nanoTime() + INSTANT_PLAYBACK_FRAME_DURATION * 1000000;
+        boolean ticked;
+        do
+            ticked = this.machine.tick();
+        while(ticked && System.nanoTime() < end);
+
+        updateHeatMaps();
+        flushInstant(null);
+
+        if(!ticked){
+            instantTimer.stop();
+            menu.setLastFrame();
+            this.playing = false;
+        }
+    }
+
+    /**
+     * @return true if the execution of the machine is displayed without animation, that is if the duration of the
+     * animations is 0. In that case, the changes broadcast by the machine are not animated but stored and applied at
+     * once to the widgets by {@link #flushInstant(EventHandler)}.
+     */
+    private boolean isInstant(){
+        return ANIMATION_DURATION == 0;
+    }
+
+    /**
+     * Stop displaying a state as the current state, at the end of an execution.
+     */
+    private void removeCurrentState(){
+        if(isInstant()){
+            instantState = null;
+            instantStateChanged = true;
+            return;
+        }
+
+        Timeline removeFirst = graphPane.getRemoveCurrentStateTimeline();
+        if(removeFirst != null)
+            toPlay.add(removeFirst);
+    }
+
+    /**
+     * Apply all the changes stored since the last call to the widgets, without animation, then call the given handler
+     * as if an animation was finished.
+     * @param onFinished handler called once the changes are applied, may be null.
+     */
+    private void flushInstant(EventHandler<ActionEvent> onFinished){
+        if(instantStateChanged) {
+            graphPane.setCurrentState(instantState);
+            instantStateChanged = false;
+        }
+
+        for(Map.Entry<Tape, Map<Integer, Pair<Integer, Integer>>> entry : instantHeads.entrySet())
+            for(Map.Entry<Integer, Pair<Integer, Integer>> entry2 : entry.getValue().entrySet())
+                tapesPane.placeHead(entry.getKey(), entry2.getKey(), entry2.getValue().first,
+                        entry2.getValue().second);
+        instantHeads.clear();
+
+        for(Map.Entry<Tape, Map<Integer, Map<Integer, String>>> entry : instantSymbols.entrySet())
+            for(Map.Entry<Integer, Map<Integer, String>> entry2 : entry.getValue().entrySet())
+                for(Map.Entry<Integer, String> entry3 : entry2.getValue().entrySet())
+                    tapesPane.writeSymbol(entry.getKey(), entry2.getKey(), entry3.getKey(), entry3.getValue());
+        instantSymbols.clear();
+
+        if(onFinished != null)
+            onFinished.handle(new ActionEvent());
     }
 
     /**
      * Sequentially animate all the current stored animations.
      */
     private void flushTimeline(){
-        this.machineTimeLine.getChildren().clear();
-        this.machineTimeLine.getChildren().addAll(this.toPlay);
-        toPlay.clear();
+        updateHeatMaps();
+
+        Object event = GuiEvents.INSTANCE.beginFlushTimeline(toPlay.size(), isInstant());
+
+        if(isInstant())
+            flushInstant(this.machineTimeLine.getOnFinished());
+        else {
+            this.machineTimeLine.getChildren().clear();
+            this.machineTimeLine.getChildren().addAll(this.toPlay);
+            toPlay.clear();
 
-        this.machineTimeLine.play();
+            this.machineTimeLine.play();
+        }
+
+        GuiEvents.INSTANCE.endFlushTimeline(event);
     }
 
     /**
      * Parallely animate all the current stored animations.
      */
     private void flushDirect(){
+        updateHeatMaps();
+
+        if(isInstant()){
+            flushInstant(this.directTimeline.getOnFinished());
+            return;
+        }
+
         this.directTimeline.getChildren().clear();
         this.directTimeline.getChildren().addAll(this.toPlay);
         toPlay.clear();
@@ -2311,8 +2710,16 @@ public class TuringMachineDrawer extends Application {
         return building;
     }
 
+    /**
+     * @return true while a machine file is read on a background thread.
+     * @see #loadMachine(String)
+     */
+    public boolean isLoading() {
+        return loadExecutor != null;
+    }
+
     public boolean isOccupied(){
-        return isPlaying() || isBuilding();
+        return isPlaying() || isBuilding() || isLoading();
     }
 
     /**
@@ -2433,15 +2840,19 @@ public class TuringMachineDrawer extends Application {
                 fileChooser.setInitialDirectory(dir);
         }
 
+        FileChooser.ExtensionFilter binaryFilter =
+                new FileChooser.ExtensionFilter("TuringMachine binary files", "*" + MachineFiles.BINARY_EXTENSION);
         fileChooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("TuringMachine files", "*.tm")
+                new FileChooser.ExtensionFilter("TuringMachine files", "*" + MachineFiles.EXTENSION),
+                binaryFilter
         );
 
         File file = fileChooser.showSaveDialog(stage);
         if(file != null) {
             String filename = file.getAbsolutePath();
-            if(!filename.endsWith(".tm"))
-                filename += ".tm";
+            if(!filename.endsWith(MachineFiles.EXTENSION) && !MachineFiles.isBinary(filename))
+                filename += (fileChooser.getSelectedExtensionFilter() == binaryFilter) ?
+                        MachineFiles.BINARY_EXTENSION : MachineFiles.EXTENSION;
             return saveAsMachine(filename);
         }
         return false;
@@ -2459,11 +2870,8 @@ public class TuringMachineDrawer extends Application {
         lastSaveFilename = filename;
         this.stage.setTitle(lastSaveFilename);
 
-        JSONObject jsonMachine = getJSON();
         try {
-            FileWriter fw = new FileWriter(filename, false);
-            jsonMachine.write(fw);
-            fw.close();
+            MachineFiles.write(filename, machine, getLayout());
             setNotEnableToSave();
             return true;
         } catch (IOException ignored) {
@@ -2472,7 +2880,7 @@ public class TuringMachineDrawer extends Application {
     }
 
     /**
-     * Ask the user to choose a *.tm file and load the machine described in that file.
+     * Ask the user to choose a *.tm or *.tmb file and load the machine described in that file.
      * Ask for confirmation before erasing an existing and unsaved machine.
      */
     void loadMachine(){
@@ -2480,7 +2888,8 @@ public class TuringMachineDrawer extends Application {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Choose loadMachine file");
         fileChooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("TuringMachine files", "*.tm")
+                new FileChooser.ExtensionFilter("TuringMachine files",
+                        "*" + MachineFiles.EXTENSION, "*" + MachineFiles.BINARY_EXTENSION)
         );
 
         File file = fileChooser.showOpenDialog(stage);
@@ -2492,36 +2901,107 @@ public class TuringMachineDrawer extends Application {
     /**
      * Load the machine described in that file.
      * Ask for confirmation before erasing an existing and unsaved machine.
+     *
+     * The file is read on a background thread so that the application stays responsive; the widgets are then built on
+     * the JavaFX thread once the whole file is read. The loading can be cancelled with {@link #cancelLoad()} until
+     * the file is read. While the file is read, the number of transitions read so far is notified every
+     * {@link TuringMachine#EXPLORATION_PROGRESS_PERIOD} milliseconds.
      */
     private void loadMachine(String filename){
+        if(isOccupied())
+            return;
 
-        StringBuilder sb = new StringBuilder();
-        try {
+        String name = new File(filename).getName();
+        notification.notifyMsg("Loading " + name + "...");
 
-            BufferedReader br = new BufferedReader(new FileReader(filename));
-            String line;
-            while((line = br.readLine()) != null)
-                sb.append(line);
+        // The file is read in a new machine so that the current machine is not erased if the file is not valid.
+        // As that machine is populated in a batch, no message is sent to the GUI while the file is read.
+        TuringMachine loadedMachine = new TuringMachine();
+        MachineLayout layout = new MachineLayout();
 
-            if(!clearMachine())
-                return;
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            // A cancelled loading may still be reading the file, it should not prevent the application from exiting.
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        loadExecutor = executor;
+
+        loadTimeline = new Timeline(new KeyFrame(Duration.millis(TuringMachine.EXPLORATION_PROGRESS_PERIOD),
+                actionEvent -> notification.notifyMsg("Loading " + name + "...\n"
+                        + loadedMachine.getNbCreatedTransitions() + " transitions read")));
+        loadTimeline.setCycleCount(Animation.INDEFINITE);
+        loadTimeline.play();
+
+        executor.execute(() -> {
+            boolean read = false;
+            try {
+                MachineFiles.read(filename, loadedMachine, layout);
+                read = true;
+            } catch (IOException ignored) {
+            } finally {
+                TuringMachine machine = read ? loadedMachine : null;
+                Platform.runLater(() -> attachLoadedMachine(executor, filename, machine, layout));
+            }
+        });
+        executor.shutdown();
+    }
 
-            JSONObject jsonObject = new JSONObject(sb.toString());
+    /**
+     * Replace the current machine with the given machine read from the file with the given name by the given
+     * executor. Do nothing if that loading was cancelled.
+     * Ask for confirmation before erasing an existing and unsaved machine.
+     * @param executor
+     * @param filename
+     * @param loadedMachine the read machine or null if the file could not be read.
+     * @param layout
+     * @see #loadMachine(String)
+     */
+    private void attachLoadedMachine(ExecutorService executor, String filename,
+                                     TuringMachine loadedMachine, MachineLayout layout){
+        if(loadExecutor != executor)
+            return;
+        loadExecutor = null;
+        stopLoadTimeline();
 
-            this.machine.setCheckDeterministic(false);
-            loadJSON(jsonObject);
-            this.machine.setCheckDeterministic(true);
-            this.machine.checkDeterministic();
+        if(loadedMachine == null){
+            notification.notifyMsg("Cannot load " + new File(filename).getName());
+            return;
+        }
 
-            br.close();
-            lastSaveFilename = filename;
-            this.stage.setTitle(lastSaveFilename);
-            setNotEnableToSave();
-        } catch (IOException ignored) {
+        if(!clearMachine())
+            return;
 
-        }
+        attachMachine(loadedMachine, layout);
+
+        lastSaveFilename = filename;
+        this.stage.setTitle(lastSaveFilename);
+        setNotEnableToSave();
+
+        notification.notifyMsg(loadedMachine.getNbStates() + " states loaded.");
+    }
 
+    /**
+     * Cancel the loading of the machine file read on a background thread. The current machine is kept.
+     * @see #loadMachine(String)
+     */
+    void cancelLoad(){
+        if(!isLoading())
+            return;
 
+        loadExecutor.shutdownNow();
+        loadExecutor = null;
+        stopLoadTimeline();
+        notification.notifyMsg("Loading cancelled.");
+    }
+
+    /**
+     * Stop notifying the progress of the loading of a machine file.
+     * @see #loadMachine(String)
+     */
+    private void stopLoadTimeline(){
+        loadTimeline.stop();
+        loadTimeline = null;
     }
 
     /**
@@ -2549,51 +3029,108 @@ public class TuringMachineDrawer extends Application {
     }
 
     /**
-     * @return a JSON description of the machine. The description also contains graphical information such as the
-     * color of the heads or the positions of the states.
-     * @see #loadJSON(JSONObject)
+     * @return the layout of the machine: every graphical information that does not belong to the machine such as
+     * the color of the heads or the positions of the states.
+     * @see #attachMachine(TuringMachine, MachineLayout)
      */
-    private JSONObject getJSON(){
-        JSONObject jsonOptions = new JSONObject();
-        jsonOptions.put("animationDuration", ANIMATION_DURATION);
-        jsonOptions.put("maximumNonDeterministicSearch", machine.getMaximumNonDeterministicSearch());
-        jsonOptions.put("maximumManualDeterministicExploration", machine.getMaximumManualDeterministicExploration());
+    private MachineLayout getLayout(){
+        MachineLayout layout = new MachineLayout();
+        layout.setAnimationDuration(ANIMATION_DURATION);
+
+        graphPane.fillLayout(layout);
 
-        JSONObject jsonGraph = graphPane.getJSON();
-        JSONObject jsonTape = tapesPane.getJSON();
+        for(Map.Entry<Color, Pair<Tape, Integer>> entry : headsColors.entrySet())
+            layout.setHeadColor(entry.getValue().first, entry.getValue().second, entry.getKey().toString());
 
-        return new JSONObject()
-                .put("options", jsonOptions)
-                .put("graph", jsonGraph)
-                .put("tapes", jsonTape);
+        return layout;
     }
 
     /**
-     * Build a new machine using a JSON object as a description.
-     * @param jsonObject
-     * @see #getJSON()
-     */
-    private void loadJSON(JSONObject jsonObject){
-        setEditGraph();
-
-        JSONObject jsonOptions = jsonObject.getJSONObject("options");
-        ANIMATION_DURATION = jsonOptions.getLong("animationDuration");
-        machine.setMaximumNonDeterministicSearch(jsonOptions.getInt("maximumNonDeterministicSearch"));
+     * Replace the machine of the GUI with the given machine and build all the widgets describing that machine,
+     * using the given layout for the graphical informations. The GUI should be cleared before.
+     *
+     * As the given machine may have been built in a batch (see {@link TuringMachine#beginBatch()}), the widgets are
+     * built by reading the machine and not by listening to its messages.
+     * @param machine
+     * @param layout
+     * @see #getLayout()
+     */
+    private void attachMachine(TuringMachine machine, MachineLayout layout){
+        // The replaced machine is not used anymore, its statistics should not be watched through JMX.
+        this.machine.getStatistics().unregister();
+        machine.setProfiling(this.machine.isProfiling());
+        this.machine = machine;
+        machine.getStatistics().register();
+
+        if(layout.getAnimationDuration() != null)
+            ANIMATION_DURATION = layout.getAnimationDuration();
+
+        for(int i = 0; i < machine.getNbSymbols(); i++)
+            addSymbolFromMachine(machine.getSymbol(i));
+
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();){
+            Tape tape = it.next();
+            addTapeFromMachine(tape);
+            setTapeLeftBoundFromMachine(tape, tape.getLeftBound());
+            setTapeRightBoundFromMachine(tape, tape.getRightBound());
+            setTapeBottomBoundFromMachine(tape, tape.getBottomBound());
+            setTapeTopBoundFromMachine(tape, tape.getTopBound());
+
+            for(int head = 0; head < tape.getNbHeads(); head++){
+                String color = layout.getHeadColor(tape, head);
+                nextHeadColor = (color == null) ? Color.BLACK : Color.valueOf(color);
+                addHeadFromMachine(tape, head, tape.getInitialHeadLine(head), tape.getInitialHeadColumn(head));
+            }
 
-        try {
-            machine.setMaximumManualDeterministicExploration(jsonOptions.getInt("maximumManualNonDeterministicExploration"));
+            tape.forEachInputCell((line, column, symbol) -> setInputSymbolFromMachine(tape, line, column, symbol));
         }
-        catch (JSONException ignored){ }
-
-        JSONObject jsonTapes = jsonObject.getJSONObject("tapes");
-        tapesPane.loadJSON(jsonTapes);
 
+        for(int state = 0; state < machine.getNbStates(); state++){
+            Double x = layout.getStateX(state);
+            Double y = layout.getStateY(state);
+            nextX = (x == null) ? 0 : x;
+            nextY = (y == null) ? 0 : y;
+            addStateFromMachine(state);
+
+            if(machine.isInitial(state))
+                setInitialStateFromMachine(state, true);
+            if(machine.isFinal(state))
+                setFinalStateFromMachine(state, true);
+            if(machine.isAccepting(state))
+                setAcceptingStateFromMachine(state, true);
+        }
 
-        JSONObject jsonGraph =  jsonObject.getJSONObject("graph");
-        graphPane.loadJSON(jsonGraph);
+        for(int state = 0; state < machine.getNbStates(); state++){
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();){
+                Transition transition = it.next();
+
+                Double[] controls = layout.getTransitionControls(transition);
+                if(controls == null)
+                    controls = new Double[4];
+                nextControl1X = controls[0];
+                nextControl1Y = controls[1];
+                nextControl2X = controls[2];
+                nextControl2Y = controls[3];
+                addTransitionFromMachine(transition);
+
+                for(Iterator<Tape> it2 = machine.getTapes(); it2.hasNext();){
+                    Tape tape = it2.next();
+                    for(int head = 0; head < tape.getNbHeads(); head++)
+                        for(Iterator<String> it3 = transition.getReadSymbols(tape, head); it3.hasNext();)
+                            addReadSymbolFromMachine(transition, tape, head, it3.next());
+                }
 
-        setNotEditGraph();
+                for(Iterator<Action> it2 = transition.getActions(); it2.hasNext();){
+                    Action action = it2.next();
+                    addActionFromMachine(transition, action.getTape(), action.getHead(),
+                            action.getType(), action.value());
+                }
+            }
+        }
 
+        if(machine.isCheckDeterministic())
+            for(int state = 0; state < machine.getNbStates(); state++)
+                setDeterministicStateFromMachine(state, machine.isDeterministic(state));
     }
 
     public static void main(String[] args) {
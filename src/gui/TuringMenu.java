@@ -43,6 +43,7 @@ class TuringMenu extends Group {
     private NextFrameIcon nextFrameIcon;
     private LastFrameIcon lastFrameIcon;
     private LastDeterministicFrameIcon lastDeterministicFrameIcon;
+    private TurboIcon turboIcon;
 
     private ParametersIcon parametersIcon;
     private BuildIcon buildIcon;
@@ -71,6 +72,7 @@ class TuringMenu extends Group {
         nextFrameIcon = new NextFrameIcon();
         lastFrameIcon = new LastFrameIcon();
         lastDeterministicFrameIcon = new LastDeterministicFrameIcon();
+        turboIcon = new TurboIcon();
 
         buildIcon = new BuildIcon();
         manualIcon = new ManualIcon();
@@ -83,7 +85,7 @@ class TuringMenu extends Group {
 
         nonPlayerMenu = Arrays.asList(editGraphIcon, newFileIcon, openFileIcon, saveFileIcon, saveAsFileIcon, parametersIcon);
         playerMenu = Arrays.asList(stopIcon, previousFrameIcon, pauseIcon, playIcon, nextFrameIcon, lastFrameIcon,
-                lastDeterministicFrameIcon);
+                lastDeterministicFrameIcon, turboIcon);
         allMenu = Arrays.asList(manualIcon, buildIcon, helpIcon);
 
         int menuSize = getMenuSize();
@@ -123,6 +125,7 @@ class TuringMenu extends Group {
         nextFrameIcon.setNonClickable();
         lastFrameIcon.setNonClickable();
         lastDeterministicFrameIcon.setNonClickable();
+        turboIcon.setNonClickable();
 
         buildIcon.setClickable();
 
@@ -138,7 +141,7 @@ class TuringMenu extends Group {
         this.getChildren().addAll(rectangle,
                 editGraphIcon, newFileIcon, openFileIcon, saveFileIcon, saveAsFileIcon, manualIcon, parametersIcon,
                 stopIcon, previousFrameIcon, playIcon, pauseIcon, nextFrameIcon, lastFrameIcon,
-                lastDeterministicFrameIcon, buildIcon, helpIcon, showIcon, hideIcon);
+                lastDeterministicFrameIcon, turboIcon, buildIcon, helpIcon, showIcon, hideIcon);
 
 
     }
@@ -196,6 +199,7 @@ class TuringMenu extends Group {
         manualIcon.setSelected();
         buildIcon.setNonClickable();
         lastDeterministicFrameIcon.setClickable();
+        turboIcon.setClickable();
         showPlayer();
     }
 
@@ -203,6 +207,7 @@ class TuringMenu extends Group {
         manualIcon.setUnselected();
         buildIcon.setClickable();
         lastDeterministicFrameIcon.setNonClickable();
+        turboIcon.setNonClickable();
         hidePlayer();
     }
 
@@ -394,6 +399,10 @@ class OpenFileIcon extends PlayerIcon {
 
     @Override
     public boolean onMouseClicked(MouseEvent mouseEvent) {
+        if(TuringMachineDrawer.getInstance().isLoading()){
+            TuringMachineDrawer.getInstance().cancelLoad();
+            return true;
+        }
         if(TuringMachineDrawer.getInstance().isOccupied())
             return false;
         TuringMachineDrawer.getInstance().loadMachine();
@@ -814,6 +823,41 @@ class LastDeterministicFrameIcon extends PlayerIcon{
     }
 }
 
+class TurboIcon extends PlayerIcon{
+    TurboIcon() {
+
+        double playEdgeLength = TuringMachineDrawer.MENU_ICON_RADIUS * 7.0 / 8;
+        double height = Math.sqrt(3) * playEdgeLength / 2;
+
+        double leftX = - height * 5.0 / 6;
+
+        Polygon triangle1 = new Polygon(
+                leftX , playEdgeLength / 2,
+                leftX + height * 5.0 / 6 , 0.0,
+                leftX , -playEdgeLength / 2
+        );
+
+        Polygon triangle2 = new Polygon(
+                leftX + height * 5.0 / 6 , playEdgeLength / 2,
+                leftX + height * 10.0 / 6 , 0.0,
+                leftX + height * 5.0 / 6 , -playEdgeLength / 2
+        );
+
+        triangle1.setFill(Color.WHITE);
+        triangle2.setFill(Color.WHITE);
+
+        this.getChildren().addAll(triangle1, triangle2);
+    }
+
+    @Override
+    public boolean onMouseClicked(MouseEvent mouseEvent) {
+        if(TuringMachineDrawer.getInstance().isOccupied())
+            return false;
+        TuringMachineDrawer.getInstance().turbo();
+        return true;
+    }
+}
+
 class HideIcon extends PlayerIcon{
     HideIcon() {
         
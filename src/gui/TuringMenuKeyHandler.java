@@ -17,8 +17,21 @@ class TuringMenuKeyHandler implements EventHandler<KeyEvent> {
 
     @Override
     public void handle(KeyEvent keyEvent) {
+        if(TuringMachineDrawer.getInstance().isLoading() && keyEvent.getCode() == KeyCode.ESCAPE) {
+            TuringMachineDrawer.getInstance().cancelLoad();
+            return;
+        }
         if(TuringMachineDrawer.getInstance().animating)
             return;
+        // The machine may be profiled in every mode.
+        if(keyEvent.isControlDown() && keyEvent.isShiftDown() && keyEvent.getCode() == KeyCode.P) {
+            TuringMachineDrawer.getInstance().notifyProfile();
+            return;
+        }
+        if(keyEvent.isControlDown() && keyEvent.getCode() == KeyCode.P) {
+            TuringMachineDrawer.getInstance().toggleProfiling();
+            return;
+        }
         if(TuringMachineDrawer.getInstance().buildMode)
             return;
         if(TuringMachineDrawer.getInstance().manualMode)
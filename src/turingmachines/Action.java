@@ -29,6 +29,20 @@ public abstract class Action {
         this.head = head;
     }
 
+    /**
+     * @return the tape of the head on which the action is done.
+     */
+    public Tape getTape() {
+        return tape;
+    }
+
+    /**
+     * @return the index of the head on which the action is done in the list of heads of the tape of the head.
+     */
+    public int getHead() {
+        return head;
+    }
+
     /**
      * Execute the action. If log is true, a message (depending on the type of action) is broadcast to tell that a
      * head has moved ({@link TuringMachine#SUBSCRIBER_MSG_HEAD_MOVED}) or that a symbol is written
@@ -41,12 +55,12 @@ public abstract class Action {
      * @return the type of action ({@link ActionType#MOVE} if the action is a move action and
      * ({@link ActionType#WRITE} otherwise.
      */
-    abstract ActionType getType();
+    public abstract ActionType getType();
 
     /**
      * @return the parameter of the action (the direction if it is a move action and the written symbol otherwise).
      */
-    abstract Object value();
+    public abstract Object value();
 }
 
 
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decider proving that an execution never ends by reasoning backward from the configurations in which an execution
+ * ends: a final state, or a non final state and a symbol read by the head from which no transition can be fired.
+ * The decider only applies to the machines executed by a {@link MacroRunner} (see
+ * {@link MacroRunner#isSupported(TuringMachine, int)}).
+ *
+ * A partial configuration is a state, a position of the head and the symbols of some cells, the other cells being
+ * unknown. Starting from the partial configurations in which an execution ends, the decider searches the partial
+ * configurations from which they can be reached with one transition, then two transitions, and so on. If every
+ * branch of that search ends after at most L transitions (no transition can lead to the partial configuration
+ * without contradicting a known cell), an execution ending after n transitions would give a branch of n
+ * transitions: every execution still running after more than L transitions thus never ends.
+ *
+ * The search gives up if a branch is longer than {@link #MAXIMUM_DEPTH} transitions or if more than
+ * {@link #MAXIMUM_NODES} partial configurations are searched.
+ */
+public class BackwardReasoningDecider implements HaltingDecider {
+
+    /**
+     * Maximum number of transitions of a branch of the search.
+     */
+    private static final int MAXIMUM_DEPTH = 20;
+
+    /**
+     * Maximum number of partial configurations searched.
+     */
+    private static final int MAXIMUM_NODES = 100000;
+
+    /**
+     * Transition leading to a state, compiled for the search.
+     */
+    private static class Predecessor {
+        final int state;
+        final int read;
+        final int written;
+        final int move;
+
+        Predecessor(int state, int read, int written, int move) {
+            this.state = state;
+            this.read = read;
+            this.written = written;
+            this.move = move;
+        }
+    }
+
+    /**
+     * For each state, the transitions leading to that state from a non final state.
+     */
+    private List<List<Predecessor>> predecessors;
+
+    /**
+     * Number of partial configurations searched.
+     */
+    private int nodes;
+
+    /**
+     * Longest branch of the search.
+     */
+    private int depth;
+
+    /**
+     * Number of transitions after which every execution still running never ends, -1 if the search gave up or if
+     * the decider does not apply.
+     */
+    private long limit;
+
+    /**
+     * Number of transitions fired before the execution was started.
+     */
+    private long startSteps;
+
+    @Override
+    public void start(TuringMachine machine, MachineSnapshot snapshot) {
+        limit = -1;
+        startSteps = snapshot.getSteps();
+        if(!MacroRunner.isSupported(machine, 1))
+            return;
+
+        Tape tape = machine.getTapes().next();
+        List<String> symbols = MacroRunner.alphabet(machine, tape);
+        int nbStates = machine.getNbStates();
+
+        predecessors = new ArrayList<>();
+        for(int state = 0; state < nbStates; state++)
+            predecessors.add(new ArrayList<>());
+        List<int[]> ends = new ArrayList<>();
+
+        for(int state = 0; state < nbStates; state++){
+            if(machine.isFinal(state))
+                continue;
+
+            List<Transition> outputs = new ArrayList<>();
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();)
+                outputs.add(it.next());
+
+            for(int symbol = 0; symbol < symbols.size(); symbol++){
+                Transition fired = null;
+                for(Transition transition : outputs)
+                    if(canBeFired(transition, tape, symbols.get(symbol))) {
+                        fired = transition;
+                        break;
+                    }
+
+                if(fired == null) {
+                    ends.add(new int[]{state, symbol});
+                    continue;
+                }
+
+                int written = symbol;
+                // The moves up and down count as 0, as they do not move the head on a tape with one line.
+                int move = 0;
+                for(Iterator<Action> it = fired.getActions(); it.hasNext();){
+                    Action action = it.next();
+                    if(action.getType() == ActionType.WRITE)
+                        written = Math.max(0, symbols.indexOf(action.value()));
+                    else
+                        move += MacroRunner.move((Direction) action.value());
+                }
+                predecessors.get(fired.getOutput()).add(new Predecessor(state, symbol, written, move));
+            }
+        }
+
+        nodes = 0;
+        depth = 0;
+        for(int state = 0; state < nbStates; state++)
+            if(machine.isFinal(state) && !search(state, 0, new HashMap<>(), 0))
+                return;
+        for(int[] end : ends){
+            Map<Integer, Integer> cells = new HashMap<>();
+            cells.put(0, end[1]);
+            if(!search(end[0], 0, cells, 0))
+                return;
+        }
+        limit = depth;
+    }
+
+    /**
+     * Search the partial configurations from which the given partial configuration can be reached.
+     * @param state
+     * @param column column of the head.
+     * @param cells for each known cell, the index of its symbol.
+     * @param length number of transitions from the given partial configuration to a configuration ending the
+     *               execution.
+     * @return false if the search gave up.
+     */
+    private boolean search(int state, int column, Map<Integer, Integer> cells, int length){
+        if(length > MAXIMUM_DEPTH || ++nodes > MAXIMUM_NODES)
+            return false;
+        depth = Math.max(depth, length);
+
+        for(Predecessor predecessor : predecessors.get(state)){
+            int previousColumn = column - predecessor.move;
+            Integer symbol = cells.get(previousColumn);
+            if(symbol != null && symbol != predecessor.written)
+                continue;
+
+            Map<Integer, Integer> previousCells = new HashMap<>(cells);
+            previousCells.put(previousColumn, predecessor.read);
+            if(!search(predecessor.state, previousColumn, previousCells, length + 1))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the given transition can be fired when the head of the given tape reads the given symbol.
+     */
+    private static boolean canBeFired(Transition transition, Tape tape, String symbol){
+        Iterator<String> it = transition.getReadSymbols(tape, 0);
+        if(!it.hasNext())
+            return true;
+        while(it.hasNext())
+            if(Objects.equals(it.next(), symbol))
+                return true;
+        return false;
+    }
+
+    @Override
+    public String check(MachineSnapshot snapshot) {
+        if(limit == -1 || snapshot.getSteps() - startSteps <= limit)
+            return null;
+        return "No execution can end after more than " + limit + " steps (found by reasoning backward from the "
+                + "configurations ending the execution), and " + (snapshot.getSteps() - startSteps)
+                + " steps were fired.";
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class reading a binary machine file (*.tmb) and populating a Turing machine with its content.
+ *
+ * The binary format contains the same informations as the JSON format (see {@link TuringMachineReader}) and both
+ * formats can be converted into each other without any loss. It is far more compact as:
+ * <ul>
+ *     <li>every integer is written as a variable length integer (7 bits per byte, the highest bit meaning that
+ *     another byte follows); signed integers are first mapped to unsigned ones (zigzag encoding) so that small
+ *     negative values are also written in one byte;</li>
+ *     <li>every symbol is written once in a table at the beginning of the file and is then referred to with its
+ *     code (0 for the BLANK symbol, i + 1 for the i-th symbol of the table);</li>
+ *     <li>the input word of each tape is written line by line, each line being a list of runs of identical
+ *     symbols;</li>
+ *     <li>the actions refer to the heads with their indexes instead of their colors.</li>
+ * </ul>
+ *
+ * The file contains, in that order:
+ * <ul>
+ *     <li>a header: the magic number 0x544D4201 on 4 bytes and the version of the format;</li>
+ *     <li>the options: 1 if the duration of the animations is given and 0 otherwise, the duration if given, the
+ *     maximum number of iterations of the non deterministic search and of the manual deterministic exploration;</li>
+ *     <li>the symbols: the number of symbols of the machine, the number of other symbols used by the input words and
+ *     the transitions, then every symbol (length in bytes and UTF-8 bytes);</li>
+ *     <li>the tapes: the number of tapes, then, for each tape, the four bounds (0 if infinite, the zigzag encoding
+ *     of the bound plus one otherwise), the number of heads, the color (0xRRGGBBAA on 4 bytes), line and column of
+ *     each head, the number of non empty lines of the input word, and, for each such line, the difference with the
+ *     previous line, the number of runs and, for each run, the gap between its first column and the end of the
+ *     previous run, its length and the code of its symbol;</li>
+ *     <li>the states: the number of states, then, for each state, a byte of flags (initial, final, accepting, named),
+ *     its name if the state is named and its position;</li>
+ *     <li>the transitions: the number of transitions, then, for each transition, its input and output states, a byte
+ *     whose i-th bit is set if the i-th coordinate of the control keys is given (control1X, control1Y, control2X,
+ *     control2Y, see {@link MachineLayout#getTransitionControls(Transition)}) followed by the given coordinates (in
+ *     the version 1 of the format, that byte is 1 if the four coordinates are given and 0 otherwise), the codes of
+ *     the read symbols of
+ *     each head of each tape (preceded by their number) and the actions (preceded by their number), each action
+ *     being a tape index, a head index and a code (see {@link #getAction(Tape, int, int)}).</li>
+ * </ul>
+ *
+ * A coordinate is written as the zigzag encoding of its value shifted by one bit if it is an integer and as 1
+ * followed by the 8 bytes of the double otherwise.
+ *
+ * The file is mapped in memory and decoded directly from the mapped buffer. As for the JSON format, the machine is
+ * populated in a batch (see {@link TuringMachine#beginBatch()}).
+ *
+ * @see BinaryMachineWriter
+ */
+public class BinaryMachineReader {
+
+    /**
+     * First 4 bytes of a binary machine file ("TMB" followed by 1).
+     */
+    static final int MAGIC = 0x544D4201;
+
+    /**
+     * Version of the format.
+     */
+    static final int VERSION = 2;
+
+    static final int STATE_INITIAL = 1;
+    static final int STATE_FINAL = 2;
+    static final int STATE_ACCEPTING = 4;
+    static final int STATE_NAMED = 8;
+
+    static final int LEFT_CODE = 0;
+    static final int RIGHT_CODE = 1;
+    static final int UP_CODE = 2;
+    static final int DOWN_CODE = 3;
+
+    /**
+     * Code of the write action writing the BLANK symbol. The code of the write action writing the symbol of code i
+     * is WRITE_CODE + i.
+     */
+    static final int WRITE_CODE = 4;
+
+    /**
+     * Coordinates whose absolute value is lower than this value are written as integers if they are integral.
+     */
+    static final double MAX_INTEGRAL_COORDINATE = 1L << 52;
+
+    /**
+     * Populated machine.
+     */
+    private TuringMachine machine;
+
+    /**
+     * Layout filled with the informations of the file that does not belong to the machine.
+     */
+    private MachineLayout layout;
+
+    /**
+     * Symbols of the file, indexed by their code.
+     */
+    private String[] symbols;
+
+    /**
+     * Version of the format of the file.
+     */
+    private int version;
+
+    private ByteBuffer in;
+
+    /**
+     * Build a reader populating the given machine and the given layout. The machine should be empty.
+     * @param machine
+     * @param layout
+     */
+    public BinaryMachineReader(TuringMachine machine, MachineLayout layout) {
+        this.machine = machine;
+        this.layout = layout;
+    }
+
+    /**
+     * Read the file with the given name.
+     * @param filename
+     * @throws IOException if the file cannot be read or is not a valid binary machine file.
+     */
+    public void read(String filename) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE)
+                throw new IOException("File too large.");
+            read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Read the binary machine file contained in the given buffer, from its position to its limit.
+     * @param buffer
+     * @throws IOException if the buffer does not contain a valid binary machine file.
+     */
+    public void read(ByteBuffer buffer) throws IOException {
+        in = buffer;
+        machine.beginBatch();
+        try {
+            readHeader();
+            readOptions();
+            readSymbols();
+            readTapes();
+            readStates();
+            readTransitions();
+        }
+        catch (BufferUnderflowException e){
+            throw new IOException("Unexpected end of file.");
+        }
+        finally {
+            in = null;
+            symbols = null;
+            machine.commit();
+        }
+    }
+
+    private void readHeader() throws IOException {
+        if(in.getInt() != MAGIC)
+            throw new IOException("Not a binary machine file.");
+        version = readVarInt();
+        if(version < 1 || version > VERSION)
+            throw new IOException("Unsupported version " + version + ".");
+    }
+
+    private void readOptions() throws IOException {
+        if(readVarInt() != 0)
+            layout.setAnimationDuration(readVarLong());
+        machine.setMaximumNonDeterministicSearch((int) readVarLong());
+        machine.setMaximumManualDeterministicExploration((int) readVarLong());
+    }
+
+    private void readSymbols() throws IOException {
+        int nbMachineSymbols = readCount();
+        int nbOtherSymbols = readCount();
+        symbols = new String[nbMachineSymbols + nbOtherSymbols + 1];
+        for(int i = 1; i < symbols.length; i++){
+            symbols[i] = readString();
+            if(i <= nbMachineSymbols)
+                machine.addSymbol(symbols[i]);
+        }
+    }
+
+    /**
+     * @return the symbol associated with the next code of the file, null for the BLANK symbol.
+     * @throws IOException if the code is not valid.
+     */
+    private String readSymbol() throws IOException {
+        return getSymbol(readVarInt());
+    }
+
+    private String getSymbol(int code) throws IOException {
+        if(code < 0 || code >= symbols.length)
+            throw new IOException("Invalid symbol " + code + ".");
+        return symbols[code];
+    }
+
+    private void readTapes() throws IOException {
+        int nbTapes = readCount();
+        for(int i = 0; i < nbTapes; i++)
+            readTape();
+    }
+
+    private void readTape() throws IOException {
+        Tape tape = machine.addTape();
+        tape.setLeftBound(readBound());
+        tape.setRightBound(readBound());
+        tape.setBottomBound(readBound());
+        tape.setTopBound(readBound());
+
+        int nbHeads = readCount();
+        for(int head = 0; head < nbHeads; head++){
+            String color = String.format("0x%08x", in.getInt());
+            int line = unzigzag(readVarInt());
+            int column = unzigzag(readVarInt());
+            machine.addHead(tape, line, column);
+            layout.setHeadColor(tape, head, color);
+        }
+
+        int nbRows = readCount();
+        int line = 0;
+        for(int row = 0; row < nbRows; row++){
+            line += unzigzag(readVarInt());
+            int nbRuns = readCount();
+            int column = 0;
+            for(int run = 0; run < nbRuns; run++){
+                column += unzigzag(readVarInt());
+                int length = readVarInt();
+                if(length < 0)
+                    throw new IOException("Invalid run length " + length + ".");
+                String symbol = readSymbol();
+                for(int i = 0; i < length; i++, column++)
+                    tape.writeInput(line, column, symbol);
+            }
+        }
+    }
+
+    /**
+     * @return the next bound of the file, null if the bound is infinite.
+     * @throws IOException
+     */
+    private Integer readBound() throws IOException {
+        int value = readVarInt();
+        if(value == 0)
+            return null;
+        return unzigzag(value - 1);
+    }
+
+    private void readStates() throws IOException {
+        int nbStates = readCount();
+        for(int i = 0; i < nbStates; i++){
+            int flags = in.get();
+            String name = ((flags & STATE_NAMED) != 0) ? readString() : null;
+            double x = readCoordinate();
+            double y = readCoordinate();
+
+            int state = machine.addState(name);
+            layout.setStatePosition(state, x, y);
+            if((flags & STATE_INITIAL) != 0)
+                machine.setInitialState(state);
+            if((flags & STATE_FINAL) != 0)
+                machine.setFinalState(state);
+            if((flags & STATE_ACCEPTING) != 0)
+                machine.setAcceptingState(state);
+        }
+    }
+
+    private void readTransitions() throws IOException {
+        int nbTransitions = readCount();
+        for(int i = 0; i < nbTransitions; i++)
+            readTransition();
+    }
+
+    private void readTransition() throws IOException {
+        int input = readVarInt();
+        int output = readVarInt();
+        Transition transition = machine.addTransition(input, output);
+        if(transition == null)
+            throw new IOException("Invalid transition from " + input + " to " + output + ".");
+
+        int given = in.get();
+        if(version == 1 && given != 0)
+            given = 0b1111;
+        if(given != 0) {
+            Double[] controls = new Double[4];
+            for(int i = 0; i < controls.length; i++)
+                if((given & (1 << i)) != 0)
+                    controls[i] = readCoordinate();
+            layout.setTransitionControls(transition, controls[0], controls[1], controls[2], controls[3]);
+        }
+
+        for(int tapeId = 0; tapeId < machine.getNbTapes(); tapeId++){
+            Tape tape = machine.getTape(tapeId);
+            for(int head = 0; head < tape.getNbHeads(); head++){
+                int nbSymbols = readCount();
+                for(int j = 0; j < nbSymbols; j++)
+                    transition.addReadSymbols(tape, head, readSymbol());
+            }
+        }
+
+        int nbActions = readCount();
+        for(int j = 0; j < nbActions; j++){
+            int tapeId = readVarInt();
+            int head = readVarInt();
+            int code = readVarInt();
+            if(tapeId < 0 || tapeId >= machine.getNbTapes())
+                throw new IOException("Invalid tape " + tapeId + ".");
+            Tape tape = machine.getTape(tapeId);
+            if(head < 0 || head >= tape.getNbHeads())
+                throw new IOException("Invalid action.");
+            transition.addAction(getAction(tape, head, code));
+        }
+    }
+
+    /**
+     * @param tape
+     * @param head
+     * @param code
+     * @return the action associated with the given code: a move action if the code is lower than
+     * {@link #WRITE_CODE} and the write action of the symbol of code (code - {@link #WRITE_CODE}) otherwise.
+     * @throws IOException if the code is not valid.
+     */
+    private Action getAction(Tape tape, int head, int code) throws IOException {
+        switch (code){
+            case LEFT_CODE:
+                return new MoveAction(tape, head, Direction.LEFT);
+            case RIGHT_CODE:
+                return new MoveAction(tape, head, Direction.RIGHT);
+            case UP_CODE:
+                return new MoveAction(tape, head, Direction.UP);
+            case DOWN_CODE:
+                return new MoveAction(tape, head, Direction.DOWN);
+            default:
+                return new WriteAction(tape, head, getSymbol(code - WRITE_CODE));
+        }
+    }
+
+    /**
+     * @return the next unsigned variable length integer of the file.
+     * @throws IOException if the integer is encoded on more than 10 bytes.
+     */
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7){
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Invalid integer.");
+    }
+
+    private int readVarInt() throws IOException {
+        long value = readVarLong();
+        if(value > 0xFFFFFFFFL)
+            throw new IOException("Invalid integer.");
+        return (int) value;
+    }
+
+    /**
+     * @return the next number of elements of the file.
+     * @throws IOException if that number is larger than the remaining number of bytes of the file, as every element
+     * is written on at least one byte.
+     */
+    private int readCount() throws IOException {
+        int count = readVarInt();
+        if(count < 0 || count > in.remaining())
+            throw new IOException("Invalid number of elements " + count + ".");
+        return count;
+    }
+
+    private static int unzigzag(int value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unzigzag(long value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private double readCoordinate() throws IOException {
+        long value = readVarLong();
+        if((value & 1) == 0)
+            return unzigzag(value >>> 1);
+        return Double.longBitsToDouble(in.getLong());
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[readCount()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class writing a Turing machine and its layout in a binary machine file (*.tmb). See {@link BinaryMachineReader}
+ * for a description of the format.
+ *
+ * @see BinaryMachineReader
+ */
+public class BinaryMachineWriter {
+
+    /**
+     * Written machine.
+     */
+    private TuringMachine machine;
+
+    /**
+     * Layout of the written machine.
+     */
+    private MachineLayout layout;
+
+    /**
+     * Code of every symbol written in the file. The code of the BLANK symbol is 0 and is not in this map.
+     */
+    private Map<String, Integer> symbolsCodes;
+
+    /**
+     * Index of every tape of the machine.
+     */
+    private Map<Tape, Integer> tapesIndexes;
+
+    private OutputStream out;
+
+    /**
+     * Build a writer writing the given machine with the given layout.
+     * @param machine
+     * @param layout
+     */
+    public BinaryMachineWriter(TuringMachine machine, MachineLayout layout) {
+        this.machine = machine;
+        this.layout = layout;
+    }
+
+    /**
+     * Write the machine in the file with the given name. The file is overwritten if it already exists.
+     * @param filename
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(String filename) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(Channels.newOutputStream(channel));
+        }
+    }
+
+    /**
+     * Write the machine with the given stream. The stream is flushed but not closed.
+     * @param stream
+     * @throws IOException if the stream cannot be written.
+     */
+    public void write(OutputStream stream) throws IOException {
+        layout.assignMissingHeadsColors(machine);
+        out = new BufferedOutputStream(stream, TuringMachineReader.BUFFER_SIZE);
+        try {
+            writeHeader();
+            writeOptions();
+            writeSymbols();
+            writeTapes();
+            writeStates();
+            writeTransitions();
+            out.flush();
+        }
+        finally {
+            out = null;
+            symbolsCodes = null;
+            tapesIndexes = null;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        writeFixedInt(BinaryMachineReader.MAGIC);
+        writeVarLong(BinaryMachineReader.VERSION);
+    }
+
+    private void writeOptions() throws IOException {
+        Long animationDuration = layout.getAnimationDuration();
+        writeVarLong(animationDuration == null ? 0 : 1);
+        if(animationDuration != null)
+            writeVarLong(animationDuration);
+        writeVarLong(machine.getMaximumNonDeterministicSearch());
+        writeVarLong(machine.getMaximumManualDeterministicExploration());
+    }
+
+    /**
+     * Write the symbols of the machine followed by every other symbol used in the input words and the transitions.
+     * @throws IOException
+     */
+    private void writeSymbols() throws IOException {
+        symbolsCodes = new LinkedHashMap<>();
+        for(Iterator<String> it = machine.getSymbols(); it.hasNext();)
+            internSymbol(it.next());
+        int nbMachineSymbols = symbolsCodes.size();
+
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();)
+            it.next().forEachInputCell((line, column, symbol) -> internSymbol(symbol));
+
+        for(int state = 0; state < machine.getNbStates(); state++){
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();){
+                Transition transition = it.next();
+                for(Iterator<Tape> it2 = machine.getTapes(); it2.hasNext();){
+                    Tape tape = it2.next();
+                    for(int head = 0; head < tape.getNbHeads(); head++)
+                        for(Iterator<String> it3 = transition.getReadSymbols(tape, head); it3.hasNext();)
+                            internSymbol(it3.next());
+                }
+                for(Iterator<Action> it2 = transition.getActions(); it2.hasNext();){
+                    Action action = it2.next();
+                    if(action.getType() == ActionType.WRITE)
+                        internSymbol((String) action.value());
+                }
+            }
+        }
+
+        writeVarLong(nbMachineSymbols);
+        writeVarLong(symbolsCodes.size() - nbMachineSymbols);
+        for(String symbol : symbolsCodes.keySet())
+            writeString(symbol);
+    }
+
+    private void internSymbol(String symbol){
+        if(symbol != null && !symbolsCodes.containsKey(symbol))
+            symbolsCodes.put(symbol, symbolsCodes.size() + 1);
+    }
+
+    /**
+     * @param symbol
+     * @return the code of the given symbol (null if the symbol is BLANK) in the file.
+     */
+    private int getCode(String symbol){
+        return symbol == null ? 0 : symbolsCodes.get(symbol);
+    }
+
+    private void writeTapes() throws IOException {
+        tapesIndexes = new HashMap<>();
+        writeVarLong(machine.getNbTapes());
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();){
+            Tape tape = it.next();
+            tapesIndexes.put(tape, tapesIndexes.size());
+            writeTape(tape);
+        }
+    }
+
+    private void writeTape(Tape tape) throws IOException {
+        writeBound(tape.getLeftBound());
+        writeBound(tape.getRightBound());
+        writeBound(tape.getBottomBound());
+        writeBound(tape.getTopBound());
+
+        writeVarLong(tape.getNbHeads());
+        for(int head = 0; head < tape.getNbHeads(); head++){
+            writeFixedInt(parseColor(layout.getHeadColor(tape, head)));
+            writeVarLong(zigzag(tape.getInitialHeadLine(head)));
+            writeVarLong(zigzag(tape.getInitialHeadColumn(head)));
+        }
+
+        // The input word is sorted by lines then by columns so that every line can be written as a list of runs of
+        // identical symbols.
+        TreeMap<Integer, TreeMap<Integer, Integer>> rows = new TreeMap<>();
+        tape.forEachInputCell((line, column, symbol) ->
+                rows.computeIfAbsent(line, k -> new TreeMap<>()).put(column, getCode(symbol)));
+
+        writeVarLong(rows.size());
+        int previousLine = 0;
+        for(Map.Entry<Integer, TreeMap<Integer, Integer>> row : rows.entrySet()){
+            writeVarLong(zigzag(row.getKey() - previousLine));
+            previousLine = row.getKey();
+            writeRow(row.getValue());
+        }
+    }
+
+    /**
+     * Write the given line of the input word as a list of runs. Each run is given by the gap between its first
+     * column and the end of the previous run, its length and the code of its symbol.
+     * @param row map associating the code of a symbol to each non blank column of the line.
+     * @throws IOException
+     */
+    private void writeRow(TreeMap<Integer, Integer> row) throws IOException {
+        List<int[]> runs = new ArrayList<>();
+        int[] run = null;
+        for(Map.Entry<Integer, Integer> cell : row.entrySet()){
+            int column = cell.getKey();
+            int code = cell.getValue();
+            if(run != null && run[0] + run[1] == column && run[2] == code)
+                run[1]++;
+            else {
+                run = new int[]{column, 1, code};
+                runs.add(run);
+            }
+        }
+
+        writeVarLong(runs.size());
+        int previousEnd = 0;
+        for(int[] r : runs){
+            writeVarLong(zigzag(r[0] - previousEnd));
+            writeVarLong(r[1]);
+            writeVarLong(r[2]);
+            previousEnd = r[0] + r[1];
+        }
+    }
+
+    private void writeBound(Integer bound) throws IOException {
+        writeVarLong(bound == null ? 0 : zigzag(bound) + 1);
+    }
+
+    private void writeStates() throws IOException {
+        writeVarLong(machine.getNbStates());
+        for(int state = 0; state < machine.getNbStates(); state++){
+            String name = machine.getStateName(state);
+            int flags = 0;
+            if(machine.isInitial(state))
+                flags |= BinaryMachineReader.STATE_INITIAL;
+            if(machine.isFinal(state))
+                flags |= BinaryMachineReader.STATE_FINAL;
+            if(machine.isAccepting(state))
+                flags |= BinaryMachineReader.STATE_ACCEPTING;
+            if(name != null)
+                flags |= BinaryMachineReader.STATE_NAMED;
+            out.write(flags);
+            if(name != null)
+                writeString(name);
+
+            Double x = layout.getStateX(state);
+            Double y = layout.getStateY(state);
+            writeCoordinate(x == null ? 0 : x);
+            writeCoordinate(y == null ? 0 : y);
+        }
+    }
+
+    private void writeTransitions() throws IOException {
+        List<Transition> transitions = new ArrayList<>();
+        for(int state = 0; state < machine.getNbStates(); state++)
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();)
+                transitions.add(it.next());
+
+        writeVarLong(transitions.size());
+        for(Transition transition : transitions)
+            writeTransition(transition);
+    }
+
+    private void writeTransition(Transition transition) throws IOException {
+        writeVarLong(transition.getInput());
+        writeVarLong(transition.getOutput());
+
+        Double[] controls = layout.getTransitionControls(transition);
+        int given = 0;
+        if(controls != null)
+            for(int i = 0; i < controls.length; i++)
+                if(controls[i] != null)
+                    given |= 1 << i;
+        out.write(given);
+        for(int i = 0; i < 4; i++)
+            if((given & (1 << i)) != 0)
+                writeCoordinate(controls[i]);
+
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();){
+            Tape tape = it.next();
+            for(int head = 0; head < tape.getNbHeads(); head++){
+                List<String> symbols = new ArrayList<>();
+                for(Iterator<String> it2 = transition.getReadSymbols(tape, head); it2.hasNext();)
+                    symbols.add(it2.next());
+                writeVarLong(symbols.size());
+                for(String symbol : symbols)
+                    writeVarLong(getCode(symbol));
+            }
+        }
+
+        writeVarLong(transition.getNbActions());
+        for(Iterator<Action> it = transition.getActions(); it.hasNext();){
+            Action action = it.next();
+            writeVarLong(tapesIndexes.get(action.getTape()));
+            writeVarLong(action.getHead());
+            writeVarLong(getActionCode(action));
+        }
+    }
+
+    /**
+     * @param action
+     * @return the code of the given action in a file.
+     * @see BinaryMachineReader#getAction(Tape, int, int)
+     */
+    private int getActionCode(Action action){
+        if(action.getType() == ActionType.MOVE){
+            switch ((Direction) action.value()){
+                case LEFT:
+                    return BinaryMachineReader.LEFT_CODE;
+                case RIGHT:
+                    return BinaryMachineReader.RIGHT_CODE;
+                case UP:
+                    return BinaryMachineReader.UP_CODE;
+                default:
+                    return BinaryMachineReader.DOWN_CODE;
+            }
+        }
+        return BinaryMachineReader.WRITE_CODE + getCode((String) action.value());
+    }
+
+    /**
+     * @param color a color of the form 0xRRGGBBAA
+     * @return the given color as an integer.
+     * @throws IOException if the color has not the expected form.
+     */
+    private static int parseColor(String color) throws IOException {
+        if(color == null || color.length() != 10 || !color.startsWith("0x"))
+            throw new IOException("Invalid color " + color + ".");
+        try {
+            return (int) Long.parseLong(color.substring(2), 16);
+        }
+        catch (NumberFormatException e){
+            throw new IOException("Invalid color " + color + ".");
+        }
+    }
+
+    /**
+     * @param value
+     * @return the given signed value mapped to an unsigned value so that small absolute values have small codes.
+     */
+    private static long zigzag(long value){
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Write the given unsigned value, 7 bits per byte, the highest bit of each byte meaning that another byte follows.
+     * @param value
+     * @throws IOException
+     */
+    private void writeVarLong(long value) throws IOException {
+        while((value & ~0x7FL) != 0){
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private void writeFixedInt(int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * Write the given coordinate. Integral coordinates are written as variable length integers, the others are
+     * written as a marker followed by the 8 bytes of the double.
+     * @param value
+     * @throws IOException
+     */
+    private void writeCoordinate(double value) throws IOException {
+        if(value == Math.rint(value) && Math.abs(value) < BinaryMachineReader.MAX_INTEGRAL_COORDINATE) {
+            writeVarLong(zigzag((long) value) << 1);
+            return;
+        }
+        writeVarLong(1);
+        long bits = Double.doubleToRawLongBits(value);
+        writeFixedInt((int) (bits >>> 32));
+        writeFixedInt((int) bits);
+    }
+
+    private void writeString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+/**
+ * Operation applied on a cell of a tape, identified by its line and its column, and on the symbol written in that
+ * cell.
+ *
+ * @see Tape#forEachInputCell(CellConsumer)
+ */
+@FunctionalInterface
+public interface CellConsumer {
+
+    /**
+     * Apply the operation on the cell at the given line and column containing the given symbol.
+     * @param line
+     * @param column
+     * @param symbol
+     */
+    void accept(int line, int column, String symbol);
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Headless execution of a machine compiled to arrays of integers. The execution is the same as the execution of a
+ * {@link DeterministicRunner} (the first output transition of the current state that can be fired is fired), but
+ * the machine is frozen when the runner is built:
+ * <ul>
+ *     <li>every symbol is replaced by a code, the BLANK symbol being the code 0, and every tape is stored in an
+ *     array of codes covering the rectangle of the cells used by the execution;</li>
+ *     <li>the symbols read by every transition under every head are a bit mask of codes, and the heads on which a
+ *     transition reads no symbol are not checked;</li>
+ *     <li>if the number of combinations of codes read by the heads is small enough, the transition fired in each
+ *     state for each combination is precomputed in a dispatch table: a step is then a table lookup;</li>
+ *     <li>the actions are a flat array of (type, head, value) integers.</li>
+ * </ul>
+ * The execution loop thus only reads arrays of integers and can be optimized by the JIT compiler as a whole, while
+ * the {@link DeterministicRunner} iterates over the transitions, their maps of read symbols and their lists of
+ * actions at every step.
+ *
+ * As for the {@link MacroRunner}, the execution always starts from the initial configuration, the tapes of the
+ * machine are not modified until {@link #writeTapes()} is called, and neither the statistics nor the profile of the
+ * machine are updated. Editing the machine has no effect on a runner already built.
+ */
+public class CompiledRunner {
+
+    /**
+     * Maximum number of entries of the dispatch table. If the number of states times the number of combinations of
+     * codes read by the heads exceeds it, the guards of the transitions are checked at every step instead.
+     */
+    private static final int MAXIMUM_DISPATCH_SIZE = 1 << 20;
+
+    /**
+     * Type of an action writing a code under a head.
+     */
+    private static final int WRITE = 0;
+
+    /**
+     * Type of an action moving a head.
+     */
+    private static final int MOVE = 1;
+
+    /**
+     * Cells of a tape used by the execution, stored in an array of codes covering a rectangle of the tape. The cells
+     * outside the rectangle are BLANK.
+     */
+    private static class Grid {
+        final Integer leftBound;
+        final Integer rightBound;
+        final Integer bottomBound;
+        final Integer topBound;
+
+        int minLine;
+        int minColumn;
+        int height;
+        int width;
+        int[] cells;
+
+        Grid(Tape tape) {
+            leftBound = tape.getLeftBound();
+            rightBound = tape.getRightBound();
+            bottomBound = tape.getBottomBound();
+            topBound = tape.getTopBound();
+        }
+
+        void clear(int line, int column){
+            minLine = line;
+            minColumn = column;
+            height = 1;
+            width = 1;
+            cells = new int[1];
+        }
+
+        int get(int line, int column){
+            int l = line - minLine;
+            int c = column - minColumn;
+            if(l < 0 || l >= height || c < 0 || c >= width)
+                return 0;
+            return cells[l * width + c];
+        }
+
+        void set(int line, int column, int code){
+            int l = line - minLine;
+            int c = column - minColumn;
+            if(l < 0 || l >= height || c < 0 || c >= width){
+                if(code == 0)
+                    return;
+                grow(line, column);
+                l = line - minLine;
+                c = column - minColumn;
+            }
+            cells[l * width + c] = code;
+        }
+
+        /**
+         * Extend the rectangle so that it contains the given cell, doubling its size in the extended directions.
+         */
+        private void grow(int line, int column){
+            int newMinLine = minLine;
+            int newHeight = height;
+            if(line < minLine) {
+                newMinLine = line - height;
+                newHeight = minLine + height - newMinLine;
+            }
+            else if(line >= minLine + height)
+                newHeight = line - minLine + 1 + height;
+
+            int newMinColumn = minColumn;
+            int newWidth = width;
+            if(column < minColumn) {
+                newMinColumn = column - width;
+                newWidth = minColumn + width - newMinColumn;
+            }
+            else if(column >= minColumn + width)
+                newWidth = column - minColumn + 1 + width;
+
+            int[] newCells = new int[Math.multiplyExact(newHeight, newWidth)];
+            for(int l = 0; l < height; l++)
+                System.arraycopy(cells, l * width, newCells,
+                        (l + minLine - newMinLine) * newWidth + minColumn - newMinColumn, width);
+
+            minLine = newMinLine;
+            minColumn = newMinColumn;
+            height = newHeight;
+            width = newWidth;
+            cells = newCells;
+        }
+    }
+
+    private final TuringMachine machine;
+
+    /**
+     * Tapes of the machine.
+     */
+    private final List<Tape> tapes;
+
+    /**
+     * For each tape, its cells.
+     */
+    private final Grid[] grids;
+
+    /**
+     * For each head, numbered tape after tape, the index of its tape.
+     */
+    private final int[] headTapes;
+
+    /**
+     * For each head, its index in the list of heads of its tape.
+     */
+    private final int[] headIndexes;
+
+    /**
+     * For each head, its current line.
+     */
+    private final int[] headLines;
+
+    /**
+     * For each head, its current column.
+     */
+    private final int[] headColumns;
+
+    /**
+     * Symbols of the tapes, the BLANK symbol (null) being the code 0.
+     */
+    private final String[] symbols;
+
+    /**
+     * For each state, the indexes of its output transitions, in order.
+     */
+    private final int[][] outputs;
+
+    /**
+     * For each transition, its output state.
+     */
+    private final int[] nextStates;
+
+    /**
+     * For each transition, the heads under which the transition reads symbols.
+     */
+    private final int[][] guardHeads;
+
+    /**
+     * For each transition and each head of {@link #guardHeads}, the bit mask of the codes of the symbols read under
+     * that head.
+     */
+    private final long[][] guardMasks;
+
+    /**
+     * For each transition, its actions as a sequence of (type, head, value) integers: the value is the written code
+     * or the ordinal of the direction.
+     */
+    private final int[][] actions;
+
+    /**
+     * Heads under which at least one transition reads symbols.
+     */
+    private final int[] readHeads;
+
+    /**
+     * For each state and each combination of codes read by the {@link #readHeads}, indexed by
+     * state * (number of combinations) + combination, the first transition of the state that can be fired, -1 if
+     * no transition can be fired. Null if the table would be too large.
+     */
+    private final int[] dispatch;
+
+    /**
+     * Number of combinations of codes read by the {@link #readHeads}.
+     */
+    private final int nbCombinations;
+
+    /**
+     * For each state, true if the state is final.
+     */
+    private final boolean[] finalStates;
+
+    /**
+     * For each state, true if the state is accepting.
+     */
+    private final boolean[] acceptingStates;
+
+    /**
+     * Current state of the execution, -1 if the machine has no initial state.
+     */
+    private int state;
+
+    /**
+     * Number of transitions fired since the beginning of the execution.
+     */
+    private long steps;
+
+    private DeterministicRunner.Verdict verdict;
+
+    /**
+     * Compile the given machine and reset the runner (see {@link #reset()}).
+     * @param machine
+     * @throws IllegalArgumentException if the machine is not supported.
+     * @see #isSupported(TuringMachine)
+     */
+    public CompiledRunner(TuringMachine machine) {
+        if(!isSupported(machine))
+            throw new IllegalArgumentException("The machine uses more than " + Long.SIZE
+                    + " symbols or streams an input word not completely read.");
+
+        this.machine = machine;
+
+        this.tapes = new ArrayList<>();
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();)
+            tapes.add(it.next());
+
+        this.symbols = alphabet(machine).toArray(new String[0]);
+        Map<String, Integer> codes = new HashMap<>();
+        for(int code = 0; code < symbols.length; code++)
+            codes.put(symbols[code], code);
+
+        // Heads, numbered tape after tape.
+        this.grids = new Grid[tapes.size()];
+        List<Integer> headTapes = new ArrayList<>();
+        List<Integer> headIndexes = new ArrayList<>();
+        Map<Tape, Integer> firstHeads = new HashMap<>();
+        for(int i = 0; i < tapes.size(); i++){
+            Tape tape = tapes.get(i);
+            grids[i] = new Grid(tape);
+            firstHeads.put(tape, headTapes.size());
+            for(int head = 0; head < tape.getNbHeads(); head++){
+                headTapes.add(i);
+                headIndexes.add(head);
+            }
+        }
+        this.headTapes = headTapes.stream().mapToInt(Integer::intValue).toArray();
+        this.headIndexes = headIndexes.stream().mapToInt(Integer::intValue).toArray();
+        this.headLines = new int[this.headTapes.length];
+        this.headColumns = new int[this.headTapes.length];
+
+        int nbStates = machine.getNbStates();
+        this.outputs = new int[nbStates][];
+        this.finalStates = new boolean[nbStates];
+        this.acceptingStates = new boolean[nbStates];
+        List<Transition> transitions = new ArrayList<>();
+        for(int state = 0; state < nbStates; state++){
+            finalStates[state] = machine.isFinal(state);
+            acceptingStates[state] = machine.isAccepting(state);
+            List<Integer> indexes = new ArrayList<>();
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();){
+                indexes.add(transitions.size());
+                transitions.add(it.next());
+            }
+            outputs[state] = indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        this.nextStates = new int[transitions.size()];
+        this.guardHeads = new int[transitions.size()][];
+        this.guardMasks = new long[transitions.size()][];
+        this.actions = new int[transitions.size()][];
+        Set<Integer> readHeads = new LinkedHashSet<>();
+        for(int t = 0; t < transitions.size(); t++){
+            Transition transition = transitions.get(t);
+            nextStates[t] = transition.getOutput();
+
+            List<Integer> heads = new ArrayList<>();
+            List<Long> masks = new ArrayList<>();
+            for(int head = 0; head < this.headTapes.length; head++){
+                long mask = 0;
+                Iterator<String> it = transition.getReadSymbols(tapes.get(this.headTapes[head]),
+                        this.headIndexes[head]);
+                if(!it.hasNext())
+                    continue;
+                while(it.hasNext()){
+                    Integer code = codes.get(it.next());
+                    if(code != null)
+                        mask |= 1L << code;
+                }
+                heads.add(head);
+                masks.add(mask);
+                readHeads.add(head);
+            }
+            guardHeads[t] = heads.stream().mapToInt(Integer::intValue).toArray();
+            guardMasks[t] = masks.stream().mapToLong(Long::longValue).toArray();
+
+            List<Integer> ops = new ArrayList<>();
+            for(Iterator<Action> it = transition.getActions(); it.hasNext();){
+                Action action = it.next();
+                int head = firstHeads.get(action.getTape()) + action.getHead();
+                if(action.getType() == ActionType.WRITE) {
+                    ops.add(WRITE);
+                    ops.add(head);
+                    ops.add(codes.get((String) action.value()));
+                }
+                else {
+                    ops.add(MOVE);
+                    ops.add(head);
+                    ops.add(((Direction) action.value()).ordinal());
+                }
+            }
+            actions[t] = ops.stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.readHeads = readHeads.stream().mapToInt(Integer::intValue).toArray();
+
+        double combinations = Math.pow(symbols.length, this.readHeads.length);
+        if(combinations * nbStates <= MAXIMUM_DISPATCH_SIZE){
+            this.nbCombinations = (int) combinations;
+            this.dispatch = new int[nbStates * nbCombinations];
+            int[] codesRead = new int[this.headTapes.length];
+            for(int combination = 0; combination < nbCombinations; combination++){
+                int digits = combination;
+                for(int head : this.readHeads){
+                    codesRead[head] = digits % symbols.length;
+                    digits /= symbols.length;
+                }
+                for(int state = 0; state < nbStates; state++)
+                    dispatch[state * nbCombinations + combination] = select(state, codesRead);
+            }
+        }
+        else {
+            this.nbCombinations = 0;
+            this.dispatch = null;
+        }
+
+        reset();
+    }
+
+    /**
+     * @param machine
+     * @return true if the given machine can be compiled: the tapes of the machine and its transitions use at most
+     * 64 symbols, the BLANK symbol included, and the streamed input words are completely read, as the whole words are
+     * compiled.
+     */
+    public static boolean isSupported(TuringMachine machine){
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();)
+            if(!it.next().isInputRead())
+                return false;
+        return alphabet(machine).size() <= Long.SIZE;
+    }
+
+    /**
+     * @return the symbols of the machine, of the input words of its tapes and written by its transitions, the BLANK
+     * symbol (null) being the first symbol.
+     */
+    private static List<String> alphabet(TuringMachine machine){
+        Set<String> alphabet = new LinkedHashSet<>();
+        alphabet.add(null);
+        for(int i = 0; i < machine.getNbSymbols(); i++)
+            alphabet.add(machine.getSymbol(i));
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();)
+            it.next().forEachInputCell((line, column, symbol) -> alphabet.add(symbol));
+        for(int state = 0; state < machine.getNbStates(); state++)
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();)
+                for(Iterator<Action> it2 = it.next().getActions(); it2.hasNext();){
+                    Action action = it2.next();
+                    if(action.getType() == ActionType.WRITE)
+                        alphabet.add((String) action.value());
+                }
+        return new ArrayList<>(alphabet);
+    }
+
+    /**
+     * Put the tapes in their initial configuration and restart the execution from the first initial state of the
+     * machine.
+     */
+    public void reset(){
+        Map<String, Integer> codes = new HashMap<>();
+        for(int code = 1; code < symbols.length; code++)
+            codes.put(symbols[code], code);
+
+        for(int head = 0; head < headTapes.length; head++){
+            Tape tape = tapes.get(headTapes[head]);
+            headLines[head] = tape.getInitialHeadLine(headIndexes[head]);
+            headColumns[head] = tape.getInitialHeadColumn(headIndexes[head]);
+        }
+        for(int i = 0; i < grids.length; i++) {
+            Grid grid = grids[i];
+            Tape tape = tapes.get(i);
+            grid.clear(tape.getNbHeads() == 0 ? 0 : tape.getInitialHeadLine(0),
+                    tape.getNbHeads() == 0 ? 0 : tape.getInitialHeadColumn(0));
+            tape.forEachInputCell((line, column, symbol) -> grid.set(line, column, codes.get(symbol)));
+        }
+
+        state = -1;
+        for(int state = 0; state < finalStates.length; state++) {
+            if (machine.isInitial(state)) {
+                this.state = state;
+                break;
+            }
+        }
+        steps = 0;
+        if(state == -1)
+            verdict = DeterministicRunner.Verdict.BLOCKED;
+        else
+            updateVerdict();
+    }
+
+    private void updateVerdict(){
+        if(!finalStates[state])
+            verdict = DeterministicRunner.Verdict.RUNNING;
+        else if(acceptingStates[state])
+            verdict = DeterministicRunner.Verdict.ACCEPTED;
+        else
+            verdict = DeterministicRunner.Verdict.REJECTED;
+    }
+
+    /**
+     * @return the first output transition of the given state that can be fired when the given codes are read under
+     * the heads, -1 if there is none.
+     */
+    private int select(int state, int[] codesRead){
+        for(int t : outputs[state]){
+            int[] heads = guardHeads[t];
+            long[] masks = guardMasks[t];
+            boolean valid = true;
+            for(int i = 0; i < heads.length && valid; i++)
+                valid = (masks[i] & (1L << codesRead[heads[i]])) != 0;
+            if(valid)
+                return t;
+        }
+        return -1;
+    }
+
+    /**
+     * Fire the first output transition of the current state that can be fired, unless the current state is final.
+     * @return true if a transition was fired.
+     */
+    public boolean step(){
+        return run(1) == 1;
+    }
+
+    /**
+     * Fire transitions until the execution ends or until the given number of transitions is fired.
+     * @param maximumSteps
+     * @return the number of fired transitions.
+     */
+    public long run(long maximumSteps){
+        int[] codesRead = new int[headTapes.length];
+        long fired = 0;
+        while(fired < maximumSteps && verdict == DeterministicRunner.Verdict.RUNNING){
+            int combination = 0;
+            for(int i = readHeads.length - 1; i >= 0; i--){
+                int head = readHeads[i];
+                int code = grids[headTapes[head]].get(headLines[head], headColumns[head]);
+                codesRead[head] = code;
+                combination = combination * symbols.length + code;
+            }
+
+            int t = (dispatch != null) ? dispatch[state * nbCombinations + combination] : select(state, codesRead);
+            if(t == -1){
+                verdict = DeterministicRunner.Verdict.BLOCKED;
+                break;
+            }
+
+            int[] ops = actions[t];
+            for(int i = 0; i < ops.length; i += 3){
+                int head = ops[i + 1];
+                Grid grid = grids[headTapes[head]];
+                if(ops[i] == WRITE)
+                    grid.set(headLines[head], headColumns[head], ops[i + 2]);
+                else
+                    move(grid, head, ops[i + 2]);
+            }
+
+            state = nextStates[t];
+            fired++;
+            updateVerdict();
+        }
+        steps += fired;
+        return fired;
+    }
+
+    /**
+     * Move the given head of the given tape in the direction of the given ordinal, unless it moves against a bound.
+     */
+    private void move(Grid grid, int head, int direction){
+        int line = headLines[head];
+        int column = headColumns[head];
+        switch (direction){
+            case 0: // UP
+                if(grid.topBound == null || line < grid.topBound)
+                    headLines[head] = line + 1;
+                break;
+            case 1: // DOWN
+                if(grid.bottomBound == null || line > grid.bottomBound)
+                    headLines[head] = line - 1;
+                break;
+            case 2: // LEFT
+                if(grid.leftBound == null || column > grid.leftBound)
+                    headColumns[head] = column - 1;
+                break;
+            default: // RIGHT
+                if(grid.rightBound == null || column < grid.rightBound)
+                    headColumns[head] = column + 1;
+        }
+    }
+
+    /**
+     * Write the current configuration of the execution on the tapes of the machine: the tapes are cleared, the
+     * symbols of the execution are written and the heads are placed on their current cells. No message is
+     * broadcast.
+     */
+    public void writeTapes(){
+        for(int i = 0; i < grids.length; i++){
+            Tape tape = tapes.get(i);
+            Grid grid = grids[i];
+            tape.reinit();
+            for(int l = 0; l < grid.height; l++)
+                for(int c = 0; c < grid.width; c++)
+                    tape.writeCell(grid.minLine + l, grid.minColumn + c, symbols[grid.cells[l * grid.width + c]]);
+        }
+        for(int head = 0; head < headTapes.length; head++)
+            tapes.get(headTapes[head]).placeHead(headIndexes[head], headLines[head], headColumns[head]);
+    }
+
+    /**
+     * @return the current state of the execution, null if the machine has no initial state.
+     */
+    public Integer getCurrentState(){
+        return state == -1 ? null : state;
+    }
+
+    /**
+     * @return the number of transitions fired since the beginning of the execution.
+     */
+    public long getSteps(){
+        return steps;
+    }
+
+    public DeterministicRunner.Verdict getVerdict(){
+        return verdict;
+    }
+}
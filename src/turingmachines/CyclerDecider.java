@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Decider proving that an execution never ends when a configuration (the state, the position of the heads and the
+ * symbols of the tapes) is repeated: as the execution is deterministic, it then repeats the same configurations
+ * forever.
+ *
+ * The repetition is found with the cycle detection algorithm of Brent: a configuration is saved and compared with
+ * every following configuration; every time the number of compared configurations reaches a power of 2, the saved
+ * configuration is replaced by the current one. A cycle of period p starting after n steps is thus found after at
+ * most about 2 * (n + p) checks, while only one configuration is kept. Comparing two configurations only visits the
+ * cells that differ (see {@link MachineSnapshot#forEachChangedCell(MachineSnapshot, Tape, CellConsumer)}).
+ */
+public class CyclerDecider implements HaltingDecider {
+
+    private List<Tape> tapes;
+
+    /**
+     * Configuration compared with the following configurations.
+     */
+    private MachineSnapshot saved;
+
+    /**
+     * Number of configurations compared with the saved configuration.
+     */
+    private long compared;
+
+    /**
+     * Number of configurations to compare with the saved configuration before replacing it.
+     */
+    private long power;
+
+    @Override
+    public void start(TuringMachine machine, MachineSnapshot snapshot) {
+        tapes = new ArrayList<>();
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();)
+            tapes.add(it.next());
+        saved = snapshot;
+        compared = 0;
+        power = 1;
+    }
+
+    @Override
+    public String check(MachineSnapshot snapshot) {
+        if(sameConfiguration(saved, snapshot))
+            return "The configuration of step " + saved.getSteps() + " is repeated at step " + snapshot.getSteps()
+                    + ": the execution loops forever with a period of " + (snapshot.getSteps() - saved.getSteps())
+                    + " steps.";
+
+        compared++;
+        if(compared == power){
+            saved = snapshot;
+            compared = 0;
+            power *= 2;
+        }
+        return null;
+    }
+
+    private boolean sameConfiguration(MachineSnapshot snapshot1, MachineSnapshot snapshot2){
+        if(!snapshot1.getState().equals(snapshot2.getState()))
+            return false;
+
+        for(Tape tape : tapes)
+            for(int head = 0; head < tape.getNbHeads(); head++)
+                if(snapshot1.getHeadLine(tape, head) != snapshot2.getHeadLine(tape, head)
+                        || snapshot1.getHeadColumn(tape, head) != snapshot2.getHeadColumn(tape, head))
+                    return false;
+
+        boolean[] same = {true};
+        for(Tape tape : tapes)
+            snapshot2.forEachChangedCell(snapshot1, tape, (line, column, symbol) -> same[0] = false);
+        return same[0];
+    }
+}
@@ -0,0 +1,518 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless execution of a machine. Contrary to the {@link TuringMachine#build()} method, the configurations are not
+ * explored: at each step, the first output transition of the current state (in the order of the list of output
+ * transitions) that can be fired is fired. The execution is then the unique execution of a deterministic machine.
+ * No message is broadcast to the class {@link util.Subscriber} and no configuration is stored, the execution can thus
+ * be arbitrarily long.
+ *
+ * The runner executes the machine on its own tapes but keeps the current state itself: the state register of the
+ * machine is not modified. The machine should not be edited during the execution.
+ *
+ * The execution can be run on a background thread with {@link #runAsync(Runnable)}. In that case, another thread
+ * can sample the execution by requesting snapshots with {@link #requestSnapshot()} and reading the last published
+ * snapshot with {@link #getPublishedSnapshot()}, without any lock.
+ *
+ * A transition looping on its state and only moving one head (possibly after writing the only symbol it reads under
+ * that head) is fired again as long as that head reads the same symbol. While the machine is not profiled and no
+ * decider checks the execution (the deciders check every configuration), {@link #run(long)} thus moves the head
+ * along the whole run of that symbol without looking for a transition again (see
+ * {@link Tape#moveAlongRun(int, Direction, String, long)}) and counts one fired transition per crossed cell. If the
+ * input word is stored as runs (see {@link Tape#compressInput()}), the runs of the input word are crossed at once.
+ *
+ * Deciders can be added to the runner with {@link #addDecider(HaltingDecider)}. They check the configuration after
+ * each step and stop the execution as soon as one of them proves that it never ends.
+ *
+ * The fired transitions are counted locally and added to the statistics of the machine (see
+ * {@link TuringMachine#getStatistics()}) when {@link #run(long)} returns, when a snapshot is taken and when the
+ * background execution stops.
+ */
+public class DeterministicRunner {
+
+    /**
+     * State of an execution.
+     */
+    public enum Verdict {
+        /**
+         * The current state is not final and a transition can be fired.
+         */
+        RUNNING,
+        /**
+         * The current state is final and accepting.
+         */
+        ACCEPTED,
+        /**
+         * The current state is final and not accepting.
+         */
+        REJECTED,
+        /**
+         * The current state is not final and no transition can be fired, or the machine has no initial state.
+         */
+        BLOCKED,
+        /**
+         * A decider proved that the execution never ends.
+         * @see #getEvidence()
+         */
+        LOOPING
+    }
+
+    private final TuringMachine machine;
+
+    /**
+     * Tapes of the machine.
+     */
+    private final List<Tape> tapes;
+
+    /**
+     * For each state, the output transitions of that state.
+     */
+    private final Transition[][] transitions;
+
+    /**
+     * For each state and each output transition of that state, the direction in which the transition moves its head
+     * if the transition loops on the state and only moves one head, null otherwise.
+     * @see #runTapes
+     * @see #runHeads
+     */
+    private final Direction[][] runDirections;
+
+    /**
+     * For each state and each output transition of that state, the tape of the head moved by the transition if the
+     * transition loops on the state and only moves one head.
+     * @see #runDirections
+     */
+    private final Tape[][] runTapes;
+
+    /**
+     * For each state and each output transition of that state, the index of the head moved by the transition if
+     * the transition loops on the state and only moves one head.
+     * @see #runDirections
+     */
+    private final int[][] runHeads;
+
+    /**
+     * For each state, true if the state is final.
+     */
+    private final boolean[] finalStates;
+
+    /**
+     * For each state, true if the state is accepting.
+     */
+    private final boolean[] acceptingStates;
+
+    /**
+     * For each state, the number of transitions fired from that state not yet added to the statistics of the
+     * machine.
+     */
+    private final long[] firedPerState;
+
+    /**
+     * Current state of the execution, null if the machine has no initial state.
+     */
+    private Integer state;
+
+    /**
+     * Number of transitions fired since the beginning of the execution.
+     */
+    private long steps;
+
+    private Verdict verdict;
+
+    /**
+     * Deciders checking the execution.
+     */
+    private final List<HaltingDecider> deciders;
+
+    /**
+     * Evidence given by a decider proving that the execution never ends, null if no decider proved it.
+     */
+    private String evidence;
+
+    /**
+     * True while the execution is run on a background thread.
+     * @see #runAsync(Runnable)
+     */
+    private volatile boolean running;
+
+    /**
+     * True if the background execution should stop.
+     * @see #cancel()
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * True if a snapshot should be published by the background execution after the next step.
+     * @see #requestSnapshot()
+     */
+    private volatile boolean snapshotRequested;
+
+    /**
+     * Last snapshot published by the background execution.
+     */
+    private final AtomicReference<MachineSnapshot> publishedSnapshot;
+
+    /**
+     * Build a runner of the given machine. If the machine is currently executed (if it has a current state), the
+     * execution starts from the current configuration of the machine. Otherwise, the runner is reset (see
+     * {@link #reset()}).
+     * @param machine
+     */
+    public DeterministicRunner(TuringMachine machine) {
+        this.machine = machine;
+
+        this.tapes = new ArrayList<>();
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();)
+            tapes.add(it.next());
+
+        int nbStates = machine.getNbStates();
+        this.transitions = new Transition[nbStates][];
+        this.runDirections = new Direction[nbStates][];
+        this.runTapes = new Tape[nbStates][];
+        this.runHeads = new int[nbStates][];
+        this.finalStates = new boolean[nbStates];
+        this.acceptingStates = new boolean[nbStates];
+        this.firedPerState = new long[nbStates];
+        for(int state = 0; state < nbStates; state++){
+            List<Transition> outputs = new ArrayList<>();
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();)
+                outputs.add(it.next());
+            transitions[state] = outputs.toArray(new Transition[0]);
+            runDirections[state] = new Direction[outputs.size()];
+            runTapes[state] = new Tape[outputs.size()];
+            runHeads[state] = new int[outputs.size()];
+            for(int i = 0; i < outputs.size(); i++)
+                compileRun(state, i, outputs.get(i));
+            finalStates[state] = machine.isFinal(state);
+            acceptingStates[state] = machine.isAccepting(state);
+        }
+
+        this.deciders = new ArrayList<>();
+        this.publishedSnapshot = new AtomicReference<>();
+
+        if(machine.getCurrentState() == null)
+            reset();
+        else
+            start(machine.getCurrentState());
+    }
+
+    /**
+     * Fill the run arrays of the given output transition of the given state if the transition loops on the state
+     * and only moves one head, or writes the only symbol it reads under one head and moves that head.
+     * @see #runDirections
+     */
+    private void compileRun(int state, int index, Transition transition){
+        if(transition.getOutput() != state)
+            return;
+
+        List<Action> actions = new ArrayList<>();
+        for(Iterator<Action> it = transition.getActions(); it.hasNext();)
+            actions.add(it.next());
+        if(actions.isEmpty() || actions.size() > 2)
+            return;
+
+        Action move = actions.get(actions.size() - 1);
+        if(move.getType() != ActionType.MOVE)
+            return;
+
+        if(actions.size() == 2){
+            Action write = actions.get(0);
+            if(write.getType() != ActionType.WRITE || write.getTape() != move.getTape()
+                    || write.getHead() != move.getHead())
+                return;
+
+            // Writing the symbol already written in the cell does not change the tape.
+            Iterator<String> it = transition.getReadSymbols(move.getTape(), move.getHead());
+            if(!it.hasNext() || !Objects.equals(it.next(), write.value()) || it.hasNext())
+                return;
+        }
+
+        runDirections[state][index] = (Direction) move.value();
+        runTapes[state][index] = move.getTape();
+        runHeads[state][index] = move.getHead();
+    }
+
+    /**
+     * Put the tapes of the machine in their initial configuration and restart the execution from the first initial
+     * state of the machine.
+     */
+    public void reset(){
+        for(Tape tape : tapes)
+            tape.reinit();
+
+        Integer initialState = null;
+        for(int state = 0; state < transitions.length; state++) {
+            if (machine.isInitial(state)) {
+                initialState = state;
+                break;
+            }
+        }
+        start(initialState);
+    }
+
+    private void start(Integer state){
+        this.state = state;
+        this.steps = 0;
+        this.evidence = null;
+        if(state == null)
+            verdict = Verdict.BLOCKED;
+        else
+            updateVerdict();
+        for(HaltingDecider decider : deciders)
+            startDecider(decider);
+    }
+
+    /**
+     * Add a decider checking the execution. If the execution is running, the decider starts from the current
+     * configuration of the execution.
+     * @param decider
+     */
+    public void addDecider(HaltingDecider decider){
+        deciders.add(decider);
+        if(verdict == Verdict.RUNNING)
+            startDecider(decider);
+    }
+
+    private void startDecider(HaltingDecider decider){
+        decider.start(machine, currentSnapshot());
+    }
+
+    /**
+     * Check the current configuration with every decider and stop the execution if one of them proves that it never
+     * ends.
+     */
+    private void checkDeciders(){
+        MachineSnapshot snapshot = currentSnapshot();
+        for(HaltingDecider decider : deciders){
+            String evidence = decider.check(snapshot);
+            if(evidence != null){
+                this.evidence = evidence;
+                verdict = Verdict.LOOPING;
+                return;
+            }
+        }
+    }
+
+    private void updateVerdict(){
+        if(!finalStates[state])
+            verdict = Verdict.RUNNING;
+        else if(acceptingStates[state])
+            verdict = Verdict.ACCEPTED;
+        else
+            verdict = Verdict.REJECTED;
+    }
+
+    /**
+     * Fire the first output transition of the current state that can be fired, unless the current state is final.
+     * @return true if a transition was fired.
+     */
+    public boolean step(){
+        return advance(1) > 0;
+    }
+
+    /**
+     * Fire the first output transition of the current state that can be fired, unless the current state is final.
+     * If that transition loops on the state and only moves one head, if the machine is not profiled and if no
+     * decider checks the execution, fire it again as long as the head reads the same symbol, at most the given
+     * number of times.
+     * @param maximum
+     * @return the number of fired transitions.
+     */
+    private long advance(long maximum){
+        if(verdict != Verdict.RUNNING)
+            return 0;
+
+        Transition[] outputs = transitions[state];
+        for(int i = 0; i < outputs.length; i++){
+            Transition transition = outputs[i];
+            if(!transition.isCurrentlyValid())
+                continue;
+
+            Direction direction = runDirections[state][i];
+            if(direction != null && !machine.isProfiling() && deciders.isEmpty()){
+                Tape tape = runTapes[state][i];
+                int head = runHeads[state][i];
+                long fired = tape.moveAlongRun(head, direction, tape.read(head), maximum);
+                if(fired > 0){
+                    firedPerState[state] += fired;
+                    steps += fired;
+                    return fired;
+                }
+            }
+
+            transition.fire(false);
+            firedPerState[state]++;
+            machine.profileFired(transition);
+            state = transition.getOutput();
+            steps++;
+            updateVerdict();
+            if(verdict == Verdict.RUNNING && !deciders.isEmpty())
+                checkDeciders();
+            return 1;
+        }
+
+        verdict = Verdict.BLOCKED;
+        return 0;
+    }
+
+    /**
+     * Fire transitions until the execution ends or until the given number of transitions is fired.
+     * @param maximumSteps
+     * @return the number of fired transitions.
+     */
+    public long run(long maximumSteps){
+        long fired = 0;
+        long advanced;
+        while(fired < maximumSteps && (advanced = advance(maximumSteps - fired)) > 0)
+            fired += advanced;
+        flushStatistics();
+        return fired;
+    }
+
+    /**
+     * Add the transitions fired since the last call to the statistics of the machine.
+     */
+    private void flushStatistics(){
+        MachineStatistics statistics = machine.getStatistics();
+        for(int state = 0; state < firedPerState.length; state++) {
+            statistics.transitionsFired(state, firedPerState[state]);
+            firedPerState[state] = 0;
+        }
+        statistics.cellsWritten(tapes);
+    }
+
+    /**
+     * Fire transitions on a background thread until the execution ends or until it is cancelled with
+     * {@link #cancel()}. Once the execution stops, a last snapshot is published and the given callback is called
+     * (on the background thread). Do nothing if the execution is already run on a background thread.
+     *
+     * While the execution is run, the runner and the machine should not be used, except with the methods
+     * {@link #isRunning()}, {@link #cancel()}, {@link #requestSnapshot()} and {@link #getPublishedSnapshot()}.
+     * @param callback called once the execution stops, may be null.
+     */
+    public void runAsync(Runnable callback){
+        if(running)
+            return;
+
+        running = true;
+        cancelled = false;
+        snapshotRequested = false;
+
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            // The execution of a machine may never end, it should not prevent the application from exiting.
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(() -> {
+            try {
+                while (!cancelled && step()) {
+                    if (snapshotRequested) {
+                        snapshotRequested = false;
+                        publishedSnapshot.set(snapshot());
+                    }
+                }
+                publishedSnapshot.set(snapshot());
+            }
+            finally {
+                running = false;
+                if (callback != null)
+                    callback.run();
+            }
+        });
+        executor.shutdown();
+    }
+
+    /**
+     * Request the execution run with {@link #runAsync(Runnable)} to stop.
+     */
+    public void cancel(){
+        cancelled = true;
+    }
+
+    /**
+     * @return true while the execution is run on a background thread. Once this method returns false, the last
+     * published snapshot is the snapshot of the configuration in which the execution stopped.
+     */
+    public boolean isRunning(){
+        return running;
+    }
+
+    /**
+     * Request the execution run with {@link #runAsync(Runnable)} to publish a snapshot of its configuration after
+     * the next fired transition.
+     * @see #getPublishedSnapshot()
+     */
+    public void requestSnapshot(){
+        snapshotRequested = true;
+    }
+
+    /**
+     * @return the last snapshot published by the execution run with {@link #runAsync(Runnable)}, null if no
+     * snapshot was published.
+     * @see #requestSnapshot()
+     */
+    public MachineSnapshot getPublishedSnapshot(){
+        return publishedSnapshot.get();
+    }
+
+    /**
+     * @return a snapshot of the current configuration of the execution.
+     */
+    public MachineSnapshot snapshot(){
+        flushStatistics();
+        return currentSnapshot();
+    }
+
+    /**
+     * @return a snapshot of the current configuration of the execution, without adding the fired transitions to the
+     * statistics of the machine.
+     */
+    private MachineSnapshot currentSnapshot(){
+        Map<Tape, TapeConfiguration> tapesConfigurations = new HashMap<>();
+        for(Tape tape : tapes)
+            tapesConfigurations.put(tape, tape.saveConfiguration());
+        return new MachineSnapshot(state, steps, tapesConfigurations);
+    }
+
+    /**
+     * @return the current state of the execution, null if the machine has no initial state.
+     */
+    public Integer getCurrentState(){
+        return state;
+    }
+
+    /**
+     * @return the number of transitions fired since the beginning of the execution.
+     */
+    public long getSteps(){
+        return steps;
+    }
+
+    public Verdict getVerdict(){
+        return verdict;
+    }
+
+    /**
+     * @return the evidence given by the decider which proved that the execution never ends, null if the execution
+     * was not proven never to end.
+     * @see Verdict#LOOPING
+     */
+    public String getEvidence(){
+        return evidence;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.List;
+
+/**
+ * Flight recorder events emitted by the engine.
+ *
+ * The events use the jdk.jfr API, which is not part of Java 8. They are thus written in the folder jfr, compiled
+ * only with a JDK providing that API (11 or later), and loaded by reflection through the class JfrEngineEvents.
+ * When that class cannot be loaded, {@link #INSTANCE} is this class, whose methods record nothing.
+ *
+ * Each begin method returns the event being recorded (null if nothing is recorded), which must be given to the
+ * matching end method.
+ */
+class EngineEvents {
+
+    /**
+     * Name of the class recording the events with the flight recorder.
+     */
+    private static final String RECORDER_CLASS = "turingmachines.JfrEngineEvents";
+
+    /**
+     * Events of the engine, recorded with the flight recorder if it is available.
+     */
+    static final EngineEvents INSTANCE = load();
+
+    private static EngineEvents load(){
+        try {
+            return (EngineEvents) Class.forName(RECORDER_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return new EngineEvents();
+        }
+    }
+
+    /**
+     * Start recording a call to {@link TuringMachine#build()}.
+     * @return the event.
+     */
+    Object beginBuild(){
+        return null;
+    }
+
+    /**
+     * End recording the given call to {@link TuringMachine#build()}.
+     * @param event
+     * @param states
+     * @param exploredConfigurations
+     * @param pathLength number of transitions of the built path, -1 if no final configuration was reached.
+     * @param cancelled
+     */
+    void endBuild(Object event, int states, long exploredConfigurations, int pathLength, boolean cancelled){
+    }
+
+    /**
+     * Start recording the exploration of the configurations at the given depth during a build.
+     * @param depth
+     * @return the event.
+     */
+    Object beginExploreLevel(int depth){
+        return null;
+    }
+
+    /**
+     * End recording the given exploration of the configurations at one depth.
+     * @param event
+     * @param exploredConfigurations
+     * @param frontierSize number of configurations waiting to be explored at the end of the level.
+     */
+    void endExploreLevel(Object event, long exploredConfigurations, int frontierSize){
+    }
+
+    /**
+     * Start recording the computation of the children of one configuration during a build.
+     * @return the event.
+     */
+    Object beginExpand(){
+        return null;
+    }
+
+    /**
+     * End recording the given computation of the children of one configuration.
+     * @param event
+     * @param depth
+     * @param children
+     * @param tapes tapes of the machine, whose written cells are counted only if the event is recorded.
+     */
+    void endExpand(Object event, int depth, int children, List<Tape> tapes){
+    }
+
+    /**
+     * Start recording the loading of a configuration of a machine.
+     * @return the event.
+     */
+    Object beginLoadConfiguration(){
+        return null;
+    }
+
+    /**
+     * End recording the given loading of a configuration.
+     * @param event
+     * @param replayedTransitions number of transitions fired again from the last stored ancestor of the
+     *                            configuration.
+     * @param logged true if the changes are broadcast to the listeners of the machine.
+     * @param changedCells number of cells broadcast as changed, 0 if the changes are not broadcast.
+     */
+    void endLoadConfiguration(Object event, int replayedTransitions, boolean logged, int changedCells){
+    }
+}
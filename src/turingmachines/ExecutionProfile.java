@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.Arrays;
+
+/**
+ * Counters of the transitions fired and of the states visited by a machine while it is profiled (see
+ * {@link TuringMachine#setProfiling(boolean)}).
+ *
+ * A transition is counted each time it is fired while exploring the configurations with
+ * {@link TuringMachine#build()}, while replaying the built path with {@link TuringMachine#tick()}, while executing
+ * the machine manually or with a {@link DeterministicRunner}. Reloading an already explored configuration does not
+ * count the transitions leading to it. A state is visited each time a counted transition enters it.
+ *
+ * The counters are plain arrays indexed by the identifiers of the transitions and the indexes of the states, they
+ * are only written by the thread executing or building the machine. Another thread may read them while they are
+ * written, in which case the values read may be slightly outdated.
+ */
+public class ExecutionProfile {
+
+    /**
+     * For each transition, identified by {@link Transition#getId()}, the number of times the transition was fired.
+     */
+    private long[] fires;
+
+    /**
+     * For each state, the number of times the state was visited.
+     */
+    private long[] visits;
+
+    ExecutionProfile() {
+        fires = new long[16];
+        visits = new long[16];
+    }
+
+    /**
+     * Count one firing of the given transition and one visit of its output state.
+     * @param transition
+     */
+    void fired(Transition transition){
+        int id = transition.getId();
+        if(id >= fires.length)
+            fires = Arrays.copyOf(fires, Math.max(id + 1, fires.length * 2));
+        fires[id]++;
+
+        int state = transition.getOutput();
+        if(state >= visits.length)
+            visits = Arrays.copyOf(visits, Math.max(state + 1, visits.length * 2));
+        visits[state]++;
+    }
+
+    /**
+     * Shift the counters of the states following the given removed state.
+     * @param state
+     * @see TuringMachine#removeState(int)
+     */
+    void stateRemoved(int state){
+        if(state >= visits.length)
+            return;
+        System.arraycopy(visits, state + 1, visits, state, visits.length - state - 1);
+        visits[visits.length - 1] = 0;
+    }
+
+    /**
+     * @param transition
+     * @return the number of times the given transition was fired.
+     */
+    public long getFires(Transition transition){
+        long[] fires = this.fires;
+        int id = transition.getId();
+        return id < fires.length ? fires[id] : 0;
+    }
+
+    /**
+     * @param state index of a state
+     * @return the number of times the given state was visited.
+     */
+    public long getVisits(int state){
+        long[] visits = this.visits;
+        return state < visits.length ? visits[state] : 0;
+    }
+
+    /**
+     * @return the maximum number of times a transition was fired.
+     */
+    public long getMaximumFires(){
+        return Arrays.stream(fires).max().orElse(0);
+    }
+
+    /**
+     * @return the maximum number of times a state was visited.
+     */
+    public long getMaximumVisits(){
+        return Arrays.stream(visits).max().orElse(0);
+    }
+
+    /**
+     * @return the number of times a transition was fired.
+     */
+    public long getTotalFires(){
+        return Arrays.stream(fires).sum();
+    }
+
+    /**
+     * Set every counter to 0.
+     */
+    public void reset(){
+        Arrays.fill(fires, 0);
+        Arrays.fill(visits, 0);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+/**
+ * Immutable report of the progress of the exploration of the configurations of a machine, sent regularly while the
+ * machine is built.
+ *
+ * @see TuringMachine#build()
+ * @see TuringMachine#SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_PROGRESS
+ */
+public final class ExplorationProgress {
+
+    /**
+     * Number of configurations explored since the beginning of the exploration.
+     */
+    private final long exploredConfigurations;
+
+    /**
+     * Number of configurations waiting to be explored.
+     */
+    private final int frontierSize;
+
+    /**
+     * Number of transitions fired to reach the last explored configuration from an initial configuration.
+     */
+    private final int depth;
+
+    /**
+     * Time elapsed since the beginning of the exploration, in nanoseconds.
+     */
+    private final long elapsedTime;
+
+    /**
+     * Memory used in the heap when the report was built, in bytes.
+     */
+    private final long usedHeap;
+
+    ExplorationProgress(long exploredConfigurations, int frontierSize, int depth, long elapsedTime) {
+        this.exploredConfigurations = exploredConfigurations;
+        this.frontierSize = frontierSize;
+        this.depth = depth;
+        this.elapsedTime = elapsedTime;
+        Runtime runtime = Runtime.getRuntime();
+        this.usedHeap = runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return the number of configurations explored since the beginning of the exploration.
+     */
+    public long getExploredConfigurations() {
+        return exploredConfigurations;
+    }
+
+    /**
+     * @return the number of configurations waiting to be explored.
+     */
+    public int getFrontierSize() {
+        return frontierSize;
+    }
+
+    /**
+     * @return the number of transitions fired to reach the last explored configuration from an initial configuration.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the time elapsed since the beginning of the exploration, in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedTime / 1_000_000;
+    }
+
+    /**
+     * @return the mean number of configurations explored per second since the beginning of the exploration.
+     */
+    public long getExpansionsPerSecond() {
+        if(elapsedTime == 0)
+            return 0;
+        return exploredConfigurations * 1_000_000_000 / elapsedTime;
+    }
+
+    /**
+     * @return the memory used in the heap when the report was built, in bytes.
+     */
+    public long getUsedHeap() {
+        return usedHeap;
+    }
+
+    @Override
+    public String toString() {
+        return exploredConfigurations + " configurations explored, " + frontierSize + " to explore, depth " + depth
+                + ", " + getExpansionsPerSecond() + "/s, " + (usedHeap >> 20) + " MB";
+    }
+}
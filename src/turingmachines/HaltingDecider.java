@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decider trying to prove, while a deterministic execution of a machine is run, that the execution never ends (that
+ * it never reaches a final state nor a configuration in which no transition can be fired). The decider follows one
+ * execution at a time: it is started with the first configuration of the execution and then checks each following
+ * configuration. A configuration may be skipped between two checks if several transitions are fired at once.
+ *
+ * Deciders are run alongside {@link TuringMachine#manualExploreDeterministic()} (see
+ * {@link TuringMachine#addHaltingDecider(HaltingDecider)}) and alongside a {@link DeterministicRunner} (see
+ * {@link DeterministicRunner#addDecider(HaltingDecider)}), which stop as soon as a decider proves that the execution
+ * never ends.
+ *
+ * @see CyclerDecider
+ * @see TranslatedCyclerDecider
+ * @see BackwardReasoningDecider
+ */
+public interface HaltingDecider {
+
+    /**
+     * Start following a new execution of the given machine from the configuration of the given snapshot. The machine
+     * is not edited until the execution ends.
+     * @param machine
+     * @param snapshot
+     */
+    void start(TuringMachine machine, MachineSnapshot snapshot);
+
+    /**
+     * Check the configuration of the given snapshot, reached after the configurations previously checked.
+     * @param snapshot
+     * @return a description of the evidence if the execution is proven never to end, null otherwise.
+     */
+    String check(MachineSnapshot snapshot);
+
+    /**
+     * @return a new instance of every decider of the package.
+     */
+    static List<HaltingDecider> standardDeciders(){
+        List<HaltingDecider> deciders = new ArrayList<>();
+        deciders.add(new CyclerDecider());
+        deciders.add(new TranslatedCyclerDecider());
+        deciders.add(new BackwardReasoningDecider());
+        return deciders;
+    }
+}
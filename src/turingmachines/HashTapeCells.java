@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Storage of the cells of a tape on the heap. Only the non blank cells are stored.
+ */
+class HashTapeCells implements TapeCells {
+
+    /**
+     * For each column y and each line x, <pre>cells.get(y).get(x)</pre> contains the symbol written at line x and
+     * column y. If no symbol is written (i.e. the BLANK symbol is written), no string is stored in the map.
+     */
+    private Map<Integer, Map<Integer, String>> cells;
+
+    HashTapeCells() {
+        cells = new HashMap<>();
+    }
+
+    @Override
+    public String get(int line, int column) {
+        Map<Integer, String> columnCells = cells.get(column);
+        if(columnCells == null) // All the column is white
+            return null;
+        return columnCells.get(line);
+    }
+
+    @Override
+    public void set(int line, int column, String symbol) {
+        Map<Integer, String> columnCells = cells.get(column);
+        if(symbol == null) { // White symbol
+            if (columnCells == null) // All the column is white
+                return;
+            if (columnCells.remove(line) != null && columnCells.isEmpty())
+                cells.remove(column);
+        }
+        else{
+            if (columnCells == null) {
+                columnCells = new HashMap<>();
+                cells.put(column, columnCells);
+            }
+            columnCells.put(line, symbol);
+        }
+    }
+
+    @Override
+    public void forEach(CellConsumer consumer) {
+        for(Map.Entry<Integer, Map<Integer, String>> entry : cells.entrySet())
+            for(Map.Entry<Integer, String> entry2 : entry.getValue().entrySet())
+                consumer.accept(entry2.getKey(), entry.getKey(), entry2.getValue());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return cells.isEmpty();
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Token-level reader of a JSON document. Contrary to a tree parser, the document is never entirely stored in memory:
+ * the values are read one by one, in the order of the document, directly from the underlying reader.
+ *
+ * Objects are read with {@link #beginObject()}, then {@link #hasNext()} and {@link #nextName()} followed by the
+ * reading of the value as long as there are some, then {@link #endObject()}. Arrays are read in the same way with
+ * {@link #beginArray()}, {@link #hasNext()} and {@link #endArray()}.
+ *
+ * Any syntax error throws an {@link IOException}.
+ */
+class JSONStreamReader implements Closeable {
+
+    /**
+     * Type of the next token of the document.
+     */
+    enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    /**
+     * Size of the buffer of characters read from the underlying reader.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+
+    private final char[] buffer;
+
+    /**
+     * Position of the next character to read in the buffer.
+     */
+    private int position;
+
+    /**
+     * Number of valid characters in the buffer.
+     */
+    private int limit;
+
+    /**
+     * Reused to build the strings and the numbers.
+     */
+    private final StringBuilder sb;
+
+    JSONStreamReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.position = 0;
+        this.limit = 0;
+        this.sb = new StringBuilder();
+    }
+
+    /**
+     * Make sure at least one character is available in the buffer.
+     * @return false if the end of the document is reached.
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        if(position < limit)
+            return true;
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if(limit <= 0){
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the next character of the document without consuming it, -1 if the end of the document is reached.
+     * @throws IOException
+     */
+    private int peekChar() throws IOException {
+        if(!fill())
+            return -1;
+        return buffer[position];
+    }
+
+    /**
+     * @return the next character of the document.
+     * @throws IOException if the end of the document is reached.
+     */
+    private char nextChar() throws IOException {
+        if(!fill())
+            throw new IOException("Unexpected end of document.");
+        return buffer[position++];
+    }
+
+    /**
+     * Skip whitespaces and return the next non whitespace character without consuming it, -1 if the end of the
+     * document is reached.
+     * @throws IOException
+     */
+    private int peekNonWhitespace() throws IOException {
+        while(true){
+            int c = peekChar();
+            if(c != ' ' && c != '\t' && c != '\n' && c != '\r')
+                return c;
+            position++;
+        }
+    }
+
+    /**
+     * Consume the given character (after whitespaces).
+     * @param expected
+     * @throws IOException if the next non whitespace character is not the expected character.
+     */
+    private void consume(char expected) throws IOException {
+        int c = peekNonWhitespace();
+        if(c != expected)
+            throw new IOException("Expected '" + expected + "' but found " +
+                    (c == -1 ? "end of document" : "'" + (char) c + "'") + ".");
+        position++;
+    }
+
+    /**
+     * @return the type of the next token of the document, without consuming it. A separator (comma or colon) is
+     * skipped.
+     * @throws IOException
+     */
+    Token peek() throws IOException {
+        int c = peekNonWhitespace();
+        if(c == ',' || c == ':'){
+            position++;
+            c = peekNonWhitespace();
+        }
+        switch (c){
+            case -1:
+                return Token.END_DOCUMENT;
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if(c == '-' || (c >= '0' && c <= '9'))
+                    return Token.NUMBER;
+                throw new IOException("Unexpected character '" + (char) c + "'.");
+        }
+    }
+
+    void beginObject() throws IOException {
+        peek();
+        consume('{');
+    }
+
+    void endObject() throws IOException {
+        peek();
+        consume('}');
+    }
+
+    void beginArray() throws IOException {
+        peek();
+        consume('[');
+    }
+
+    void endArray() throws IOException {
+        peek();
+        consume(']');
+    }
+
+    /**
+     * @return true if the current object or array contains another element.
+     * @throws IOException
+     */
+    boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * @return the name of the next member of the current object.
+     * @throws IOException
+     */
+    String nextName() throws IOException {
+        String name = nextString();
+        consume(':');
+        return name;
+    }
+
+    /**
+     * @return the next string of the document.
+     * @throws IOException if the next token is not a string.
+     */
+    String nextString() throws IOException {
+        if(peek() != Token.STRING)
+            throw new IOException("Expected a string.");
+        position++;
+
+        sb.setLength(0);
+        while(true){
+            char c = nextChar();
+            if(c == '"')
+                return sb.toString();
+            if(c != '\\'){
+                sb.append(c);
+                continue;
+            }
+
+            c = nextChar();
+            switch (c){
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    int code = 0;
+                    for(int i = 0; i < 4; i++){
+                        int digit = Character.digit(nextChar(), 16);
+                        if(digit == -1)
+                            throw new IOException("Invalid unicode escape sequence.");
+                        code = code * 16 + digit;
+                    }
+                    sb.append((char) code);
+                    break;
+                default:
+                    sb.append(c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return the characters of the next number of the document.
+     * @throws IOException if the next token is not a number.
+     */
+    private String nextNumber() throws IOException {
+        if(peek() != Token.NUMBER)
+            throw new IOException("Expected a number.");
+        sb.setLength(0);
+        while(true){
+            int c = peekChar();
+            if(c == -1 || !(c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')))
+                return sb.toString();
+            sb.append((char) c);
+            position++;
+        }
+    }
+
+    /**
+     * @return the next number of the document as a double.
+     * @throws IOException if the next token is not a number.
+     */
+    double nextDouble() throws IOException {
+        String number = nextNumber();
+        try {
+            return Double.parseDouble(number);
+        }
+        catch (NumberFormatException e){
+            throw new IOException("Invalid number " + number + ".");
+        }
+    }
+
+    /**
+     * @return the next number of the document as a long. The decimal part, if any, is dropped.
+     * @throws IOException if the next token is not a number.
+     */
+    long nextLong() throws IOException {
+        String number = nextNumber();
+        try {
+            return Long.parseLong(number);
+        }
+        catch (NumberFormatException e){
+            try {
+                return (long) Double.parseDouble(number);
+            }
+            catch (NumberFormatException e2){
+                throw new IOException("Invalid number " + number + ".");
+            }
+        }
+    }
+
+    /**
+     * @return the next number of the document as an int. The decimal part, if any, is dropped.
+     * @throws IOException if the next token is not a number.
+     */
+    int nextInt() throws IOException {
+        return (int) nextLong();
+    }
+
+    /**
+     * @return the next boolean of the document.
+     * @throws IOException if the next token is not a boolean.
+     */
+    boolean nextBoolean() throws IOException {
+        if(peek() != Token.BOOLEAN)
+            throw new IOException("Expected a boolean.");
+        if(peekChar() == 't'){
+            consumeLiteral("true");
+            return true;
+        }
+        consumeLiteral("false");
+        return false;
+    }
+
+    /**
+     * Consume the next null value of the document.
+     * @throws IOException if the next token is not null.
+     */
+    void nextNull() throws IOException {
+        if(peek() != Token.NULL)
+            throw new IOException("Expected null.");
+        consumeLiteral("null");
+    }
+
+    private void consumeLiteral(String literal) throws IOException {
+        for(int i = 0; i < literal.length(); i++)
+            if(nextChar() != literal.charAt(i))
+                throw new IOException("Expected " + literal + ".");
+    }
+
+    /**
+     * Skip the next value of the document (including every nested value if that value is an object or an array).
+     * @throws IOException
+     */
+    void skipValue() throws IOException {
+        switch (peek()){
+            case BEGIN_OBJECT:
+                beginObject();
+                while(hasNext()){
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                while(hasNext())
+                    skipValue();
+                endArray();
+                break;
+            case STRING:
+                nextString();
+                break;
+            case NUMBER:
+                nextNumber();
+                break;
+            case BOOLEAN:
+                nextBoolean();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            default:
+                throw new IOException("Expected a value.");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Token-level writer of a JSON document. The document is written directly to the underlying writer, value by
+ * value, and is thus never entirely stored in memory.
+ *
+ * The separators between the members of an object and the elements of an array are automatically added.
+ */
+class JSONStreamWriter implements Closeable {
+
+    private final Writer writer;
+
+    /**
+     * For each currently opened object or array, true if no element was written yet in that object or array.
+     */
+    private final Deque<Boolean> firstElement;
+
+    /**
+     * True if a name was just written and its value is expected.
+     */
+    private boolean afterName;
+
+    JSONStreamWriter(Writer writer) {
+        this.writer = writer;
+        this.firstElement = new ArrayDeque<>();
+        this.afterName = false;
+    }
+
+    /**
+     * Write a separator if the next value is not the first element of the current object or array.
+     * @throws IOException
+     */
+    private void beforeValue() throws IOException {
+        if(afterName){
+            afterName = false;
+            return;
+        }
+        if(firstElement.isEmpty())
+            return;
+        if(firstElement.pop())
+            firstElement.push(false);
+        else {
+            firstElement.push(false);
+            writer.write(',');
+        }
+    }
+
+    JSONStreamWriter beginObject() throws IOException {
+        beforeValue();
+        writer.write('{');
+        firstElement.push(true);
+        return this;
+    }
+
+    JSONStreamWriter endObject() throws IOException {
+        firstElement.pop();
+        writer.write('}');
+        return this;
+    }
+
+    JSONStreamWriter beginArray() throws IOException {
+        beforeValue();
+        writer.write('[');
+        firstElement.push(true);
+        return this;
+    }
+
+    JSONStreamWriter endArray() throws IOException {
+        firstElement.pop();
+        writer.write(']');
+        return this;
+    }
+
+    /**
+     * Write the name of the next member of the current object.
+     * @param name
+     * @return this writer
+     * @throws IOException
+     */
+    JSONStreamWriter name(String name) throws IOException {
+        beforeValue();
+        writeString(name);
+        writer.write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Write the given string or null if the string is null.
+     * @param value
+     * @return this writer
+     * @throws IOException
+     */
+    JSONStreamWriter value(String value) throws IOException {
+        beforeValue();
+        if(value == null)
+            writer.write("null");
+        else
+            writeString(value);
+        return this;
+    }
+
+    JSONStreamWriter value(long value) throws IOException {
+        beforeValue();
+        writer.write(Long.toString(value));
+        return this;
+    }
+
+    JSONStreamWriter value(double value) throws IOException {
+        beforeValue();
+        if(value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15)
+            writer.write(Long.toString((long) value));
+        else
+            writer.write(Double.toString(value));
+        return this;
+    }
+
+    JSONStreamWriter value(boolean value) throws IOException {
+        beforeValue();
+        writer.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Write the given string between quotes, escaping the special characters.
+     * @param s
+     * @throws IOException
+     */
+    private void writeString(String s) throws IOException {
+        writer.write('"');
+        for(int i = 0; i < s.length(); i++){
+            char c = s.charAt(i);
+            switch (c){
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                case '\b':
+                    writer.write("\\b");
+                    break;
+                case '\f':
+                    writer.write("\\f");
+                    break;
+                default:
+                    if(c < 0x20)
+                        writer.write(String.format("\\u%04x", (int) c));
+                    else
+                        writer.write(c);
+                    break;
+            }
+        }
+        writer.write('"');
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Benchmarks of the engine on machine files, run with the main method:
+ *
+ * java turingmachines.MachineBenchmark [-w warmup] [-i iterations] [-s sizes] [-m max steps] [-k block size]
+ * [files...]
+ *
+ * If no file is given, the examples bundled with the project are used. Each file is benchmarked for each input size
+ * k of the comma-separated list of sizes: the input word of every line of every tape is repeated k times. Each
+ * benchmark is run warmup times without being measured, then iterations times; the mean of the measured runs is
+ * printed, with the number of bytes allocated per operation when the JVM can measure it.
+ *
+ * The benchmarks are:
+ * <ul>
+ *     <li>run: steps per second of a deterministic execution (see {@link DeterministicRunner}), limited to max steps
+ *     transitions;</li>
+ *     <li>compiled: steps per second of the same execution with a {@link CompiledRunner}, only if the machine is
+ *     supported by that runner;</li>
+ *     <li>macro: steps per second of the same execution with a {@link MacroRunner} cutting the tape in blocks of the
+ *     given size, only if the machine is supported by that runner;</li>
+ *     <li>build: configurations explored per second by {@link TuringMachine#build()};</li>
+ *     <li>save: cost of a step followed by a snapshot of every tape (as done for each stored configuration);</li>
+ *     <li>load: cost of loading a snapshot of every tape, without and with broadcasting the changed cells.</li>
+ * </ul>
+ */
+public class MachineBenchmark {
+
+    /**
+     * Files benchmarked if no file is given.
+     */
+    static final String[] EXAMPLES = {
+            "examples/palindrome.tm", "examples/add.tm", "examples/add10.tm",
+            "examples/detuvw.tm", "examples/nondetuvw.tm", "examples/gol.tm"
+    };
+
+    /**
+     * Number of configurations saved and loaded by the save and load benchmarks.
+     */
+    private static final int CONFIGURATIONS = 10000;
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Written by the benchmarks so that the measured code is not removed by the JIT compiler.
+     */
+    static volatile Object sink;
+
+    private int warmup = 2;
+    private int iterations = 5;
+    private int[] sizes = {1};
+    private long maximumSteps = 50_000_000;
+    private int blockSize = 8;
+
+    /**
+     * Result of one measured run of a benchmark.
+     */
+    private static class Measure {
+        long operations;
+        long nanos;
+        long bytes;
+    }
+
+    /**
+     * A benchmark, building a fresh machine at each run.
+     */
+    private interface Benchmark {
+        /**
+         * Run the benchmark on the given machine and fill the given measure.
+         */
+        void run(TuringMachine machine, Measure measure);
+    }
+
+    public static void main(String[] args) {
+        MachineBenchmark benchmark = new MachineBenchmark();
+        List<String> files = new ArrayList<>();
+
+        for(int i = 0; i < args.length; i++){
+            switch (args[i]){
+                case "-w": benchmark.warmup = Integer.parseInt(args[++i]); break;
+                case "-i": benchmark.iterations = Integer.parseInt(args[++i]); break;
+                case "-m": benchmark.maximumSteps = Long.parseLong(args[++i]); break;
+                case "-k": benchmark.blockSize = Integer.parseInt(args[++i]); break;
+                case "-s":
+                    benchmark.sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                default: files.add(args[i]);
+            }
+        }
+        if(files.isEmpty())
+            files.addAll(Arrays.asList(EXAMPLES));
+
+        System.out.println(String.format(Locale.ROOT, "%-28s %5s %-10s %16s %-14s %12s",
+                "file", "size", "benchmark", "score", "unit", "B/op"));
+        for(String file : files)
+            for(int size : benchmark.sizes)
+                benchmark.benchmark(file, size);
+    }
+
+    private void benchmark(String filename, int size){
+        benchmark(filename, size, "run", "steps/s", this::run);
+        try {
+            TuringMachine machine = read(filename, size);
+            if(CompiledRunner.isSupported(machine))
+                benchmark(filename, size, "compiled", "steps/s", this::compiled);
+            if(MacroRunner.isSupported(machine, blockSize))
+                benchmark(filename, size, "macro", "steps/s", this::macro);
+        } catch (IOException ignored) {
+            // Reported by the other benchmarks.
+        }
+        benchmark(filename, size, "build", "expansions/s", this::build);
+        benchmark(filename, size, "save", "ns/op", this::save);
+        benchmark(filename, size, "load", "ns/op", (machine, measure) -> load(machine, measure, false));
+        benchmark(filename, size, "load-log", "ns/op", (machine, measure) -> load(machine, measure, true));
+    }
+
+    /**
+     * Run the given benchmark on the machine of the given file with the given input size and print the result.
+     */
+    private void benchmark(String filename, int size, String name, String unit, Benchmark benchmark){
+        long operations = 0;
+        long nanos = 0;
+        long bytes = 0;
+
+        for(int i = 0; i < warmup + iterations; i++){
+            TuringMachine machine;
+            try {
+                machine = read(filename, size);
+            } catch (IOException e) {
+                System.err.println(filename + ": " + e.getMessage());
+                return;
+            }
+
+            Measure measure = new Measure();
+            benchmark.run(machine, measure);
+            if(i >= warmup){
+                operations += measure.operations;
+                nanos += measure.nanos;
+                bytes += measure.bytes;
+            }
+        }
+
+        double score;
+        if(operations == 0)
+            score = 0;
+        else if(unit.equals("ns/op"))
+            score = (double) nanos / operations;
+        else
+            score = operations * 1e9 / nanos;
+
+        String allocated = (operations == 0 || bytes < 0) ? "n/a" :
+                String.format(Locale.ROOT, "%.1f", (double) bytes / operations);
+        System.out.println(String.format(Locale.ROOT, "%-28s %5d %-10s %16.1f %-14s %12s",
+                filename, size, name, score, unit, allocated));
+    }
+
+    /**
+     * @return the machine described in the given file, where the input word of every line of every tape is repeated
+     * the given number of times.
+     */
+    static TuringMachine read(String filename, int size) throws IOException {
+        TuringMachine machine = new TuringMachine();
+        MachineFiles.read(filename, machine, new MachineLayout());
+
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();){
+            Tape tape = it.next();
+
+            // For each line, the first and the last column of the input word.
+            Map<Integer, int[]> extents = new HashMap<>();
+            List<Object[]> cells = new ArrayList<>();
+            tape.forEachInputCell((line, column, symbol) -> {
+                int[] extent = extents.computeIfAbsent(line, k -> new int[]{column, column});
+                extent[0] = Math.min(extent[0], column);
+                extent[1] = Math.max(extent[1], column);
+                cells.add(new Object[]{line, column, symbol});
+            });
+
+            for(Object[] cell : cells){
+                int line = (Integer) cell[0];
+                int[] extent = extents.get(line);
+                int width = extent[1] - extent[0] + 1;
+                for(int copy = 1; copy < size; copy++)
+                    tape.writeInput(line, (Integer) cell[1] + copy * width, (String) cell[2]);
+            }
+        }
+        return machine;
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread so far, or -1 if the JVM cannot measure it.
+     */
+    static long allocatedBytes(){
+        if(threads instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    private static void start(Measure measure){
+        measure.bytes = allocatedBytes();
+        measure.nanos = System.nanoTime();
+    }
+
+    private static void stop(Measure measure, long operations){
+        measure.nanos = System.nanoTime() - measure.nanos;
+        long bytes = allocatedBytes();
+        measure.bytes = (bytes < 0) ? -1 : bytes - measure.bytes;
+        measure.operations = operations;
+    }
+
+    private void run(TuringMachine machine, Measure measure){
+        DeterministicRunner runner = new DeterministicRunner(machine);
+        start(measure);
+        long steps = runner.run(maximumSteps);
+        stop(measure, steps);
+    }
+
+    private void compiled(TuringMachine machine, Measure measure){
+        CompiledRunner runner = new CompiledRunner(machine);
+        start(measure);
+        long steps = runner.run(maximumSteps);
+        stop(measure, steps);
+    }
+
+    private void macro(TuringMachine machine, Measure measure){
+        MacroRunner runner = new MacroRunner(machine, blockSize);
+        start(measure);
+        long steps = runner.run(maximumSteps);
+        stop(measure, steps);
+    }
+
+    private void build(TuringMachine machine, Measure measure){
+        long explored = machine.getStatistics().getConfigurationsExplored();
+        start(measure);
+        machine.build();
+        stop(measure, machine.getStatistics().getConfigurationsExplored() - explored);
+    }
+
+    private List<Tape> tapes(TuringMachine machine){
+        List<Tape> tapes = new ArrayList<>();
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();)
+            tapes.add(it.next());
+        return tapes;
+    }
+
+    private void save(TuringMachine machine, Measure measure){
+        DeterministicRunner runner = new DeterministicRunner(machine);
+        List<Tape> tapes = tapes(machine);
+        TapeConfiguration[] configurations = new TapeConfiguration[tapes.size()];
+
+        start(measure);
+        long steps = 0;
+        while(steps < CONFIGURATIONS && runner.step()){
+            steps++;
+            for(int i = 0; i < configurations.length; i++)
+                configurations[i] = tapes.get(i).saveConfiguration();
+        }
+        stop(measure, steps);
+        sink = configurations;
+    }
+
+    private void load(TuringMachine machine, Measure measure, boolean log){
+        DeterministicRunner runner = new DeterministicRunner(machine);
+        List<Tape> tapes = tapes(machine);
+
+        List<TapeConfiguration[]> configurations = new ArrayList<>();
+        while(configurations.size() < CONFIGURATIONS && runner.step()){
+            TapeConfiguration[] configuration = new TapeConfiguration[tapes.size()];
+            for(int i = 0; i < configuration.length; i++)
+                configuration[i] = tapes.get(i).saveConfiguration();
+            configurations.add(configuration);
+        }
+
+        start(measure);
+        long changedCells = 0;
+        for(TapeConfiguration[] configuration : configurations)
+            for(int i = 0; i < configuration.length; i++)
+                changedCells += tapes.get(i).loadConfiguration(configuration[i], log);
+        stop(measure, configurations.size());
+        sink = changedCells;
+    }
+}
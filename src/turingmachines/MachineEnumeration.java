@@ -0,0 +1,555 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enumeration and decision of the machines with a given number of states, one 1D infinite tape, one head and two
+ * symbols (the BLANK symbol and the symbol 1), run with the main method:
+ *
+ * java turingmachines.MachineEnumeration [-n states] [-i input file] [-b] [-t threads] [-s short steps]
+ * [-d decider steps] [-l long steps] [-k block size] output file
+ *
+ * A machine is written in the standard text format: for each state A, B, C..., the transition fired when reading
+ * the BLANK symbol (written 0) then the transition fired when reading 1, each transition being the written symbol
+ * (0 or 1), the move (L or R) and the output state, or --- if the transition is undefined. The states are separated
+ * by underscores, for instance 1RB1LB_1LA0LC_1RZ1LD_1RD0RA. An output state which is not one of the n states halts
+ * the machine.
+ *
+ * If no input file is given, every machine with n states is enumerated in tree normal form: the machine without
+ * transition is run; each time a machine reaches an undefined transition, that transition is defined in every
+ * possible way (write 0 or 1, move left or right, go to a state already reached or to the first state not yet
+ * reached) and the new machines are run in turn. The first transition only moves right, the other machines being
+ * mirrors of these. The transition is not defined when it is the last undefined transition, as the machine would then
+ * never halt. Otherwise, the machines of the input file are decided: one machine per line in the text format (only
+ * the first word of each line is read, empty lines and lines starting with # are ignored) or, with -b, the binary
+ * format of the seed database of the bbchallenge project: a header of 30 bytes then 6n bytes per machine, 3 bytes
+ * per transition (written symbol, move 0 for right and 1 for left, output state from 1, 0 if undefined). As the
+ * binary format does not give the number of states, -n is then required.
+ *
+ * The machines are decided in parallel, by the given number of threads, through three stages, each one deciding the
+ * machines the previous stage did not decide:
+ * <ul>
+ *     <li>short: a run of at most short steps with a {@link CompiledRunner};</li>
+ *     <li>decide: a run of at most decider steps with a {@link DeterministicRunner} checked by the standard
+ *     deciders (see {@link HaltingDecider#standardDeciders()});</li>
+ *     <li>long: a run of at least long steps with a {@link MacroRunner} with blocks of the given size (or with a
+ *     {@link CompiledRunner} if the machine is not supported with that size).</li>
+ * </ul>
+ *
+ * Each machine is written in the output file as soon as it is decided, on one line: the machine, HALT, NONHALT or
+ * UNDECIDED, the number of fired transitions (the undefined transition halting the machine is not counted), the
+ * stage, and the undefined transition reached (for instance C1) or the evidence of the decider. If the output file
+ * already exists, the machines it contains are not decided again (the children of the halting machines of the
+ * enumeration are regenerated from the undefined transition): an interrupted enumeration can thus be resumed by
+ * running the same command again.
+ */
+public class MachineEnumeration {
+
+    /**
+     * Size of the header of the binary format.
+     */
+    private static final int BINARY_HEADER = 30;
+
+    /**
+     * Maximum number of machines of the input file waiting to be decided, per thread.
+     */
+    private static final int PENDING_PER_THREAD = 1024;
+
+    /**
+     * Interval between two flushes of the output file, and between two progress reports.
+     */
+    private static final long FLUSH_NANOS = 1_000_000_000L;
+    private static final long REPORT_NANOS = 10_000_000_000L;
+
+    private int nbStates = 2;
+    private String input = null;
+    private boolean binary = false;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long shortSteps = 1000;
+    private long deciderSteps = 10000;
+    private long longSteps = 1_000_000;
+    private int blockSize = 8;
+
+    /**
+     * Machines read from the output file when the enumeration is resumed, with the undefined transition reached by
+     * the halting machines (an empty string for the other machines).
+     */
+    private final Map<String, String> done = new HashMap<>();
+
+    private BufferedWriter output;
+    private long lastFlush;
+    private long lastReport;
+    private final long start = System.nanoTime();
+
+    private final LongAdder halting = new LongAdder();
+    private final LongAdder nonHalting = new LongAdder();
+    private final LongAdder undecided = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+
+    /**
+     * Halting machine firing the most transitions, and the number of fired transitions.
+     */
+    private String champion;
+    private long championSteps = -1;
+
+    public static void main(String[] args) throws IOException {
+        MachineEnumeration enumeration = new MachineEnumeration();
+        String filename = null;
+        boolean statesGiven = false;
+
+        for(int i = 0; i < args.length; i++){
+            switch (args[i]){
+                case "-n": enumeration.nbStates = Integer.parseInt(args[++i]); statesGiven = true; break;
+                case "-i": enumeration.input = args[++i]; break;
+                case "-b": enumeration.binary = true; break;
+                case "-t": enumeration.threads = Integer.parseInt(args[++i]); break;
+                case "-s": enumeration.shortSteps = Long.parseLong(args[++i]); break;
+                case "-d": enumeration.deciderSteps = Long.parseLong(args[++i]); break;
+                case "-l": enumeration.longSteps = Long.parseLong(args[++i]); break;
+                case "-k": enumeration.blockSize = Integer.parseInt(args[++i]); break;
+                default: filename = args[i];
+            }
+        }
+        if(filename == null){
+            System.err.println("Usage: java turingmachines.MachineEnumeration [-n states] [-i input file] [-b] "
+                    + "[-t threads] [-s short steps] [-d decider steps] [-l long steps] [-k block size] output file");
+            System.exit(2);
+        }
+        if(enumeration.nbStates < 1 || enumeration.nbStates > 26){
+            System.err.println("The number of states should be between 1 and 26.");
+            System.exit(2);
+        }
+        if(enumeration.binary && !statesGiven){
+            System.err.println("The number of states of the machines of the binary format should be given with -n.");
+            System.exit(2);
+        }
+
+        enumeration.run(filename);
+    }
+
+    private void run(String filename) throws IOException {
+        resume(filename);
+        output = new BufferedWriter(new FileWriter(filename, true));
+        lastFlush = lastReport = System.nanoTime();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush));
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        if(input == null)
+            pool.invoke(new Node(this, emptyMachine(nbStates)));
+        else {
+            Semaphore pending = new Semaphore(threads * PENDING_PER_THREAD);
+            if (binary)
+                readBinary(pool, pending);
+            else
+                readText(pool, pending);
+            // Wait for the last submitted machines.
+            pending.acquireUninterruptibly(threads * PENDING_PER_THREAD);
+        }
+        pool.shutdown();
+
+        flush();
+        report();
+        if(champion != null)
+            System.err.println("Longest halting machine: " + champion + " (" + championSteps + " steps)");
+    }
+
+    /**
+     * Decision of a machine, followed, for a halting machine of the enumeration, by the decision of its children.
+     * The tasks are never serialized.
+     */
+    private static class Node extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient MachineEnumeration enumeration;
+        private final String code;
+
+        Node(MachineEnumeration enumeration, String code) {
+            this.enumeration = enumeration;
+            this.code = code;
+        }
+
+        @Override
+        protected void compute() {
+            String reached = enumeration.done.get(code);
+            if(reached != null)
+                enumeration.resumed.increment();
+            else
+                reached = enumeration.decide(code);
+
+            if(enumeration.input == null && !reached.isEmpty()) {
+                List<Node> children = new ArrayList<>();
+                for (String child : children(code, reached.charAt(0) - 'A', reached.charAt(1) - '0'))
+                    children.add(new Node(enumeration, child));
+                invokeAll(children);
+            }
+        }
+    }
+
+    /**
+     * Decide the given machine and write the result in the output file.
+     * @return the undefined transition reached if the machine halts on an undefined transition, an empty string
+     * otherwise.
+     */
+    private String decide(String code){
+        TuringMachine machine = build(code);
+        Tape tape = machine.getTapes().next();
+
+        CompiledRunner compiled = new CompiledRunner(machine);
+        compiled.run(shortSteps);
+        if(compiled.getVerdict() != DeterministicRunner.Verdict.RUNNING) {
+            compiled.writeTapes();
+            return halted(code, compiled.getVerdict(), compiled.getCurrentState(), tape, compiled.getSteps(),
+                    "short");
+        }
+
+        DeterministicRunner runner = new DeterministicRunner(machine);
+        for (HaltingDecider decider : HaltingDecider.standardDeciders())
+            runner.addDecider(decider);
+        runner.run(deciderSteps);
+        if(runner.getVerdict() == DeterministicRunner.Verdict.LOOPING){
+            nonHalting.increment();
+            write(code + " NONHALT " + runner.getSteps() + " decide " + runner.getEvidence());
+            return "";
+        }
+        if(runner.getVerdict() != DeterministicRunner.Verdict.RUNNING)
+            return halted(code, runner.getVerdict(), runner.getCurrentState(), tape, runner.getSteps(), "decide");
+
+        DeterministicRunner.Verdict verdict;
+        Integer state;
+        long steps;
+        // The tape is only read for the halting machines (see halted), it is not written for the other ones.
+        if(MacroRunner.isSupported(machine, blockSize)){
+            MacroRunner macro = new MacroRunner(machine, blockSize);
+            macro.run(longSteps);
+            verdict = macro.getVerdict();
+            state = macro.getCurrentState();
+            steps = macro.getSteps();
+            if(verdict != DeterministicRunner.Verdict.RUNNING)
+                macro.writeTape();
+        }
+        else{
+            compiled.reset();
+            compiled.run(longSteps);
+            verdict = compiled.getVerdict();
+            state = compiled.getCurrentState();
+            steps = compiled.getSteps();
+            if(verdict != DeterministicRunner.Verdict.RUNNING)
+                compiled.writeTapes();
+        }
+        if(verdict != DeterministicRunner.Verdict.RUNNING)
+            return halted(code, verdict, state, tape, steps, "long");
+
+        undecided.increment();
+        write(code + " UNDECIDED " + steps + " long");
+        return "";
+    }
+
+    /**
+     * Write the result of a halting machine in the output file.
+     * @return the undefined transition reached if the machine halts on an undefined transition, an empty string
+     * otherwise.
+     */
+    private String halted(String code, DeterministicRunner.Verdict verdict, Integer state, Tape tape, long steps,
+                          String stage){
+        String reached = "";
+        if(verdict == DeterministicRunner.Verdict.BLOCKED)
+            reached = "" + (char) ('A' + state) + (tape.read(0) == null ? '0' : '1');
+
+        halting.increment();
+        synchronized (this) {
+            if (steps > championSteps) {
+                championSteps = steps;
+                champion = code;
+            }
+        }
+        write(code + " HALT " + steps + " " + stage + (reached.isEmpty() ? "" : " " + reached));
+        return reached;
+    }
+
+    /**
+     * @return the machines of the enumeration obtained by defining the given undefined transition of the given
+     * machine.
+     */
+    static String[] children(String code, int state, int symbol){
+        int nbStates = (code.length() + 1) / 7;
+        int defined = 0;
+        int reached = 0;
+        for(int i = 0; i < 2 * nbStates; i++){
+            int index = transitionIndex(i / 2, i % 2);
+            if(code.charAt(index) != '-') {
+                defined++;
+                reached = Math.max(reached, code.charAt(index + 2) - 'A');
+            }
+        }
+        if(defined == 2 * nbStates - 1)
+            return new String[0];
+
+        int nbOutputs = Math.min(reached + 2, nbStates);
+        boolean first = defined == 0;
+        String[] children = new String[nbOutputs * 2 * (first ? 1 : 2)];
+        int index = transitionIndex(state, symbol);
+        int i = 0;
+        for(int output = 0; output < nbOutputs; output++)
+            for(char written = '0'; written <= '1'; written++)
+                for(char move : first ? new char[]{'R'} : new char[]{'L', 'R'})
+                    children[i++] = code.substring(0, index) + written + move + (char) ('A' + output)
+                            + code.substring(index + 3);
+        return children;
+    }
+
+    /**
+     * @return the index in the text format of the transition of the given state reading the given symbol.
+     */
+    private static int transitionIndex(int state, int symbol){
+        return state * 7 + symbol * 3;
+    }
+
+    /**
+     * @return the machine with the given number of states and without transition, in the text format.
+     */
+    static String emptyMachine(int nbStates){
+        StringBuilder code = new StringBuilder();
+        for(int state = 0; state < nbStates; state++)
+            code.append(state == 0 ? "" : "_").append("------");
+        return code.toString();
+    }
+
+    /**
+     * Check that the given text is a machine in the text format.
+     * @param code
+     * @throws IllegalArgumentException if the text is not a machine in the text format.
+     */
+    static void check(String code){
+        int nbStates = (code.length() + 1) / 7;
+        if(nbStates == 0 || code.length() != nbStates * 7 - 1)
+            throw new IllegalArgumentException("Invalid machine " + code + ".");
+
+        for(int state = 0; state < nbStates; state++){
+            if(state != 0 && code.charAt(state * 7 - 1) != '_')
+                throw new IllegalArgumentException("Invalid machine " + code + ".");
+
+            for(int symbol = 0; symbol < 2; symbol++){
+                int index = transitionIndex(state, symbol);
+                String transition = code.substring(index, index + 3);
+                if(!transition.equals("---")
+                        && ("01".indexOf(transition.charAt(0)) == -1 || "LR".indexOf(transition.charAt(1)) == -1))
+                    throw new IllegalArgumentException("Invalid machine " + code + ".");
+            }
+        }
+    }
+
+    /**
+     * Build the machine written in the given text format. The first state is initial. If a transition halts the
+     * machine, an accepting state H is added as its output state.
+     * @param code
+     * @return the machine.
+     * @throws IllegalArgumentException if the text is not a machine in the text format.
+     * @see #check(String)
+     */
+    static TuringMachine build(String code){
+        check(code);
+        int nbStates = (code.length() + 1) / 7;
+
+        TuringMachine machine = new TuringMachine();
+        machine.beginBatch();
+        machine.addSymbol("1");
+        Tape tape = machine.addTape();
+        machine.addHead(tape, 0, 0);
+        for(int state = 0; state < nbStates; state++)
+            machine.addState("" + (char) ('A' + state));
+        machine.setInitialState(0);
+        Integer halt = null;
+
+        for(int state = 0; state < nbStates; state++){
+            for(int symbol = 0; symbol < 2; symbol++){
+                int index = transitionIndex(state, symbol);
+                String transition = code.substring(index, index + 3);
+                if(transition.equals("---"))
+                    continue;
+
+                int output = transition.charAt(2) - 'A';
+                if(output < 0 || output >= nbStates){
+                    if(halt == null){
+                        halt = machine.addState("H");
+                        machine.setAcceptingState(halt);
+                    }
+                    output = halt;
+                }
+
+                Transition added = machine.addTransition(state, output);
+                added.addReadSymbols(tape, 0, symbol == 0 ? null : "1");
+                added.addAction(new WriteAction(tape, 0, transition.charAt(0) == '0' ? null : "1"));
+                added.addAction(new MoveAction(tape, 0,
+                        transition.charAt(1) == 'L' ? Direction.LEFT : Direction.RIGHT));
+            }
+        }
+
+        machine.commit();
+        return machine;
+    }
+
+    /**
+     * Submit the machines of the input file in the text format.
+     */
+    private void readText(ForkJoinPool pool, Semaphore pending) throws IOException {
+        try(BufferedReader reader = new BufferedReader(new FileReader(input))){
+            String line;
+            while((line = reader.readLine()) != null){
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#"))
+                    continue;
+                submit(pool, pending, line.split("\\s+")[0]);
+            }
+        }
+    }
+
+    /**
+     * Submit the machines of the input file in the binary format.
+     */
+    private void readBinary(ForkJoinPool pool, Semaphore pending) throws IOException {
+        byte[] machine = new byte[6 * nbStates];
+        try(DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(input)))){
+            stream.readFully(new byte[BINARY_HEADER]);
+            while(true){
+                try {
+                    stream.readFully(machine);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                StringBuilder code = new StringBuilder();
+                for(int i = 0; i < 2 * nbStates; i++){
+                    if(i != 0 && i % 2 == 0)
+                        code.append('_');
+                    if(machine[3 * i + 2] == 0)
+                        code.append("---");
+                    else
+                        code.append(machine[3 * i] == 0 ? '0' : '1')
+                                .append(machine[3 * i + 1] == 0 ? 'R' : 'L')
+                                .append((char) ('A' + machine[3 * i + 2] - 1));
+                }
+                submit(pool, pending, code.toString());
+            }
+        }
+    }
+
+    /**
+     * Submit the decision of the given machine, waiting if too many machines are waiting to be decided. A permit of
+     * the given semaphore is acquired until the machine is decided.
+     */
+    private void submit(ForkJoinPool pool, Semaphore pending, String code){
+        try {
+            check(code);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        pending.acquireUninterruptibly();
+        pool.execute(() -> {
+            try {
+                new Node(this, code).compute();
+            }
+            finally {
+                pending.release();
+            }
+        });
+    }
+
+    /**
+     * Read the machines already decided in the given output file, if it exists, and remove the last line if it was
+     * not completely written.
+     */
+    private void resume(String filename) throws IOException {
+        File file = new File(filename);
+        if(!file.exists())
+            return;
+
+        long complete = 0;
+        long length = 0;
+        try(BufferedReader reader = new BufferedReader(new FileReader(file))){
+            int c;
+            StringBuilder line = new StringBuilder();
+            while((c = reader.read()) != -1){
+                length++;
+                if(c != '\n'){
+                    line.append((char) c);
+                    continue;
+                }
+                complete = length;
+
+                String[] words = line.toString().split(" ", 6);
+                line.setLength(0);
+                if(words.length < 4)
+                    continue;
+                boolean reached = words[1].equals("HALT") && words.length >= 5;
+                done.put(words[0], reached ? words[4] : "");
+            }
+        }
+
+        if(complete != length)
+            try(RandomAccessFile truncated = new RandomAccessFile(file, "rw")){
+                truncated.setLength(complete);
+            }
+        System.err.println("Resuming after " + done.size() + " machines.");
+    }
+
+    private synchronized void write(String line){
+        try {
+            output.write(line);
+            output.write('\n');
+            long now = System.nanoTime();
+            if(now - lastFlush > FLUSH_NANOS){
+                output.flush();
+                lastFlush = now;
+            }
+            if(now - lastReport > REPORT_NANOS){
+                report();
+                lastReport = now;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void flush(){
+        try {
+            output.flush();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private void report(){
+        long decided = halting.sum() + nonHalting.sum() + undecided.sum();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.println(String.format(Locale.ROOT,
+                "%d machines decided (%.0f per hour): %d halting, %d non halting, %d undecided, %d resumed",
+                decided, decided * 3600 / seconds, halting.sum(), nonHalting.sum(), undecided.sum(),
+                resumed.sum()));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.IOException;
+
+/**
+ * Utility class reading and writing machine files, choosing the format with the extension of the file: the binary
+ * format (see {@link BinaryMachineReader}) for the *.tmb files and the JSON format (see {@link TuringMachineReader})
+ * otherwise.
+ *
+ * This class can also be run to convert a machine file from one format to the other:
+ * <pre>java turingmachines.MachineFiles input.tm output.tmb</pre>
+ */
+public class MachineFiles {
+
+    /**
+     * Extension of the JSON machine files.
+     */
+    public static final String EXTENSION = ".tm";
+
+    /**
+     * Extension of the binary machine files.
+     */
+    public static final String BINARY_EXTENSION = ".tmb";
+
+    private MachineFiles(){}
+
+    /**
+     * @param filename
+     * @return true if the file with the given name is a binary machine file.
+     */
+    public static boolean isBinary(String filename){
+        return filename.toLowerCase().endsWith(BINARY_EXTENSION);
+    }
+
+    /**
+     * Read the file with the given name in the given machine and layout.
+     * @param filename
+     * @param machine an empty machine
+     * @param layout
+     * @throws IOException if the file cannot be read or is not a valid machine file.
+     */
+    public static void read(String filename, TuringMachine machine, MachineLayout layout) throws IOException {
+        if(isBinary(filename))
+            new BinaryMachineReader(machine, layout).read(filename);
+        else
+            new TuringMachineReader(machine, layout).read(filename);
+    }
+
+    /**
+     * Write the given machine with the given layout in the file with the given name.
+     * @param filename
+     * @param machine
+     * @param layout
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(String filename, TuringMachine machine, MachineLayout layout) throws IOException {
+        if(isBinary(filename))
+            new BinaryMachineWriter(machine, layout).write(filename);
+        else
+            new TuringMachineWriter(machine, layout).write(filename);
+    }
+
+    /**
+     * Convert the machine file given as first argument into the machine file given as second argument.
+     * @param args
+     */
+    public static void main(String[] args){
+        if(args.length != 2){
+            System.err.println("Usage: MachineFiles <input file> <output file>");
+            System.exit(1);
+        }
+
+        TuringMachine machine = new TuringMachine();
+        MachineLayout layout = new MachineLayout();
+        try {
+            read(args[0], machine, layout);
+            write(args[1], machine, layout);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
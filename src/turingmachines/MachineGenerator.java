@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generator of synthetic machines and input words, used to find how the engine scales with the size of the machines.
+ *
+ * Two shapes of machines can be generated:
+ * <ul>
+ *     <li>random machines: from each non final state, a given number of transitions, each reading a distinct random
+ *     combination of symbols under the heads. Each of these transitions is repeated as many times as the
+ *     nondeterminism degree, with different random actions and output states. The first state is initial, the last
+ *     state is final and accepting and, if there are at least three states, the last but one state is final and
+ *     rejecting;</li>
+ *     <li>sweep machines: each non final state moves every head from one end of the input word to the other,
+ *     replacing every symbol by the next symbol of the alphabet, then gives the hand to the next state. The machine
+ *     is deterministic and halts after (states - 1) * (input length + 1) transitions.</li>
+ * </ul>
+ * Every tape is one dimensional and infinite, every head starts on the first cell of the input word, and the input
+ * word of every tape is a random word on the alphabet. The generation only depends on the parameters and on the
+ * seed: the same parameters and the same seed always generate the same machine.
+ *
+ * The generated machine can be built in memory with {@link #generate(TuringMachine, MachineLayout)} or written in a
+ * machine file with the main method:
+ *
+ * java turingmachines.MachineGenerator [-r seed] [-q states] [-t tapes] [-h heads] [-a alphabet size]
+ * [-d transitions] [-n nondeterminism] [-l input length] [-s] file
+ *
+ * where -s generates a sweep machine instead of a random machine, and file is a .tm or a .tmb file.
+ */
+public class MachineGenerator {
+
+    /**
+     * Radius of the circle on which the states are placed in the layout.
+     */
+    private static final double LAYOUT_RADIUS_PER_STATE = 20;
+
+    private long seed = 0;
+    private int nbStates = 10;
+    private int nbTapes = 1;
+    private int nbHeads = 1;
+    private int nbSymbols = 2;
+    private int nbTransitions = 2;
+    private int nondeterminism = 1;
+    private int inputLength = 16;
+    private boolean sweep = false;
+
+    /**
+     * Set the seed of the random generator.
+     * @param seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Set the number of states of the generated machines, at least 2.
+     * @param nbStates
+     */
+    public void setNbStates(int nbStates) {
+        this.nbStates = Math.max(2, nbStates);
+    }
+
+    /**
+     * Set the number of tapes of the generated machines, at least 1.
+     * @param nbTapes
+     */
+    public void setNbTapes(int nbTapes) {
+        this.nbTapes = Math.max(1, nbTapes);
+    }
+
+    /**
+     * Set the number of heads of each tape of the generated machines, at least 1.
+     * @param nbHeads
+     */
+    public void setNbHeads(int nbHeads) {
+        this.nbHeads = Math.max(1, nbHeads);
+    }
+
+    /**
+     * Set the number of symbols of the generated machines (not counting the BLANK symbol), at least 1.
+     * @param nbSymbols
+     */
+    public void setNbSymbols(int nbSymbols) {
+        this.nbSymbols = Math.max(1, nbSymbols);
+    }
+
+    /**
+     * Set the number of distinct combinations of symbols read by the output transitions of each non final state of
+     * the random machines. This number is bounded by the number of combinations of symbols under the heads. Ignored
+     * by the sweep machines.
+     * @param nbTransitions
+     */
+    public void setNbTransitions(int nbTransitions) {
+        this.nbTransitions = Math.max(1, nbTransitions);
+    }
+
+    /**
+     * Set the number of output transitions reading the same combination of symbols in the random machines. The
+     * machines are deterministic if this number is 1. Ignored by the sweep machines.
+     * @param nondeterminism
+     */
+    public void setNondeterminism(int nondeterminism) {
+        this.nondeterminism = Math.max(1, nondeterminism);
+    }
+
+    /**
+     * Set the length of the input word written on each tape.
+     * @param inputLength
+     */
+    public void setInputLength(int inputLength) {
+        this.inputLength = Math.max(0, inputLength);
+    }
+
+    /**
+     * @param sweep true if sweep machines should be generated instead of random machines.
+     */
+    public void setSweep(boolean sweep) {
+        this.sweep = sweep;
+    }
+
+    /**
+     * @return a new machine generated with the current parameters.
+     * @see #generate(TuringMachine, MachineLayout)
+     */
+    public TuringMachine generate(){
+        TuringMachine machine = new TuringMachine();
+        generate(machine, new MachineLayout());
+        return machine;
+    }
+
+    /**
+     * Populate the given machine with a machine generated with the current parameters. The states are placed on a
+     * circle in the given layout. The machine is populated in a batch (see {@link TuringMachine#beginBatch()}).
+     * @param machine an empty machine
+     * @param layout
+     */
+    public void generate(TuringMachine machine, MachineLayout layout){
+        Random random = new Random(seed);
+
+        machine.beginBatch();
+
+        String[] symbols = new String[nbSymbols];
+        for(int i = 0; i < nbSymbols; i++) {
+            symbols[i] = Integer.toString(i);
+            machine.addSymbol(symbols[i]);
+        }
+
+        List<Tape> tapes = new ArrayList<>();
+        for(int i = 0; i < nbTapes; i++){
+            Tape tape = machine.addTape();
+            tapes.add(tape);
+            for(int head = 0; head < nbHeads; head++)
+                machine.addHead(tape, 0, 0);
+            for(int column = 0; column < inputLength; column++)
+                tape.writeInput(0, column, symbols[random.nextInt(nbSymbols)]);
+        }
+
+        double radius = LAYOUT_RADIUS_PER_STATE * nbStates;
+        for(int state = 0; state < nbStates; state++) {
+            machine.addState("Q" + state);
+            double angle = 2 * Math.PI * state / nbStates;
+            layout.setStatePosition(state, radius * Math.cos(angle), radius * Math.sin(angle));
+        }
+        machine.setInitialState(0);
+        machine.setAcceptingState(nbStates - 1);
+
+        if(sweep)
+            generateSweep(machine, tapes, symbols);
+        else {
+            if (nbStates >= 3)
+                machine.setFinalState(nbStates - 2);
+            generateRandom(machine, tapes, symbols, random);
+        }
+
+        machine.commit();
+    }
+
+    /**
+     * Add the transitions of a random machine.
+     */
+    private void generateRandom(TuringMachine machine, List<Tape> tapes, String[] symbols, Random random){
+        int heads = nbTapes * nbHeads;
+
+        // Each combination of symbols read by the heads is a number in base nbSymbols + 1, the digit 0 being the
+        // BLANK symbol.
+        double nbCombinations = Math.pow(nbSymbols + 1, heads);
+        int nbReadCombinations = (int) Math.min(nbTransitions, nbCombinations);
+
+        for(int state = 0; state < nbStates; state++){
+            if(machine.isFinal(state))
+                continue;
+
+            Set<Long> combinations = new HashSet<>();
+            while(combinations.size() < nbReadCombinations)
+                combinations.add((long) (random.nextDouble() * nbCombinations));
+
+            for(long combination : combinations){
+                for(int i = 0; i < nondeterminism; i++){
+                    Transition transition = machine.addTransition(state, random.nextInt(nbStates));
+
+                    long digits = combination;
+                    for(Tape tape : tapes)
+                        for(int head = 0; head < nbHeads; head++) {
+                            int digit = (int) (digits % (nbSymbols + 1));
+                            digits /= nbSymbols + 1;
+                            transition.addReadSymbols(tape, head, digit == 0 ? null : symbols[digit - 1]);
+                        }
+
+                    for(Tape tape : tapes)
+                        for(int head = 0; head < nbHeads; head++) {
+                            int symbol = random.nextInt(nbSymbols + 2);
+                            if (symbol <= nbSymbols)
+                                transition.addAction(new WriteAction(tape, head,
+                                        symbol == 0 ? null : symbols[symbol - 1]));
+                            transition.addAction(new MoveAction(tape, head,
+                                    random.nextBoolean() ? Direction.LEFT : Direction.RIGHT));
+                        }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the transitions of a sweep machine. The state i moves the heads to the right if i is even and to the left
+     * otherwise. When the first head of the first tape reads a BLANK symbol, the heads move back on the word and the
+     * machine goes to the next state.
+     */
+    private void generateSweep(TuringMachine machine, List<Tape> tapes, String[] symbols){
+        Tape first = tapes.get(0);
+        for(int state = 0; state < nbStates - 1; state++){
+            Direction direction = (state % 2 == 0) ? Direction.RIGHT : Direction.LEFT;
+            Direction back = (state % 2 == 0) ? Direction.LEFT : Direction.RIGHT;
+
+            for(int i = 0; i < nbSymbols; i++){
+                Transition transition = machine.addTransition(state, state);
+                transition.addReadSymbols(first, 0, symbols[i]);
+                for(Tape tape : tapes)
+                    for(int head = 0; head < nbHeads; head++) {
+                        transition.addAction(new WriteAction(tape, head, symbols[(i + 1) % nbSymbols]));
+                        transition.addAction(new MoveAction(tape, head, direction));
+                    }
+            }
+
+            Transition transition = machine.addTransition(state, state + 1);
+            transition.addReadSymbols(first, 0, (String) null);
+            for(Tape tape : tapes)
+                for(int head = 0; head < nbHeads; head++)
+                    transition.addAction(new MoveAction(tape, head, back));
+        }
+    }
+
+    public static void main(String[] args) {
+        MachineGenerator generator = new MachineGenerator();
+        String filename = null;
+
+        for(int i = 0; i < args.length; i++){
+            switch (args[i]){
+                case "-r": generator.setSeed(Long.parseLong(args[++i])); break;
+                case "-q": generator.setNbStates(Integer.parseInt(args[++i])); break;
+                case "-t": generator.setNbTapes(Integer.parseInt(args[++i])); break;
+                case "-h": generator.setNbHeads(Integer.parseInt(args[++i])); break;
+                case "-a": generator.setNbSymbols(Integer.parseInt(args[++i])); break;
+                case "-d": generator.setNbTransitions(Integer.parseInt(args[++i])); break;
+                case "-n": generator.setNondeterminism(Integer.parseInt(args[++i])); break;
+                case "-l": generator.setInputLength(Integer.parseInt(args[++i])); break;
+                case "-s": generator.setSweep(true); break;
+                default: filename = args[i];
+            }
+        }
+
+        if(filename == null){
+            System.err.println("Usage: MachineGenerator [-r seed] [-q states] [-t tapes] [-h heads] " +
+                    "[-a alphabet size] [-d transitions] [-n nondeterminism] [-l input length] [-s] <output file>");
+            System.exit(1);
+        }
+
+        TuringMachine machine = new TuringMachine();
+        MachineLayout layout = new MachineLayout();
+        generator.generate(machine, layout);
+        try {
+            MachineFiles.write(filename, machine, layout);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
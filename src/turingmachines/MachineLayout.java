@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class describing how a Turing machine is displayed, that is every information stored in a machine file that does
+ * not belong to the machine itself:
+ * <ul>
+ *     <li>the position of each state of the graph</li>
+ *     <li>the control keys of the Bezier curve of each transition</li>
+ *     <li>the color of each head</li>
+ *     <li>the duration of the animations</li>
+ * </ul>
+ *
+ * Colors are given as Strings of the form 0xRRGGBBAA.
+ *
+ * @see TuringMachineReader
+ * @see TuringMachineWriter
+ */
+public class MachineLayout {
+
+    /**
+     * Duration of the animations in milliseconds or null if not specified.
+     */
+    private Long animationDuration;
+
+    /**
+     * For each state i, this list contains, at index i, the abscissa of the state.
+     */
+    private List<Double> statesX;
+
+    /**
+     * For each state i, this list contains, at index i, the ordinate of the state.
+     */
+    private List<Double> statesY;
+
+    /**
+     * For each transition, the coordinates of the two control keys of the associated Bezier curve (control1X,
+     * control1Y, control2X, control2Y).
+     */
+    private Map<Transition, Double[]> transitionsControls;
+
+    /**
+     * For each tape, this map contains the list of colors of the heads of the tape.
+     */
+    private Map<Tape, List<String>> headsColors;
+
+    /**
+     * Build an empty layout.
+     */
+    public MachineLayout() {
+        animationDuration = null;
+        statesX = new ArrayList<>();
+        statesY = new ArrayList<>();
+        transitionsControls = new HashMap<>();
+        headsColors = new HashMap<>();
+    }
+
+    /**
+     * @return the duration of the animations in milliseconds or null if not specified.
+     */
+    public Long getAnimationDuration() {
+        return animationDuration;
+    }
+
+    /**
+     * @param animationDuration the duration of the animations in milliseconds.
+     */
+    public void setAnimationDuration(Long animationDuration) {
+        this.animationDuration = animationDuration;
+    }
+
+    /**
+     * Set the position of the given state.
+     * @param state index of a state
+     * @param x
+     * @param y
+     */
+    public void setStatePosition(int state, double x, double y){
+        while(statesX.size() <= state){
+            statesX.add(null);
+            statesY.add(null);
+        }
+        statesX.set(state, x);
+        statesY.set(state, y);
+    }
+
+    /**
+     * @param state index of a state
+     * @return the abscissa of the given state or null if not specified.
+     */
+    public Double getStateX(int state){
+        if(state < 0 || state >= statesX.size())
+            return null;
+        return statesX.get(state);
+    }
+
+    /**
+     * @param state index of a state
+     * @return the ordinate of the given state or null if not specified.
+     */
+    public Double getStateY(int state){
+        if(state < 0 || state >= statesY.size())
+            return null;
+        return statesY.get(state);
+    }
+
+    /**
+     * Set the coordinates of the control keys of the Bezier curve associated with the given transition.
+     * @param transition
+     * @param control1X
+     * @param control1Y
+     * @param control2X
+     * @param control2Y
+     */
+    public void setTransitionControls(Transition transition,
+                                      Double control1X, Double control1Y,
+                                      Double control2X, Double control2Y){
+        transitionsControls.put(transition, new Double[]{control1X, control1Y, control2X, control2Y});
+    }
+
+    /**
+     * @param transition
+     * @return the coordinates (control1X, control1Y, control2X, control2Y) of the control keys of the Bezier curve
+     * associated with the given transition or null if not specified.
+     */
+    public Double[] getTransitionControls(Transition transition){
+        return transitionsControls.get(transition);
+    }
+
+    /**
+     * Set the color of the given head.
+     * @param tape
+     * @param head index of the head in the list of heads of the given tape.
+     * @param color
+     */
+    public void setHeadColor(Tape tape, int head, String color){
+        List<String> colors = headsColors.computeIfAbsent(tape, k -> new ArrayList<>());
+        while(colors.size() <= head)
+            colors.add(null);
+        colors.set(head, color);
+    }
+
+    /**
+     * @param tape
+     * @param head index of the head in the list of heads of the given tape.
+     * @return the color of the given head or null if not specified.
+     */
+    public String getHeadColor(Tape tape, int head){
+        List<String> colors = headsColors.get(tape);
+        if(colors == null || head < 0 || head >= colors.size())
+            return null;
+        return colors.get(head);
+    }
+
+    /**
+     * Give a color to every head of the given machine with no color in this layout, as the machine files refer to
+     * the heads with their colors.
+     * @param machine
+     */
+    void assignMissingHeadsColors(TuringMachine machine){
+        Set<String> colors = new HashSet<>();
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();){
+            Tape tape = it.next();
+            for(int head = 0; head < tape.getNbHeads(); head++){
+                String color = getHeadColor(tape, head);
+                if(color != null)
+                    colors.add(color.toLowerCase());
+            }
+        }
+
+        int grey = 0;
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();){
+            Tape tape = it.next();
+            for(int head = 0; head < tape.getNbHeads(); head++){
+                if(getHeadColor(tape, head) != null)
+                    continue;
+                String color;
+                do {
+                    color = String.format("0x%06xff", grey);
+                    grey += 0x0f0f0f;
+                } while(!colors.add(color));
+                setHeadColor(tape, head, color);
+            }
+        }
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.DirectoryStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Headless regression checks of the engine on the bundled examples, run with the main method:
+ *
+ * java turingmachines.MachineRegression [-record] [-b baseline] [-i iterations] [-t tolerance] [-m max steps]
+ *
+ * Each example is checked with its own input word and with its input word repeated 4 times (see
+ * {@link MachineBenchmark}). For each of these inputs, four checks are run:
+ * <ul>
+ *     <li>load: reading the file;</li>
+ *     <li>build: exploring the configurations with {@link TuringMachine#build()}, the number of steps is the number
+ *     of explored configurations;</li>
+ *     <li>tick: firing the transitions of the built path with {@link TuringMachine#tick()};</li>
+ *     <li>run: executing the machine with a {@link DeterministicRunner}, limited to max steps transitions.</li>
+ * </ul>
+ *
+ * Before these checks, every transition of every machine file of the examples directory is checked: no transition reads or writes one of the names
+ * or characters of the files reserved for the BLANK symbol and the move actions (see
+ * {@link TuringMachineReader#getSymbolName(String)}), as these should be read as the BLANK symbol and as move
+ * actions.
+ *
+ * Small machines built by {@link #smallMachines()}, which once fooled the halting deciders or the
+ * {@link MacroRunner}, are also executed with and without the deciders of
+ * {@link HaltingDecider#standardDeciders()}, and with a MacroRunner if it supports them: the deciders and the
+ * MacroRunner should not change the verdict nor the number of steps of these machines, which all stop.
+ *
+ * The verdicts and the numbers of steps of some checks are also compared with values computed by hand from the
+ * examples (see {@link #EXPECTED}), both when the results are recorded and when they are compared, so that a wrong
+ * result cannot be recorded in the baseline.
+ *
+ * Every check gives a verdict, a number of steps, a duration and a number of allocated bytes. The duration and the
+ * allocated bytes are the minimum over the iterations. With -record, the results are written in the baseline file.
+ * Otherwise, they are compared with the results of the baseline file: a check fails if its verdict or its number of
+ * steps differs from the baseline, or if its duration or its number of allocated bytes exceeds the baseline by more
+ * than the given tolerance (0.5 means 50%). The program exits with status 1 if a check fails.
+ *
+ * No class of JavaFX is used, the checks can thus be run on a headless computer. As the durations depend on the
+ * computer, the baseline should be recorded on the computer running the checks, before the change to be checked.
+ */
+public class MachineRegression {
+
+    /**
+     * Default baseline file.
+     */
+    private static final String BASELINE = "examples/regression.baseline";
+
+    /**
+     * Directory of the machine files whose transitions are checked.
+     */
+    private static final String EXAMPLES_DIRECTORY = "examples";
+
+    /**
+     * Verdict and number of steps of some checks, computed by hand from the examples. palindrome.tm erases the
+     * first and the last symbols of 1011010111001 while they are equal: it reads (1, 1), (0, 0) then (1, 0) and
+     * rejects after 3 transitions. add10.tm adds 1 to the decimal number 3029: it replaces 9 by 0, moves left,
+     * replaces 2 by 3 and stops in a rejecting state after 2 transitions.
+     */
+    private static final String[][] EXPECTED = {
+            {"examples/palindrome.tm 1 tick", "REJECTED", "3"},
+            {"examples/palindrome.tm 1 run", "REJECTED", "3"},
+            {"examples/palindrome.tm 4 run", "REJECTED", "3"},
+            {"examples/add10.tm 1 tick", "REJECTED", "2"},
+            {"examples/add10.tm 1 run", "REJECTED", "2"},
+            {"examples/add10.tm 4 run", "REJECTED", "2"}
+    };
+
+    /**
+     * Maximum number of steps of the executions of the small machines.
+     */
+    private static final long SMALL_MACHINES_STEPS = 10_000;
+
+    /**
+     * Size of the blocks of the MacroRunner executing the small machines.
+     */
+    private static final int SMALL_MACHINES_BLOCK_SIZE = 8;
+
+    /**
+     * Number of times the input word of each example is repeated.
+     */
+    private static final int[] SIZES = {1, 4};
+
+    /**
+     * Duration added to the tolerance, so that the checks lasting a few microseconds do not fail because of the
+     * noise of the measure.
+     */
+    private static final long SLACK_NANOS = 1_000_000;
+
+    /**
+     * Number of bytes added to the tolerance, for the same reason.
+     */
+    private static final long SLACK_BYTES = 65536;
+
+    private String baseline = BASELINE;
+    private boolean record = false;
+    private int iterations = 5;
+    private double tolerance = 0.5;
+    private long maximumSteps = 1_000_000;
+
+    /**
+     * Result of a check.
+     */
+    private static class Result {
+        String verdict;
+        long steps;
+        long nanos = Long.MAX_VALUE;
+        long bytes = Long.MAX_VALUE;
+
+        /**
+         * Keep the given duration and number of allocated bytes if they are lower than the current ones.
+         */
+        void measure(long nanos, long bytes){
+            this.nanos = Math.min(this.nanos, nanos);
+            this.bytes = Math.min(this.bytes, bytes);
+        }
+    }
+
+    public static void main(String[] args) {
+        MachineRegression regression = new MachineRegression();
+
+        for(int i = 0; i < args.length; i++){
+            switch (args[i]){
+                case "-record": regression.record = true; break;
+                case "-b": regression.baseline = args[++i]; break;
+                case "-i": regression.iterations = Integer.parseInt(args[++i]); break;
+                case "-t": regression.tolerance = Double.parseDouble(args[++i]); break;
+                case "-m": regression.maximumSteps = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("Usage: MachineRegression [-record] [-b baseline] [-i iterations] " +
+                            "[-t tolerance] [-m max steps]");
+                    System.exit(1);
+            }
+        }
+
+        try {
+            boolean actions = regression.checkActions();
+            actions &= regression.checkSmallMachines();
+            Map<String, Result> results = regression.check();
+            if(!regression.checkExpected(results))
+                System.exit(1);
+            if(regression.record) {
+                regression.write(results);
+                System.out.println(results.size() + " results recorded in " + regression.baseline);
+            }
+            else if(!regression.compare(results))
+                System.exit(1);
+            if(!actions)
+                System.exit(1);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Check the read symbols and the actions of the transitions of every machine file of the examples directory and
+     * print the errors.
+     * @return true if no transition reads or writes a reserved name or character.
+     * @throws IOException if a file cannot be read.
+     */
+    private boolean checkActions() throws IOException {
+        List<String> filenames = new ArrayList<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(EXAMPLES_DIRECTORY), "*.tm")){
+            for(Path file : files)
+                filenames.add(file.toString());
+        }
+        Collections.sort(filenames);
+
+        boolean valid = true;
+        for(String filename : filenames){
+            TuringMachine machine = MachineBenchmark.read(filename, 1);
+            List<String> errors = new ArrayList<>();
+            for(int state = 0; state < machine.getNbStates(); state++)
+                for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();){
+                    Transition transition = it.next();
+                    for(Iterator<Tape> it2 = machine.getTapes(); it2.hasNext();){
+                        Tape tape = it2.next();
+                        for(int head = 0; head < tape.getNbHeads(); head++)
+                            for(Iterator<String> it3 = transition.getReadSymbols(tape, head); it3.hasNext();){
+                                String symbol = it3.next();
+                                if(symbol != null && isReserved(symbol))
+                                    errors.add("reads " + symbol);
+                            }
+                    }
+                    for(Iterator<Action> it2 = transition.getActions(); it2.hasNext();){
+                        Action action = it2.next();
+                        if(action.getType() == ActionType.WRITE && action.value() != null
+                                && isReserved((String) action.value()))
+                            errors.add("writes " + action.value());
+                    }
+                }
+
+            System.out.println(String.format(Locale.ROOT, "%-4s %-32s %s", errors.isEmpty() ? "OK" : "FAIL",
+                    filename + " actions", String.join(", ", errors)));
+            valid &= errors.isEmpty();
+        }
+        return valid;
+    }
+
+    /**
+     * Execute every small machine with and without the halting deciders, and with a MacroRunner if it supports the
+     * machine, and print the errors.
+     * @return true if the deciders and the MacroRunner do not change the verdict nor the number of steps of any
+     * machine.
+     * @see #smallMachines()
+     */
+    private boolean checkSmallMachines(){
+        boolean valid = true;
+        for(Map.Entry<String, TuringMachine> entry : smallMachines().entrySet()){
+            TuringMachine machine = entry.getValue();
+            DeterministicRunner runner = new DeterministicRunner(machine);
+            runner.run(SMALL_MACHINES_STEPS);
+            String expected = runner.getVerdict() + " " + runner.getSteps();
+
+            runner = new DeterministicRunner(machine);
+            for(HaltingDecider decider : HaltingDecider.standardDeciders())
+                runner.addDecider(decider);
+            runner.run(SMALL_MACHINES_STEPS);
+            String decided = runner.getVerdict() + " " + runner.getSteps();
+
+            String macro = expected;
+            if(MacroRunner.isSupported(machine, SMALL_MACHINES_BLOCK_SIZE)){
+                MacroRunner macroRunner = new MacroRunner(machine, SMALL_MACHINES_BLOCK_SIZE);
+                macroRunner.run(SMALL_MACHINES_STEPS);
+                macro = macroRunner.getVerdict() + " " + macroRunner.getSteps();
+            }
+
+            List<String> errors = new ArrayList<>();
+            if(!decided.equals(expected))
+                errors.add(decided + " with the deciders");
+            if(!macro.equals(expected))
+                errors.add(macro + " with a MacroRunner");
+            boolean same = errors.isEmpty();
+            System.out.println(String.format(Locale.ROOT, "%-4s %-32s %s", same ? "OK" : "FAIL", entry.getKey(),
+                    same ? expected : String.join(", ", errors) + " instead of " + expected));
+            valid &= same;
+        }
+        return valid;
+    }
+
+    /**
+     * @return small machines with one tape and one head, identified by a description.
+     */
+    private static Map<String, TuringMachine> smallMachines(){
+        Map<String, TuringMachine> machines = new LinkedHashMap<>();
+
+        // The head bounces between a counter of three 1 on the left and the cells x it writes on the right, where it
+        // enters the state R on a new cell at each bounce. It erases one 1 of the counter at each bounce and stops
+        // when the counter is empty. The tape only contains the line 3.
+        TuringMachine machine = new TuringMachine();
+        Tape tape = smallMachine(machine, 3, "1xy", "111", -3, "R", "L", "H");
+        machine.setAcceptingState(2);
+        smallTransition(machine, 0, 0, "x", new MoveAction(tape, 0, Direction.RIGHT));
+        smallTransition(machine, 0, 0, "y", new MoveAction(tape, 0, Direction.RIGHT));
+        smallTransition(machine, 0, 1, null, new WriteAction(tape, 0, "x"), new MoveAction(tape, 0, Direction.LEFT));
+        smallTransition(machine, 1, 1, "x", new MoveAction(tape, 0, Direction.LEFT));
+        smallTransition(machine, 1, 1, "y", new MoveAction(tape, 0, Direction.LEFT));
+        smallTransition(machine, 1, 0, "1", new WriteAction(tape, 0, "y"), new MoveAction(tape, 0, Direction.RIGHT));
+        smallTransition(machine, 1, 2, null);
+        machine.commit();
+        machines.put("bouncing counter on line 3", machine);
+
+        // The head moves right and tries to move up on every 1, then stops on the first BLANK cell. As the tape has
+        // one line, the head does not move up.
+        machine = new TuringMachine();
+        tape = smallMachine(machine, 0, "1", "11111", 0, "A", "H");
+        machine.setAcceptingState(1);
+        smallTransition(machine, 0, 0, "1", new MoveAction(tape, 0, Direction.RIGHT),
+                new MoveAction(tape, 0, Direction.UP));
+        smallTransition(machine, 0, 1, null);
+        machine.commit();
+        machines.put("moving right and up", machine);
+
+        // The head writes 1, moves right and tries to move up, then moves back left on the BLANK cell and stops on
+        // the 1.
+        machine = new TuringMachine();
+        tape = smallMachine(machine, 0, "1", "", 0, "A", "B", "C", "H");
+        machine.setAcceptingState(3);
+        smallTransition(machine, 0, 1, null, new WriteAction(tape, 0, "1"), new MoveAction(tape, 0, Direction.RIGHT),
+                new MoveAction(tape, 0, Direction.UP));
+        smallTransition(machine, 1, 2, null, new MoveAction(tape, 0, Direction.LEFT));
+        smallTransition(machine, 2, 3, "1");
+        machine.commit();
+        machines.put("writing, moving right and up", machine);
+
+        // The head crosses 2000 1 stored as one run to the right, writes 1 after them, crosses them back to the left,
+        // then crosses them again to the right, the last 1 being written during the execution, and stops.
+        machine = new TuringMachine();
+        tape = smallMachine(machine, 0, "1", String.join("", Collections.nCopies(2000, "1")), 0,
+                "A", "B", "C", "H");
+        tape.compressInput();
+        machine.setAcceptingState(3);
+        smallTransition(machine, 0, 0, "1", new MoveAction(tape, 0, Direction.RIGHT));
+        smallTransition(machine, 0, 1, null, new WriteAction(tape, 0, "1"), new MoveAction(tape, 0, Direction.LEFT));
+        smallTransition(machine, 1, 1, "1", new MoveAction(tape, 0, Direction.LEFT));
+        smallTransition(machine, 1, 2, null, new MoveAction(tape, 0, Direction.RIGHT));
+        smallTransition(machine, 2, 2, "1", new MoveAction(tape, 0, Direction.RIGHT));
+        smallTransition(machine, 2, 3, null);
+        machine.commit();
+        machines.put("crossing a compressed run", machine);
+
+        return machines;
+    }
+
+    /**
+     * Populate the given empty machine with the given symbols (each character being a symbol), the given states
+     * (the first one being initial) and one tape containing the line of the given index only. The tape contains the
+     * given input word from the given column and one head at column 0. The machine is left in a batch (see
+     * {@link TuringMachine#beginBatch()}).
+     * @return the tape.
+     */
+    private static Tape smallMachine(TuringMachine machine, int line, String symbols, String input, int firstColumn,
+                                     String... states){
+        machine.beginBatch();
+        for(char symbol : symbols.toCharArray())
+            machine.addSymbol(String.valueOf(symbol));
+        Tape tape = machine.addTape();
+        tape.setTopBound(line);
+        tape.setBottomBound(line);
+        machine.addHead(tape, line, 0);
+        for(int i = 0; i < input.length(); i++)
+            tape.writeInput(line, firstColumn + i, String.valueOf(input.charAt(i)));
+        for(String state : states)
+            machine.addState(state);
+        machine.setInitialState(0);
+        return tape;
+    }
+
+    /**
+     * Add a transition between the given states of the given small machine, fired when the head reads the given
+     * symbol (null for the BLANK symbol), with the given actions.
+     */
+    private static void smallTransition(TuringMachine machine, int input, int output, String read,
+                                        Action... actions){
+        Tape tape = machine.getTapes().next();
+        Transition transition = machine.addTransition(input, output);
+        transition.addReadSymbols(tape, 0, read);
+        for(Action action : actions)
+            transition.addAction(action);
+    }
+
+    /**
+     * @return true if the given symbol is a name or a character of the files reserved for the BLANK symbol and the
+     * move actions.
+     */
+    private static boolean isReserved(String symbol){
+        return !TuringMachineReader.getSymbolName(symbol).equals(symbol)
+                || symbol.equals(TuringMachineReader.BLANK_SYMBOL)
+                || symbol.equals(TuringMachineReader.LEFT_SYMBOL)
+                || symbol.equals(TuringMachineReader.RIGHT_SYMBOL)
+                || symbol.equals(TuringMachineReader.UP_SYMBOL)
+                || symbol.equals(TuringMachineReader.DOWN_SYMBOL);
+    }
+
+    /**
+     * Compare the given results with the values computed by hand and print the errors.
+     * @return true if every result is the expected one.
+     * @see #EXPECTED
+     */
+    private boolean checkExpected(Map<String, Result> results){
+        boolean valid = true;
+        for(String[] expected : EXPECTED){
+            Result result = results.get(expected[0]);
+            boolean same = result != null && result.verdict.equals(expected[1])
+                    && result.steps == Long.parseLong(expected[2]);
+            if(!same)
+                System.out.println(String.format(Locale.ROOT, "FAIL %-32s %s instead of %s %s", expected[0],
+                        result == null ? "no result" : result.verdict + " " + result.steps, expected[1],
+                        expected[2]));
+            valid &= same;
+        }
+        return valid;
+    }
+
+    /**
+     * Run every check on every example.
+     * @return for each check, identified by the file, the size and the name of the check, the result of the check.
+     * @throws IOException if an example cannot be read.
+     */
+    private Map<String, Result> check() throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for(String filename : MachineBenchmark.EXAMPLES)
+            for(int size : SIZES) {
+                Result load = new Result();
+                Result build = new Result();
+                Result tick = new Result();
+                Result run = new Result();
+                for (int i = 0; i < iterations; i++)
+                    check(filename, size, load, build, tick, run);
+                String prefix = filename + " " + size + " ";
+                results.put(prefix + "load", load);
+                results.put(prefix + "build", build);
+                results.put(prefix + "tick", tick);
+                results.put(prefix + "run", run);
+            }
+        return results;
+    }
+
+    private void check(String filename, int size, Result load, Result build, Result tick, Result run)
+            throws IOException {
+        long bytes = MachineBenchmark.allocatedBytes();
+        long nanos = System.nanoTime();
+        TuringMachine machine = MachineBenchmark.read(filename, size);
+        nanos = System.nanoTime() - nanos;
+        load.verdict = "-";
+        load.steps = machine.getNbStates();
+        load.measure(nanos, MachineBenchmark.allocatedBytes() - bytes);
+
+        long explored = machine.getStatistics().getConfigurationsExplored();
+        bytes = MachineBenchmark.allocatedBytes();
+        nanos = System.nanoTime();
+        machine.build();
+        nanos = System.nanoTime() - nanos;
+        build.steps = machine.getStatistics().getConfigurationsExplored() - explored;
+        build.measure(nanos, MachineBenchmark.allocatedBytes() - bytes);
+
+        long steps = 0;
+        bytes = MachineBenchmark.allocatedBytes();
+        nanos = System.nanoTime();
+        while(machine.tick())
+            steps++;
+        nanos = System.nanoTime() - nanos;
+        tick.steps = steps;
+        tick.measure(nanos, MachineBenchmark.allocatedBytes() - bytes);
+
+        Integer state = machine.getCurrentState();
+        if(state == null || !machine.isFinal(state))
+            tick.verdict = DeterministicRunner.Verdict.BLOCKED.name();
+        else if(machine.isAccepting(state))
+            tick.verdict = DeterministicRunner.Verdict.ACCEPTED.name();
+        else
+            tick.verdict = DeterministicRunner.Verdict.REJECTED.name();
+        build.verdict = tick.verdict;
+
+        // The runner starts from the current state of the machine, a fresh machine is needed.
+        machine = MachineBenchmark.read(filename, size);
+        DeterministicRunner runner = new DeterministicRunner(machine);
+        bytes = MachineBenchmark.allocatedBytes();
+        nanos = System.nanoTime();
+        run.steps = runner.run(maximumSteps);
+        nanos = System.nanoTime() - nanos;
+        run.verdict = runner.getVerdict().name();
+        run.measure(nanos, MachineBenchmark.allocatedBytes() - bytes);
+    }
+
+    /**
+     * Write the given results in the baseline file, one line per check.
+     */
+    private void write(Map<String, Result> results) throws IOException {
+        try(BufferedWriter writer = Files.newBufferedWriter(Paths.get(baseline), StandardCharsets.UTF_8)){
+            writer.write("# file size check verdict steps nanoseconds bytes");
+            writer.newLine();
+            for(Map.Entry<String, Result> entry : results.entrySet()){
+                Result result = entry.getValue();
+                writer.write(entry.getKey() + " " + result.verdict + " " + result.steps + " " + result.nanos + " "
+                        + result.bytes);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @return the results of the baseline file.
+     */
+    private Map<String, Result> read() throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        try(BufferedReader reader = Files.newBufferedReader(Paths.get(baseline), StandardCharsets.UTF_8)){
+            String line;
+            while((line = reader.readLine()) != null){
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] fields = line.split("\\s+");
+                if(fields.length != 7)
+                    throw new IOException(baseline + ": invalid line: " + line);
+                Result result = new Result();
+                result.verdict = fields[3];
+                result.steps = Long.parseLong(fields[4]);
+                result.nanos = Long.parseLong(fields[5]);
+                result.bytes = Long.parseLong(fields[6]);
+                results.put(fields[0] + " " + fields[1] + " " + fields[2], result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Compare the given results with the baseline file and print the comparison of every check.
+     * @return true if no check fails.
+     */
+    private boolean compare(Map<String, Result> results) throws IOException {
+        Map<String, Result> baselines;
+        try {
+            baselines = read();
+        } catch (NoSuchFileException e) {
+            throw new IOException("No baseline " + baseline + ", record one with -record.");
+        }
+
+        int failures = 0;
+        for(Map.Entry<String, Result> entry : results.entrySet()){
+            Result result = entry.getValue();
+            Result expected = baselines.get(entry.getKey());
+
+            List<String> errors = new ArrayList<>();
+            if(expected == null)
+                errors.add("no baseline");
+            else {
+                if (!result.verdict.equals(expected.verdict))
+                    errors.add("verdict " + result.verdict + " instead of " + expected.verdict);
+                if (result.steps != expected.steps)
+                    errors.add(result.steps + " steps instead of " + expected.steps);
+                if (result.nanos > expected.nanos * (1 + tolerance) + SLACK_NANOS)
+                    errors.add(String.format(Locale.ROOT, "%.3f ms instead of %.3f ms",
+                            result.nanos / 1e6, expected.nanos / 1e6));
+                if (result.bytes >= 0 && expected.bytes >= 0
+                        && result.bytes > expected.bytes * (1 + tolerance) + SLACK_BYTES)
+                    errors.add(result.bytes + " bytes instead of " + expected.bytes);
+            }
+
+            if(!errors.isEmpty())
+                failures++;
+            System.out.println(String.format(Locale.ROOT, "%-4s %-32s %-8s %10d %12.3f ms %12d B %s",
+                    errors.isEmpty() ? "OK" : "FAIL", entry.getKey(), result.verdict, result.steps,
+                    result.nanos / 1e6, result.bytes, String.join(", ", errors)));
+        }
+
+        System.out.println(failures == 0 ? "All " + results.size() + " checks passed." :
+                failures + " of " + results.size() + " checks failed.");
+        return failures == 0;
+    }
+}
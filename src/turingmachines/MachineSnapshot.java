@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a machine during an execution: the current state, the number of transitions fired since the
+ * beginning of the execution and the configuration of every tape (position of the heads and symbols written).
+ *
+ * As the configurations of the tapes share the symbols written during the execution (see {@link PersistentCellMap}),
+ * taking a snapshot only copies the positions of the heads and comparing two snapshots of the same execution only
+ * visits the cells that differ. A snapshot may be published by a thread executing the machine and read by another
+ * thread.
+ *
+ * @see DeterministicRunner#snapshot()
+ */
+public final class MachineSnapshot {
+
+    /**
+     * State pointed by the state register, null if the machine has no current state.
+     */
+    private final Integer state;
+
+    /**
+     * Number of transitions fired since the beginning of the execution.
+     */
+    private final long steps;
+
+    /**
+     * Configuration of each tape of the machine.
+     */
+    private final Map<Tape, TapeConfiguration> tapesConfigurations;
+
+    MachineSnapshot(Integer state, long steps, Map<Tape, TapeConfiguration> tapesConfigurations) {
+        this.state = state;
+        this.steps = steps;
+        this.tapesConfigurations = tapesConfigurations;
+    }
+
+    /**
+     * @return the state pointed by the state register, null if the machine has no current state.
+     */
+    public Integer getState() {
+        return state;
+    }
+
+    /**
+     * @return the number of transitions fired since the beginning of the execution.
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * @param tape
+     * @param head
+     * @return the line of the given head of the given tape.
+     */
+    public int getHeadLine(Tape tape, int head){
+        return tapesConfigurations.get(tape).headsLine.get(head);
+    }
+
+    /**
+     * @param tape
+     * @param head
+     * @return the column of the given head of the given tape.
+     */
+    public int getHeadColumn(Tape tape, int head){
+        return tapesConfigurations.get(tape).headsColumn.get(head);
+    }
+
+    /**
+     * @param tape
+     * @param line
+     * @param column
+     * @return the symbol written in the cell at the given line and column of the given tape (null if the symbol is
+     * BLANK).
+     */
+    public String getSymbol(Tape tape, int line, int column){
+        TapeConfiguration configuration = tapesConfigurations.get(tape);
+        if(configuration.cells.contains(line, column))
+            return configuration.cells.get(line, column);
+        return configuration.inputCells.get(line, column);
+    }
+
+    /**
+     * Call the given consumer on every cell of the given tape in which a symbol (different from the BLANK symbol) is
+     * written. The cells are given in no particular order. If the input word of the tape is streamed lazily (see
+     * {@link Tape#streamInput(int, int, java.util.Iterator)}), only the symbols already read are given.
+     * @param tape
+     * @param consumer
+     * @return true if every cell was given, false if some symbols of the input word were not read yet.
+     */
+    public boolean forEachCell(Tape tape, CellConsumer consumer){
+        TapeConfiguration configuration = tapesConfigurations.get(tape);
+        return Tape.forEachCell(configuration.inputCells, configuration.cells, consumer);
+    }
+
+    /**
+     * Call the given consumer on every cell of the given tape whose symbol differs between the given snapshot and this
+     * snapshot, with the symbol of that cell in this snapshot (null for the BLANK symbol). The two snapshots should be
+     * taken during the same execution. The cost is proportional to the number of differing cells.
+     * @param previous
+     * @param tape
+     * @param consumer
+     */
+    public void forEachChangedCell(MachineSnapshot previous, Tape tape, CellConsumer consumer){
+        TapeConfiguration from = previous.tapesConfigurations.get(tape);
+        TapeConfiguration to = tapesConfigurations.get(tape);
+        Tape.forEachChangedCell(to.inputCells, from.cells, to.cells, consumer);
+    }
+}
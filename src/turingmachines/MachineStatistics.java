@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of the executions and the builds of a machine.
+ *
+ * The counters are updated by the threads executing or building the machine and may be read by any thread. They are
+ * exposed through JMX only once {@link #register()} is called, under the name turingmachines:type=TuringMachine,id=N
+ * where N is a number given to each machine, and until {@link #unregister()} is called. The engine never registers
+ * the statistics itself: the platform server would otherwise keep every machine ever built or executed.
+ *
+ * @see TuringMachine#getStatistics()
+ * @see MachineStatisticsMXBean
+ */
+public class MachineStatistics implements MachineStatisticsMXBean {
+
+    /**
+     * Number of the next machine whose statistics are registered.
+     */
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Name of the statistics in the JMX platform server, null if the statistics are not registered.
+     */
+    private ObjectName name;
+
+    private final LongAdder stepsExecuted;
+
+    /**
+     * For each state, the number of transitions fired from that state while executing the machine.
+     */
+    private final Map<Integer, LongAdder> transitionsFiredPerState;
+
+    private final LongAdder configurationsExplored;
+
+    private volatile int frontierSize;
+
+    private final AtomicInteger peakWrittenCells;
+
+    private final LongAdder buildsStarted;
+
+    private final LongAdder buildsCompleted;
+
+    private final LongAdder buildsCancelled;
+
+    /**
+     * Sum of the durations of the builds that ended, in nanoseconds.
+     */
+    private final LongAdder buildsTime;
+
+    MachineStatistics() {
+        stepsExecuted = new LongAdder();
+        transitionsFiredPerState = new ConcurrentHashMap<>();
+        configurationsExplored = new LongAdder();
+        frontierSize = 0;
+        peakWrittenCells = new AtomicInteger();
+        buildsStarted = new LongAdder();
+        buildsCompleted = new LongAdder();
+        buildsCancelled = new LongAdder();
+        buildsTime = new LongAdder();
+    }
+
+    /**
+     * Register the statistics in the JMX platform server, so that the machine can be watched from outside the process.
+     * {@link #unregister()} should be called once the machine is not used anymore. Do nothing if the statistics are
+     * already registered or if they cannot be registered.
+     */
+    public synchronized void register(){
+        if(name != null)
+            return;
+
+        try {
+            ObjectName name = new ObjectName("turingmachines:type=TuringMachine,id=" + nextId.getAndIncrement());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            this.name = name;
+        } catch (JMException | SecurityException ignored) {
+        }
+    }
+
+    /**
+     * Unregister the statistics from the JMX platform server. This should be called once the machine is not used
+     * anymore. Do nothing if the statistics are not registered.
+     */
+    public synchronized void unregister(){
+        if(name == null)
+            return;
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if(server.isRegistered(name))
+                server.unregisterMBean(name);
+        } catch (JMException | SecurityException ignored) {
+        }
+        name = null;
+    }
+
+    /**
+     * Count the given number of transitions fired from the given state while executing the machine.
+     * @param state
+     * @param count
+     */
+    void transitionsFired(int state, long count){
+        if(count == 0)
+            return;
+        stepsExecuted.add(count);
+        transitionsFiredPerState.computeIfAbsent(state, k -> new LongAdder()).add(count);
+    }
+
+    /**
+     * Count the given number of explored configurations and set the current number of configurations waiting to be
+     * explored.
+     * @param explored
+     * @param frontierSize
+     */
+    void configurationsExplored(long explored, int frontierSize){
+        configurationsExplored.add(explored);
+        this.frontierSize = frontierSize;
+    }
+
+    /**
+     * Update the peak number of written cells with the number of cells currently written on the given tapes.
+     * @param tapes
+     */
+    void cellsWritten(Iterable<Tape> tapes){
+        int written = 0;
+        for(Tape tape : tapes)
+            written = Math.max(written, tape.getNbWrittenCells());
+        peakWrittenCells.accumulateAndGet(written, Math::max);
+    }
+
+    void buildStarted(){
+        buildsStarted.increment();
+    }
+
+    /**
+     * Count the end of a build that lasted the given duration.
+     * @param cancelled true if the build was cancelled.
+     * @param duration duration of the build in nanoseconds.
+     */
+    void buildEnded(boolean cancelled, long duration){
+        if(cancelled)
+            buildsCancelled.increment();
+        else
+            buildsCompleted.increment();
+        buildsTime.add(duration);
+        frontierSize = 0;
+    }
+
+    @Override
+    public long getStepsExecuted() {
+        return stepsExecuted.sum();
+    }
+
+    @Override
+    public Map<Integer, Long> getTransitionsFiredPerState() {
+        Map<Integer, Long> fired = new TreeMap<>();
+        for(Map.Entry<Integer, LongAdder> entry : transitionsFiredPerState.entrySet())
+            fired.put(entry.getKey(), entry.getValue().sum());
+        return fired;
+    }
+
+    @Override
+    public long getConfigurationsExplored() {
+        return configurationsExplored.sum();
+    }
+
+    @Override
+    public int getFrontierSize() {
+        return frontierSize;
+    }
+
+    @Override
+    public int getPeakWrittenCells() {
+        return peakWrittenCells.get();
+    }
+
+    @Override
+    public long getBuildsStarted() {
+        return buildsStarted.sum();
+    }
+
+    @Override
+    public long getBuildsCompleted() {
+        return buildsCompleted.sum();
+    }
+
+    @Override
+    public long getBuildsCancelled() {
+        return buildsCancelled.sum();
+    }
+
+    @Override
+    public double getAverageBuildTime() {
+        long ended = buildsCompleted.sum() + buildsCancelled.sum();
+        if(ended == 0)
+            return 0;
+        return buildsTime.sum() / 1e6 / ended;
+    }
+
+    @Override
+    public void reset() {
+        stepsExecuted.reset();
+        transitionsFiredPerState.clear();
+        configurationsExplored.reset();
+        peakWrittenCells.set(0);
+        buildsStarted.reset();
+        buildsCompleted.reset();
+        buildsCancelled.reset();
+        buildsTime.reset();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.Map;
+
+/**
+ * Management interface of the statistics of a machine, exposed through JMX so that the executions and the builds of a
+ * machine can be watched from outside the process (with JConsole for instance).
+ *
+ * @see MachineStatistics
+ */
+public interface MachineStatisticsMXBean {
+
+    /**
+     * @return the number of transitions fired while executing the machine (the transitions fired during the
+     * exploration of the configurations are not counted).
+     */
+    long getStepsExecuted();
+
+    /**
+     * @return for each state, the number of transitions fired from that state while executing the machine.
+     */
+    Map<Integer, Long> getTransitionsFiredPerState();
+
+    /**
+     * @return the number of configurations explored by all the builds of the machine.
+     */
+    long getConfigurationsExplored();
+
+    /**
+     * @return the number of configurations waiting to be explored by the current build, 0 if the machine is not
+     * being built.
+     */
+    int getFrontierSize();
+
+    /**
+     * @return the largest number of cells written on a tape during an execution or an exploration.
+     */
+    int getPeakWrittenCells();
+
+    long getBuildsStarted();
+
+    long getBuildsCompleted();
+
+    long getBuildsCancelled();
+
+    /**
+     * @return the mean duration of the builds that ended (completed or cancelled), in milliseconds.
+     */
+    double getAverageBuildTime();
+
+    /**
+     * Reset all the counters.
+     */
+    void reset();
+}
@@ -0,0 +1,631 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Headless execution of a machine with one tape and one head, on a single infinite line, in which the tape is cut in
+ * blocks of a fixed number of cells, each block being a macro symbol. The execution is the same as the execution of
+ * a {@link DeterministicRunner} (the first output transition of the current state that can be fired is fired), but
+ * it is simulated block by block:
+ * <ul>
+ *     <li>the execution of the machine inside a block, from the state and the cell in which the head enters the
+ *     block until the head leaves the block, is computed once and stored in a cache, with the new content of the
+ *     block, the state and the side in which the head leaves the block, and the number of fired transitions;</li>
+ *     <li>the tape is stored as two stacks of runs of identical blocks, on the left and on the right of the current
+ *     block. When the head crosses a block entering on one side and leaving on the other side in the same state, it
+ *     crosses every identical block following it in the same way: the whole run is crossed in one step.</li>
+ * </ul>
+ * Machines sweeping over long uniform parts of the tape, like counters or busy beavers, are thus executed with a
+ * number of steps that does not depend on the length of the swept parts.
+ *
+ * The machine is supported (see {@link #isSupported(TuringMachine, int)}) if its tape is infinite on both sides,
+ * has one line and one head, if every transition writes at most one symbol and then moves the head by at most one
+ * column, and if a block of symbols can be encoded in a long. Moving up or down does nothing on a tape with one line.
+ *
+ * Contrary to the {@link DeterministicRunner}, the execution always starts from the initial configuration, the tape
+ * of the machine is not modified until {@link #writeTape()} is called, and neither the statistics nor the profile of
+ * the machine are updated. The machine should not be edited during the execution.
+ */
+public class MacroRunner {
+
+    /**
+     * Maximum number of transitions fired in a block before the execution inside the block is stopped, so that a
+     * machine looping inside a block does not freeze the runner. The execution continues from that point at the
+     * next step.
+     */
+    private static final long BLOCK_STEP_LIMIT = 1 << 16;
+
+    /**
+     * Maximum number of entries of the cache. The cache is cleared when this size is reached.
+     */
+    private static final int MAXIMUM_CACHE_SIZE = 1 << 20;
+
+    /**
+     * Execution of the machine inside a block.
+     */
+    private static class BlockResult {
+        /**
+         * State of the machine when the head leaves the block or when the execution stops.
+         */
+        final int state;
+
+        /**
+         * Cell of the head in the block when the execution stops, -1 if the head leaves the block on the left and
+         * the block size if the head leaves the block on the right.
+         */
+        final int offset;
+
+        /**
+         * Content of the block when the head leaves the block or when the execution stops.
+         */
+        final long block;
+
+        /**
+         * Number of transitions fired in the block.
+         */
+        final long steps;
+
+        BlockResult(int state, int offset, long block, long steps) {
+            this.state = state;
+            this.offset = offset;
+            this.block = block;
+            this.steps = steps;
+        }
+    }
+
+    /**
+     * Run of identical consecutive blocks.
+     */
+    private static class Run {
+        final long block;
+        long count;
+
+        Run(long block, long count) {
+            this.block = block;
+            this.count = count;
+        }
+    }
+
+    private final TuringMachine machine;
+
+    private final Tape tape;
+
+    /**
+     * Number of cells of a block.
+     */
+    private final int blockSize;
+
+    /**
+     * Number of bits of a cell in a block.
+     */
+    private final int bits;
+
+    /**
+     * Symbols of the tape, the BLANK symbol (null) being the symbol 0. A block is the sequence of the indexes of its
+     * symbols, the first cell being stored in the lowest bits.
+     */
+    private final String[] symbols;
+
+    /**
+     * For each state and each symbol, the output state of the first transition of the state that can be fired when
+     * the symbol is read, -1 if no transition can be fired. Indexed by state * (number of symbols) + symbol.
+     */
+    private final int[] nextStates;
+
+    /**
+     * For each state and each symbol, the symbol written by the transition, -1 if no symbol is written.
+     */
+    private final int[] writes;
+
+    /**
+     * For each state and each symbol, the move of the head by the transition: -1, 0 or 1.
+     */
+    private final int[] moves;
+
+    /**
+     * For each state, true if the state is final.
+     */
+    private final boolean[] finalStates;
+
+    /**
+     * For each state, true if the state is accepting.
+     */
+    private final boolean[] acceptingStates;
+
+    /**
+     * For each state and each cell of a block, indexed by state * (block size) + cell, the executions inside the
+     * blocks in which the head enters in that state on that cell.
+     */
+    private final List<Map<Long, BlockResult>> cache;
+
+    private int cacheSize;
+
+    /**
+     * Runs of blocks on the left of the current block, the closest first.
+     */
+    private final Deque<Run> left;
+
+    /**
+     * Runs of blocks on the right of the current block, the closest first.
+     */
+    private final Deque<Run> right;
+
+    /**
+     * Content of the block containing the head.
+     */
+    private long block;
+
+    /**
+     * Index of the block containing the head: the block i contains the columns i * (block size) to
+     * (i + 1) * (block size) - 1.
+     */
+    private long blockIndex;
+
+    /**
+     * Cell of the head in the current block.
+     */
+    private int offset;
+
+    /**
+     * Current state of the execution, null if the machine has no initial state.
+     */
+    private Integer state;
+
+    /**
+     * Number of transitions fired since the beginning of the execution.
+     */
+    private long steps;
+
+    /**
+     * Number of steps of the runner since the beginning of the execution.
+     */
+    private long macroSteps;
+
+    private DeterministicRunner.Verdict verdict;
+
+    /**
+     * Build a runner of the given machine, cutting the tape in blocks of the given size, and reset it (see
+     * {@link #reset()}).
+     * @param machine
+     * @param blockSize
+     * @throws IllegalArgumentException if the machine is not supported with that block size.
+     * @see #isSupported(TuringMachine, int)
+     */
+    public MacroRunner(TuringMachine machine, int blockSize) {
+        if(!isSupported(machine, blockSize))
+            throw new IllegalArgumentException("The machine cannot be executed with blocks of " + blockSize
+                    + " cells.");
+
+        this.machine = machine;
+        this.tape = machine.getTapes().next();
+        this.blockSize = blockSize;
+
+        List<String> alphabet = alphabet(machine, tape);
+        this.symbols = alphabet.toArray(new String[0]);
+        this.bits = bits(symbols.length);
+        Map<String, Integer> indexes = new HashMap<>();
+        for(int i = 1; i < symbols.length; i++)
+            indexes.put(symbols[i], i);
+
+        int nbStates = machine.getNbStates();
+        this.nextStates = new int[nbStates * symbols.length];
+        this.writes = new int[nbStates * symbols.length];
+        this.moves = new int[nbStates * symbols.length];
+        this.finalStates = new boolean[nbStates];
+        this.acceptingStates = new boolean[nbStates];
+        for(int state = 0; state < nbStates; state++){
+            finalStates[state] = machine.isFinal(state);
+            acceptingStates[state] = machine.isAccepting(state);
+
+            List<Transition> outputs = new ArrayList<>();
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();)
+                outputs.add(it.next());
+
+            for(int symbol = 0; symbol < symbols.length; symbol++){
+                int index = state * symbols.length + symbol;
+                nextStates[index] = -1;
+                for(Transition transition : outputs){
+                    if(!canBeFired(transition, symbols[symbol]))
+                        continue;
+                    nextStates[index] = transition.getOutput();
+                    writes[index] = -1;
+                    // The moves up and down count as 0, as they do not move the head on a tape with one line.
+                    for(Iterator<Action> it = transition.getActions(); it.hasNext();){
+                        Action action = it.next();
+                        if(action.getType() == ActionType.WRITE)
+                            writes[index] = indexes.getOrDefault((String) action.value(), 0);
+                        else
+                            moves[index] += move((Direction) action.value());
+                    }
+                    break;
+                }
+            }
+        }
+
+        this.cache = new ArrayList<>();
+        for(int i = 0; i < nbStates * blockSize; i++)
+            cache.add(new HashMap<>());
+        this.left = new ArrayDeque<>();
+        this.right = new ArrayDeque<>();
+
+        reset();
+    }
+
+    /**
+     * @param machine
+     * @param blockSize
+     * @return true if the given machine can be executed by a runner with blocks of the given size: the machine has
+     * one tape, infinite on both sides, with one line and one head, every transition writes at most one symbol and
+     * then moves the head by at most one column, and a block of the given size can be encoded in a long. A streamed
+     * input word should be completely read, as the whole word is converted into blocks.
+     */
+    public static boolean isSupported(TuringMachine machine, int blockSize){
+        if(blockSize < 1 || machine.getNbTapes() != 1)
+            return false;
+
+        Tape tape = machine.getTapes().next();
+        if(tape.getNbHeads() != 1 || tape.getLeftBound() != null || tape.getRightBound() != null
+                || tape.getBottomBound() == null || !tape.getBottomBound().equals(tape.getTopBound())
+                || !tape.isInputRead())
+            return false;
+
+        for(int state = 0; state < machine.getNbStates(); state++)
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();) {
+                boolean written = false;
+                boolean moved = false;
+                for(Iterator<Action> it2 = it.next().getActions(); it2.hasNext();){
+                    Action action = it2.next();
+                    if(action.getType() == ActionType.WRITE) {
+                        if (written || moved)
+                            return false;
+                        written = true;
+                    }
+                    else if(move((Direction) action.value()) != 0) {
+                        if (moved)
+                            return false;
+                        moved = true;
+                    }
+                }
+            }
+
+        return (long) blockSize * bits(alphabet(machine, tape).size()) <= Long.SIZE;
+    }
+
+    /**
+     * @return the symbols of the machine, of the input word of the given tape and written by the transitions, the
+     * BLANK symbol (null) being the first symbol.
+     */
+    static List<String> alphabet(TuringMachine machine, Tape tape){
+        Set<String> alphabet = new LinkedHashSet<>();
+        alphabet.add(null);
+        for(int i = 0; i < machine.getNbSymbols(); i++)
+            alphabet.add(machine.getSymbol(i));
+        tape.forEachInputCell((line, column, symbol) -> alphabet.add(symbol));
+        for(int state = 0; state < machine.getNbStates(); state++)
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();)
+                for(Iterator<Action> it2 = it.next().getActions(); it2.hasNext();){
+                    Action action = it2.next();
+                    if(action.getType() == ActionType.WRITE)
+                        alphabet.add((String) action.value());
+                }
+        return new ArrayList<>(alphabet);
+    }
+
+    /**
+     * @return the number of bits needed to encode the given number of symbols.
+     */
+    private static int bits(int nbSymbols){
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(nbSymbols - 1));
+    }
+
+    /**
+     * @return the move of the head along the line in the given direction.
+     */
+    static int move(Direction direction){
+        switch (direction){
+            case LEFT: return -1;
+            case RIGHT: return 1;
+            default: return 0;
+        }
+    }
+
+    /**
+     * @return true if the given transition can be fired when the head reads the given symbol.
+     */
+    private boolean canBeFired(Transition transition, String symbol){
+        Iterator<String> it = transition.getReadSymbols(tape, 0);
+        if(!it.hasNext())
+            return true;
+        while(it.hasNext())
+            if(Objects.equals(it.next(), symbol))
+                return true;
+        return false;
+    }
+
+    /**
+     * Restart the execution from the initial configuration of the tape and from the first initial state of the
+     * machine. The cache is kept.
+     */
+    public void reset(){
+        left.clear();
+        right.clear();
+
+        // Blocks of the input word, by index.
+        TreeMap<Long, Long> blocks = new TreeMap<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        for(int i = 1; i < symbols.length; i++)
+            indexes.put(symbols[i], i);
+        tape.forEachInputCell((line, column, symbol) -> {
+            long index = Math.floorDiv(column, blockSize);
+            int cell = Math.floorMod(column, blockSize);
+            blocks.merge(index, set(0, cell, indexes.get(symbol)), (b1, b2) -> b1 | b2);
+        });
+
+        int column = tape.getInitialHeadColumn(0);
+        blockIndex = Math.floorDiv(column, blockSize);
+        offset = Math.floorMod(column, blockSize);
+        block = blocks.getOrDefault(blockIndex, 0L);
+
+        long previous = blockIndex;
+        for(Map.Entry<Long, Long> entry : blocks.headMap(blockIndex, false).descendingMap().entrySet()){
+            append(left, 0, previous - entry.getKey() - 1);
+            append(left, entry.getValue(), 1);
+            previous = entry.getKey();
+        }
+        previous = blockIndex;
+        for(Map.Entry<Long, Long> entry : blocks.tailMap(blockIndex, false).entrySet()){
+            append(right, 0, entry.getKey() - previous - 1);
+            append(right, entry.getValue(), 1);
+            previous = entry.getKey();
+        }
+
+        state = null;
+        for(int state = 0; state < finalStates.length; state++) {
+            if (machine.isInitial(state)) {
+                this.state = state;
+                break;
+            }
+        }
+        steps = 0;
+        macroSteps = 0;
+        if(state == null)
+            verdict = DeterministicRunner.Verdict.BLOCKED;
+        else
+            updateVerdict();
+    }
+
+    private void updateVerdict(){
+        if(!finalStates[state])
+            verdict = DeterministicRunner.Verdict.RUNNING;
+        else if(acceptingStates[state])
+            verdict = DeterministicRunner.Verdict.ACCEPTED;
+        else
+            verdict = DeterministicRunner.Verdict.REJECTED;
+    }
+
+    private long get(long block, int cell){
+        return (block >>> (cell * bits)) & ((1L << bits) - 1);
+    }
+
+    private long set(long block, int cell, long symbol){
+        int shift = cell * bits;
+        return (block & ~(((1L << bits) - 1) << shift)) | (symbol << shift);
+    }
+
+    /**
+     * Add the given number of copies of the given block at the far end of the given runs.
+     */
+    private static void append(Deque<Run> runs, long block, long count){
+        if(count <= 0)
+            return;
+        Run last = runs.peekLast();
+        if(last != null && last.block == block)
+            last.count += count;
+        else
+            runs.addLast(new Run(block, count));
+    }
+
+    /**
+     * Add the given number of copies of the given block at the near end of the given runs.
+     */
+    private static void push(Deque<Run> runs, long block, long count){
+        Run first = runs.peekFirst();
+        if(first != null && first.block == block)
+            first.count += count;
+        else
+            runs.addFirst(new Run(block, count));
+    }
+
+    /**
+     * Remove the closest block of the given runs.
+     * @return the removed block, the blank block if the runs are empty.
+     */
+    private static long pop(Deque<Run> runs){
+        Run first = runs.peekFirst();
+        if(first == null)
+            return 0;
+        if(--first.count == 0)
+            runs.removeFirst();
+        return first.block;
+    }
+
+    /**
+     * @return the execution of the machine in the given block, from the given state and the given cell.
+     */
+    private BlockResult execute(int state, int offset, long block){
+        Map<Long, BlockResult> results = cache.get(state * blockSize + offset);
+        BlockResult result = results.get(block);
+        if(result != null)
+            return result;
+
+        long steps = 0;
+        int s = state;
+        int o = offset;
+        long b = block;
+        while(o >= 0 && o < blockSize && !finalStates[s] && steps < BLOCK_STEP_LIMIT){
+            int index = s * symbols.length + (int) get(b, o);
+            if(nextStates[index] < 0)
+                break;
+            if(writes[index] >= 0)
+                b = set(b, o, writes[index]);
+            o += moves[index];
+            s = nextStates[index];
+            steps++;
+        }
+
+        if(cacheSize >= MAXIMUM_CACHE_SIZE) {
+            for(Map<Long, BlockResult> map : cache)
+                map.clear();
+            cacheSize = 0;
+        }
+        result = new BlockResult(s, o, b, steps);
+        results.put(block, result);
+        cacheSize++;
+        return result;
+    }
+
+    /**
+     * Execute the machine in the current block until the head leaves the block. If the head leaves the block on the
+     * opposite side of the side it entered, in the same state, the run of identical blocks following the current
+     * block is crossed too.
+     * @return true if a transition was fired.
+     */
+    public boolean step(){
+        if(verdict != DeterministicRunner.Verdict.RUNNING)
+            return false;
+
+        BlockResult result = execute(state, offset, block);
+        if(result.offset == blockSize){
+            long count = 1;
+            Run next = right.peekFirst();
+            if(offset == 0 && result.state == state && next != null && next.block == block) {
+                count += next.count;
+                right.removeFirst();
+            }
+            push(left, result.block, count);
+            block = pop(right);
+            blockIndex += count;
+            offset = 0;
+            steps += count * result.steps;
+        }
+        else if(result.offset == -1){
+            long count = 1;
+            Run next = left.peekFirst();
+            if(offset == blockSize - 1 && result.state == state && next != null && next.block == block) {
+                count += next.count;
+                left.removeFirst();
+            }
+            push(right, result.block, count);
+            block = pop(left);
+            blockIndex -= count;
+            offset = blockSize - 1;
+            steps += count * result.steps;
+        }
+        else {
+            block = result.block;
+            offset = result.offset;
+            steps += result.steps;
+        }
+
+        state = result.state;
+        macroSteps++;
+        updateVerdict();
+        if(verdict == DeterministicRunner.Verdict.RUNNING
+                && nextStates[state * symbols.length + (int) get(block, offset)] < 0)
+            verdict = DeterministicRunner.Verdict.BLOCKED;
+        return result.steps > 0;
+    }
+
+    /**
+     * Execute the machine until the execution ends or until at least the given number of transitions is fired. As
+     * a step may fire many transitions, the number of fired transitions may exceed the given number.
+     * @param maximumSteps
+     * @return the number of fired transitions.
+     */
+    public long run(long maximumSteps){
+        long start = steps;
+        while(steps - start < maximumSteps && step());
+        return steps - start;
+    }
+
+    /**
+     * Write the current configuration of the execution on the tape of the machine: the tape is cleared, the symbols
+     * of the execution are written and the head is placed on its current cell. No message is broadcast. Every cell
+     * between the leftmost and the rightmost written blocks is visited.
+     */
+    public void writeTape(){
+        tape.reinit();
+        int line = tape.getBottomBound();
+
+        writeBlock(line, blockIndex, block);
+        long index = blockIndex;
+        for(Run run : left)
+            for(long i = 0; i < run.count; i++)
+                writeBlock(line, --index, run.block);
+        index = blockIndex;
+        for(Run run : right)
+            for(long i = 0; i < run.count; i++)
+                writeBlock(line, ++index, run.block);
+
+        tape.placeHead(0, line, (int) (blockIndex * blockSize + offset));
+    }
+
+    private void writeBlock(int line, long index, long block){
+        for(int cell = 0; cell < blockSize; cell++)
+            tape.writeCell(line, (int) (index * blockSize + cell), symbols[(int) get(block, cell)]);
+    }
+
+    /**
+     * @return the current state of the execution, null if the machine has no initial state.
+     */
+    public Integer getCurrentState(){
+        return state;
+    }
+
+    /**
+     * @return the current column of the head.
+     */
+    public long getHeadColumn(){
+        return blockIndex * blockSize + offset;
+    }
+
+    /**
+     * @return the number of transitions fired since the beginning of the execution.
+     */
+    public long getSteps(){
+        return steps;
+    }
+
+    /**
+     * @return the number of steps of the runner since the beginning of the execution.
+     * @see #step()
+     */
+    public long getMacroSteps(){
+        return macroSteps;
+    }
+
+    /**
+     * @return the number of executions inside a block currently stored in the cache.
+     */
+    public int getCacheSize(){
+        return cacheSize;
+    }
+
+    public DeterministicRunner.Verdict getVerdict(){
+        return verdict;
+    }
+}
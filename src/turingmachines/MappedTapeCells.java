@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Storage of the cells of a tape outside the heap, in a buffer containing one byte per cell. The buffer covers a
+ * segment of one line of the tape: the cell at the given line and at column (firstColumn + i) is stored at index i
+ * of the buffer.
+ *
+ * The buffer is either a direct buffer or a file mapped in memory. In the second case, only the pages of the file
+ * containing the cells that are read or written are loaded in memory by the operating system. If the buffer is read
+ * only, the cells of the segment that are written are stored on the heap and the buffer is never modified.
+ *
+ * A byte b of the buffer represents the symbol consisting of the character b (in ISO-8859-1). The bytes 0 and ' '
+ * represent the BLANK symbol. The cells outside the segment and the cells containing a symbol that cannot be
+ * represented with one byte are stored on the heap, their byte in the buffer being {@link #OTHER}. As a buffer
+ * mapped from a file has no symbol on the heap, a byte {@link #OTHER} in the file also represents the BLANK symbol:
+ * every byte of a file can thus be decoded.
+ *
+ * The segment is not checked against the bounds of the tape: it should be clipped to the bounds by the caller (see
+ * {@link Tape#mapInput(String, int, int)}).
+ */
+class MappedTapeCells implements TapeCells {
+
+    /**
+     * Byte of a cell containing the BLANK symbol.
+     */
+    static final byte BLANK = 0;
+
+    /**
+     * Byte of a cell whose symbol is stored on the heap. That cell contains the BLANK symbol if no symbol is stored
+     * on the heap.
+     */
+    static final byte OTHER = 1;
+
+    /**
+     * For each byte b, the symbol represented by b.
+     */
+    private static final String[] SYMBOLS = new String[256];
+    static {
+        for(int b = OTHER + 1; b < SYMBOLS.length; b++)
+            if(b != ' ')
+                SYMBOLS[b] = String.valueOf((char) b);
+    }
+
+    /**
+     * @param b
+     * @return the symbol represented by the given byte, null for the BLANK symbol.
+     */
+    static String getSymbol(int b){
+        return SYMBOLS[b & 0xFF];
+    }
+
+    /**
+     * One byte per cell of the segment.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Line of the segment.
+     */
+    private final int line;
+
+    /**
+     * Column of the first cell of the segment.
+     */
+    private final int firstColumn;
+
+    /**
+     * Cells outside the segment and cells of the segment whose byte is {@link #OTHER}.
+     */
+    private final HashTapeCells others;
+
+    /**
+     * If the buffer is read only, for each index of the segment that was written, the symbol written at that index
+     * (null for the BLANK symbol). Null if the buffer is not read only.
+     */
+    private final Map<Integer, String> edits;
+
+    /**
+     * Build a storage of the cells of a tape where the segment of the given line starting at the given column is
+     * stored in the given buffer. The length of the segment is the capacity of the buffer.
+     * @param buffer
+     * @param line
+     * @param firstColumn
+     */
+    MappedTapeCells(ByteBuffer buffer, int line, int firstColumn) {
+        this.buffer = buffer;
+        this.line = line;
+        this.firstColumn = firstColumn;
+        this.others = new HashTapeCells();
+        this.edits = buffer.isReadOnly() ? new HashMap<>() : null;
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @return the index of the given cell in the buffer or -1 if the cell is outside the segment.
+     */
+    private int index(int line, int column){
+        if(line != this.line)
+            return -1;
+        long index = (long) column - firstColumn;
+        if(index < 0 || index >= buffer.capacity())
+            return -1;
+        return (int) index;
+    }
+
+    @Override
+    public String get(int line, int column) {
+        int index = index(line, column);
+        if(index == -1)
+            return others.get(line, column);
+        if(edits != null && edits.containsKey(index))
+            return edits.get(index);
+        int b = buffer.get(index) & 0xFF;
+        if(b == OTHER)
+            return others.get(line, column);
+        return SYMBOLS[b];
+    }
+
+    @Override
+    public void set(int line, int column, String symbol) {
+        int index = index(line, column);
+        if(index == -1) {
+            others.set(line, column, symbol);
+            return;
+        }
+
+        if(edits != null){
+            edits.put(index, symbol);
+            return;
+        }
+
+        if(symbol == null)
+            buffer.put(index, BLANK);
+        else if(symbol.length() == 1 && symbol.charAt(0) < SYMBOLS.length && SYMBOLS[symbol.charAt(0)] != null)
+            buffer.put(index, (byte) symbol.charAt(0));
+        else {
+            buffer.put(index, OTHER);
+            others.set(line, column, symbol);
+            return;
+        }
+        others.set(line, column, null);
+    }
+
+    @Override
+    public void forEach(CellConsumer consumer) {
+        for(int index = 0; index < buffer.capacity(); index++){
+            String symbol = SYMBOLS[buffer.get(index) & 0xFF];
+            if(symbol != null && (edits == null || !edits.containsKey(index)))
+                consumer.accept(line, firstColumn + index, symbol);
+        }
+        if(edits != null)
+            for(Map.Entry<Integer, String> entry : edits.entrySet())
+                if(entry.getValue() != null)
+                    consumer.accept(line, firstColumn + entry.getKey(), entry.getValue());
+        others.forEach(consumer);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for(int index = 0; index < buffer.capacity(); index++)
+            if(SYMBOLS[buffer.get(index) & 0xFF] != null && (edits == null || !edits.containsKey(index)))
+                return false;
+        if(edits != null)
+            for(String symbol : edits.values())
+                if(symbol != null)
+                    return false;
+        return others.isEmpty();
+    }
+}
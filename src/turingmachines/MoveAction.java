@@ -35,12 +35,12 @@ public class MoveAction extends Action{
     }
 
     @Override
-    ActionType getType() {
+    public ActionType getType() {
         return ActionType.MOVE;
     }
 
     @Override
-    Object value() {
+    public Object value() {
         return direction;
     }
 }
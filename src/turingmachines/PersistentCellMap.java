@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+/**
+ * Immutable map associating a symbol (possibly the BLANK symbol, represented with null) to cells of a tape, each cell
+ * being identified by its line and its column.
+ *
+ * The map is a hash array mapped trie: {@link #put(int, int, String)} and {@link #remove(int, int)} return a new map
+ * sharing every node with this map except the nodes on the path to the modified cell. Keeping many versions of a map
+ * (for instance one per configuration of a machine) thus costs the number of modified cells per version and not the
+ * size of the map.
+ *
+ * As two versions derived from each other share most of their nodes, the cells on which they differ can be
+ * enumerated without visiting the shared nodes (see {@link #diff(PersistentCellMap, PersistentCellMap, CellConsumer)}).
+ */
+final class PersistentCellMap {
+
+    /**
+     * Number of bits of the hash of a key consumed at each level of the trie.
+     */
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Value stored in the trie for the BLANK symbol, to distinguish it from an absent key.
+     */
+    private static final Object BLANK = new Object();
+
+    /**
+     * Map containing no cell.
+     */
+    static final PersistentCellMap EMPTY = new PersistentCellMap(new Branch(0, new Object[0]), 0);
+
+    /**
+     * Root of the trie.
+     */
+    private final Branch root;
+
+    /**
+     * Number of cells of the map.
+     */
+    private final int size;
+
+    private PersistentCellMap(Branch root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return the number of cells of the map.
+     */
+    int size(){
+        return size;
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @return true if the given cell is in the map (even if it is associated with the BLANK symbol).
+     */
+    boolean contains(int line, int column){
+        return find(line, column) != null;
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @return the symbol associated with the given cell or null if the cell is not in the map or is associated with
+     * the BLANK symbol.
+     * @see #contains(int, int)
+     */
+    String get(int line, int column){
+        Leaf leaf = find(line, column);
+        return leaf == null ? null : leaf.symbol();
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @param symbol
+     * @return a map containing the cells of this map and associating the given symbol (null for the BLANK symbol) to
+     * the given cell.
+     */
+    PersistentCellMap put(int line, int column, String symbol){
+        long key = key(line, column);
+        Leaf leaf = new Leaf(key, symbol == null ? BLANK : symbol);
+        boolean[] added = {false};
+        Branch root = (Branch) put(this.root, leaf, hash(key), 0, added);
+        return new PersistentCellMap(root, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @return a map containing the cells of this map except the given cell.
+     */
+    PersistentCellMap remove(int line, int column){
+        long key = key(line, column);
+        Object root = remove(this.root, key, hash(key), 0);
+        if(root == this.root)
+            return this;
+        if(root == null)
+            return EMPTY;
+        if(root instanceof Branch)
+            return new PersistentCellMap((Branch) root, size - 1);
+        // The root must always be a branch.
+        return new PersistentCellMap(new Branch(1 << (hashOf(root) & MASK), new Object[]{root}), size - 1);
+    }
+
+    /**
+     * Call the given consumer on every cell of the map with its symbol (null for the BLANK symbol).
+     * @param consumer
+     */
+    void forEach(CellConsumer consumer){
+        forEach(root, consumer);
+    }
+
+    /**
+     * Call the given consumer on every cell on which the two given maps differ (the cell is in one map only or is
+     * associated with two different symbols), with the symbol of the second map (null if the cell is not in the second
+     * map or is associated with the BLANK symbol). Subtries shared by the two maps are not visited.
+     * @param from
+     * @param to
+     * @param consumer
+     */
+    static void diff(PersistentCellMap from, PersistentCellMap to, CellConsumer consumer){
+        diff(from.root, to.root, consumer);
+    }
+
+    private static long key(int line, int column){
+        return ((long) line << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private static int line(long key){
+        return (int) (key >> 32);
+    }
+
+    private static int column(long key){
+        return (int) key;
+    }
+
+    /**
+     * @param key
+     * @return a hash of the given key in which every bit depends on the line and on the column, so that neighbour
+     * cells are spread over the trie.
+     */
+    private static int hash(long key){
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private Leaf find(int line, int column){
+        long key = key(line, column);
+        int hash = hash(key);
+        Object node = root;
+        int shift = 0;
+        while(true){
+            if(node instanceof Branch){
+                Branch branch = (Branch) node;
+                int bit = 1 << ((hash >>> shift) & MASK);
+                if((branch.bitmap & bit) == 0)
+                    return null;
+                node = branch.children[Integer.bitCount(branch.bitmap & (bit - 1))];
+                shift += BITS;
+            }
+            else if(node instanceof Leaf){
+                Leaf leaf = (Leaf) node;
+                return leaf.key == key ? leaf : null;
+            }
+            else {
+                for(Leaf leaf : ((Collision) node).leaves)
+                    if(leaf.key == key)
+                        return leaf;
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @param node
+     * @return the hash of the keys of the given leaf or collision node.
+     */
+    private static int hashOf(Object node){
+        if(node instanceof Leaf)
+            return hash(((Leaf) node).key);
+        return ((Collision) node).hash;
+    }
+
+    /**
+     * @return a copy of the given node in which the given leaf is added or replaces the leaf with the same key.
+     */
+    private static Object put(Object node, Leaf leaf, int hash, int shift, boolean[] added){
+        if(node instanceof Branch){
+            Branch branch = (Branch) node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int index = Integer.bitCount(branch.bitmap & (bit - 1));
+            if((branch.bitmap & bit) == 0){
+                added[0] = true;
+                Object[] children = new Object[branch.children.length + 1];
+                System.arraycopy(branch.children, 0, children, 0, index);
+                children[index] = leaf;
+                System.arraycopy(branch.children, index, children, index + 1, branch.children.length - index);
+                return new Branch(branch.bitmap | bit, children);
+            }
+            Object child = branch.children[index];
+            Object newChild = put(child, leaf, hash, shift + BITS, added);
+            if(newChild == child)
+                return branch;
+            Object[] children = branch.children.clone();
+            children[index] = newChild;
+            return new Branch(branch.bitmap, children);
+        }
+
+        if(node instanceof Leaf){
+            Leaf other = (Leaf) node;
+            if(other.key == leaf.key)
+                return other.value.equals(leaf.value) ? other : leaf;
+            added[0] = true;
+            int otherHash = hash(other.key);
+            if(otherHash == hash)
+                return new Collision(hash, new Leaf[]{other, leaf});
+            return merge(other, otherHash, leaf, hash, shift);
+        }
+
+        Collision collision = (Collision) node;
+        if(collision.hash != hash){
+            added[0] = true;
+            return merge(collision, collision.hash, leaf, hash, shift);
+        }
+        for(int i = 0; i < collision.leaves.length; i++){
+            if(collision.leaves[i].key == leaf.key){
+                if(collision.leaves[i].value.equals(leaf.value))
+                    return collision;
+                Leaf[] leaves = collision.leaves.clone();
+                leaves[i] = leaf;
+                return new Collision(hash, leaves);
+            }
+        }
+        added[0] = true;
+        Leaf[] leaves = new Leaf[collision.leaves.length + 1];
+        System.arraycopy(collision.leaves, 0, leaves, 0, collision.leaves.length);
+        leaves[collision.leaves.length] = leaf;
+        return new Collision(hash, leaves);
+    }
+
+    /**
+     * @return a branch containing the two given nodes (leaves or collisions) with different hashes, the branch being
+     * at the given shift.
+     */
+    private static Object merge(Object node1, int hash1, Object node2, int hash2, int shift){
+        int index1 = (hash1 >>> shift) & MASK;
+        int index2 = (hash2 >>> shift) & MASK;
+        if(index1 == index2)
+            return new Branch(1 << index1, new Object[]{merge(node1, hash1, node2, hash2, shift + BITS)});
+        if(index1 < index2)
+            return new Branch((1 << index1) | (1 << index2), new Object[]{node1, node2});
+        return new Branch((1 << index1) | (1 << index2), new Object[]{node2, node1});
+    }
+
+    /**
+     * @return a copy of the given node without the leaf of the given key, the node itself if the key is not in the
+     * node or null if the copy is empty. A branch with a single leaf or collision child is replaced by that child.
+     */
+    private static Object remove(Object node, long key, int hash, int shift){
+        if(node instanceof Branch){
+            Branch branch = (Branch) node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if((branch.bitmap & bit) == 0)
+                return branch;
+            int index = Integer.bitCount(branch.bitmap & (bit - 1));
+            Object child = branch.children[index];
+            Object newChild = remove(child, key, hash, shift + BITS);
+            if(newChild == child)
+                return branch;
+            if(newChild == null){
+                if(branch.children.length == 1)
+                    return null;
+                Object[] children = new Object[branch.children.length - 1];
+                System.arraycopy(branch.children, 0, children, 0, index);
+                System.arraycopy(branch.children, index + 1, children, index, children.length - index);
+                if(children.length == 1 && !(children[0] instanceof Branch))
+                    return children[0];
+                return new Branch(branch.bitmap & ~bit, children);
+            }
+            if(branch.children.length == 1 && !(newChild instanceof Branch))
+                return newChild;
+            Object[] children = branch.children.clone();
+            children[index] = newChild;
+            return new Branch(branch.bitmap, children);
+        }
+
+        if(node instanceof Leaf)
+            return ((Leaf) node).key == key ? null : node;
+
+        Collision collision = (Collision) node;
+        for(int i = 0; i < collision.leaves.length; i++){
+            if(collision.leaves[i].key == key){
+                if(collision.leaves.length == 2)
+                    return collision.leaves[1 - i];
+                Leaf[] leaves = new Leaf[collision.leaves.length - 1];
+                System.arraycopy(collision.leaves, 0, leaves, 0, i);
+                System.arraycopy(collision.leaves, i + 1, leaves, i, leaves.length - i);
+                return new Collision(collision.hash, leaves);
+            }
+        }
+        return collision;
+    }
+
+    private static void forEach(Object node, CellConsumer consumer){
+        if(node instanceof Branch){
+            for(Object child : ((Branch) node).children)
+                forEach(child, consumer);
+        }
+        else if(node instanceof Leaf){
+            Leaf leaf = (Leaf) node;
+            consumer.accept(line(leaf.key), column(leaf.key), leaf.symbol());
+        }
+        else {
+            for(Leaf leaf : ((Collision) node).leaves)
+                consumer.accept(line(leaf.key), column(leaf.key), leaf.symbol());
+        }
+    }
+
+    private static void diff(Object from, Object to, CellConsumer consumer){
+        if(from == to)
+            return;
+
+        if(from instanceof Branch && to instanceof Branch){
+            Branch branch1 = (Branch) from;
+            Branch branch2 = (Branch) to;
+            int bitmap = branch1.bitmap | branch2.bitmap;
+            while(bitmap != 0){
+                int bit = Integer.lowestOneBit(bitmap);
+                bitmap &= ~bit;
+                Object child1 = ((branch1.bitmap & bit) == 0) ? null :
+                        branch1.children[Integer.bitCount(branch1.bitmap & (bit - 1))];
+                Object child2 = ((branch2.bitmap & bit) == 0) ? null :
+                        branch2.children[Integer.bitCount(branch2.bitmap & (bit - 1))];
+                if(child1 == null)
+                    forEach(child2, consumer);
+                else if(child2 == null)
+                    forEach(child1, (line, column, symbol) -> consumer.accept(line, column, null));
+                else
+                    diff(child1, child2, consumer);
+            }
+            return;
+        }
+
+        // At least one of the nodes is a leaf or a collision: the subtries are small, they are compared cell by cell.
+        PersistentCellMap map1 = EMPTY.putAll(from);
+        PersistentCellMap map2 = EMPTY.putAll(to);
+        map1.forEach((line, column, symbol) -> {
+            Leaf leaf = map2.find(line, column);
+            if(leaf == null)
+                consumer.accept(line, column, null);
+            else if(!leaf.value.equals(map1.find(line, column).value))
+                consumer.accept(line, column, leaf.symbol());
+        });
+        map2.forEach((line, column, symbol) -> {
+            if(!map1.contains(line, column))
+                consumer.accept(line, column, symbol);
+        });
+    }
+
+    /**
+     * @return a map containing the cells of this map and the cells of the given node.
+     */
+    private PersistentCellMap putAll(Object node){
+        PersistentCellMap[] map = {this};
+        forEach(node, (line, column, symbol) -> map[0] = map[0].put(line, column, symbol));
+        return map[0];
+    }
+
+    /**
+     * Node of the trie containing, for each possible value of the next bits of the hash, either nothing, a leaf, a
+     * collision or another branch. Only the non empty children are stored, the bitmap telling which are non empty.
+     */
+    private static final class Branch {
+        final int bitmap;
+        final Object[] children;
+
+        Branch(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+
+    /**
+     * Cell of the map.
+     */
+    private static final class Leaf {
+        final long key;
+
+        /**
+         * Symbol of the cell or {@link #BLANK}.
+         */
+        final Object value;
+
+        Leaf(long key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        String symbol(){
+            return value == BLANK ? null : (String) value;
+        }
+    }
+
+    /**
+     * Set of cells whose keys have the same hash.
+     */
+    private static final class Collision {
+        final int hash;
+        final Leaf[] leaves;
+
+        Collision(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+    }
+}
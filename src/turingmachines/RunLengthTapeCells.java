@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Storage of the cells of a tape as runs of consecutive cells of a line containing the same symbol. Each line is
+ * stored as a sorted list of runs, each run being the column of its first cell and its symbol, so the memory is
+ * proportional to the number of runs and not to the number of cells: a unary number or a long BLANK padding is a
+ * single run.
+ *
+ * Each line remembers the run of the last accessed cell. As a head reads the cells one after the other, finding the
+ * run of the next cell usually costs O(1) instead of a binary search. Writing a symbol may split a run in three, the
+ * runs following it are then shifted in the list. The bounds of the run of a cell are given by
+ * {@link #runEnd(int, int, int)}, so that a head can cross a run at once (see
+ * {@link Tape#moveAlongRun(int, Direction, String, long)}).
+ *
+ * @see Tape#compressInput()
+ */
+class RunLengthTapeCells implements TapeCells {
+
+    /**
+     * Runs of a line. The run i covers the columns starts[i] to starts[i + 1] - 1 and contains the symbol
+     * symbols[i] (null for the BLANK symbol). The cells before the first run are BLANK and the last run, which
+     * covers every following column, is always BLANK. Two consecutive runs contain different symbols.
+     */
+    private static class Line {
+        private int[] starts = new int[4];
+        private String[] symbols = new String[4];
+        private int size = 0;
+
+        /**
+         * Index of the run of the last accessed cell.
+         */
+        private int cursor = 0;
+
+        /**
+         * @return the index of the run containing the given column, -1 if the column is before the first run.
+         */
+        private int find(int column){
+            if(size == 0 || column < starts[0])
+                return -1;
+            // The run of the last accessed cell or one of its neighbours.
+            for(int i = Math.max(0, cursor - 1); i <= cursor + 1 && i < size; i++)
+                if(column >= starts[i] && (i == size - 1 || column < starts[i + 1]))
+                    return cursor = i;
+
+            int i = Arrays.binarySearch(starts, 0, size, column);
+            return cursor = (i >= 0) ? i : -i - 2;
+        }
+
+        String get(int column){
+            int i = find(column);
+            return i == -1 ? null : symbols[i];
+        }
+
+        int runEnd(int column, int step){
+            int i = find(column);
+            if(step < 0)
+                return i == -1 ? Integer.MIN_VALUE : starts[i];
+            if(i == -1)
+                return size == 0 ? Integer.MAX_VALUE : starts[0] - 1;
+            return i == size - 1 ? Integer.MAX_VALUE : starts[i + 1] - 1;
+        }
+
+        void set(int column, String symbol){
+            if(Objects.equals(get(column), symbol))
+                return;
+
+            // Isolate the cell in its own run.
+            int i = split(column);
+            if(column != Integer.MAX_VALUE)
+                split(column + 1);
+            symbols[i] = symbol;
+
+            if(i + 1 < size && Objects.equals(symbols[i + 1], symbol))
+                remove(i + 1);
+            if(i > 0 && Objects.equals(symbols[i - 1], symbol))
+                remove(i);
+            if(size > 0 && symbols[0] == null)
+                remove(0);
+            cursor = Math.max(0, Math.min(i, size - 1));
+        }
+
+        /**
+         * Make a run start at the given column.
+         * @return the index of that run.
+         */
+        private int split(int column){
+            int i = find(column);
+            if(i == -1){
+                insert(0, column, null);
+                return 0;
+            }
+            if(starts[i] == column)
+                return i;
+            insert(i + 1, column, symbols[i]);
+            return i + 1;
+        }
+
+        private void insert(int i, int column, String symbol){
+            if(size == starts.length){
+                starts = Arrays.copyOf(starts, size * 2);
+                symbols = Arrays.copyOf(symbols, size * 2);
+            }
+            System.arraycopy(starts, i, starts, i + 1, size - i);
+            System.arraycopy(symbols, i, symbols, i + 1, size - i);
+            starts[i] = column;
+            symbols[i] = symbol;
+            size++;
+        }
+
+        private void remove(int i){
+            System.arraycopy(starts, i + 1, starts, i, size - i - 1);
+            System.arraycopy(symbols, i + 1, symbols, i, size - i - 1);
+            size--;
+            symbols[size] = null;
+        }
+    }
+
+    /**
+     * For each line containing a symbol different from the BLANK symbol, the runs of that line.
+     */
+    private final Map<Integer, Line> lines;
+
+    RunLengthTapeCells() {
+        lines = new HashMap<>();
+    }
+
+    @Override
+    public String get(int line, int column) {
+        Line runs = lines.get(line);
+        return runs == null ? null : runs.get(column);
+    }
+
+    @Override
+    public void set(int line, int column, String symbol) {
+        Line runs = lines.get(line);
+        if(runs == null) {
+            if(symbol == null)
+                return;
+            runs = new Line();
+            lines.put(line, runs);
+        }
+        runs.set(column, symbol);
+        if(runs.size == 0)
+            lines.remove(line);
+    }
+
+    @Override
+    public int runEnd(int line, int column, int step) {
+        Line runs = lines.get(line);
+        if(runs == null)
+            return step < 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        return runs.runEnd(column, step);
+    }
+
+    /**
+     * Call the given consumer on every cell in which a symbol (different from the BLANK symbol) is written. The cost
+     * is proportional to the number of such cells and not to the number of runs.
+     * @param consumer
+     */
+    @Override
+    public void forEach(CellConsumer consumer) {
+        for(Map.Entry<Integer, Line> entry : lines.entrySet()){
+            Line runs = entry.getValue();
+            for(int i = 0; i < runs.size - 1; i++)
+                if(runs.symbols[i] != null)
+                    for(int column = runs.starts[i]; column < runs.starts[i + 1]; column++)
+                        consumer.accept(entry.getKey(), column, runs.symbols[i]);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+}
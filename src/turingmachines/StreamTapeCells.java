@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage of the cells of a tape whose input word is read lazily from a stream. The stream gives the symbols of a
+ * segment of one line of the tape: the i-th symbol of the stream is written at the given line and at column
+ * (firstColumn + i).
+ *
+ * A symbol is pulled from the stream only when a cell at or after its column is read for the first time. A symbol
+ * written on a cell whose symbol was not pulled yet is kept aside and replaces the symbol of the stream when it is
+ * pulled. The loaded symbols are kept so that the word can be read again during another execution. The cells outside
+ * the segment are stored on the heap.
+ *
+ * The stream is either an iterator over the symbols (null for the BLANK symbol), the word ending when the iterator
+ * has no next symbol, or an input stream of bytes,
+ * each byte being a symbol as in a mapped tape (see {@link MappedTapeCells}). The bytes are read one by one, the input
+ * stream should thus be buffered.
+ *
+ * As the symbols may be pulled by a thread executing the machine while another thread displays the tape (see
+ * {@link DeterministicRunner#runAsync(Runnable)}), the methods of this class are synchronized.
+ */
+class StreamTapeCells implements TapeCells {
+
+    /**
+     * Line of the segment.
+     */
+    private final int line;
+
+    /**
+     * Column of the first cell of the segment.
+     */
+    private final int firstColumn;
+
+    /**
+     * Iterator over the symbols of the segment, null if the symbols are read from an input stream.
+     */
+    private Iterator<String> symbols;
+
+    /**
+     * Input stream of the symbols of the segment, null if the symbols are given by an iterator.
+     */
+    private InputStream stream;
+
+    /**
+     * True if the whole stream was read.
+     */
+    private boolean ended;
+
+    /**
+     * Symbols of the segment already read from the stream (null for the BLANK symbol).
+     */
+    private final List<String> loaded;
+
+    /**
+     * Symbols written on the cells of the segment that were not read from the stream yet, indexed by the index of the
+     * cell in the segment (null for the BLANK symbol).
+     */
+    private final Map<Integer, String> pending;
+
+    /**
+     * Cells outside the segment.
+     */
+    private final HashTapeCells others;
+
+    /**
+     * Build a storage of the cells of a tape where the segment of the given line starting at the given column is
+     * given by the given iterator (null for the BLANK symbol). The end of the segment is reached when the iterator has
+     * no next symbol.
+     * @param symbols
+     * @param line
+     * @param firstColumn
+     */
+    StreamTapeCells(Iterator<String> symbols, int line, int firstColumn) {
+        this(line, firstColumn);
+        this.symbols = symbols;
+    }
+
+    /**
+     * Build a storage of the cells of a tape where the segment of the given line starting at the given column is
+     * given by the bytes of the given input stream.
+     * @param stream
+     * @param line
+     * @param firstColumn
+     */
+    StreamTapeCells(InputStream stream, int line, int firstColumn) {
+        this(line, firstColumn);
+        this.stream = stream;
+    }
+
+    private StreamTapeCells(int line, int firstColumn) {
+        this.line = line;
+        this.firstColumn = firstColumn;
+        this.ended = false;
+        this.loaded = new ArrayList<>();
+        this.pending = new HashMap<>();
+        this.others = new HashTapeCells();
+    }
+
+    /**
+     * Read the next symbol of the stream and add it to the loaded symbols. If a symbol was written on its cell, that
+     * symbol is loaded instead. When the end of the stream is reached, the symbols written after the end are moved to
+     * the cells outside the segment.
+     * @return false if the end of the stream is reached.
+     * @throws UncheckedIOException if the input stream cannot be read.
+     */
+    private boolean pull(){
+        if(ended)
+            return false;
+
+        if(symbols != null){
+            if(symbols.hasNext()){
+                load(symbols.next());
+                return true;
+            }
+        }
+        else {
+            int b;
+            try {
+                b = stream.read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if(b != -1){
+                load(MappedTapeCells.getSymbol(b));
+                return true;
+            }
+        }
+
+        ended = true;
+        symbols = null;
+        stream = null;
+        for(Map.Entry<Integer, String> entry : pending.entrySet())
+            others.set(line, firstColumn + entry.getKey(), entry.getValue());
+        pending.clear();
+        return false;
+    }
+
+    /**
+     * Add the given symbol, read from the stream, to the loaded symbols, unless a symbol was written on its cell.
+     * @param symbol
+     */
+    private void load(String symbol){
+        int index = loaded.size();
+        if(pending.containsKey(index))
+            symbol = pending.remove(index);
+        loaded.add(symbol);
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @return the index of the given cell in the segment or -1 if the cell is outside the segment. The stream is not
+     * read: a cell after the loaded symbols is in the segment as long as the end of the stream is not reached.
+     */
+    private int index(int line, int column){
+        if(line != this.line)
+            return -1;
+        long index = (long) column - firstColumn;
+        if(index < 0 || index > Integer.MAX_VALUE || (ended && index >= loaded.size()))
+            return -1;
+        return (int) index;
+    }
+
+    @Override
+    public synchronized String get(int line, int column) {
+        int index = index(line, column);
+        if(index == -1)
+            return others.get(line, column);
+        if(index >= loaded.size() && pending.containsKey(index))
+            return pending.get(index);
+        while(loaded.size() <= index)
+            if(!pull())
+                return others.get(line, column);
+        return loaded.get(index);
+    }
+
+    /**
+     * Write the given symbol at the given line and column. The stream is not read: if the symbol of the cell was not
+     * pulled yet, the given symbol is kept aside until it is.
+     * @param line
+     * @param column
+     * @param symbol
+     */
+    @Override
+    public synchronized void set(int line, int column, String symbol) {
+        int index = index(line, column);
+        if(index == -1)
+            others.set(line, column, symbol);
+        else if(index < loaded.size())
+            loaded.set(index, symbol);
+        else
+            pending.put(index, symbol);
+    }
+
+    /**
+     * Call the given consumer on every non blank cell. The whole stream is read.
+     * @param consumer
+     */
+    @Override
+    public synchronized void forEach(CellConsumer consumer) {
+        while(pull());
+        for(int index = 0; index < loaded.size(); index++){
+            String symbol = loaded.get(index);
+            if(symbol != null)
+                consumer.accept(line, firstColumn + index, symbol);
+        }
+        others.forEach(consumer);
+    }
+
+    /**
+     * Call the given consumer on every non blank cell already read from the stream or written. The stream is not
+     * read.
+     * @param consumer
+     * @return true if the whole stream was read.
+     */
+    @Override
+    public synchronized boolean forEachKnownCell(CellConsumer consumer) {
+        for(int index = 0; index < loaded.size(); index++){
+            String symbol = loaded.get(index);
+            if(symbol != null)
+                consumer.accept(line, firstColumn + index, symbol);
+        }
+        for(Map.Entry<Integer, String> entry : pending.entrySet())
+            if(entry.getValue() != null)
+                consumer.accept(line, firstColumn + entry.getKey(), entry.getValue());
+        others.forEach(consumer);
+        return ended;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        if(!others.isEmpty())
+            return false;
+        for(String symbol : loaded)
+            if(symbol != null)
+                return false;
+        for(String symbol : pending.values())
+            if(symbol != null)
+                return false;
+        while(pull())
+            if(loaded.get(loaded.size() - 1) != null)
+                return false;
+        return true;
+    }
+}
@@ -4,8 +4,12 @@
 
 package turingmachines;
 
-import util.Subscriber;
-
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -61,21 +65,32 @@ public class Tape{
     private Integer tapeTopBound;
 
     /**
-     * Input word of the machine written on the tape. For each line x and each column y,
-     * <pre>cells.get(x).get(y)</pre> contains a String corresponding to the symbol written on the tape at line x and
-     * column y at the beginning of an execution of the machine. If no symbol is written (i.e. the BLANK symbol is
-     * written), no string is stored in the map.
+     * Input word of the machine written on the tape, that is the symbols written on the tape at the beginning of an
+     * execution of the machine. The input word is stored on the heap by default and may be stored outside the heap
+     * with {@link #allocateInput(int, int, int)} or {@link #mapInput(String, int, int)}, or read lazily from a stream
+     * with {@link #streamInput(int, int, Iterator)} or {@link #streamInput(int, int, InputStream)}.
      * @see #cells
      */
-    private Map<Integer, Map<Integer, String>> inputCells;
+    private TapeCells inputCells;
 
     /**
-     * Set of symbols written on the tape during an execution of the machine. For each line x and each column y,
-     * <pre>cells.get(x).get(y)</pre> contains a String corresponding to the symbol written on the tape at line x and
-     * column y. If no symbol is written (i.e. the BLANK symbol is written), no string is stored in the map.
+     * Set of symbols written on the tape during an execution of the machine that differ from the input word. For each
+     * line x and each column y, if <pre>cells</pre> contains the cell (x, y), then <pre>cells.get(x, y)</pre> contains
+     * the symbol written on the tape at line x and column y (null if the BLANK symbol is written). Otherwise, the
+     * symbol written at line x and column y is the symbol of the input word.
+     *
+     * The input word is thus never copied at the beginning of an execution. As the map is persistent, a snapshot of
+     * the tape shares the map with the tape instead of copying it.
      * @see #inputCells
      */
-    private Map<Integer, Map<Integer, String>> cells;
+    private PersistentCellMap cells;
+
+    /**
+     * Last snapshot of the tape returned by {@link #saveConfiguration()} or loaded with
+     * {@link #loadConfiguration(TapeConfiguration, boolean)}, null if the tape changed since then. As a snapshot is
+     * immutable, it is returned again as long as the tape is not changed.
+     */
+    private TapeConfiguration lastConfiguration;
 
     /**
      * Number of heads of the tape
@@ -123,6 +138,12 @@ public class Tape{
      */
     private TuringMachine machine;
 
+    /**
+     * Counters of the accesses to the cells and of the moves of the heads, null if the machine is not profiled.
+     * @see TuringMachine#setProfiling(boolean)
+     */
+    private volatile TapeProfile profile;
+
     /**
      * Build a new tape of the given machine. A default tape is one dimensionnal and contains no head. No symbol is
      * written on it.
@@ -142,8 +163,8 @@ public class Tape{
         headsColumn = new ArrayList<>();
         headsLine = new ArrayList<>();
 
-        cells = new HashMap<>();
-        inputCells = new HashMap<>();
+        cells = PersistentCellMap.EMPTY;
+        inputCells = new HashTapeCells();
     }
 
     /**
@@ -173,6 +194,34 @@ public class Tape{
         return (tapeTopBound + tapeBottomBound) / 2;
     }
 
+    /**
+     * @return the number of cells written since the beginning of the current execution.
+     */
+    int getNbWrittenCells() {
+        return cells.size();
+    }
+
+    /**
+     * Enable or disable the profiling of the tape. Disabling the profiling discards the counters.
+     * @param profiling
+     * @see TuringMachine#setProfiling(boolean)
+     */
+    void setProfiling(boolean profiling) {
+        if(!profiling)
+            profile = null;
+        else if(profile == null)
+            profile = new TapeProfile();
+    }
+
+    /**
+     * @return the counters of the accesses to the cells and of the moves of the heads, or null if the machine is not
+     * profiled.
+     * @see TuringMachine#setProfiling(boolean)
+     */
+    public TapeProfile getProfile() {
+        return profile;
+    }
+
     /**
      * @return the number of heads of the tape.
      */
@@ -210,6 +259,10 @@ public class Tape{
         nbHeads--;
         initialHeadsColumn.remove(head);
         initialHeadsLine.remove(head);
+
+        TapeProfile profile = this.profile;
+        if(profile != null)
+            profile.headRemoved(head);
     }
 
     /**
@@ -233,7 +286,7 @@ public class Tape{
 
         checkHeadsColumns();
         checkInput(true, false);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_TAPE_LEFT_CHANGED, this.machine, this, tapeLeftBound);
+        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_TAPE_LEFT_CHANGED, this.machine, this, tapeLeftBound);
     }
 
     /**
@@ -257,7 +310,7 @@ public class Tape{
 
         checkHeadsColumns();
         checkInput(true, false);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_TAPE_RIGHT_CHANGED, this.machine, this, tapeRightBound);
+        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_TAPE_RIGHT_CHANGED, this.machine, this, tapeRightBound);
     }
 
     /**
@@ -281,7 +334,7 @@ public class Tape{
 
         checkHeadsLines();
         checkInput(false, true);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_TAPE_BOTTOM_CHANGED, this.machine, this, tapeBottomBound);
+        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_TAPE_BOTTOM_CHANGED, this.machine, this, tapeBottomBound);
     }
 
     /**
@@ -305,7 +358,39 @@ public class Tape{
 
         checkHeadsLines();
         checkInput(false, true);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_TAPE_TOP_CHANGED, this.machine, this, tapeTopBound);
+        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_TAPE_TOP_CHANGED, this.machine, this, tapeTopBound);
+    }
+
+    /**
+     * @return the left bound of the tape or null if the tape is infinite to the left.
+     * @see #setLeftBound(Integer)
+     */
+    public Integer getLeftBound() {
+        return tapeLeftBound;
+    }
+
+    /**
+     * @return the right bound of the tape or null if the tape is infinite to the right.
+     * @see #setRightBound(Integer)
+     */
+    public Integer getRightBound() {
+        return tapeRightBound;
+    }
+
+    /**
+     * @return the bottom bound of the tape or null if the tape is infinite to the bottom.
+     * @see #setBottomBound(Integer)
+     */
+    public Integer getBottomBound() {
+        return tapeBottomBound;
+    }
+
+    /**
+     * @return the top bound of the tape or null if the tape is infinite to the top.
+     * @see #setTopBound(Integer)
+     */
+    public Integer getTopBound() {
+        return tapeTopBound;
     }
 
     /**
@@ -315,7 +400,7 @@ public class Tape{
      * @see #setInitialHeadColumn(int, int)
      * @see #setInitialHeadLine(int, int)
      */
-    Integer getInitialHeadColumn(int head){
+    public Integer getInitialHeadColumn(int head){
         return initialHeadsColumn.get(head);
     }
 
@@ -326,7 +411,7 @@ public class Tape{
      * @see #setInitialHeadColumn(int, int)
      * @see #setInitialHeadLine(int, int)
      */
-    Integer getInitialHeadLine(int head){
+    public Integer getInitialHeadLine(int head){
         return initialHeadsLine.get(head);
     }
 
@@ -346,7 +431,7 @@ public class Tape{
         if ((tapeLeftBound == null || column >= tapeLeftBound)
                 && (tapeRightBound == null || column <= tapeRightBound)) {
             initialHeadsColumn.set(head, column);
-            Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_INITIAL_POSITION_CHANGED, this.machine,
+            this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_INITIAL_POSITION_CHANGED, this.machine,
                     this, head, initialHeadsLine.get(head), column);
         }
     }
@@ -385,7 +470,7 @@ public class Tape{
         if ((tapeBottomBound == null || line >= tapeBottomBound)
                 && (tapeTopBound == null || line <= tapeTopBound)) {
             initialHeadsLine.set(head, line);
-            Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_INITIAL_POSITION_CHANGED, this.machine,
+            this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_INITIAL_POSITION_CHANGED, this.machine,
                     this, head, line, initialHeadsColumn.get(head));
 
         }
@@ -418,13 +503,36 @@ public class Tape{
         headsLine.clear();
         headsLine.addAll(initialHeadsLine);
 
-        cells.clear();
-        for(Map.Entry<Integer, Map<Integer, String>> pair: inputCells.entrySet()){
-            Integer column = pair.getKey();
-            Map<Integer, String> columnCells = pair.getValue();
-            Map<Integer, String> columnCells2 = new HashMap<>(columnCells);
-            cells.put(column, columnCells2);
-        }
+        cells = PersistentCellMap.EMPTY;
+        lastConfiguration = null;
+    }
+
+    /**
+     * Write the given symbol (null if the symbol is BLANK) at the given line and column during the current execution
+     * of the machine, without broadcasting any message.
+     * @param line
+     * @param column
+     * @param symbol
+     * @see MacroRunner#writeTape()
+     * @see CompiledRunner#writeTapes()
+     */
+    void writeCell(int line, int column, String symbol){
+        write(line, column, symbol, false);
+    }
+
+    /**
+     * Place the given head at the given line and column during the current execution of the machine, without
+     * broadcasting any message.
+     * @param head index of the head in the list of heads of the machine.
+     * @param line
+     * @param column
+     * @see MacroRunner#writeTape()
+     * @see CompiledRunner#writeTapes()
+     */
+    void placeHead(int head, int line, int column){
+        headsLine.set(head, line);
+        headsColumn.set(head, column);
+        lastConfiguration = null;
     }
 
     /**
@@ -446,32 +554,127 @@ public class Tape{
             case DOWN:
                 if(!line.equals(tapeBottomBound)) {
                     headsLine.set(head, line - 1);
+                    lastConfiguration = null;
                     if(log)
-                        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head, line - 1, column);
+                        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head, line - 1, column);
                 }
                 break;
             case UP:
                 if(!line.equals(tapeTopBound)) {
                     headsLine.set(head, line + 1);
+                    lastConfiguration = null;
                     if(log)
-                        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head, line + 1, column);
+                        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head, line + 1, column);
                 }
                 break;
             case LEFT:
                 if(!column.equals(tapeLeftBound)) {
                     headsColumn.set(head, column - 1);
+                    lastConfiguration = null;
                     if(log)
-                        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head, line, column - 1);
+                        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head, line, column - 1);
                 }
                 break;
             case RIGHT:
                 if(!column.equals(tapeRightBound)){
                     headsColumn.set(head, column + 1);
+                    lastConfiguration = null;
                     if(log)
-                        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head, line, column + 1);
+                        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head, line, column + 1);
                 }
                 break;
         }
+
+        // The head does not move against a bound of the tape.
+        TapeProfile profile = this.profile;
+        if(profile != null && !(line.equals(headsLine.get(head)) && column.equals(headsColumn.get(head))))
+            profile.moved(head, headsLine.get(head), headsColumn.get(head));
+    }
+
+    /**
+     * Move the given head in the given direction as long as the cell of the head contains the given symbol (null if
+     * the symbol is BLANK) during the current execution of the machine, at most the given number of times. The head
+     * stops before moving against a bound of the tape. No message is broadcast and the profile of the tape is not
+     * updated.
+     *
+     * When the head moves left or right, it crosses at once the cells of a run of the input word (see
+     * {@link TapeCells#runEnd(int, int, int)}) up to the next cell written during the execution. That only happens if
+     * the input word knows its runs (see {@link #compressInput()}); otherwise, and when the head moves up or down,
+     * the head moves one cell at a time.
+     * @param head index of the head in the list of heads of the machine.
+     * @param direction
+     * @param symbol
+     * @param maximum
+     * @return the number of cells the head moved.
+     * @see DeterministicRunner#run(long)
+     */
+    long moveAlongRun(int head, Direction direction, String symbol, long maximum){
+        Integer line = headsLine.get(head);
+        Integer column = headsColumn.get(head);
+
+        long moves = 0;
+        while(moves < maximum && Objects.equals(getSymbolAt(line, column, false), symbol)){
+            if(direction == Direction.DOWN && !line.equals(tapeBottomBound))
+                line--;
+            else if(direction == Direction.UP && !line.equals(tapeTopBound))
+                line++;
+            else if(direction == Direction.LEFT && !column.equals(tapeLeftBound)) {
+                long length = runLength(line, column, -1, maximum - moves);
+                column -= (int) length;
+                moves += length;
+                continue;
+            }
+            else if(direction == Direction.RIGHT && !column.equals(tapeRightBound)) {
+                long length = runLength(line, column, 1, maximum - moves);
+                column += (int) length;
+                moves += length;
+                continue;
+            }
+            else
+                break;
+            moves++;
+        }
+
+        if(moves > 0) {
+            headsLine.set(head, line);
+            headsColumn.set(head, column);
+            lastConfiguration = null;
+        }
+        return moves;
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @param step 1 to move to the right and -1 to move to the left.
+     * @param maximum
+     * @return the number of cells, at least 1 and at most the given maximum, a head in the given cell can move in
+     * the direction of the given step while it reads the symbol of that cell during the current execution, the cell
+     * not being on the bound of the tape in that direction. The run of the input word containing the cell is crossed
+     * until the next cell written during the execution.
+     */
+    private long runLength(int line, int column, int step, long maximum){
+        long end = cells.contains(line, column) ? column : inputCells.runEnd(line, column, step);
+        Integer bound = (step > 0) ? tapeRightBound : tapeLeftBound;
+        long length = step * (end - column) + 1;
+        if(bound != null)
+            length = Math.min(length, step * ((long) bound - column));
+        length = Math.min(length, maximum);
+
+        // A cell written during the execution may cut the run. Looking for it costs one visit per written cell, which
+        // is only worth it if the head crosses more cells.
+        if(length > 1 && length > cells.size()){
+            long[] nearest = {length};
+            cells.forEach((cellLine, cellColumn, symbol) -> {
+                long distance = step * ((long) cellColumn - column);
+                if(cellLine == line && distance > 0 && distance < nearest[0])
+                    nearest[0] = distance;
+            });
+            length = nearest[0];
+        }
+        else if(length > 1)
+            length = 1;
+        return length;
     }
 
     /**
@@ -484,6 +687,10 @@ public class Tape{
         Integer column = headsColumn.get(head);
         Integer line = headsLine.get(head);
 
+        TapeProfile profile = this.profile;
+        if(profile != null)
+            profile.read(head, line, column);
+
         return this.getSymbolAt(line, column, false);
     }
 
@@ -497,14 +704,9 @@ public class Tape{
      * during the current execution of the machine.
      */
     String getSymbolAt(Integer line, Integer column, boolean input){
-
-        Map<Integer, Map<Integer, String>> cells = (input?this.inputCells:this.cells);
-
-        Map<Integer, String> columnCells = cells.get(column);
-        if(columnCells == null) // All the column is white
-            return null;
-        return columnCells.get(line);
-
+        if(!input && cells.contains(line, column))
+            return cells.get(line, column);
+        return inputCells.get(line, column);
     }
 
     /**
@@ -512,13 +714,16 @@ public class Tape{
      * @param symbol
      */
     void removeSymbol(String symbol){
-        for (Map.Entry<Integer, Map<Integer, String>> entry1 : new HashSet<>(inputCells.entrySet())) {
-            for (Map.Entry<Integer, String> entry2 : new HashSet<>(entry1.getValue().entrySet())) {
-                if (entry2.getValue().equals(symbol)) {
-                    this.writeInput(entry2.getKey(), entry1.getKey(), null);
-                }
+        List<Integer> lines = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        inputCells.forEach((line, column, symbol2) -> {
+            if(symbol2.equals(symbol)){
+                lines.add(line);
+                columns.add(column);
             }
-        }
+        });
+        for(int i = 0; i < lines.size(); i++)
+            this.writeInput(lines.get(i), columns.get(i), null);
     }
 
     /**
@@ -533,7 +738,153 @@ public class Tape{
      */
     public void writeInput(int line, int column, String symbol){
         write(line, column, symbol, true);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_INPUT_CHANGED, this.machine, this, line, column, symbol);
+        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_INPUT_CHANGED, this.machine, this, line, column, symbol);
+    }
+
+    /**
+     * Call the given consumer on every cell of the input word of the machine in which a symbol (different from the
+     * BLANK symbol) is written. The cells are given in no particular order.
+     * @param consumer
+     */
+    public void forEachInputCell(CellConsumer consumer){
+        inputCells.forEach(consumer);
+    }
+
+    /**
+     * @return true if every symbol of the input word is known, false if the input word is streamed (see
+     * {@link #streamInput(int, int, Iterator)}) and was not completely read yet. The stream is not read.
+     */
+    public boolean isInputRead(){
+        return inputCells.forEachKnownCell((line, column, symbol) -> {});
+    }
+
+    /**
+     * Store the input word of the tape outside the heap, in a direct buffer containing one byte per cell, for the
+     * given number of cells of the given line starting at the given column. The cells outside that segment are still
+     * stored on the heap. The current input word is copied in the new storage.
+     *
+     * The symbols that are a single character of code lower than 256 are stored in one byte. The other symbols
+     * are stored on the heap. The segment is clipped to the bounds of the tape: only the cells of the segment that
+     * are on the tape are allocated.
+     *
+     * @param line
+     * @param firstColumn
+     * @param length
+     * @see #mapInput(String, int, int)
+     */
+    public void allocateInput(int line, int firstColumn, int length){
+        long[] segment = clipSegment(line, firstColumn, length);
+        TapeCells cells = new MappedTapeCells(ByteBuffer.allocateDirect((int) (segment[1] - segment[0])), line,
+                (int) segment[0]);
+        inputCells.forEach(cells::set);
+        inputCells = cells;
+        lastConfiguration = null;
+    }
+
+    /**
+     * @param line
+     * @param firstColumn
+     * @param length
+     * @return the first column and the column following the last column of the cells of the given segment of the
+     * given line that are on the tape. Both columns are the given first column if no cell of the segment is on the
+     * tape.
+     */
+    private long[] clipSegment(int line, long firstColumn, long length){
+        long first = firstColumn;
+        long end = firstColumn + length;
+        if(tapeLeftBound != null)
+            first = Math.max(first, tapeLeftBound);
+        if(tapeRightBound != null)
+            end = Math.min(end, tapeRightBound + 1L);
+        if((tapeBottomBound != null && line < tapeBottomBound) || (tapeTopBound != null && line > tapeTopBound)
+                || end < first)
+            return new long[]{firstColumn, firstColumn};
+        return new long[]{first, end};
+    }
+
+    /**
+     * Store the input word of the tape as runs of consecutive cells containing the same symbol (see
+     * {@link RunLengthTapeCells}). The memory used by the input word is then proportional to the number of runs,
+     * which suits input words made of long runs like unary numbers. The current input word is copied in the new
+     * storage. The symbols written during an execution are still stored cell by cell.
+     */
+    public void compressInput(){
+        TapeCells cells = new RunLengthTapeCells();
+        inputCells.forEach(cells::set);
+        inputCells = cells;
+        lastConfiguration = null;
+    }
+
+    /**
+     * Replace the input word of the tape by the content of the file with the given name, mapped in memory. Each byte
+     * of the file is a cell of the given line, the first byte being at the given column: the byte b is the symbol
+     * consisting of the character b (in ISO-8859-1), except the bytes 0, 1 and ' ' which are the BLANK symbol.
+     *
+     * The file is mapped in read only mode: it is never modified, even if the input word is edited, and only the
+     * pages containing the cells read by the machine are loaded in memory. Only the bytes of the cells that are on
+     * the tape are mapped: the bytes out of the bounds of the tape are ignored.
+     *
+     * As the file may contain a huge number of cells, no {@link TuringMachine#SUBSCRIBER_MSG_INPUT_CHANGED} message
+     * is broadcast for the cells of the file. This method is meant to execute machines outside the graphical
+     * interface.
+     *
+     * @param filename
+     * @param line
+     * @param firstColumn
+     * @throws IOException if the file cannot be mapped.
+     * @see #allocateInput(int, int, int)
+     */
+    public void mapInput(String filename, int line, int firstColumn) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long[] segment = clipSegment(line, firstColumn, channel.size());
+            long size = segment[1] - segment[0];
+            if(size > Integer.MAX_VALUE)
+                throw new IOException("File too large.");
+            inputCells = new MappedTapeCells(
+                    channel.map(FileChannel.MapMode.READ_ONLY, segment[0] - firstColumn, size),
+                    line, (int) segment[0]);
+            lastConfiguration = null;
+        }
+    }
+
+    /**
+     * Replace the input word of the tape by the symbols given by the iterator: the i-th symbol is written at the given
+     * line and at column (firstColumn + i), a null symbol being the BLANK symbol. The word ends when the iterator has
+     * no next symbol.
+     *
+     * The symbols are pulled lazily: a symbol is asked to the iterator only when a head reads its cell, or a cell
+     * after it, for the first time. An execution rejecting the word after reading a prefix thus only consumes that
+     * prefix. The pulled symbols are kept for the next executions.
+     *
+     * As for {@link #mapInput(String, int, int)}, no {@link TuringMachine#SUBSCRIBER_MSG_INPUT_CHANGED} message is
+     * broadcast for the cells of the word. Any method iterating over the whole input word (like
+     * {@link #forEachInputCell(CellConsumer)}) consumes the whole iterator, while {@link #print()} and the snapshots
+     * of the tape only see the symbols already pulled. Writing a symbol does not pull the symbol of its cell.
+     *
+     * @param line
+     * @param firstColumn
+     * @param symbols
+     * @see #streamInput(int, int, InputStream)
+     */
+    public void streamInput(int line, int firstColumn, Iterator<String> symbols){
+        inputCells = new StreamTapeCells(symbols, line, firstColumn);
+        lastConfiguration = null;
+    }
+
+    /**
+     * Replace the input word of the tape by the bytes of the given stream, read lazily as in
+     * {@link #streamInput(int, int, Iterator)}. Each byte is a symbol as in {@link #mapInput(String, int, int)}. The
+     * bytes are read one by one, the stream should thus be buffered. The stream is not closed.
+     *
+     * If the stream cannot be read, an {@link java.io.UncheckedIOException} is thrown when the tape is read.
+     *
+     * @param line
+     * @param firstColumn
+     * @param stream
+     */
+    public void streamInput(int line, int firstColumn, InputStream stream){
+        inputCells = new StreamTapeCells(stream, line, firstColumn);
+        lastConfiguration = null;
     }
 
     /**
@@ -552,9 +903,14 @@ public class Tape{
         Integer line = headsLine.get(head);
 
         this.write(line, column, symbol, false);
+
+        TapeProfile profile = this.profile;
+        if(profile != null)
+            profile.written(head, line, column);
+
         if(log) {
-            Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_WRITE, this.machine, this, head);
-            Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_SYMBOL_WRITTEN, this.machine, this,
+            this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_WRITE, this.machine, this, head);
+            this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_SYMBOL_WRITTEN, this.machine, this,
                     line, column, symbol);
         }
 
@@ -571,26 +927,17 @@ public class Tape{
      */
     private void write(Integer line, Integer column, String symbol, boolean input){
 
-        Map<Integer, Map<Integer, String>> cells = (input?this.inputCells:this.cells);
-
-        Map<Integer, String> columnCells = cells.get(column);
-        if(symbol == null) { // White symbol
-            if (columnCells == null) // All the column is white
-                return;
-            String cell = columnCells.get(line);
-            if (cell != null) {
-                columnCells.remove(line);
-                if (columnCells.size() == 0)
-                    cells.remove(column);
-            }
-        }
-        else{
-            if (columnCells == null) {
-                columnCells = new HashMap<>();
-                cells.put(column, columnCells);
-            }
-            columnCells.put(line, symbol);
+        lastConfiguration = null;
+
+        if(input){
+            inputCells.set(line, column, symbol);
+            return;
         }
+
+        if(Objects.equals(symbol, inputCells.get(line, column))) // Same symbol as the input word
+            cells = cells.remove(line, column);
+        else
+            cells = cells.put(line, column, symbol);
     }
 
     /**
@@ -607,32 +954,25 @@ public class Tape{
      * @see util.Subscriber
      */
     private void checkInput(boolean horizontalChange, boolean verticalChange){
-        Iterator<Map.Entry<Integer, Map<Integer, String>>> it1 = inputCells.entrySet().iterator();
-        while(it1.hasNext()){
-            Map.Entry<Integer, Map<Integer, String>> entry1 = it1.next();
-            Integer column = entry1.getKey();
-            if(horizontalChange &&
+        List<Integer> lines = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        inputCells.forEach((line, column, symbol) -> {
+            if((horizontalChange &&
                     ((tapeLeftBound != null && column < tapeLeftBound) ||
-                            (tapeRightBound != null && column > tapeRightBound))
-                    ) {
-                for(Integer line : entry1.getValue().keySet())
-                    Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_INPUT_CHANGED, this.machine, this, line, column, null);
-                it1.remove();
-            }
-            else if(verticalChange){
-                Iterator<Map.Entry<Integer, String>> it2 = entry1.getValue().entrySet().iterator();
-                while (it2.hasNext()) {
-                    Map.Entry<Integer, String> entry2 = it2.next();
-                    Integer line = entry2.getKey();
-                    if ((tapeBottomBound != null && line < tapeBottomBound) ||
-                            (tapeTopBound != null && line > tapeTopBound)) {
-                        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_INPUT_CHANGED, this.machine, this, line, column, null);
-                        it2.remove();
-                    }
-                }
-                if (entry1.getValue().isEmpty())
-                    it1.remove();
+                            (tapeRightBound != null && column > tapeRightBound)))
+                    ||
+                    (verticalChange &&
+                    ((tapeBottomBound != null && line < tapeBottomBound) ||
+                            (tapeTopBound != null && line > tapeTopBound)))) {
+                lines.add(line);
+                columns.add(column);
             }
+        });
+
+        for(int i = 0; i < lines.size(); i++){
+            inputCells.set(lines.get(i), columns.get(i), null);
+            this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_INPUT_CHANGED, this.machine, this,
+                    lines.get(i), columns.get(i), null);
         }
     }
 
@@ -640,17 +980,18 @@ public class Tape{
      * @return a snapshot of the tape (position of the heads and word currently written (not necessarily the input word)
      * on
      * the
-     * tape)
+     * tape). If the tape did not change since the last snapshot, the same snapshot is returned. Otherwise, the
+     * written symbols are shared with the tape, only the positions of the heads are copied.
      */
     TapeConfiguration saveConfiguration(){
-        Map<Integer, Map<Integer, String>> cells = new HashMap<>();
-        for(Map.Entry<Integer, Map<Integer, String>> entry: this.cells.entrySet())
-            cells.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        if(lastConfiguration != null)
+            return lastConfiguration;
 
         List<Integer> headsColumn = new ArrayList<>(this.headsColumn);
         List<Integer> headsLine = new ArrayList<>(this.headsLine);
 
-        return new TapeConfiguration(cells, headsColumn, headsLine);
+        lastConfiguration = new TapeConfiguration(inputCells, cells, headsColumn, headsLine);
+        return lastConfiguration;
     }
 
     /**
@@ -668,9 +1009,11 @@ public class Tape{
      * If log is true, {@link TuringMachine#SUBSCRIBER_MSG_HEAD_MOVED} and
      * {@link TuringMachine#SUBSCRIBER_MSG_INPUT_CHANGED} messages may be broadcast to the class
      * {@link util.Subscriber} to tell that heads were moved and that the word currently written on the tape is changed.
+     * A message is broadcast only for the cells whose symbol differs between the current and the given configuration.
      * @param configuration
+     * @return the number of cells for which a message was broadcast.
      */
-    void loadConfiguration(TapeConfiguration configuration, boolean log){
+    int loadConfiguration(TapeConfiguration configuration, boolean log){
         headsColumn.clear();
         headsLine.clear();
 
@@ -679,56 +1022,89 @@ public class Tape{
 
         if(log){
             for(int head = 0; head < nbHeads; head++){
-                Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head,
+                this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_HEAD_MOVED, this.machine, this, head,
                         headsLine.get(head), headsColumn.get(head));
             }
         }
 
-        if(log) {
-            for (Map.Entry<Integer, Map<Integer, String>> entry : cells.entrySet()) {
-                for (Map.Entry<Integer, String> entry2 : entry.getValue().entrySet()) {
-                    Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_SYMBOL_WRITTEN, this.machine, this,
-                            entry2.getKey(), entry.getKey(), null);
-                }
-                entry.getValue().clear();
-            }
-        }
+        PersistentCellMap previousCells = cells;
+        cells = configuration.cells;
+        lastConfiguration = configuration;
 
-        cells.clear();
+        if(!log)
+            return 0;
 
-        for(Map.Entry<Integer, Map<Integer, String>> entry: configuration.cells.entrySet()) {
-            cells.put(entry.getKey(), new HashMap<>(entry.getValue()));
-            if(log)
-                for (Map.Entry<Integer, String> entry2 : entry.getValue().entrySet()) {
-                    Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_SYMBOL_WRITTEN, this.machine, this,
-                            entry2.getKey(), entry.getKey(), entry2.getValue());
-                }
-        }
+        int[] changedCells = {0};
+        forEachChangedCell(inputCells, previousCells, cells, (line, column, symbol) -> {
+            changedCells[0]++;
+            this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_SYMBOL_WRITTEN, this.machine, this,
+                    line, column, symbol);
+        });
+        return changedCells[0];
+    }
+
+    /**
+     * Call the given consumer on every cell of a tape in which a symbol (different from the BLANK symbol) is written,
+     * given the input word of the tape and the symbols written during an execution that differ from the input word
+     * (see {@link #cells}). The cells are given in no particular order. Only the known cells of the input word are
+     * given: a word streamed lazily is not read further (see {@link TapeCells#forEachKnownCell(CellConsumer)}).
+     * @param inputCells
+     * @param cells
+     * @param consumer
+     * @return true if every cell was given, false if some cells of the input word were not read yet.
+     */
+    static boolean forEachCell(TapeCells inputCells, PersistentCellMap cells, CellConsumer consumer){
+        boolean complete = inputCells.forEachKnownCell((line, column, symbol) -> {
+            if(!cells.contains(line, column))
+                consumer.accept(line, column, symbol);
+        });
+        cells.forEach((line, column, symbol) -> {
+            if(symbol != null)
+                consumer.accept(line, column, symbol);
+        });
+        return complete;
+    }
 
+    /**
+     * Call the given consumer on every cell of a tape whose symbol differs between two configurations written over the
+     * same input word, given the symbols written during the execution that differ from the input word in the first and
+     * in the second configuration. The consumer is given the symbol of the cell in the second configuration (null for
+     * the BLANK symbol). The subtries shared by the two maps are not visited, the cost is thus proportional to the
+     * number of differing cells.
+     * @param inputCells
+     * @param from
+     * @param to
+     * @param consumer
+     */
+    static void forEachChangedCell(TapeCells inputCells, PersistentCellMap from, PersistentCellMap to,
+                                   CellConsumer consumer){
+        PersistentCellMap.diff(from, to, (line, column, symbol) ->
+                consumer.accept(line, column, to.contains(line, column) ? symbol : inputCells.get(line, column)));
     }
 
     /**
-     * @return a 2D representation of the tape as a String.
+     * @return a 2D representation of the tape as a String. If the input word is streamed lazily, only the cells
+     * already read are printed.
      */
     public String print() {
-        if(cells.isEmpty() && nbHeads == 0)
+        // minColumn, maxColumn, minLine, maxLine
+        int[] box = {Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        forEachCell(inputCells, cells, (line, column, symbol) -> {
+            box[0] = Math.min(box[0], column);
+            box[1] = Math.max(box[1], column);
+            box[2] = Math.min(box[2], line);
+            box[3] = Math.max(box[3], line);
+        });
+
+        if(box[0] == Integer.MAX_VALUE && nbHeads == 0)
             return "--";
 
         StringBuilder s = new StringBuilder();
 
-        Integer minColumn = Integer.MAX_VALUE;
-        Integer maxColumn = Integer.MIN_VALUE;
-        Integer minLine = Integer.MAX_VALUE;
-        Integer maxLine = Integer.MIN_VALUE;
-
-        for(Integer column: cells.keySet()){
-            minColumn = Math.min(minColumn, column);
-            maxColumn = Math.max(maxColumn, column);
-            for(Integer line : cells.get(column).keySet()){
-                minLine = Math.min(minLine, line);
-                maxLine = Math.max(maxLine, line);
-            }
-        }
+        Integer minColumn = box[0];
+        Integer maxColumn = box[1];
+        Integer minLine = box[2];
+        Integer maxLine = box[3];
 
         for(int i = 0; i < nbHeads; i++){
             Integer column = headsColumn.get(i);
@@ -774,14 +1150,26 @@ public class Tape{
  *     <li>Where are the heads of the tape.</li>
  *     <li>What is written on the tape.</li>
  * </ul>
+ *
+ * A configuration is immutable: it may be shared by several configurations of the machine.
  */
 class TapeConfiguration {
 
-    Map<Integer, Map<Integer, String>> cells;
+    /**
+     * Input word of the tape.
+     */
+    TapeCells inputCells;
+
+    /**
+     * Symbols written on the tape that differ from the input word.
+     */
+    PersistentCellMap cells;
     List<Integer> headsColumn;
     List<Integer> headsLine;
 
-    TapeConfiguration(Map<Integer, Map<Integer, String>> cells, List<Integer> headsColumn, List<Integer> headsLine) {
+    TapeConfiguration(TapeCells inputCells, PersistentCellMap cells,
+                      List<Integer> headsColumn, List<Integer> headsLine) {
+        this.inputCells = inputCells;
         this.cells = cells;
         this.headsColumn = headsColumn;
         this.headsLine = headsLine;
@@ -790,24 +1178,24 @@ class TapeConfiguration {
     public String toString() {
         int nbHeads = headsColumn.size();
 
-        if(cells.isEmpty() && nbHeads == 0)
+        // minColumn, maxColumn, minLine, maxLine
+        int[] box = {Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        Tape.forEachCell(inputCells, cells, (line, column, symbol) -> {
+            box[0] = Math.min(box[0], column);
+            box[1] = Math.max(box[1], column);
+            box[2] = Math.min(box[2], line);
+            box[3] = Math.max(box[3], line);
+        });
+
+        if(box[0] == Integer.MAX_VALUE && nbHeads == 0)
             return "--";
 
         StringBuilder s = new StringBuilder();
 
-        Integer minColumn = Integer.MAX_VALUE;
-        Integer maxColumn = Integer.MIN_VALUE;
-        Integer minLine = Integer.MAX_VALUE;
-        Integer maxLine = Integer.MIN_VALUE;
-
-        for(Integer column : cells.keySet()){
-            minColumn = Math.min(minColumn, column);
-            maxColumn = Math.max(maxColumn, column);
-            for(Integer line : cells.get(column).keySet()){
-                minLine = Math.min(minLine, line);
-                maxLine = Math.max(maxLine, line);
-            }
-        }
+        Integer minColumn = box[0];
+        Integer maxColumn = box[1];
+        Integer minLine = box[2];
+        Integer maxLine = box[3];
 
         for(int i = 0; i < nbHeads; i++){
             Integer column = headsColumn.get(i);
@@ -836,12 +1224,10 @@ class TapeConfiguration {
                         s.append(" ");
 
                 String symbol;
-                try {
-                    symbol = this.cells.get(column).get(line);
-                }
-                catch (NullPointerException e){
-                    symbol = null;
-                }
+                if(cells.contains(line, column))
+                    symbol = cells.get(line, column);
+                else
+                    symbol = inputCells.get(line, column);
                 s.append(" ");
                 s.append((symbol == null?"":symbol));
                 s.append(" | ");
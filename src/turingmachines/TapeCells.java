@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+/**
+ * Storage of the symbols written on the cells of a tape. A cell is identified by its line and its column. A cell
+ * containing the BLANK symbol is represented with a null symbol.
+ *
+ * @see HashTapeCells
+ * @see MappedTapeCells
+ * @see RunLengthTapeCells
+ */
+interface TapeCells {
+
+    /**
+     * @param line
+     * @param column
+     * @return the symbol written at the given line and column or null if the symbol is BLANK.
+     */
+    String get(int line, int column);
+
+    /**
+     * Write the given symbol (null if the symbol is BLANK) at the given line and column.
+     * @param line
+     * @param column
+     * @param symbol
+     */
+    void set(int line, int column, String symbol);
+
+    /**
+     * Call the given consumer on every cell in which a symbol (different from the BLANK symbol) is written. The cells
+     * are given in no particular order.
+     * @param consumer
+     */
+    void forEach(CellConsumer consumer);
+
+    /**
+     * Call the given consumer on every cell, already known, in which a symbol (different from the BLANK symbol) is
+     * written. Unlike {@link #forEach(CellConsumer)}, a storage reading its cells lazily (see
+     * {@link StreamTapeCells}) does not read any new cell. The default implementation knows every cell and calls
+     * {@link #forEach(CellConsumer)}.
+     * @param consumer
+     * @return true if every cell was given, false if some cells were not read yet.
+     */
+    default boolean forEachKnownCell(CellConsumer consumer){
+        forEach(consumer);
+        return true;
+    }
+
+    /**
+     * @return true if no symbol (different from the BLANK symbol) is written.
+     */
+    boolean isEmpty();
+
+    /**
+     * @param line
+     * @param column
+     * @param step 1 to search to the right and -1 to search to the left.
+     * @return the farthest column, in the direction of the given step, such that every cell of the given line from
+     * the given column to that column contains the symbol of the given cell. {@link Integer#MAX_VALUE} (or
+     * {@link Integer#MIN_VALUE}) if every following cell contains that symbol. The default implementation does not
+     * know the runs of symbols and returns the given column.
+     */
+    default int runEnd(int line, int column, int step){
+        return column;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counters of the accesses to the cells of a tape and of the moves of its heads while the machine is profiled (see
+ * {@link TuringMachine#setProfiling(boolean)} and {@link Tape#getProfile()}).
+ *
+ * A cell is read each time a transition checks the symbol under a head placed on that cell, whether the transition
+ * is fired or not, and written each time a write action is executed on that cell. The travel of a head is the
+ * number of cells it moved, a move against a bound of the tape does not count. The extent of a head is the smallest
+ * rectangle containing every cell the head read, wrote or moved to.
+ *
+ * As the counters of the execution profile (see {@link ExecutionProfile}), the counters are only written by the
+ * thread executing or building the machine. The counters of the cells are stored in a concurrent map so that they
+ * can be drawn by another thread while the machine is executed.
+ */
+public class TapeProfile {
+
+    /**
+     * Consumer of the counters of the cells of a tape.
+     * @see #forEachCell(CellCounterConsumer)
+     */
+    public interface CellCounterConsumer {
+        void accept(int line, int column, long reads, long writes);
+    }
+
+    /**
+     * For each accessed cell, identified by {@link #key(int, int)}, the number of reads and the number of writes of
+     * that cell.
+     */
+    private final Map<Long, long[]> cells;
+
+    /**
+     * Maximum number of accesses (reads and writes) of a cell.
+     */
+    private long maximumAccesses;
+
+    /**
+     * For each head, the number of cells the head moved.
+     */
+    private long[] travels;
+
+    /**
+     * For each head, the extent of the head: {minLine, maxLine, minColumn, maxColumn}, or null if the head did not
+     * access the tape.
+     */
+    private int[][] extents;
+
+    /**
+     * Smallest rectangle containing every accessed cell: {minLine, maxLine, minColumn, maxColumn}, or null if no
+     * cell was accessed.
+     */
+    private int[] boundingBox;
+
+    TapeProfile() {
+        cells = new ConcurrentHashMap<>();
+        travels = new long[1];
+        extents = new int[1][];
+        maximumAccesses = 0;
+        boundingBox = null;
+    }
+
+    private static long key(int line, int column){
+        return ((long) line << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Count a read of the given head at the given line and column.
+     */
+    void read(int head, int line, int column){
+        access(line, column, 0);
+        visit(head, line, column);
+    }
+
+    /**
+     * Count a write of the given head at the given line and column.
+     */
+    void written(int head, int line, int column){
+        access(line, column, 1);
+        visit(head, line, column);
+    }
+
+    /**
+     * Count a move of the given head to the given line and column.
+     */
+    void moved(int head, int line, int column){
+        if(head >= travels.length)
+            travels = Arrays.copyOf(travels, head + 1);
+        travels[head]++;
+        visit(head, line, column);
+    }
+
+    /**
+     * Shift the counters of the heads following the given removed head.
+     * @param head
+     * @see TuringMachine#removeHead(Tape, int)
+     */
+    void headRemoved(int head){
+        if(head < travels.length) {
+            System.arraycopy(travels, head + 1, travels, head, travels.length - head - 1);
+            travels[travels.length - 1] = 0;
+        }
+        if(head < extents.length) {
+            System.arraycopy(extents, head + 1, extents, head, extents.length - head - 1);
+            extents[extents.length - 1] = null;
+        }
+    }
+
+    private void access(int line, int column, int index){
+        long[] counters = cells.computeIfAbsent(key(line, column), k -> new long[2]);
+        counters[index]++;
+        maximumAccesses = Math.max(maximumAccesses, counters[0] + counters[1]);
+
+        if(boundingBox == null)
+            boundingBox = new int[]{line, line, column, column};
+        else
+            extend(boundingBox, line, column);
+    }
+
+    private void visit(int head, int line, int column){
+        if(head >= extents.length)
+            extents = Arrays.copyOf(extents, head + 1);
+        if(extents[head] == null)
+            extents[head] = new int[]{line, line, column, column};
+        else
+            extend(extents[head], line, column);
+    }
+
+    private static void extend(int[] box, int line, int column){
+        box[0] = Math.min(box[0], line);
+        box[1] = Math.max(box[1], line);
+        box[2] = Math.min(box[2], column);
+        box[3] = Math.max(box[3], column);
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @return the number of times the cell at the given line and column was read.
+     */
+    public long getReads(int line, int column){
+        long[] counters = cells.get(key(line, column));
+        return counters == null ? 0 : counters[0];
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @return the number of times the cell at the given line and column was written.
+     */
+    public long getWrites(int line, int column){
+        long[] counters = cells.get(key(line, column));
+        return counters == null ? 0 : counters[1];
+    }
+
+    /**
+     * @param line
+     * @param column
+     * @return the number of times the cell at the given line and column was read or written.
+     */
+    public long getAccesses(int line, int column){
+        long[] counters = cells.get(key(line, column));
+        return counters == null ? 0 : counters[0] + counters[1];
+    }
+
+    /**
+     * @return the maximum number of accesses (reads and writes) of a cell.
+     */
+    public long getMaximumAccesses(){
+        return maximumAccesses;
+    }
+
+    /**
+     * Call the given consumer on every accessed cell, in no particular order.
+     * @param consumer
+     */
+    public void forEachCell(CellCounterConsumer consumer){
+        for(Map.Entry<Long, long[]> entry : cells.entrySet()){
+            long key = entry.getKey();
+            consumer.accept((int) (key >> 32), (int) key, entry.getValue()[0], entry.getValue()[1]);
+        }
+    }
+
+    /**
+     * @return the number of cells read or written.
+     */
+    public int getCellsTouched(){
+        return cells.size();
+    }
+
+    /**
+     * @return the smallest rectangle containing every cell read or written, as an array {minLine, maxLine,
+     * minColumn, maxColumn}, or null if no cell was accessed.
+     */
+    public int[] getBoundingBox(){
+        return boundingBox == null ? null : boundingBox.clone();
+    }
+
+    /**
+     * @param head index of a head of the tape
+     * @return the number of cells the given head moved.
+     */
+    public long getTravel(int head){
+        return head < travels.length ? travels[head] : 0;
+    }
+
+    /**
+     * @param head index of a head of the tape
+     * @return the extent of the given head, as an array {minLine, maxLine, minColumn, maxColumn}, or null if the head
+     * did not access the tape.
+     */
+    public int[] getExtent(int head){
+        return (head < extents.length && extents[head] != null) ? extents[head].clone() : null;
+    }
+
+    /**
+     * Set every counter to 0.
+     */
+    public void reset(){
+        cells.clear();
+        maximumAccesses = 0;
+        Arrays.fill(travels, 0);
+        Arrays.fill(extents, null);
+        boundingBox = null;
+    }
+
+    /**
+     * @return a summary of the space used on the tape: the number of touched cells, the bounding box of the touched
+     * cells, and the travel and the extent of each head.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(cells.size()).append(" cells touched");
+        if(boundingBox != null)
+            sb.append(", lines [").append(boundingBox[0]).append(", ").append(boundingBox[1])
+                    .append("], columns [").append(boundingBox[2]).append(", ").append(boundingBox[3]).append("]");
+        for(int head = 0; head < Math.max(travels.length, extents.length); head++){
+            int[] extent = getExtent(head);
+            if(extent == null && getTravel(head) == 0)
+                continue;
+            sb.append("\nhead ").append(head).append(": travel ").append(getTravel(head));
+            if(extent != null)
+                sb.append(", lines [").append(extent[0]).append(", ").append(extent[1])
+                        .append("], columns [").append(extent[2]).append(", ").append(extent[3]).append("]");
+        }
+        return sb.toString();
+    }
+}
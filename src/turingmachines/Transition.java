@@ -4,8 +4,6 @@
 
 package turingmachines;
 
-import util.Subscriber;
-
 import java.util.*;
 
 /**
@@ -35,6 +33,12 @@ import java.util.*;
  */
 public class Transition {
 
+    /**
+     * Identifier of the transition, unique among the transitions of the machine. Contrary to the indexes of the
+     * states, it never changes.
+     */
+    private final int id;
+
     /**
      * The input state of the transition
      */
@@ -71,6 +75,7 @@ public class Transition {
      */
     Transition(TuringMachine machine, Integer input, Integer output) {
         this.machine = machine;
+        this.id = machine.nextTransitionId();
 
         this.input = input;
         this.output = output;
@@ -99,6 +104,13 @@ public class Transition {
         this.output = output;
     }
 
+    /**
+     * @return the identifier of the transition, unique among the transitions of the machine.
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * @return the input state of the transition
      */
@@ -175,7 +187,7 @@ public class Transition {
     public void addAction(Action action){
         actions.add(action);
 
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_ACTION,
+        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_ACTION,
                 this.machine, this, action.tape, action.head, action.getType(), action.value());
     }
 
@@ -190,7 +202,7 @@ public class Transition {
         if(index < 0 || index >= actions.size())
             return;
         actions.remove(index);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_ACTION, this.machine, this, index);
+        this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_ACTION, this.machine, this, index);
     }
 
     /**
@@ -276,7 +288,7 @@ public class Transition {
         Set<String> set = list.get(head);
         for(String s : symbols)
             if(set.add(s))
-                Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_READ_SYMBOL,
+                this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_READ_SYMBOL,
                         this.machine, this, tape, head, s);
 
         this.machine.checkDeterministic(input);
@@ -305,7 +317,7 @@ public class Transition {
 
         for(String s : symbols)
             if(set.remove(s))
-                Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_READ_SYMBOL,
+                this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_READ_SYMBOL,
                         this.machine, this, tape, head, s);
 
         this.machine.checkDeterministic(input);
@@ -328,7 +340,7 @@ public class Transition {
 
         Set<String> readSymbols = list.get(head);
         for(String s : readSymbols)
-            Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_READ_SYMBOL,
+            this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_READ_SYMBOL,
                     this.machine, this, tape, head, s);
         readSymbols.clear();
 
@@ -352,7 +364,7 @@ public class Transition {
             for(int head = 0; head < tape.getNbHeads(); head++){
                 Set<String> readSymbols = list.get(head);
                 if(readSymbols.remove(symbol))
-                    Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_READ_SYMBOL,
+                    this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_READ_SYMBOL,
                             this.machine, this, tape, head, symbol);
             }
 
@@ -390,7 +402,7 @@ public class Transition {
      */
     void fire(boolean log){
         if(log)
-            Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_FIRED_TRANSITION, this.machine, this);
+            this.machine.broadcast(TuringMachine.SUBSCRIBER_MSG_FIRED_TRANSITION, this.machine, this);
         Iterator<Action> actionsIt = getActions();
         while(actionsIt.hasNext())
             actionsIt.next().doAction(log);
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Decider proving that an execution never ends when the machine repeats the same computation further and further on
+ * an infinite tape. The decider only applies to machines with one tape, with one line and one head.
+ *
+ * A record is a configuration in which the head is further on the right (or on the left) than it has ever been,
+ * every cell on the right (or on the left) of the head is then BLANK. Let r1 and r2 be two records on the right, in
+ * the same state, with the head at the columns c1 and c2 = c1 + d, and let m be the leftmost column visited by the
+ * head between r1 and r2. Between r1 and r2, the machine only reads the cells from the column m. If the cells from
+ * m to c1 in r1 are the cells from m + d to c2 in r2, the configuration r2 from the column m + d is thus the
+ * configuration r1 from the column m translated of d cells: the machine does, from r2, the same computation as from
+ * r1 translated of d cells, reaches a third record r3 with the head at c2 + d, and so on forever. The records on the
+ * left are handled symmetrically. If the tape is bounded on the other side, the head should not reach the bound
+ * between r1 and r2, as a head on the bound cannot move further while the translated head could.
+ *
+ * Only the last {@link #MAXIMUM_RECORDS} records of each side are kept, and two records are not compared if more
+ * than {@link #MAXIMUM_SEGMENT} cells should be compared. The decider does not apply if the input word is streamed
+ * and not completely read when the execution starts, as the BLANK cells on each side are then unknown.
+ */
+public class TranslatedCyclerDecider implements HaltingDecider {
+
+    /**
+     * Maximum number of records kept on each side.
+     */
+    private static final int MAXIMUM_RECORDS = 64;
+
+    /**
+     * Maximum number of cells compared between two records.
+     */
+    private static final int MAXIMUM_SEGMENT = 4096;
+
+    /**
+     * Configuration in which the head is further than it has ever been on one side.
+     */
+    private static class Record {
+        final MachineSnapshot snapshot;
+        final int column;
+
+        /**
+         * Column visited by the head since the record which is the furthest on the other side.
+         */
+        int furthestBack;
+
+        Record(MachineSnapshot snapshot, int column) {
+            this.snapshot = snapshot;
+            this.column = column;
+            this.furthestBack = column;
+        }
+    }
+
+    /**
+     * Records of one side of the tape.
+     */
+    private class Side {
+
+        /**
+         * 1 for the right side and -1 for the left side.
+         */
+        final int sign;
+
+        /**
+         * Bound of the tape on the other side, null if the tape is infinite on the other side.
+         */
+        final Integer otherBound;
+
+        /**
+         * Furthest column of that side visited by the head or containing a symbol different from the BLANK symbol.
+         */
+        int extreme;
+
+        /**
+         * Records of that side, in the order of the execution. The column {@link Record#furthestBack} of the
+         * records is sorted in the same order.
+         */
+        final List<Record> records;
+
+        Side(int sign, Integer otherBound, int extreme) {
+            this.sign = sign;
+            this.otherBound = otherBound;
+            this.extreme = extreme;
+            this.records = new ArrayList<>();
+        }
+
+        String check(MachineSnapshot snapshot, int column){
+            for(int i = records.size() - 1; i >= 0 && sign * records.get(i).furthestBack > sign * column; i--)
+                records.get(i).furthestBack = column;
+
+            if(sign * column <= sign * extreme)
+                return null;
+            extreme = column;
+
+            Record record = new Record(snapshot, column);
+            for(int i = records.size() - 1; i >= 0; i--){
+                Record previous = records.get(i);
+                if(previous.snapshot.getState().equals(snapshot.getState()) && sameSegment(previous, record))
+                    return "The computation between the steps " + previous.snapshot.getSteps() + " and "
+                            + snapshot.getSteps() + " is repeated forever, translated of "
+                            + (column - previous.column) + " cells at each repetition.";
+            }
+
+            records.add(record);
+            if(records.size() > MAXIMUM_RECORDS)
+                records.remove(0);
+            return null;
+        }
+
+        private boolean sameSegment(Record previous, Record record){
+            int shift = record.column - previous.column;
+            int back = previous.furthestBack;
+            if(sign * (previous.column - back) >= MAXIMUM_SEGMENT)
+                return false;
+            if(otherBound != null && back == otherBound)
+                return false;
+
+            for(int column = back; column != previous.column + sign; column += sign)
+                if(!Objects.equals(previous.snapshot.getSymbol(tape, line, column),
+                        record.snapshot.getSymbol(tape, line, column + shift)))
+                    return false;
+            return true;
+        }
+    }
+
+    private Tape tape;
+
+    /**
+     * Only line of the tape.
+     */
+    private int line;
+
+    /**
+     * Records on the right side of the tape, null if that side is bounded or if the decider does not apply.
+     */
+    private Side right;
+
+    /**
+     * Records on the left side of the tape, null if that side is bounded or if the decider does not apply.
+     */
+    private Side left;
+
+    @Override
+    public void start(TuringMachine machine, MachineSnapshot snapshot) {
+        right = null;
+        left = null;
+        if(machine.getNbTapes() != 1)
+            return;
+
+        tape = machine.getTapes().next();
+        if(tape.getNbHeads() != 1 || tape.getBottomBound() == null
+                || !tape.getBottomBound().equals(tape.getTopBound()))
+            return;
+        line = tape.getBottomBound();
+
+        int column = snapshot.getHeadColumn(tape, 0);
+        int[] extremes = {column, column};
+        boolean complete = snapshot.forEachCell(tape, (line, c, symbol) -> {
+            extremes[0] = Math.min(extremes[0], c);
+            extremes[1] = Math.max(extremes[1], c);
+        });
+        if(!complete)
+            return;
+
+        if(tape.getRightBound() == null)
+            right = new Side(1, tape.getLeftBound(), extremes[1]);
+        if(tape.getLeftBound() == null)
+            left = new Side(-1, tape.getRightBound(), extremes[0]);
+    }
+
+    @Override
+    public String check(MachineSnapshot snapshot) {
+        if(right == null && left == null)
+            return null;
+
+        String evidence = null;
+        int column = snapshot.getHeadColumn(tape, 0);
+        if(right != null)
+            evidence = right.check(snapshot, column);
+        if(evidence == null && left != null)
+            evidence = left.check(snapshot, column);
+        return evidence;
+    }
+}
@@ -10,7 +10,7 @@ import util.Subscriber;
 import java.util.*;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents a Turing machine.
@@ -90,6 +90,14 @@ public class TuringMachine {
      */
     public static final String SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_END = "TMNonDeterministicExploreEnd";
 
+    /**
+     * Message sent regularly during the exploration of the machine (at most every
+     * {@link #EXPLORATION_PROGRESS_PERIOD} milliseconds). The parameters are the machine and an
+     * {@link ExplorationProgress}. The message is sent by the thread exploring the machine.
+     * @see util.Subscriber
+     */
+    public static final String SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_PROGRESS = "TMNonDeterministicExploreProgress";
+
     /**
      * Message sent when a state is added to the machine. The parameters are the machine and the identifier of the state.
      * @see util.Subscriber
@@ -312,6 +320,18 @@ public class TuringMachine {
      */
     public static final String SUBSCRIBER_MSG_ERROR = "TMError";
 
+    /**
+     * Message sent when the outermost batch opened with {@link #beginBatch()} is committed with {@link #commit()}.
+     * The parameters are the machine and a map associating each state whose transitions were modified during the
+     * batch with true if the state is deterministic and false otherwise (the map is empty if
+     * {@link #isCheckDeterministic()} is false). Every other message except {@link #SUBSCRIBER_MSG_ERROR} is
+     * dropped during the batch, the subscribers should thus read the whole machine again when receiving this message.
+     * @see util.Subscriber
+     * @see #beginBatch()
+     * @see #commit()
+     */
+    public static final String SUBSCRIBER_MSG_BATCH_COMMITTED = "TMBatchCommitted";
+
     /**
      * The initial value of the variable {@link #maximumNonDeterministicSearch}
      * @see #maximumNonDeterministicSearch
@@ -324,6 +344,18 @@ public class TuringMachine {
      */
     private static final int INITIAL_MANUAL_DETERMINISTIC_EXPLORATION = 1000;
 
+    /**
+     * Minimum duration (in milliseconds) between two {@link #SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_PROGRESS}
+     * messages.
+     */
+    public static final long EXPLORATION_PROGRESS_PERIOD = 250;
+
+    /**
+     * During the exploration of the configurations, one expansion is recorded by the flight recorder every
+     * EXPAND_EVENT_SAMPLING expansions (see {@link EngineEvents#beginExpand()}).
+     */
+    static final int EXPAND_EVENT_SAMPLING = 64;
+
     /**
      * The maximum number of iterations before the machine stops its execution when using the function 
      * {@link #exploreNonDeterministic(Set)}.
@@ -352,6 +384,18 @@ public class TuringMachine {
      */
     private int maximumManualDeterministicExploration;
 
+    /**
+     * Deciders checking the execution of the function {@link #manualExploreDeterministic()}. Initially, every decider
+     * of the package (see {@link HaltingDecider#standardDeciders()}).
+     */
+    private List<HaltingDecider> haltingDeciders;
+
+    /**
+     * Evidence given by a decider proving that the last execution of {@link #manualExploreDeterministic()} never
+     * ends, null if no decider proved it.
+     */
+    private String nonHaltingEvidence;
+
     /**
      * Number of states of the graph of the machine.
      */
@@ -416,9 +460,12 @@ public class TuringMachine {
      */
     private Pair<List<HardConfiguration>, List<Transition>> builtPath;
 
-    private Semaphore stopExplorationSemaphore;
-
-    private boolean stopExploration;
+    /**
+     * True if the exploration run by {@link #build()} should stop. This flag is read once per iteration of the
+     * exploration and may be set by another thread.
+     * @see #cancelBuild()
+     */
+    private volatile boolean stopExploration;
 
     private Executor buildExecutor;
 
@@ -439,6 +486,43 @@ public class TuringMachine {
      */
     private boolean checkDeterministic;
 
+    /**
+     * Number of batches opened with {@link #beginBatch()} and not yet committed with {@link #commit()}. While this
+     * number is positive, the messages are not broadcast and the determinism of the states is not checked.
+     */
+    private int batchDepth;
+
+    /**
+     * States whose determinism should be checked when the current batch is committed.
+     */
+    private Set<Integer> batchDirtyStates;
+
+    /**
+     * If this flag is true, the determinism of every state should be checked when the current batch is committed.
+     * Used when a state is removed during a batch, as the indexes of the states in {@link #batchDirtyStates} are
+     * not valid anymore.
+     */
+    private boolean batchAllStatesDirty;
+
+    /**
+     * Live counters of the executions and the builds of the machine.
+     * @see #getStatistics()
+     */
+    private final MachineStatistics statistics;
+
+    /**
+     * Counters of the fired transitions and the visited states, null if the machine is not profiled.
+     * @see #setProfiling(boolean)
+     */
+    private volatile ExecutionProfile profile;
+
+    /**
+     * Identifier of the next transition added to the machine. As transitions may be created by several threads, the
+     * identifiers are given atomically.
+     * @see Transition#getId()
+     */
+    private final AtomicInteger nextTransitionId;
+
     /**
      * Construction of the machine.
      *
@@ -449,6 +533,7 @@ public class TuringMachine {
         nbInitialStates = 0;
         maximumNonDeterministicSearch = INITIAL_MAXIMUM_NON_DETERMINISTIC_SEARCH;
         maximumManualDeterministicExploration = INITIAL_MANUAL_DETERMINISTIC_EXPLORATION;
+        haltingDeciders = HaltingDecider.standardDeciders();
 
         outputTransitions = new ArrayList<>();
         statesNames = new ArrayList<>();
@@ -464,9 +549,85 @@ public class TuringMachine {
 
         builtPath = null;
         stopExploration = false;
-        stopExplorationSemaphore = new Semaphore(1);
 
         checkDeterministic = true;
+
+        batchDepth = 0;
+        batchDirtyStates = new HashSet<>();
+        batchAllStatesDirty = false;
+
+        statistics = new MachineStatistics();
+        profile = null;
+        nextTransitionId = new AtomicInteger();
+    }
+
+    /**
+     * @return the live counters of the executions and the builds of the machine. Those counters are exposed through
+     * JMX only if they are registered (see {@link MachineStatistics#register()}).
+     */
+    public MachineStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Enable or disable the profiling of the machine. While the machine is profiled, the fired transitions and the
+     * visited states are counted in the profile returned by {@link #getProfile()}, and the accesses to the cells of
+     * each tape and the moves of its heads are counted in the profile returned by {@link Tape#getProfile()}.
+     * Disabling the profiling discards the counters.
+     * @param profiling
+     * @see ExecutionProfile
+     * @see TapeProfile
+     */
+    public void setProfiling(boolean profiling) {
+        if(!profiling)
+            profile = null;
+        else if(profile == null)
+            profile = new ExecutionProfile();
+
+        for(Tape tape : tapes)
+            tape.setProfiling(profiling);
+    }
+
+    /**
+     * @return true if the machine is profiled.
+     * @see #setProfiling(boolean)
+     */
+    public boolean isProfiling() {
+        return profile != null;
+    }
+
+    /**
+     * @return the counters of the fired transitions and the visited states, or null if the machine is not profiled.
+     * @see #setProfiling(boolean)
+     */
+    public ExecutionProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Count the given fired transition in the profile of the machine, if the machine is profiled.
+     * @param transition
+     */
+    void profileFired(Transition transition) {
+        ExecutionProfile profile = this.profile;
+        if(profile != null)
+            profile.fired(transition);
+    }
+
+    /**
+     * @return a new identifier for a transition of the machine.
+     */
+    int nextTransitionId() {
+        return nextTransitionId.getAndIncrement();
+    }
+
+    /**
+     * @return the number of transitions created for the machine, including the removed ones. Unlike the other
+     * methods, this method may be called from any thread, for instance to follow the reading of a machine file on
+     * another thread.
+     */
+    public int getNbCreatedTransitions() {
+        return nextTransitionId.get();
     }
 
     /**
@@ -507,6 +668,31 @@ public class TuringMachine {
         this.maximumManualDeterministicExploration = maximumManualDeterministicExploration;
     }
 
+    /**
+     * Add a decider checking the execution of the function {@link #manualExploreDeterministic()}.
+     * @param decider
+     * @see #getNonHaltingEvidence()
+     */
+    public void addHaltingDecider(HaltingDecider decider){
+        haltingDeciders.add(decider);
+    }
+
+    /**
+     * Remove a decider checking the execution of the function {@link #manualExploreDeterministic()}.
+     * @param decider
+     */
+    public void removeHaltingDecider(HaltingDecider decider){
+        haltingDeciders.remove(decider);
+    }
+
+    /**
+     * @return the evidence given by the decider which proved that the last execution of the function
+     * {@link #manualExploreDeterministic()} never ends, null if no decider proved it.
+     */
+    public String getNonHaltingEvidence() {
+        return nonHaltingEvidence;
+    }
+
     /**
      * @return true if, each time the graph of the machine is modified, function {@link #isDeterministic(int)} is
      * called to check if a state is deterministic or not. Otherwise the returned boolean is false and the function
@@ -547,11 +733,85 @@ public class TuringMachine {
         if(!checkDeterministic)
             return;
 
-        Subscriber.broadcast(isDeterministic(state) ?
+        if(isBatching()){
+            batchDirtyStates.add(state);
+            return;
+        }
+
+        broadcast(isDeterministic(state) ?
                 TuringMachine.SUBSCRIBER_MSG_SET_DETERMINISTIC_STATE :
                 TuringMachine.SUBSCRIBER_MSG_SET_NONDETERMINISTIC_STATE, this, state);
     }
 
+    /**
+     * Open a batch of modifications. Until the batch is committed with {@link #commit()}, no message is broadcast
+     * to the class {@link util.Subscriber} (except {@link #SUBSCRIBER_MSG_ERROR} messages) and the determinism of
+     * the modified states is not checked. This should be used to build or edit large machines (when loading a file
+     * for instance) as each modification would otherwise broadcast at least one message and check the determinism
+     * of a state.
+     *
+     * Batches may be nested, only the outermost call to {@link #commit()} ends the batch.
+     * @see #commit()
+     * @see #SUBSCRIBER_MSG_BATCH_COMMITTED
+     */
+    public void beginBatch(){
+        batchDepth++;
+    }
+
+    /**
+     * Commit the batch opened with the last call to {@link #beginBatch()}. If this batch is the outermost batch, the
+     * determinism of every state modified during the batch is checked and a single
+     * {@link #SUBSCRIBER_MSG_BATCH_COMMITTED} message is broadcast to the class {@link util.Subscriber}. Do nothing
+     * if no batch is opened.
+     * @see #beginBatch()
+     * @see util.Subscriber
+     */
+    public void commit(){
+        if(!isBatching())
+            return;
+        batchDepth--;
+        if(isBatching())
+            return;
+
+        Map<Integer, Boolean> determinism = new HashMap<>();
+        if(checkDeterministic) {
+            if (batchAllStatesDirty) {
+                for (int state = 0; state < nbStates; state++)
+                    determinism.put(state, isDeterministic(state));
+            } else {
+                for (Integer state : batchDirtyStates)
+                    if (state < nbStates)
+                        determinism.put(state, isDeterministic(state));
+            }
+        }
+        batchDirtyStates.clear();
+        batchAllStatesDirty = false;
+
+        broadcast(TuringMachine.SUBSCRIBER_MSG_BATCH_COMMITTED, this, Collections.unmodifiableMap(determinism));
+    }
+
+    /**
+     * @return true if a batch was opened with {@link #beginBatch()} and not yet committed.
+     * @see #beginBatch()
+     */
+    public boolean isBatching(){
+        return batchDepth > 0;
+    }
+
+    /**
+     * Broadcast the given message with the given parameters to the class {@link util.Subscriber} unless a batch is
+     * currently opened.
+     * @param msg
+     * @param parameters
+     * @see #beginBatch()
+     * @see util.Subscriber
+     */
+    void broadcast(String msg, Object... parameters){
+        if(isBatching())
+            return;
+        Subscriber.broadcast(msg, parameters);
+    }
+
     /**
      * Add a new transition from the state input to the state ouput.
      *
@@ -576,7 +836,7 @@ public class TuringMachine {
             }
         }
 
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_TRANSITION, this, a);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_TRANSITION, this, a);
 
         checkDeterministic(input);
 
@@ -601,11 +861,19 @@ public class TuringMachine {
         if(!transitions.remove(a))
             return;
 
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_TRANSITION, this, a);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_TRANSITION, this, a);
 
         checkDeterministic(input);
     }
 
+    /**
+     * @param state index of a state
+     * @return an iterator to the list of output transitions of the given state.
+     */
+    public Iterator<Transition> getOutputTransitions(int state){
+        return outputTransitions.get(state).iterator();
+    }
+
     /**
      * @return the number of states of the graph.
      */
@@ -637,7 +905,7 @@ public class TuringMachine {
         initialStates.add(false);
         finalStates.add(false);
         acceptingStates.add(false);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_STATE, this, nbStates - 1);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_STATE, this, nbStates - 1);
         return nbStates - 1;
     }
 
@@ -662,7 +930,7 @@ public class TuringMachine {
         if(state < 0 || state >= getNbStates())
             return;
         statesNames.set(state, name);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_EDIT_STATE_NAME, this, state, name);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_EDIT_STATE_NAME, this, state, name);
     }
 
     /**
@@ -716,7 +984,14 @@ public class TuringMachine {
         finalStates.remove(state);
         acceptingStates.remove(state);
 
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_STATE, this, state);
+        ExecutionProfile profile = this.profile;
+        if(profile != null)
+            profile.stateRemoved(state);
+
+        if(isBatching())
+            batchAllStatesDirty = true;
+
+        broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_STATE, this, state);
     }
 
     /**
@@ -732,7 +1007,7 @@ public class TuringMachine {
         nbInitialStates++;
         initialStates.set(state, true);
 
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_SET_INITIAL_STATE, this, state);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_SET_INITIAL_STATE, this, state);
 
         for(int s = 0; s < getNbStates() ; s++)
             if(isInitial(s))
@@ -751,7 +1026,7 @@ public class TuringMachine {
             return;
         nbInitialStates--;
         initialStates.set(state, false);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_UNSET_INITIAL_STATE, this, state);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_UNSET_INITIAL_STATE, this, state);
 
         checkDeterministic(state);
 
@@ -787,7 +1062,7 @@ public class TuringMachine {
     private void setCurrentState(Integer currentState, boolean log) {
         this.currentState = currentState;
         if(log)
-            Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_CURRENT_STATE_CHANGED, this, currentState);
+            broadcast(TuringMachine.SUBSCRIBER_MSG_CURRENT_STATE_CHANGED, this, currentState);
     }
 
     /**
@@ -799,13 +1074,14 @@ public class TuringMachine {
      */
     public Tape addTape(){
         Tape tape = new Tape(this);
+        tape.setProfiling(isProfiling());
         tapes.add(tape);
 
         for(int state = 0; state < this.getNbStates(); state++)
             for(Transition transition : this.outputTransitions.get(state))
                 transition.addTape(tape);
 
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_TAPE, this, tape);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_TAPE, this, tape);
         return tape;
     }
 
@@ -846,7 +1122,7 @@ public class TuringMachine {
                 transition.removeTape(tape);
 
         tapes.remove(tape);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_TAPE, this, tape);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_TAPE, this, tape);
     }
 
     /**
@@ -884,7 +1160,7 @@ public class TuringMachine {
             for(Transition transition : this.outputTransitions.get(state))
                 transition.addHead(tape);
 
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_HEAD, this, tape, tape.getNbHeads() - 1,
+        broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_HEAD, this, tape, tape.getNbHeads() - 1,
                 line, column);
     }
 
@@ -903,7 +1179,7 @@ public class TuringMachine {
             for(Transition transition : this.outputTransitions.get(state))
                 transition.removeHead(tape, head);
 
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_HEAD, this, tape, head);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_HEAD, this, tape, head);
     }
 
 
@@ -922,7 +1198,7 @@ public class TuringMachine {
             return;
         }
         symbols.add(symbol);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_SYMBOL, this, symbol);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_ADD_SYMBOL, this, symbol);
     }
 
     /**
@@ -944,7 +1220,7 @@ public class TuringMachine {
             return;
         }
         String prevSymbol = symbols.set(i, symbol);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_EDIT_SYMBOL, this, i, prevSymbol, symbol);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_EDIT_SYMBOL, this, i, prevSymbol, symbol);
     }
 
     /**
@@ -969,7 +1245,7 @@ public class TuringMachine {
             tape.removeSymbol(symbol);
         }
 
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_SYMBOL, this, i, symbol);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_REMOVE_SYMBOL, this, i, symbol);
     }
 
     /**
@@ -1017,7 +1293,7 @@ public class TuringMachine {
      */
     public void setFinalState(int state){
         finalStates.set(state, true);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_SET_FINAL_STATE, this, state);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_SET_FINAL_STATE, this, state);
     }
 
     /**
@@ -1035,7 +1311,7 @@ public class TuringMachine {
     public void setAcceptingState(int state){
         acceptingStates.set(state, true);
         setFinalState(state);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_SET_ACCEPTING_STATE, this, state);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_SET_ACCEPTING_STATE, this, state);
     }
 
     /**
@@ -1053,7 +1329,7 @@ public class TuringMachine {
     public void unsetFinalState(int state){
         finalStates.set(state, false);
         unsetAcceptingState(state);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_UNSET_FINAL_STATE, this, state);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_UNSET_FINAL_STATE, this, state);
     }
 
     /**
@@ -1068,7 +1344,7 @@ public class TuringMachine {
      */
     public void unsetAcceptingState(int state){
         acceptingStates.set(state, false);
-        Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_UNSET_ACCEPTING_STATE, this, state);
+        broadcast(TuringMachine.SUBSCRIBER_MSG_UNSET_ACCEPTING_STATE, this, state);
     }
     /**
      * @param state Index of a state
@@ -1145,6 +1421,8 @@ public class TuringMachine {
      * @see #loadConfiguration(HardConfiguration, boolean)
      */
     private void loadConfiguration(Configuration configuration){
+            Object event = EngineEvents.INSTANCE.beginLoadConfiguration();
+
             Pair<HardConfiguration, List<Transition>> pair = configuration.transitionsFromHard();
 
             loadConfiguration(pair.first, false);
@@ -1154,6 +1432,8 @@ public class TuringMachine {
                 transition.fire(false);
                 setCurrentState(transition.getOutput(), false);
             }
+
+            EngineEvents.INSTANCE.endLoadConfiguration(event, pair.second.size(), false, 0);
     }
 
     /**
@@ -1163,9 +1443,16 @@ public class TuringMachine {
      * @param log
      */
     private void loadConfiguration(HardConfiguration configuration, boolean log){
+        // When the changes are not logged, the loading is recorded by the caller, if needed.
+        Object event = log ? EngineEvents.INSTANCE.beginLoadConfiguration() : null;
+
+        int changedCells = 0;
         for(Map.Entry<Tape, TapeConfiguration> entry: configuration.tapesConfigurations.entrySet())
-            entry.getKey().loadConfiguration(entry.getValue(), log);
+            changedCells += entry.getKey().loadConfiguration(entry.getValue(), log);
         this.setCurrentState(configuration.state, log);
+
+        if(log)
+            EngineEvents.INSTANCE.endLoadConfiguration(event, 0, true, changedCells);
     }
 
     /**
@@ -1205,9 +1492,11 @@ public class TuringMachine {
                 // No log is done : the exploration is not broadcasted.
                 transition.fire(false);
                 setCurrentState(transition.getOutput(), false);
+                profileFired(transition);
                 childConfiguration = new Configuration();
                 childConfiguration.transitionFromParent = transition;
                 childConfiguration.parent = configuration;
+                childConfiguration.depth = configuration.depth + 1;
                 children.add(childConfiguration);
                 // Reload the given configuration before firing the next transition.
                 this.loadConfiguration(configuration);
@@ -1225,6 +1514,9 @@ public class TuringMachine {
      * {@link util.Subscriber} if the number of iterations of the search algorithm is greater than
      * {@link #maximumNonDeterministicSearch}.
      *
+     * A {@link #SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_PROGRESS} message is broadcast every
+     * {@link #EXPLORATION_PROGRESS_PERIOD} milliseconds during the exploration.
+     *
      * @param initialConfigurations
      * @return a list of configurations corresponding to an execution of the machine.
      * @see util.Subscriber
@@ -1248,20 +1540,44 @@ public class TuringMachine {
         // infinite exploration.
         int iteration = 0;
         boolean stop = false;
+
+        long start = System.nanoTime();
+        long nextProgress = start + EXPLORATION_PROGRESS_PERIOD * 1_000_000;
+        // Number of iterations already counted in the statistics of the machine.
+        int countedIterations = 0;
+
+        // The configurations are explored in increasing depth, the exploration of each depth is recorded.
+        int levelDepth = 0;
+        long levelExplored = 0;
+        Object levelEvent = EngineEvents.INSTANCE.beginExploreLevel(levelDepth);
+
         while(!toExplore.isEmpty() && iteration < maximumNonDeterministicSearch){
-            try {
-                stopExplorationSemaphore.acquire();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-            stop = stopExploration;
-            stopExplorationSemaphore.release();
-            if(stop)
+            if(stopExploration || Thread.currentThread().isInterrupted()) {
+                stop = true;
                 break;
+            }
 
             iteration++;
             configuration = toExplore.pollFirst();
 
+            if(configuration.depth != levelDepth){
+                EngineEvents.INSTANCE.endExploreLevel(levelEvent, levelExplored, toExplore.size() + 1);
+                levelDepth = configuration.depth;
+                levelExplored = 0;
+                levelEvent = EngineEvents.INSTANCE.beginExploreLevel(levelDepth);
+            }
+            levelExplored++;
+
+            long now = System.nanoTime();
+            if(now >= nextProgress){
+                nextProgress = now + EXPLORATION_PROGRESS_PERIOD * 1_000_000;
+                broadcast(SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_PROGRESS, this,
+                        new ExplorationProgress(iteration, toExplore.size(), configuration.depth, now - start));
+                statistics.configurationsExplored(iteration - countedIterations, toExplore.size());
+                statistics.cellsWritten(tapes);
+                countedIterations = iteration;
+            }
+
             // Check if the configuration is accepting, in that case we end the exploration
             if(this.isAcceptingConfiguration(configuration)) {
                 accepting = true;
@@ -1275,10 +1591,20 @@ public class TuringMachine {
             }
 
             // Explore the children and add them to the list.
-            toExplore.addAll(this.explore(configuration));
+            boolean sampled = iteration % EXPAND_EVENT_SAMPLING == 0;
+            Object expandEvent = sampled ? EngineEvents.INSTANCE.beginExpand() : null;
+
+            Set<Configuration> children = this.explore(configuration);
+
+            if(sampled)
+                EngineEvents.INSTANCE.endExpand(expandEvent, configuration.depth, children.size(), tapes);
+
+            toExplore.addAll(children);
 
         }
-        System.out.println(iteration);
+        EngineEvents.INSTANCE.endExploreLevel(levelEvent, levelExplored, toExplore.size());
+        statistics.configurationsExplored(iteration - countedIterations, 0);
+        statistics.cellsWritten(tapes);
 
         // If the maximum number of iterations is reached, an error message is broadcase.
         if(iteration == maximumNonDeterministicSearch){
@@ -1330,6 +1656,8 @@ public class TuringMachine {
      * A {@link #SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_START} message is broadcast when the exploration starts.
      * A {@link #SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_END} message is broadcast when the exploration ends.
      *
+     * Once the exploration ends, the tapes are put back in their initial configuration.
+     *
      * @see #isValid()
      * @see util.Subscriber
      */
@@ -1339,10 +1667,16 @@ public class TuringMachine {
             return;
         }
 
+        statistics.buildStarted();
+        long start = System.nanoTime();
+        long explored = statistics.getConfigurationsExplored();
+
+        Object event = EngineEvents.INSTANCE.beginBuild();
+
         for(Tape tape : tapes)
                 tape.reinit();
 
-        Subscriber.broadcast(SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_START, this);
+        broadcast(SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_START, this);
 
         HashSet<HardConfiguration> initialConfigurations = new HashSet<>();
 
@@ -1357,10 +1691,21 @@ public class TuringMachine {
         builtPath = this.exploreNonDeterministic(initialConfigurations);
         builtIndex = new Pair<>(0, 0);
 
+        // Put the tapes back in their initial configuration, which is still the one displayed by the listeners, so
+        // that the next logged configuration loading only broadcasts the cells that differ from it.
+        HardConfiguration initialConfiguration = initialConfigurations.iterator().next();
+        for(Map.Entry<Tape, TapeConfiguration> entry: initialConfiguration.tapesConfigurations.entrySet())
+            entry.getKey().loadConfiguration(entry.getValue());
+
         if(builtPath == null)
             Subscriber.broadcast(TuringMachine.SUBSCRIBER_MSG_ERROR, this, "Cannot end computation.");
 
-        Subscriber.broadcast(SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_END, this);
+        statistics.buildEnded(stopExploration, System.nanoTime() - start);
+
+        EngineEvents.INSTANCE.endBuild(event, nbStates, statistics.getConfigurationsExplored() - explored,
+                (builtPath == null) ? -1 : builtPath.second.size(), stopExploration);
+
+        broadcast(SUBSCRIBER_MSG_NON_DETERMINISTIC_EXPLORE_END, this);
 
     }
 
@@ -1378,13 +1723,7 @@ public class TuringMachine {
     }
 
     public void cancelBuild(){
-        try {
-            stopExplorationSemaphore.acquire();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
         stopExploration = true;
-        stopExplorationSemaphore.release();
     }
 
     /**
@@ -1411,6 +1750,8 @@ public class TuringMachine {
             builtIndex.second++;
             transition.fire(true);
             setCurrentState(transition.getOutput(), true);
+            statistics.transitionsFired(transition.getInput(), 1);
+            profileFired(transition);
             return true;
         }
         return false;
@@ -1568,6 +1909,9 @@ public class TuringMachine {
 
         transition.fire(true);
         setCurrentState(transition.getOutput(), true);
+        statistics.transitionsFired(transition.getInput(), 1);
+        statistics.cellsWritten(tapes);
+        profileFired(transition);
 
         HardConfiguration configuration = this.saveConfiguration();
         
@@ -1582,7 +1926,16 @@ public class TuringMachine {
 
     }
 
+    /**
+     * Fire, from the current configuration, the first transition that can be fired as long as the current state is
+     * deterministic, at most {@link #maximumManualDeterministicExploration} times. The configurations reached are
+     * added to the manual exploration and the machine goes back to the current configuration.
+     *
+     * The exploration stops as soon as a decider proves that the execution never ends (see
+     * {@link #addHaltingDecider(HaltingDecider)} and {@link #getNonHaltingEvidence()}).
+     */
     public void manualExploreDeterministic(){
+        nonHaltingEvidence = null;
         if(this.currentState == null)
             return;
 
@@ -1596,8 +1949,12 @@ public class TuringMachine {
         }
 
         HardConfiguration currentConfiguration = this.saveConfiguration();
+        MachineSnapshot start = new MachineSnapshot(currentState, 0, currentConfiguration.tapesConfigurations);
+        for(HaltingDecider decider : haltingDeciders)
+            decider.start(this, start);
 
-        while(deterministics.contains(currentState) && iteration < maximumManualDeterministicExploration){
+        while(deterministics.contains(currentState) && iteration < maximumManualDeterministicExploration
+                && nonHaltingEvidence == null){
             iteration++;
             explored = false;
             if(isFinal(currentState))
@@ -1609,6 +1966,8 @@ public class TuringMachine {
 
                 transition.fire(false);
                 setCurrentState(transition.getOutput(), false);
+                statistics.transitionsFired(transition.getInput(), 1);
+                profileFired(transition);
                 HardConfiguration configuration = this.saveConfiguration();
 
                 if(builtIndex.first != builtPath.first.size() - 1) {
@@ -1620,6 +1979,14 @@ public class TuringMachine {
                 builtIndex.first++;
                 builtIndex.second++;
 
+                MachineSnapshot snapshot = new MachineSnapshot(currentState, iteration,
+                        configuration.tapesConfigurations);
+                for(HaltingDecider decider : haltingDeciders) {
+                    nonHaltingEvidence = decider.check(snapshot);
+                    if (nonHaltingEvidence != null)
+                        break;
+                }
+
                 explored = true;
                 break;
             }
@@ -1650,7 +2017,7 @@ public class TuringMachine {
      * @return true if the set of output transition of the given state is deterministic and if the state is not initial
      * or if it is the only initial state.
      */
-    boolean isDeterministic(int state){
+    public boolean isDeterministic(int state){
 
         // If there are multiple initial states, all those states are non-deterministic.
         if(isInitial(state) && this.getNbInitialStates() >= 2)
@@ -2009,6 +2376,11 @@ class Configuration{
      */
     Transition transitionFromParent;
 
+    /**
+     * Number of transitions fired to get this configuration from an initial configuration of the machine.
+     */
+    int depth;
+
     /**
      * @return the state of the machine in the current configuration.
      */
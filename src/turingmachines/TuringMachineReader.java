@@ -0,0 +1,612 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import util.Pair;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class reading a machine file (*.tm) and populating a Turing machine with its content.
+ *
+ * The file is a JSON document with three members:
+ * <ul>
+ *     <li>"options" containing the duration of the animations and the maximum number of iterations of the
+ *     explorations.</li>
+ *     <li>"tapes" containing the list of symbols ("symbolsMenu") and the list of tapes ("tapes"). Each tape is
+ *     described by its bounds ("leftBound", "rightBound", "bottomBound" and "topBound", "inf" if the tape is
+ *     infinite), its heads ("heads", a list of colors, lines and columns) and its input word ("cells", a list of
+ *     symbols, lines and columns).</li>
+ *     <li>"graph" containing the list of states ("states", a list of positions, names and flags) and the list of
+ *     transitions ("transitions", a list of input and output states, control keys and read symbols and actions
+ *     ("display")).</li>
+ * </ul>
+ *
+ * The document is read token by token and the machine is populated during the reading. The input words of the tapes,
+ * which are the largest part of the file, are thus never stored twice in memory. The only buffered part is the
+ * list of transitions if they appear before the tapes or the states in the file (as the transitions refer to the
+ * states, the tapes and the heads).
+ *
+ * The machine is populated in a batch (see {@link TuringMachine#beginBatch()}): no message is broadcast before the
+ * end of the reading.
+ *
+ * Every information that does not belong to the machine (positions of the states, colors of the heads, ...) is
+ * stored in a {@link MachineLayout}.
+ *
+ * @see TuringMachineWriter
+ */
+public class TuringMachineReader {
+
+    /**
+     * Size of the buffer used to decode the file.
+     */
+    static final int BUFFER_SIZE = 65536;
+
+    /**
+     * Name of the BLANK symbol in a file.
+     */
+    static final String BLANK_SYMBOL = "BLANK_SYMBOL";
+
+    /**
+     * Name of the move action to the left in a file.
+     */
+    static final String LEFT_SYMBOL = "LEFT_SYMBOL";
+
+    /**
+     * Name of the move action to the right in a file.
+     */
+    static final String RIGHT_SYMBOL = "RIGHT_SYMBOL";
+
+    /**
+     * Name of the move action to the top in a file.
+     */
+    static final String UP_SYMBOL = "UP_SYMBOL";
+
+    /**
+     * Name of the move action to the bottom in a file.
+     */
+    static final String DOWN_SYMBOL = "DOWN_SYMBOL";
+
+    /**
+     * Characters drawn by the GUI for the BLANK symbol and for the move actions, used instead of the names in the
+     * files saved by the GUI.
+     * @see #getSymbolName(String)
+     */
+    static final String BLANK_CHARACTER = "\u2205";
+    static final String LEFT_CHARACTER = "\u21D0";
+    static final String RIGHT_CHARACTER = "\u21D2";
+    static final String UP_CHARACTER = "\u21D1";
+    static final String DOWN_CHARACTER = "\u21D3";
+
+    /**
+     * Value of an infinite bound in a file.
+     */
+    static final String INFINITE_BOUND = "inf";
+
+    /**
+     * Populated machine.
+     */
+    private TuringMachine machine;
+
+    /**
+     * Layout filled with the informations of the file that does not belong to the machine.
+     */
+    private MachineLayout layout;
+
+    /**
+     * Heads of the machine, identified by their color.
+     */
+    private Map<String, Pair<Tape, Integer>> heads;
+
+    /**
+     * True if the tapes were already read.
+     */
+    private boolean tapesRead;
+
+    /**
+     * True if the states were already read.
+     */
+    private boolean statesRead;
+
+    /**
+     * Transitions read before the tapes or the states, that are added to the machine at the end of the reading.
+     */
+    private List<TransitionRecord> pendingTransitions;
+
+    /**
+     * Build a reader populating the given machine and the given layout. The machine should be empty.
+     * @param machine
+     * @param layout
+     */
+    public TuringMachineReader(TuringMachine machine, MachineLayout layout) {
+        this.machine = machine;
+        this.layout = layout;
+    }
+
+    /**
+     * Read the file with the given name.
+     * @param filename
+     * @throws IOException if the file cannot be read or is not a valid machine file.
+     */
+    public void read(String filename) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            read(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE));
+        }
+    }
+
+    /**
+     * Read the machine file given by the reader.
+     * @param reader
+     * @throws IOException if the reader cannot be read or does not contain a valid machine file.
+     */
+    public void read(Reader reader) throws IOException {
+        heads = new HashMap<>();
+        tapesRead = false;
+        statesRead = false;
+        pendingTransitions = new LinkedList<>();
+
+        JSONStreamReader in = new JSONStreamReader(reader);
+        machine.beginBatch();
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "options":
+                        readOptions(in);
+                        break;
+                    case "tapes":
+                        readTapes(in);
+                        break;
+                    case "graph":
+                        readGraph(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            for (TransitionRecord record : pendingTransitions)
+                addTransition(record);
+        }
+        finally {
+            pendingTransitions = null;
+            heads = null;
+            machine.commit();
+        }
+    }
+
+    private void readOptions(JSONStreamReader in) throws IOException {
+        in.beginObject();
+        while(in.hasNext()){
+            switch (in.nextName()){
+                case "animationDuration":
+                    layout.setAnimationDuration(in.nextLong());
+                    break;
+                case "maximumNonDeterministicSearch":
+                    machine.setMaximumNonDeterministicSearch(in.nextInt());
+                    break;
+                case "maximumManualDeterministicExploration":
+                // Name used by the first versions of the loader.
+                case "maximumManualNonDeterministicExploration":
+                    machine.setMaximumManualDeterministicExploration(in.nextInt());
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private void readTapes(JSONStreamReader in) throws IOException {
+        in.beginObject();
+        while(in.hasNext()){
+            switch (in.nextName()){
+                case "symbolsMenu":
+                    in.beginArray();
+                    while(in.hasNext())
+                        machine.addSymbol(in.nextString());
+                    in.endArray();
+                    break;
+                case "tapes":
+                    in.beginArray();
+                    while(in.hasNext())
+                        readTape(in);
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        tapesRead = true;
+    }
+
+    private void readTape(JSONStreamReader in) throws IOException {
+        Tape tape = machine.addTape();
+
+        // The bounds may appear after the heads and the cells in the file. Removing the bounds first prevents the
+        // tape from discarding heads and cells that are outside the default bounds.
+        tape.setLeftBound(null);
+        tape.setRightBound(null);
+        tape.setBottomBound(null);
+        tape.setTopBound(null);
+
+        in.beginObject();
+        while(in.hasNext()){
+            switch (in.nextName()){
+                case "leftBound":
+                    tape.setLeftBound(readBound(in));
+                    break;
+                case "rightBound":
+                    tape.setRightBound(readBound(in));
+                    break;
+                case "bottomBound":
+                    tape.setBottomBound(readBound(in));
+                    break;
+                case "topBound":
+                    tape.setTopBound(readBound(in));
+                    break;
+                case "heads":
+                    in.beginArray();
+                    while(in.hasNext())
+                        readHead(in, tape);
+                    in.endArray();
+                    break;
+                case "cells":
+                    in.beginArray();
+                    while(in.hasNext())
+                        readCell(in, tape);
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * @return the next bound of the document, null if the bound is infinite.
+     * @throws IOException
+     */
+    private Integer readBound(JSONStreamReader in) throws IOException {
+        if(in.peek() == JSONStreamReader.Token.NUMBER)
+            return in.nextInt();
+        in.skipValue();
+        return null;
+    }
+
+    private void readHead(JSONStreamReader in, Tape tape) throws IOException {
+        String color = null;
+        int line = 0;
+        int column = 0;
+
+        in.beginObject();
+        while(in.hasNext()){
+            switch (in.nextName()){
+                case "color":
+                    color = in.nextString();
+                    break;
+                case "line":
+                    line = in.nextInt();
+                    break;
+                case "column":
+                    column = in.nextInt();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        machine.addHead(tape, line, column);
+        int head = tape.getNbHeads() - 1;
+        layout.setHeadColor(tape, head, color);
+        if(color != null)
+            heads.put(color.toLowerCase(), new Pair<>(tape, head));
+    }
+
+    private void readCell(JSONStreamReader in, Tape tape) throws IOException {
+        String symbol = null;
+        int line = 0;
+        int column = 0;
+
+        in.beginObject();
+        while(in.hasNext()){
+            switch (in.nextName()){
+                case "symbol":
+                    symbol = in.nextString();
+                    break;
+                case "line":
+                    line = in.nextInt();
+                    break;
+                case "column":
+                    column = in.nextInt();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if(symbol != null && !getSymbolName(symbol).equals(BLANK_SYMBOL))
+            tape.writeInput(line, column, symbol);
+    }
+
+    private void readGraph(JSONStreamReader in) throws IOException {
+        in.beginObject();
+        while(in.hasNext()){
+            switch (in.nextName()){
+                case "states":
+                    in.beginArray();
+                    while(in.hasNext())
+                        readState(in);
+                    in.endArray();
+                    statesRead = true;
+                    break;
+                case "transitions":
+                    in.beginArray();
+                    while(in.hasNext()) {
+                        TransitionRecord record = readTransition(in);
+                        if(tapesRead && statesRead)
+                            addTransition(record);
+                        else
+                            pendingTransitions.add(record);
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private void readState(JSONStreamReader in) throws IOException {
+        double x = 0;
+        double y = 0;
+        String name = null;
+        boolean isInitial = false;
+        boolean isFinal = false;
+        boolean isAccepting = false;
+
+        in.beginObject();
+        while(in.hasNext()){
+            switch (in.nextName()){
+                case "x":
+                    x = in.nextDouble();
+                    break;
+                case "y":
+                    y = in.nextDouble();
+                    break;
+                case "name":
+                    name = in.nextString();
+                    break;
+                case "isInitial":
+                    isInitial = in.nextBoolean();
+                    break;
+                case "isFinal":
+                    isFinal = in.nextBoolean();
+                    break;
+                case "isAccepting":
+                    isAccepting = in.nextBoolean();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        int state = machine.addState(name);
+        layout.setStatePosition(state, x, y);
+        if(isInitial)
+            machine.setInitialState(state);
+        if(isFinal)
+            machine.setFinalState(state);
+        if(isAccepting)
+            machine.setAcceptingState(state);
+    }
+
+    private TransitionRecord readTransition(JSONStreamReader in) throws IOException {
+        TransitionRecord record = new TransitionRecord();
+
+        in.beginObject();
+        while(in.hasNext()){
+            switch (in.nextName()){
+                case "input":
+                    record.input = in.nextInt();
+                    break;
+                case "output":
+                    record.output = in.nextInt();
+                    break;
+                case "control1X":
+                    record.control1X = in.nextDouble();
+                    break;
+                case "control1Y":
+                    record.control1Y = in.nextDouble();
+                    break;
+                case "control2X":
+                    record.control2X = in.nextDouble();
+                    break;
+                case "control2Y":
+                    record.control2Y = in.nextDouble();
+                    break;
+                case "display":
+                    readDisplay(in, record);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return record;
+    }
+
+    private void readDisplay(JSONStreamReader in, TransitionRecord record) throws IOException {
+        in.beginObject();
+        while(in.hasNext()){
+            switch (in.nextName()){
+                case "readSymbols":
+                    in.beginArray();
+                    while(in.hasNext()){
+                        List<List<String>> symbolsByHead = new ArrayList<>();
+                        in.beginArray();
+                        while(in.hasNext()){
+                            List<String> symbols = new ArrayList<>();
+                            in.beginArray();
+                            while(in.hasNext())
+                                symbols.add(in.nextString());
+                            in.endArray();
+                            symbolsByHead.add(symbols);
+                        }
+                        in.endArray();
+                        record.readSymbols.add(symbolsByHead);
+                    }
+                    in.endArray();
+                    break;
+                case "actions":
+                    in.beginArray();
+                    while(in.hasNext()){
+                        String color = null;
+                        String actionSymbol = null;
+                        in.beginObject();
+                        while(in.hasNext()){
+                            switch (in.nextName()){
+                                case "color":
+                                    color = in.nextString();
+                                    break;
+                                case "actionSymbol":
+                                    actionSymbol = in.nextString();
+                                    break;
+                                default:
+                                    in.skipValue();
+                            }
+                        }
+                        in.endObject();
+                        record.actions.add(new Pair<>(color, actionSymbol));
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * Add the transition described by the given record to the machine.
+     * @param record
+     * @throws IOException if the record refers to a state, a tape or a head that does not exist.
+     */
+    private void addTransition(TransitionRecord record) throws IOException {
+        Transition transition = machine.addTransition(record.input, record.output);
+        if(transition == null)
+            throw new IOException("Invalid transition from " + record.input + " to " + record.output + ".");
+
+        layout.setTransitionControls(transition,
+                record.control1X, record.control1Y,
+                record.control2X, record.control2Y);
+
+        for(int tapeId = 0; tapeId < record.readSymbols.size(); tapeId++){
+            Tape tape = machine.getTape(tapeId);
+            if(tape == null)
+                throw new IOException("Invalid tape " + tapeId + ".");
+            List<List<String>> symbolsByHead = record.readSymbols.get(tapeId);
+            for(int head = 0; head < symbolsByHead.size(); head++)
+                for(String symbol : symbolsByHead.get(head))
+                    transition.addReadSymbols(tape, head,
+                            getSymbolName(symbol).equals(BLANK_SYMBOL) ? null : symbol);
+        }
+
+        for(Pair<String, String> pair : record.actions){
+            Pair<Tape, Integer> head = (pair.first == null) ? null : heads.get(pair.first.toLowerCase());
+            if(head == null || pair.second == null)
+                throw new IOException("Invalid action.");
+            transition.addAction(getAction(head.first, head.second, pair.second));
+        }
+    }
+
+    /**
+     * @param tape
+     * @param head
+     * @param actionSymbol
+     * @return the action associated with the given action symbol: a move action if the symbol is the name (or the
+     * arrow character) of a direction and a write action otherwise.
+     */
+    static Action getAction(Tape tape, int head, String actionSymbol){
+        switch (getSymbolName(actionSymbol)){
+            case LEFT_SYMBOL:
+                return new MoveAction(tape, head, Direction.LEFT);
+            case RIGHT_SYMBOL:
+                return new MoveAction(tape, head, Direction.RIGHT);
+            case UP_SYMBOL:
+                return new MoveAction(tape, head, Direction.UP);
+            case DOWN_SYMBOL:
+                return new MoveAction(tape, head, Direction.DOWN);
+            case BLANK_SYMBOL:
+                return new WriteAction(tape, head, null);
+            default:
+                return new WriteAction(tape, head, actionSymbol);
+        }
+    }
+
+    /**
+     * @param symbol
+     * @return the name of the given symbol if it is one of the characters drawn by the GUI for the BLANK symbol and
+     * for the move actions, the given symbol otherwise.
+     */
+    static String getSymbolName(String symbol){
+        switch (symbol){
+            case BLANK_CHARACTER:
+                return BLANK_SYMBOL;
+            case LEFT_CHARACTER:
+                return LEFT_SYMBOL;
+            case RIGHT_CHARACTER:
+                return RIGHT_SYMBOL;
+            case UP_CHARACTER:
+                return UP_SYMBOL;
+            case DOWN_CHARACTER:
+                return DOWN_SYMBOL;
+            default:
+                return symbol;
+        }
+    }
+
+    /**
+     * Description of a transition read in the file.
+     */
+    private static class TransitionRecord {
+        int input;
+        int output;
+        Double control1X;
+        Double control1Y;
+        Double control2X;
+        Double control2Y;
+
+        /**
+         * For each tape and each head, the list of read symbols.
+         */
+        List<List<List<String>>> readSymbols = new ArrayList<>();
+
+        /**
+         * List of pairs containing the color of a head and the action symbol.
+         */
+        List<Pair<String, String>> actions = new ArrayList<>();
+    }
+}
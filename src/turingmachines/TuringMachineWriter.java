@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package turingmachines;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * Class writing a Turing machine and its layout in a machine file (*.tm). See {@link TuringMachineReader} for a
+ * description of the format.
+ *
+ * The document is written token by token directly from the machine: no intermediate representation of the file is
+ * built in memory.
+ *
+ * @see TuringMachineReader
+ */
+public class TuringMachineWriter {
+
+    /**
+     * Keys of the coordinates of the control keys of a transition, in the order of
+     * {@link MachineLayout#getTransitionControls(Transition)}.
+     */
+    private static final String[] CONTROL_KEYS = {"control1X", "control1Y", "control2X", "control2Y"};
+
+    /**
+     * Written machine.
+     */
+    private TuringMachine machine;
+
+    /**
+     * Layout of the written machine.
+     */
+    private MachineLayout layout;
+
+    /**
+     * Build a writer writing the given machine with the given layout.
+     * @param machine
+     * @param layout
+     */
+    public TuringMachineWriter(TuringMachine machine, MachineLayout layout) {
+        this.machine = machine;
+        this.layout = layout;
+    }
+
+    /**
+     * Write the machine in the file with the given name. The file is overwritten if it already exists.
+     * @param filename
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(String filename) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(),
+                    TuringMachineReader.BUFFER_SIZE);
+            write(writer);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Write the machine with the given writer. The writer is flushed but not closed.
+     * @param writer
+     * @throws IOException if the writer cannot be written.
+     */
+    public void write(Writer writer) throws IOException {
+        layout.assignMissingHeadsColors(machine);
+
+        JSONStreamWriter out = new JSONStreamWriter(writer);
+        out.beginObject();
+
+        out.name("options");
+        writeOptions(out);
+
+        out.name("tapes");
+        writeTapes(out);
+
+        out.name("graph");
+        writeGraph(out);
+
+        out.endObject();
+        out.flush();
+    }
+
+    private void writeOptions(JSONStreamWriter out) throws IOException {
+        out.beginObject();
+        if(layout.getAnimationDuration() != null)
+            out.name("animationDuration").value(layout.getAnimationDuration());
+        out.name("maximumNonDeterministicSearch").value(machine.getMaximumNonDeterministicSearch());
+        out.name("maximumManualDeterministicExploration").value(machine.getMaximumManualDeterministicExploration());
+        out.endObject();
+    }
+
+    private void writeTapes(JSONStreamWriter out) throws IOException {
+        out.beginObject();
+
+        out.name("symbolsMenu").beginArray();
+        for(Iterator<String> it = machine.getSymbols(); it.hasNext();)
+            out.value(it.next());
+        out.endArray();
+
+        out.name("tapes").beginArray();
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();)
+            writeTape(out, it.next());
+        out.endArray();
+
+        out.endObject();
+    }
+
+    private void writeTape(JSONStreamWriter out, Tape tape) throws IOException {
+        out.beginObject();
+
+        writeBound(out, "leftBound", tape.getLeftBound());
+        writeBound(out, "rightBound", tape.getRightBound());
+        writeBound(out, "bottomBound", tape.getBottomBound());
+        writeBound(out, "topBound", tape.getTopBound());
+
+        out.name("heads").beginArray();
+        for(int head = 0; head < tape.getNbHeads(); head++){
+            out.beginObject()
+                    .name("color").value(layout.getHeadColor(tape, head))
+                    .name("line").value(tape.getInitialHeadLine(head))
+                    .name("column").value(tape.getInitialHeadColumn(head))
+                    .endObject();
+        }
+        out.endArray();
+
+        out.name("cells").beginArray();
+        IOException[] exception = new IOException[1];
+        tape.forEachInputCell((line, column, symbol) -> {
+            if(exception[0] != null)
+                return;
+            try {
+                out.beginObject()
+                        .name("symbol").value(symbol)
+                        .name("line").value(line)
+                        .name("column").value(column)
+                        .endObject();
+            } catch (IOException e) {
+                exception[0] = e;
+            }
+        });
+        if(exception[0] != null)
+            throw exception[0];
+        out.endArray();
+
+        out.endObject();
+    }
+
+    private void writeBound(JSONStreamWriter out, String name, Integer bound) throws IOException {
+        out.name(name);
+        if(bound == null)
+            out.value(TuringMachineReader.INFINITE_BOUND);
+        else
+            out.value(bound);
+    }
+
+    private void writeGraph(JSONStreamWriter out) throws IOException {
+        out.beginObject();
+
+        out.name("states").beginArray();
+        for(int state = 0; state < machine.getNbStates(); state++){
+            Double x = layout.getStateX(state);
+            Double y = layout.getStateY(state);
+            out.beginObject()
+                    .name("x").value(x == null ? 0 : x)
+                    .name("y").value(y == null ? 0 : y)
+                    .name("name").value(machine.getStateName(state))
+                    .name("isInitial").value(machine.isInitial(state))
+                    .name("isFinal").value(machine.isFinal(state))
+                    .name("isAccepting").value(machine.isAccepting(state))
+                    .endObject();
+        }
+        out.endArray();
+
+        out.name("transitions").beginArray();
+        for(int state = 0; state < machine.getNbStates(); state++)
+            for(Iterator<Transition> it = machine.getOutputTransitions(state); it.hasNext();)
+                writeTransition(out, it.next());
+        out.endArray();
+
+        out.endObject();
+    }
+
+    private void writeTransition(JSONStreamWriter out, Transition transition) throws IOException {
+        out.beginObject();
+        out.name("input").value(transition.getInput());
+        out.name("output").value(transition.getOutput());
+
+        // As when reading, each control key is optional.
+        Double[] controls = layout.getTransitionControls(transition);
+        if(controls != null)
+            for(int i = 0; i < CONTROL_KEYS.length; i++)
+                if(controls[i] != null)
+                    out.name(CONTROL_KEYS[i]).value(controls[i]);
+
+        out.name("display").beginObject();
+
+        out.name("readSymbols").beginArray();
+        for(Iterator<Tape> it = machine.getTapes(); it.hasNext();){
+            Tape tape = it.next();
+            out.beginArray();
+            for(int head = 0; head < tape.getNbHeads(); head++){
+                out.beginArray();
+                for(Iterator<String> it2 = transition.getReadSymbols(tape, head); it2.hasNext();){
+                    String symbol = it2.next();
+                    out.value(symbol == null ? TuringMachineReader.BLANK_SYMBOL : symbol);
+                }
+                out.endArray();
+            }
+            out.endArray();
+        }
+        out.endArray();
+
+        out.name("actions").beginArray();
+        for(Iterator<Action> it = transition.getActions(); it.hasNext();){
+            Action action = it.next();
+            out.beginObject()
+                    .name("color").value(layout.getHeadColor(action.getTape(), action.getHead()))
+                    .name("actionSymbol").value(getActionSymbol(action))
+                    .endObject();
+        }
+        out.endArray();
+
+        out.endObject();
+        out.endObject();
+    }
+
+    /**
+     * @param action
+     * @return the name of the given action in a file.
+     * @see TuringMachineReader#getAction(Tape, int, String)
+     */
+    private static String getActionSymbol(Action action){
+        if(action.getType() == ActionType.MOVE){
+            switch ((Direction) action.value()){
+                case LEFT:
+                    return TuringMachineReader.LEFT_SYMBOL;
+                case RIGHT:
+                    return TuringMachineReader.RIGHT_SYMBOL;
+                case UP:
+                    return TuringMachineReader.UP_SYMBOL;
+                default:
+                    return TuringMachineReader.DOWN_SYMBOL;
+            }
+        }
+        String symbol = (String) action.value();
+        return symbol == null ? TuringMachineReader.BLANK_SYMBOL : symbol;
+    }
+}
@@ -34,12 +34,12 @@ public class WriteAction extends Action{
     }
 
     @Override
-    ActionType getType() {
+    public ActionType getType() {
         return ActionType.WRITE;
     }
 
     @Override
-    Object value() {
+    public Object value() {
         return symbol;
     }
 }
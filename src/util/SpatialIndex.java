@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018 Dimitri Watel
+ */
+
+package util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spatial index of rectangles in the plane.
+ *
+ * The plane is divided into square buckets of the same size. Each element is registered, with its bounding rectangle,
+ * in every bucket intersecting that rectangle. Looking for the elements intersecting a rectangle then only visits
+ * the buckets intersecting that rectangle, whatever the number of elements of the index. Contrary to a quadtree,
+ * the index does not need to know the bounds of the plane in advance, which suits a graph that can be extended in any
+ * direction.
+ *
+ * @param <T> type of the indexed elements
+ */
+public class SpatialIndex<T> {
+
+    /**
+     * Width of the buckets.
+     */
+    private final double bucketWidth;
+
+    /**
+     * For each non empty bucket, the elements registered in that bucket. The key of a bucket is given by
+     * {@link #key(int, int)}.
+     */
+    private final Map<Long, Set<T>> buckets;
+
+    /**
+     * For each element, the bounding rectangle of that element: {minX, minY, maxX, maxY}.
+     */
+    private final Map<T, double[]> bounds;
+
+    /**
+     * @param bucketWidth width of the buckets, it should be of the order of the size of the elements.
+     */
+    public SpatialIndex(double bucketWidth) {
+        this.bucketWidth = bucketWidth;
+        this.buckets = new HashMap<>();
+        this.bounds = new HashMap<>();
+    }
+
+    private static long key(int bucketX, int bucketY){
+        return ((long) bucketX << 32) | (bucketY & 0xFFFFFFFFL);
+    }
+
+    private int bucket(double value){
+        return (int) Math.floor(value / bucketWidth);
+    }
+
+    /**
+     * Register the given element with the given bounding rectangle. If the element is already registered, its
+     * rectangle is replaced.
+     * @param element
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     */
+    public void put(T element, double minX, double minY, double maxX, double maxY){
+        remove(element);
+        bounds.put(element, new double[]{minX, minY, maxX, maxY});
+
+        for(int bucketX = bucket(minX); bucketX <= bucket(maxX); bucketX++)
+            for(int bucketY = bucket(minY); bucketY <= bucket(maxY); bucketY++)
+                buckets.computeIfAbsent(key(bucketX, bucketY), k -> new HashSet<>()).add(element);
+    }
+
+    /**
+     * Unregister the given element. Do nothing if the element is not registered.
+     * @param element
+     */
+    public void remove(T element){
+        double[] rectangle = bounds.remove(element);
+        if(rectangle == null)
+            return;
+
+        for(int bucketX = bucket(rectangle[0]); bucketX <= bucket(rectangle[2]); bucketX++)
+            for(int bucketY = bucket(rectangle[1]); bucketY <= bucket(rectangle[3]); bucketY++) {
+                long key = key(bucketX, bucketY);
+                Set<T> bucket = buckets.get(key);
+                bucket.remove(element);
+                if(bucket.isEmpty())
+                    buckets.remove(key);
+            }
+    }
+
+    /**
+     * @param element
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @return true if the given element is registered and if its rectangle intersects the given rectangle.
+     */
+    public boolean intersects(T element, double minX, double minY, double maxX, double maxY){
+        double[] rectangle = bounds.get(element);
+        return rectangle != null && intersects(rectangle, minX, minY, maxX, maxY);
+    }
+
+    private static boolean intersects(double[] rectangle, double minX, double minY, double maxX, double maxY){
+        return rectangle[0] <= maxX && rectangle[2] >= minX && rectangle[1] <= maxY && rectangle[3] >= minY;
+    }
+
+    /**
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @return the elements whose rectangle intersects the given rectangle.
+     */
+    public Set<T> query(double minX, double minY, double maxX, double maxY){
+        Set<T> elements = new HashSet<>();
+
+        long nbBuckets = ((long) bucket(maxX) - bucket(minX) + 1) * ((long) bucket(maxY) - bucket(minY) + 1);
+
+        // If the rectangle covers more buckets than there are non empty buckets, it is faster to check every element.
+        if(nbBuckets > buckets.size()){
+            for(Map.Entry<T, double[]> entry : bounds.entrySet())
+                if(intersects(entry.getValue(), minX, minY, maxX, maxY))
+                    elements.add(entry.getKey());
+            return elements;
+        }
+
+        for(int bucketX = bucket(minX); bucketX <= bucket(maxX); bucketX++)
+            for(int bucketY = bucket(minY); bucketY <= bucket(maxY); bucketY++) {
+                Set<T> bucket = buckets.get(key(bucketX, bucketY));
+                if(bucket == null)
+                    continue;
+                for(T element : bucket)
+                    if(intersects(bounds.get(element), minX, minY, maxX, maxY))
+                        elements.add(element);
+            }
+        return elements;
+    }
+
+    public int size(){
+        return bounds.size();
+    }
+
+    public void clear(){
+        buckets.clear();
+        bounds.clear();
+    }
+}